@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.event;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Registry of listeners notified of coalesced events.
+ * <p>
+ * The registry is itself fed the events as a listener. Events with a
+ * coalescing key are held for a short window, during which a later event with
+ * the same key supersedes the held one; events without a key flush the held
+ * events and are then passed on as is. Listeners are notified on the given
+ * executor, in the order the surviving events were received, rather than on
+ * the thread feeding the events.
+ * </p>
+ *
+ * @param <E> type of events
+ * @param <L> type of listeners
+ */
+public class CoalescingListenerRegistry<E extends Event, L extends EventListener<E>>
+        extends ListenerRegistry<E, L> implements EventListener<E> {
+
+    private final Function<E, Object> coalescingKey;
+    private final long windowMillis;
+    private final ScheduledExecutorService executor;
+
+    // Held events, by coalescing key, in order of arrival
+    private final Map<Object, E> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    /**
+     * Creates a coalescing listener registry.
+     *
+     * @param coalescingKey function returning the key of the events that
+     *                      supersede each other; null for events that are
+     *                      not to be coalesced
+     * @param windowMillis  time for which events are held, in milliseconds
+     * @param executor      single-threaded executor notifying the listeners
+     */
+    public CoalescingListenerRegistry(Function<E, Object> coalescingKey, long windowMillis,
+                                      ScheduledExecutorService executor) {
+        checkArgument(windowMillis > 0, "Window must be positive");
+        this.coalescingKey = checkNotNull(coalescingKey, "Coalescing key function cannot be null");
+        this.windowMillis = windowMillis;
+        this.executor = checkNotNull(executor, "Executor cannot be null");
+    }
+
+    /**
+     * Indicates whether the specified listener is registered.
+     *
+     * @param listener listener
+     * @return true if the listener is registered
+     */
+    public boolean contains(L listener) {
+        return listeners.contains(listener);
+    }
+
+    @Override
+    public boolean isRelevant(E event) {
+        return !listeners.isEmpty();
+    }
+
+    @Override
+    public void event(E event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Object key = coalescingKey.apply(event);
+        synchronized (this) {
+            if (key != null) {
+                // Move the superseding event to the end of the line
+                pending.remove(key);
+                pending.put(key, event);
+                if (!flushScheduled) {
+                    flushScheduled = true;
+                    executor.schedule(this::flush, windowMillis, MILLISECONDS);
+                }
+            } else {
+                List<E> events = drain();
+                events.add(event);
+                deliver(events);
+            }
+        }
+    }
+
+    private synchronized void flush() {
+        flushScheduled = false;
+        deliver(drain());
+    }
+
+    private List<E> drain() {
+        List<E> events = new ArrayList<>(pending.values());
+        pending.clear();
+        return events;
+    }
+
+    // Must be called while synchronized, so that the events are notified in
+    // the order they were drained
+    private void deliver(List<E> events) {
+        if (!events.isEmpty()) {
+            executor.execute(() -> events.forEach(super::process));
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.onosproject.net.behaviour;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
@@ -61,6 +62,24 @@ public interface Pipeliner extends HandlerBehaviour {
      */
     void forward(ForwardingObjective forwardObjective);
 
+    /**
+     * Installs the forwarding rules of a batch of consecutive forwarding
+     * objectives onto the device. Pipeliners may override it to install the
+     * rules of the whole batch at once; by default, each objective is
+     * installed on its own.
+     * <p>
+     * The objectives submitted after the batch are not passed down until the
+     * returned future completes, so that they cannot overtake the rules of
+     * the batch.
+     *
+     * @param forwardObjectives forwarding objectives, in submission order
+     * @return future completed once the rules of the whole batch are processed
+     */
+    default CompletableFuture<Void> forward(List<ForwardingObjective> forwardObjectives) {
+        forwardObjectives.forEach(this::forward);
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Installs the next hop elements into the device.
      *
@@ -195,4 +195,17 @@ public interface DeviceService
      */
     long getLastUpdatedInstant(DeviceId deviceId);
 
+    /**
+     * Adds the specified device listener in coalesced mode: port update and
+     * port statistics update events that are superseded within a short window
+     * by a later event of the same type for the same device and port are not
+     * delivered to it. Coalesced listeners are notified apart from the event
+     * dispatch thread, and are removed through {@link #removeListener}.
+     *
+     * @param listener listener to be added
+     */
+    default void addCoalescedListener(DeviceListener listener) {
+        addListener(listener);
+    }
+
 }
@@ -184,6 +184,11 @@ public class DefaultFlowEntry extends DefaultFlowRule
         this.lastSeen = System.currentTimeMillis();
     }
 
+    @Override
+    public void setLastSeen(long lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
     @Override
     public void setState(FlowEntryState newState) {
         this.state = newState;
@@ -25,6 +25,13 @@ public interface StoredFlowEntry extends FlowEntry {
      */
     void setLastSeen();
 
+    /**
+     * Sets the last active epoch time.
+     *
+     * @param lastSeen the last active epoch time in milliseconds
+     */
+    void setLastSeen(long lastSeen);
+
     /**
      * Sets the new state for this entry.
      * @param newState new flow entry state.
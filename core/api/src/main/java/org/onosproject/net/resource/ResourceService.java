@@ -19,9 +19,13 @@ import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableList;
 import org.onosproject.event.ListenerService;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -81,6 +85,35 @@ public interface ResourceService extends ResourceQueryService, ListenerService<R
         return allocate(consumer, Arrays.asList(resources));
     }
 
+    /**
+     * Allocates the specified resources to their consumers, which may differ.
+     * All allocations are made when this method succeeds, or no allocation is made when this method fails.
+     *
+     * @param allocations resource allocations to be made
+     * @return true if succeeded, otherwise false
+     */
+    default boolean allocate(List<ResourceAllocation> allocations) {
+        checkNotNull(allocations);
+
+        // the order is preserved by LinkedHashMap
+        Map<ResourceConsumerId, List<Resource>> requests = allocations.stream()
+                .collect(Collectors.groupingBy(ResourceAllocation::consumerId, LinkedHashMap::new,
+                                               Collectors.mapping(ResourceAllocation::resource,
+                                                                  Collectors.toList())));
+        List<ResourceAllocation> allocated = new ArrayList<>();
+        for (Map.Entry<ResourceConsumerId, List<Resource>> request : requests.entrySet()) {
+            ResourceConsumer consumer = request::getKey;
+            List<ResourceAllocation> result = allocate(consumer, request.getValue());
+            if (result.isEmpty()) {
+                // roll back the allocations made so far
+                release(allocated);
+                return false;
+            }
+            allocated.addAll(result);
+        }
+        return true;
+    }
+
     /**
      * Releases the specified resource allocation.
      *
@@ -21,6 +21,7 @@ import org.onosproject.store.Store;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service for storing resource and consumer information.
@@ -62,6 +63,18 @@ public interface ResourceStore extends Store<ResourceEvent, ResourceStoreDelegat
      */
     boolean allocate(List<? extends Resource> resources, ResourceConsumer consumer);
 
+    /**
+     * Allocates the specified resources to their consumers, which may differ.
+     * The allocations are made in one transaction per partition of the resources,
+     * and the partitions already allocated are released when a later one fails.
+     * The state after completion of this method is all the resources are allocated
+     * to their consumers, or no resource is allocated.
+     *
+     * @param allocations allocations to be made
+     * @return true if the allocation succeeds, false otherwise
+     */
+    boolean allocate(List<ResourceAllocation> allocations);
+
     /**
      * Releases the specified allocated resources in transactional way.
      * The state after completion of this method is all the resources
@@ -122,6 +135,22 @@ public interface ResourceStore extends Store<ResourceEvent, ResourceStoreDelegat
      */
     <T> Set<Resource> getChildResources(DiscreteResourceId parent, Class<T> cls);
 
+    /**
+     * Returns a set of the child resources of the specified parent, whose type is
+     * the specified class and which are available.
+     *
+     * @param parent ID of the parent of the resources to be returned
+     * @param cls class instance of the children
+     * @param <T> type of the resource
+     * @return a set of the available child resources of the specified parent and whose
+     * type is the specified class
+     */
+    default <T> Set<Resource> getAvailableResources(DiscreteResourceId parent, Class<T> cls) {
+        return getChildResources(parent, cls).stream()
+                .filter(this::isAvailable)
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Returns a collection of the resources which are children of the specified parent and
      * whose type is the specified class.
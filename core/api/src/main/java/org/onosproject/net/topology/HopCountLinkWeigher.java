@@ -21,6 +21,8 @@ import static org.onosproject.net.Link.Type.INDIRECT;
 import org.onlab.graph.ScalarWeight;
 import org.onlab.graph.Weight;
 
+import java.util.Objects;
+
 /**
  * Link weight for measuring link cost as hop count with indirect links
  * being as expensive as traversing the entire graph to assume the worst.
@@ -70,4 +72,21 @@ public class HopCountLinkWeigher implements LinkWeigher {
         return ScalarWeight.NON_VIABLE_WEIGHT;
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass(), indirectLinkCost);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj != null && getClass() == obj.getClass()) {
+            HopCountLinkWeigher other = (HopCountLinkWeigher) obj;
+            return Objects.equals(indirectLinkCost, other.indirectLinkCost);
+        }
+        return false;
+    }
+
 }
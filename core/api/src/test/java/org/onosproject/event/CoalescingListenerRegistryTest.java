@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.event;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the coalescing listener registry.
+ */
+public class CoalescingListenerRegistryTest {
+
+    private static final TestEvent FOO_A1 = new TestEvent(TestEvent.Type.FOO, "a", 1);
+    private static final TestEvent FOO_A2 = new TestEvent(TestEvent.Type.FOO, "a", 2);
+    private static final TestEvent FOO_B = new TestEvent(TestEvent.Type.FOO, "b", 3);
+    private static final TestEvent BAR_A = new TestEvent(TestEvent.Type.BAR, "a", 4);
+
+    private ScheduledExecutorService executor;
+    private LatchListener listener;
+
+    @Before
+    public void setUp() {
+        executor = newSingleThreadScheduledExecutor();
+        listener = new LatchListener();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Coalesces FOO events by subject.
+    private CoalescingListenerRegistry<TestEvent, LatchListener> registry(long windowMillis) {
+        return new CoalescingListenerRegistry<>(
+                event -> event.type() == TestEvent.Type.FOO ? event.subject() : null,
+                windowMillis, executor);
+    }
+
+    @Test
+    public void supersededEvents() throws Exception {
+        CoalescingListenerRegistry<TestEvent, LatchListener> registry = registry(50);
+        registry.addListener(listener);
+        listener.latch = new CountDownLatch(2);
+
+        registry.event(FOO_A1);
+        registry.event(FOO_B);
+        registry.event(FOO_A2);
+
+        assertTrue(listener.latch.await(1, TimeUnit.SECONDS));
+        assertEquals(ImmutableList.of(FOO_B, FOO_A2), listener.events);
+    }
+
+    @Test
+    public void uncoalescedEventFlushesHeldEvents() throws Exception {
+        CoalescingListenerRegistry<TestEvent, LatchListener> registry = registry(60_000);
+        registry.addListener(listener);
+        listener.latch = new CountDownLatch(2);
+
+        registry.event(FOO_A1);
+        registry.event(BAR_A);
+
+        assertTrue(listener.latch.await(1, TimeUnit.SECONDS));
+        assertEquals(ImmutableList.of(FOO_A1, BAR_A), listener.events);
+    }
+
+    @Test
+    public void noListeners() throws Exception {
+        CoalescingListenerRegistry<TestEvent, LatchListener> registry = registry(60_000);
+        assertFalse(registry.isRelevant(FOO_A1));
+        registry.event(FOO_A1);
+
+        registry.addListener(listener);
+        assertTrue(registry.contains(listener));
+        assertTrue(registry.isRelevant(FOO_A1));
+        listener.latch = new CountDownLatch(1);
+        registry.event(BAR_A);
+
+        assertTrue(listener.latch.await(1, TimeUnit.SECONDS));
+        assertEquals(ImmutableList.of(BAR_A), listener.events);
+
+        registry.removeListener(listener);
+        assertFalse(registry.contains(listener));
+    }
+
+    private static class LatchListener implements EventListener<TestEvent> {
+        final List<TestEvent> events = new CopyOnWriteArrayList<>();
+        CountDownLatch latch;
+
+        @Override
+        public void event(TestEvent event) {
+            events.add(event);
+            latch.countDown();
+        }
+    }
+}
@@ -27,6 +27,11 @@ public class StoredFlowEntryAdapter extends FlowEntryAdapter implements StoredFl
 
     }
 
+    @Override
+    public void setLastSeen(long lastSeen) {
+
+    }
+
     @Override
     public void setState(FlowEntryState newState) {
 
@@ -18,10 +18,14 @@ package org.onosproject.common;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSetMultimap.Builder;
+import org.onlab.graph.CompactDijkstraGraphSearch;
+import org.onlab.graph.CompactGraph;
 import org.onlab.graph.DefaultEdgeWeigher;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.DisjointPathPair;
@@ -59,10 +63,19 @@ import org.onosproject.net.topology.TopologyVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -86,12 +99,32 @@ public class DefaultTopology extends AbstractModel implements Topology {
             new DijkstraGraphSearch<>();
     private static final TarjanGraphSearch<TopologyVertex, TopologyEdge> TARJAN =
             new TarjanGraphSearch<>();
+    private static final CompactDijkstraGraphSearch<TopologyVertex, TopologyEdge> COMPACT_DIJKSTRA =
+            new CompactDijkstraGraphSearch<>();
     private static final SuurballeGraphSearch<TopologyVertex, TopologyEdge> SUURBALLE =
-            new SuurballeGraphSearch<>();
+            new SuurballeGraphSearch<>(COMPACT_DIJKSTRA);
     private static final KShortestPathsSearch<TopologyVertex, TopologyEdge> KSHORTEST =
             new KShortestPathsSearch<>();
     private static final LazyKShortestPathsSearch<TopologyVertex, TopologyEdge> LAZY_KSHORTEST =
             new LazyKShortestPathsSearch<>();
+    private static final LinkWeigher NO_INDIRECT_LINKS_WEIGHER = new NoIndirectLinksWeigher();
+
+    // Order of the parent edges when picking the one of a broadcast tree.
+    private static final Comparator<TopologyEdge> PARENT_ORDER =
+            Comparator.comparing((TopologyEdge edge) -> edge.src().deviceId().toString())
+                    .thenComparingLong(edge -> edge.link().src().port().toLong());
+
+    // Maximum number of cluster merges searched before falling back to a
+    // full cluster search
+    private static final int MAX_MERGE_SEARCHES = 64;
+
+    // Maximum number of vertexes held by the cached shortest-path trees of
+    // a topology
+    private static final long MAX_CACHED_TREE_VERTEXES = 1_000_000;
+
+    private static final LongAdder SHORTEST_PATH_TREE_HITS = new LongAdder();
+    private static final LongAdder SHORTEST_PATH_TREE_MISSES = new LongAdder();
+    private static final LongAdder FULL_CLUSTER_SEARCHES = new LongAdder();
 
 
     private static int defaultMaxPaths = ALL_PATHS;
@@ -105,12 +138,23 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private final LinkWeigher hopCountWeigher;
 
-    private final Supplier<SccResult<TopologyVertex, TopologyEdge>> clusterResults;
+    private final Supplier<ClusterResults> clusterResults;
     private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
+    private final Supplier<CompactGraph<TopologyVertex, TopologyEdge>> compactGraph;
+
+    // Indicates whether the clusters were computed already
+    private volatile boolean clustersComputed;
+
+    // Shortest-path trees computed so far, by source and link weigher
+    private final Cache<TreeKey, Result<TopologyVertex, TopologyEdge>> shortestPathTrees =
+            CacheBuilder.newBuilder()
+                    .maximumWeight(MAX_CACHED_TREE_VERTEXES)
+                    .weigher((TreeKey key, Result<TopologyVertex, TopologyEdge> tree) -> deviceCount())
+                    .build();
 
     /**
      * Sets the default maximum path count to be used when computing paths. If
@@ -149,6 +193,32 @@ public class DefaultTopology extends AbstractModel implements Topology {
     }
 
 
+    /**
+     * Returns the number of path computations answered from a cached
+     * shortest-path tree, across all topologies.
+     *
+     * @return shortest-path tree cache hits
+     */
+    public static long shortestPathTreeHits() {
+        return SHORTEST_PATH_TREE_HITS.sum();
+    }
+
+    /**
+     * Returns the number of path computations that had to search for a new
+     * shortest-path tree, across all topologies.
+     *
+     * @return shortest-path tree cache misses
+     */
+    public static long shortestPathTreeMisses() {
+        return SHORTEST_PATH_TREE_MISSES.sum();
+    }
+
+    // Returns the number of cluster searches over the whole graph, across
+    // all topologies.
+    static long fullClusterSearches() {
+        return FULL_CLUSTER_SEARCHES.sum();
+    }
+
     /**
      * Creates a topology descriptor attributed to the specified provider.
      *
@@ -158,6 +228,26 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving its clusters, broadcast sets and infrastructure points from
+     * those of the previous topology. Only the clusters affected by the
+     * devices and links added or removed since the previous topology are
+     * searched again; all others are carried over as they are. As the
+     * clusters, they are only derived once first needed, and only from a
+     * previous topology whose clusters were computed already.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute from scratch
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -167,14 +257,32 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                                               description.edges());
 
-        this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        // Never derive from a topology which is itself still to be derived,
+        // so that topologies do not chain up
+        DefaultTopology base = previous != null && previous.clustersComputed ? previous : null;
+        Supplier<IncrementalResults> incremental =
+                Suppliers.memoize(() -> base != null ? updateClusters(base) : null);
+        this.clusterResults = Suppliers.memoize(() -> {
+            IncrementalResults results = incremental.get();
+            ClusterResults found = results != null ? results.clusterResults : searchForClusters();
+            clustersComputed = true;
+            return found;
+        });
+        this.infrastructurePoints = Suppliers.memoize(() -> {
+            IncrementalResults results = incremental.get();
+            return results != null ? results.infrastructurePoints : findInfrastructurePoints();
+        });
+
         this.clusters = Suppliers.memoize(this::buildTopologyClusters);
 
         this.clusterIndexes = Suppliers.memoize(this::buildIndexes);
+        this.compactGraph = Suppliers.memoize(() -> CompactGraph.of(graph));
 
         this.hopCountWeigher = new HopCountLinkWeigher(graph.getVertexes().size());
-        this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
-        this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
+        this.broadcastSets = Suppliers.memoize(() -> {
+            IncrementalResults results = incremental.get();
+            return buildBroadcastSets(results != null ? results.broadcastSets : ImmutableMap.of());
+        });
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
 
@@ -380,6 +488,12 @@ public class DefaultTopology extends AbstractModel implements Topology {
      * {@code maxPaths} a subset of paths of that length will be returned,
      * which paths will be returned depends on the currently specified
      * {@code GraphPathSearch}. See {@link #setDefaultGraphPathSearch}.
+     * <p>
+     * With the builtin default Dijkstra search and the default or a hop-count
+     * link weigher, the shortest-path tree from the source is cached for the lifetime of
+     * this topology so that paths from the same source to other destinations
+     * are simply read off it. Other weighers, typically built anew for each
+     * request, are searched only up to the destination.
      *
      * @param src      source device
      * @param dst      destination device
@@ -397,10 +511,16 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
-        GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
-                graphPathSearch().search(graph, srcV, dstV, weigher, maxPaths);
+        Set<org.onlab.graph.Path<TopologyVertex, TopologyEdge>> paths;
+        if (graphPathSearch() == DIJKSTRA && isShared(weigher)) {
+            paths = COMPACT_DIJKSTRA.buildPaths(shortestPathTree(srcV, weigher), dstV, maxPaths);
+        } else if (graphPathSearch() == DIJKSTRA) {
+            paths = COMPACT_DIJKSTRA.search(compactGraph.get(), srcV, dstV, weigher, maxPaths).paths();
+        } else {
+            paths = graphPathSearch().search(graph, srcV, dstV, weigher, maxPaths).paths();
+        }
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
-        for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : result.paths()) {
+        for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : paths) {
             builder.add(networkPath(path));
         }
         return builder.build();
@@ -618,6 +738,31 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return getDisjointPaths(src, dst, linkWeight(), riskProfile);
     }
 
+    // Indicates whether the given weigher is one shared by many path
+    // requests, and so worth caching shortest-path trees for. Hop-count
+    // weighers are equal by their indirect link cost, so the instances
+    // built by the path services share the same trees.
+    private boolean isShared(LinkWeigher weigher) {
+        return weigher == null || weigher.getClass() == HopCountLinkWeigher.class ||
+                weigher == defaultLinkWeigher;
+    }
+
+    // Returns the tree of all shortest paths from the given source, searching
+    // for it only if not cached yet.
+    private Result<TopologyVertex, TopologyEdge> shortestPathTree(TopologyVertex src,
+                                                                  LinkWeigher weigher) {
+        TreeKey key = new TreeKey(src, weigher);
+        Result<TopologyVertex, TopologyEdge> tree = shortestPathTrees.getIfPresent(key);
+        if (tree != null) {
+            SHORTEST_PATH_TREE_HITS.increment();
+            return tree;
+        }
+        SHORTEST_PATH_TREE_MISSES.increment();
+        tree = COMPACT_DIJKSTRA.searchTree(compactGraph.get(), src, weigher);
+        shortestPathTrees.put(key, tree);
+        return tree;
+    }
+
     // Converts graph path to a network path with the same cost.
     private Path networkPath(org.onlab.graph.Path<TopologyVertex, TopologyEdge> path) {
         List<Link> links = path.edges().stream().map(TopologyEdge::link)
@@ -640,23 +785,267 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
-    private SccResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeigher());
+    private ClusterResults searchForClusters() {
+        FULL_CLUSTER_SEARCHES.increment();
+        SccResult<TopologyVertex, TopologyEdge> results =
+                TARJAN.search(graph, NO_INDIRECT_LINKS_WEIGHER);
+        return new ClusterResults(results.clusterVertexes(), results.clusterEdges());
+    }
+
+    // Derives the clusters and infrastructure points from those of the
+    // previous topology. Returns null if the changes affect too large a part
+    // of the graph for this to be worthwhile.
+    private IncrementalResults updateClusters(DefaultTopology previous) {
+        TopologyGraph oldGraph = previous.graph;
+        ClusterResults oldResults = previous.clusterResults.get();
+        Set<TopologyVertex> oldVertexes = oldGraph.getVertexes();
+        Set<TopologyVertex> newVertexes = graph.getVertexes();
+
+        // Find the edges added and removed, considering edges whose link
+        // changed state as both removed and added.
+        List<TopologyEdge> addedEdges = new ArrayList<>();
+        List<TopologyEdge> removedEdges = new ArrayList<>();
+        for (TopologyEdge edge : graph.getEdges()) {
+            TopologyEdge oldEdge = findEdge(oldGraph, edge);
+            if (oldEdge == null) {
+                addedEdges.add(edge);
+            } else if (oldEdge.link().state() != edge.link().state()) {
+                addedEdges.add(edge);
+                removedEdges.add(oldEdge);
+            }
+        }
+        for (TopologyEdge edge : oldGraph.getEdges()) {
+            if (findEdge(graph, edge) == null) {
+                removedEdges.add(edge);
+            }
+        }
+
+        // Clusters which lost a device may have split apart, and so may those
+        // which lost a viable edge between two of their own devices unless
+        // the edge destination is still reachable from its source within the
+        // cluster. Clusters which only changed edges keep their devices but
+        // not their broadcast sets.
+        Set<Integer> affected = new HashSet<>();
+        Set<Integer> changed = new HashSet<>();
+        oldVertexes.stream().filter(v -> !newVertexes.contains(v))
+                .forEach(v -> addCluster(previous, v, affected));
+        for (TopologyEdge edge : removedEdges) {
+            Integer cluster = clusterIndex(previous, edge.src());
+            if (!isViable(edge) || cluster == null || !cluster.equals(clusterIndex(previous, edge.dst())) ||
+                    affected.contains(cluster)) {
+                continue;
+            }
+            if (reaches(edge.src(), edge.dst(), oldResults.clusterVertexes.get(cluster)::contains)) {
+                changed.add(cluster);
+            } else {
+                affected.add(cluster);
+            }
+        }
+
+        // Viable edges added within a cluster may only shorten its broadcast
+        // tree, whereas those added across clusters may merge all clusters
+        // along a cycle going through them.
+        List<TopologyEdge> merges = new ArrayList<>();
+        for (TopologyEdge edge : addedEdges) {
+            if (!isViable(edge)) {
+                continue;
+            }
+            Integer cluster = clusterIndex(previous, edge.src());
+            if (cluster != null && cluster.equals(clusterIndex(previous, edge.dst()))) {
+                changed.add(cluster);
+            } else {
+                merges.add(edge);
+            }
+        }
+        if (merges.size() > MAX_MERGE_SEARCHES) {
+            return null;
+        }
+        merges.forEach(edge -> findCycle(edge).forEach(v -> addCluster(previous, v, affected)));
+
+        // Gather the devices to search for clusters: those of the affected
+        // clusters and all new devices.
+        Set<TopologyVertex> vertexes = new HashSet<>();
+        newVertexes.stream().filter(v -> !oldVertexes.contains(v)).forEach(vertexes::add);
+        affected.forEach(i -> oldResults.clusterVertexes.get(i).stream()
+                .filter(newVertexes::contains).forEach(vertexes::add));
+        if (vertexes.size() > newVertexes.size() / 2) {
+            return null;
+        }
+
+        // Carry over the clusters left untouched, and the broadcast sets of
+        // those whose edges did not change either, then search for clusters
+        // among the remaining devices.
+        List<Set<TopologyVertex>> clusterVertexes = new ArrayList<>();
+        List<Set<TopologyEdge>> clusterEdges = new ArrayList<>();
+        Map<ClusterId, Set<ConnectPoint>> broadcastPoints = new HashMap<>();
+        for (int i = 0, n = oldResults.clusterVertexes.size(); i < n; i++) {
+            if (!affected.contains(i)) {
+                Set<TopologyVertex> vertexSet = oldResults.clusterVertexes.get(i);
+                if (!changed.contains(i)) {
+                    broadcastPoints.put(ClusterId.clusterId(clusterVertexes.size()),
+                                        previous.broadcastPoints(ClusterId.clusterId(i)));
+                }
+                clusterVertexes.add(vertexSet);
+                clusterEdges.add(findClusterEdges(vertexSet));
+            }
+        }
+        SccResult<TopologyVertex, TopologyEdge> results =
+                TARJAN.search(new DefaultTopologyGraph(vertexes, findClusterEdges(vertexes)),
+                              NO_INDIRECT_LINKS_WEIGHER);
+        for (Set<TopologyVertex> vertexSet : results.clusterVertexes()) {
+            clusterVertexes.add(vertexSet);
+            clusterEdges.add(findClusterEdges(vertexSet));
+        }
+
+        return new IncrementalResults(new ClusterResults(clusterVertexes, clusterEdges),
+                                      updateInfrastructurePoints(previous, addedEdges, removedEdges),
+                                      broadcastPoints);
+    }
+
+    // Returns the edge of the given graph carrying the same link as the
+    // specified edge, or null if there is none.
+    private static TopologyEdge findEdge(TopologyGraph graph, TopologyEdge edge) {
+        for (TopologyEdge candidate : graph.getEdgesFrom(edge.src())) {
+            if (candidate.equals(edge)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isViable(TopologyEdge edge) {
+        return NO_INDIRECT_LINKS_WEIGHER.weight(edge).isViable();
+    }
+
+    // Returns the index of the cluster of the previous topology holding the
+    // given vertex, or null if the vertex is new.
+    private static Integer clusterIndex(DefaultTopology previous, TopologyVertex vertex) {
+        TopologyCluster cluster = previous.clustersByDevice().get(vertex.deviceId());
+        return cluster != null ? cluster.id().index() : null;
+    }
+
+    private static void addCluster(DefaultTopology previous, TopologyVertex vertex,
+                                   Set<Integer> affected) {
+        Integer cluster = clusterIndex(previous, vertex);
+        if (cluster != null) {
+            affected.add(cluster);
+        }
+    }
+
+    // Finds the vertexes lying on a cycle going through the given edge, i.e.
+    // those reachable from the edge destination which can reach its source.
+    private Set<TopologyVertex> findCycle(TopologyEdge edge) {
+        Set<TopologyVertex> reachable = new HashSet<>();
+        search(edge.dst(), reachable, v -> graph.getEdgesFrom(v), TopologyEdge::dst, v -> true);
+        if (!reachable.contains(edge.src())) {
+            return ImmutableSet.of();
+        }
+        // Vertexes on a path to the source are all reachable from the
+        // destination, so the backward search can stay within those.
+        Set<TopologyVertex> cycle = new HashSet<>();
+        search(edge.src(), cycle, v -> graph.getEdgesTo(v), TopologyEdge::src, reachable::contains);
+        return cycle;
+    }
+
+    // Indicates whether the destination is reachable from the source over
+    // viable edges going through allowed vertexes only.
+    private boolean reaches(TopologyVertex src, TopologyVertex dst, Predicate<TopologyVertex> allowed) {
+        Set<TopologyVertex> visited = new HashSet<>();
+        Deque<TopologyVertex> pending = new ArrayDeque<>();
+        visited.add(src);
+        pending.add(src);
+        while (!pending.isEmpty()) {
+            for (TopologyEdge edge : graph.getEdgesFrom(pending.poll())) {
+                TopologyVertex vertex = edge.dst();
+                if (isViable(edge) && allowed.test(vertex) && visited.add(vertex)) {
+                    if (vertex.equals(dst)) {
+                        return true;
+                    }
+                    pending.add(vertex);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Collects the vertexes reachable from the given one over viable edges.
+    private static void search(TopologyVertex start, Set<TopologyVertex> visited,
+                               Function<TopologyVertex, Set<TopologyEdge>> edges,
+                               Function<TopologyEdge, TopologyVertex> next,
+                               Predicate<TopologyVertex> allowed) {
+        Deque<TopologyVertex> pending = new ArrayDeque<>();
+        visited.add(start);
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            for (TopologyEdge edge : edges.apply(pending.poll())) {
+                TopologyVertex vertex = next.apply(edge);
+                if (isViable(edge) && allowed.test(vertex) && visited.add(vertex)) {
+                    pending.add(vertex);
+                }
+            }
+        }
+    }
+
+    // Finds all edges of the graph between the given vertexes.
+    private Set<TopologyEdge> findClusterEdges(Set<TopologyVertex> vertexes) {
+        Set<TopologyEdge> edges = new HashSet<>();
+        for (TopologyVertex vertex : vertexes) {
+            for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                if (vertexes.contains(edge.dst())) {
+                    edges.add(edge);
+                }
+            }
+        }
+        return edges;
+    }
+
+    // Updates the infrastructure points of the previous topology with the
+    // end-points of the added and removed edges.
+    private ImmutableSet<ConnectPoint> updateInfrastructurePoints(DefaultTopology previous,
+                                                                  List<TopologyEdge> addedEdges,
+                                                                  List<TopologyEdge> removedEdges) {
+        Set<ConnectPoint> points = new HashSet<>(previous.infrastructurePoints.get());
+        for (TopologyEdge edge : removedEdges) {
+            if (edge.link().type() != Type.EDGE) {
+                removeUnlessInfrastructure(points, edge.src(), edge.link().src());
+                removeUnlessInfrastructure(points, edge.dst(), edge.link().dst());
+            }
+        }
+        for (TopologyEdge edge : addedEdges) {
+            if (edge.link().type() != Type.EDGE) {
+                points.add(edge.link().src());
+                points.add(edge.link().dst());
+            }
+        }
+        return ImmutableSet.copyOf(points);
+    }
+
+    // Removes the point unless still the end-point of some non-edge link.
+    private void removeUnlessInfrastructure(Set<ConnectPoint> points, TopologyVertex vertex,
+                                            ConnectPoint point) {
+        boolean used = Stream.concat(graph.getEdgesFrom(vertex).stream(),
+                                     graph.getEdgesTo(vertex).stream())
+                .map(TopologyEdge::link)
+                .anyMatch(link -> link.type() != Type.EDGE &&
+                        (point.equals(link.src()) || point.equals(link.dst())));
+        if (!used) {
+            points.remove(point);
+        }
     }
 
     // Builds the topology clusters and returns the id-cluster bindings.
     private ImmutableMap<ClusterId, TopologyCluster> buildTopologyClusters() {
         ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder =
                 ImmutableMap.builder();
-        SccResult<TopologyVertex, TopologyEdge> results = clusterResults.get();
+        ClusterResults results = clusterResults.get();
 
         // Extract both vertexes and edges from the results; the lists form
         // pairs along the same index.
-        List<Set<TopologyVertex>> clusterVertexes = results.clusterVertexes();
-        List<Set<TopologyEdge>> clusterEdges = results.clusterEdges();
+        List<Set<TopologyVertex>> clusterVertexes = results.clusterVertexes;
+        List<Set<TopologyEdge>> clusterEdges = results.clusterEdges;
 
         // Scan over the lists and create a cluster from the results.
-        for (int i = 0, n = results.clusterCount(); i < n; i++) {
+        for (int i = 0, n = clusterVertexes.size(); i < n; i++) {
             Set<TopologyVertex> vertexSet = clusterVertexes.get(i);
             Set<TopologyEdge> edgeSet = clusterEdges.get(i);
 
@@ -683,23 +1072,32 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return minVertex;
     }
 
-    // Processes a map of broadcast sets for each cluster.
-    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets() {
+    // Processes a map of broadcast sets for each cluster, reusing those
+    // carried over from the previous topology.
+    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets(
+            Map<ClusterId, Set<ConnectPoint>> reusedBroadcastSets) {
         Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
         for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+            Set<ConnectPoint> points = reusedBroadcastSets.get(cluster.id());
+            if (points != null) {
+                builder.putAll(cluster.id(), points);
+            } else {
+                addClusterBroadcastSet(cluster, builder);
+            }
         }
         return builder.build();
     }
 
     // Finds all broadcast points for the cluster. These are those connection
     // points which lie along the shortest paths between the cluster root and
-    // all other devices within the cluster.
+    // all other devices within the cluster. As indirect links weigh more than
+    // any path made of direct links, those paths never leave the cluster, and
+    // so the broadcast set depends on the cluster alone.
     private void addClusterBroadcastSet(TopologyCluster cluster,
                                         Builder<ClusterId, ConnectPoint> builder) {
         // Use the graph root search results to build the broadcast set.
         Result<TopologyVertex, TopologyEdge> result =
-                DIJKSTRA.search(graph, cluster.root(), null, hopCountWeigher, 1);
+                DIJKSTRA.searchTree(graph, cluster.root(), hopCountWeigher);
         for (Map.Entry<TopologyVertex, Set<TopologyEdge>> entry :
                 result.parents().entrySet()) {
             TopologyVertex vertex = entry.getKey();
@@ -715,9 +1113,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
                 continue;
             }
 
-            // Use the first back-link source and destinations to add to the
-            // broadcast set.
-            Link link = parents.iterator().next().link();
+            // Use the lowest back-link source and destinations to add to the
+            // broadcast set, so that the broadcast tree depends on the graph
+            // alone and not on the search order.
+            Link link = Collections.min(parents, PARENT_ORDER).link();
             builder.put(cluster.id(), link.src());
             builder.put(cluster.id(), link.dst());
         }
@@ -754,13 +1153,13 @@ public class DefaultTopology extends AbstractModel implements Topology {
             int i = cluster.id().index();
 
             // Scan through all the cluster vertexes.
-            for (TopologyVertex vertex : clusterResults.get().clusterVertexes().get(i)) {
+            for (TopologyVertex vertex : clusterResults.get().clusterVertexes.get(i)) {
                 devicesBuilder.put(cluster, vertex.deviceId());
                 clusterBuilder.put(vertex.deviceId(), cluster);
             }
 
             // Scan through all the cluster edges.
-            for (TopologyEdge edge : clusterResults.get().clusterEdges().get(i)) {
+            for (TopologyEdge edge : clusterResults.get().clusterEdges.get(i)) {
                 linksBuilder.put(cluster, edge.link());
             }
         }
@@ -791,6 +1190,62 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    // Vertexes and edges of the SCC clusters; the lists form pairs along the
+    // same index, which is also the cluster index.
+    static final class ClusterResults {
+        final List<Set<TopologyVertex>> clusterVertexes;
+        final List<Set<TopologyEdge>> clusterEdges;
+
+        ClusterResults(List<Set<TopologyVertex>> clusterVertexes,
+                       List<Set<TopologyEdge>> clusterEdges) {
+            this.clusterVertexes = clusterVertexes;
+            this.clusterEdges = clusterEdges;
+        }
+    }
+
+    // Results derived from the previous topology.
+    static final class IncrementalResults {
+        final ClusterResults clusterResults;
+        final ImmutableSet<ConnectPoint> infrastructurePoints;
+        final Map<ClusterId, Set<ConnectPoint>> broadcastSets;
+
+        IncrementalResults(ClusterResults clusterResults,
+                           ImmutableSet<ConnectPoint> infrastructurePoints,
+                           Map<ClusterId, Set<ConnectPoint>> broadcastSets) {
+            this.clusterResults = clusterResults;
+            this.infrastructurePoints = infrastructurePoints;
+            this.broadcastSets = broadcastSets;
+        }
+    }
+
+    // Key of a shortest-path tree.
+    private static final class TreeKey {
+        private final TopologyVertex src;
+        private final LinkWeigher weigher;
+
+        private TreeKey(TopologyVertex src, LinkWeigher weigher) {
+            this.src = src;
+            this.weigher = weigher;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, weigher);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof TreeKey) {
+                TreeKey other = (TreeKey) obj;
+                return Objects.equals(src, other.src) && Objects.equals(weigher, other.weigher);
+            }
+            return false;
+        }
+    }
+
     static final class ClusterIndexes {
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
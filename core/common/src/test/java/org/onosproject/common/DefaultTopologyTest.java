@@ -39,6 +39,7 @@ import org.onosproject.net.topology.TopologyCluster;
 import org.onosproject.net.topology.TopologyEdge;
 import org.onosproject.net.topology.TopologyVertex;
 
+import java.util.HashSet;
 import java.util.Set;
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.*;
@@ -128,6 +129,22 @@ public class DefaultTopologyTest {
 
     }
 
+    @Test
+    public void shortestPathTreeCache() {
+        long hits = DefaultTopology.shortestPathTreeHits();
+        long misses = DefaultTopology.shortestPathTreeMisses();
+        assertEquals("incorrect path count", 2, dt.getPaths(D1, D3).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D2).size());
+        assertEquals("incorrect cache hits", hits + 1, DefaultTopology.shortestPathTreeHits());
+        assertEquals("incorrect cache misses", misses + 1, DefaultTopology.shortestPathTreeMisses());
+
+        // Weighers other than the default ones bypass the cache
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, WEIGHER).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D4, WEIGHER).size());
+        assertEquals("incorrect cache hits", hits + 1, DefaultTopology.shortestPathTreeHits());
+        assertEquals("incorrect cache misses", misses + 1, DefaultTopology.shortestPathTreeMisses());
+    }
+
     @Test
     public void pointRelated() {
         assertTrue("should be infrastructure point",
@@ -148,6 +165,105 @@ public class DefaultTopologyTest {
         assertFalse("cluster should not contain D5", devs.contains(D5));
     }
 
+    @Test
+    public void incrementalUpdate() {
+        // Two rings bridged by a pair of links, and a larger separate ring
+        Set<Device> devices = new HashSet<>();
+        Set<Link> links = new HashSet<>();
+        ring(0, 8, devices, links);
+        ring(8, 8, devices, links);
+        ring(16, 32, devices, links);
+        Link bridge = link("0", 3, "8", 3);
+        Link reverseBridge = link("8", 3, "0", 3);
+        links.add(bridge);
+        links.add(reverseBridge);
+        DefaultTopology full = topology(devices, links, null);
+        assertEquals("incorrect cluster count", 2, full.clusterCount());
+
+        // Taking down one direction of the bridge splits the rings apart
+        links.remove(reverseBridge);
+        DefaultTopology split = topology(devices, links, full);
+        assertClusters(topology(devices, links, null), split);
+        assertEquals("incorrect cluster count", 3, split.clusterCount());
+        assertTrue("should be infrastructure point",
+                   split.isInfrastructure(new ConnectPoint(did("8"), portNumber(3))));
+
+        links.remove(bridge);
+        DefaultTopology disconnected = topology(devices, links, split);
+        assertClusters(topology(devices, links, null), disconnected);
+        assertFalse("should not be infrastructure point",
+                    disconnected.isInfrastructure(new ConnectPoint(did("8"), portNumber(3))));
+
+        // A new device attached to both rings merges them back
+        devices.add(device("48"));
+        links.add(link("48", 1, "0", 4));
+        links.add(link("8", 4, "48", 1));
+        links.add(bridge);
+        DefaultTopology merged = topology(devices, links, disconnected);
+        assertClusters(topology(devices, links, null), merged);
+        assertEquals("incorrect cluster count", 2, merged.clusterCount());
+        assertEquals("incorrect cluster device count", 17,
+                     merged.getClusterDevices(merged.getCluster(did("0"))).size());
+        assertTrue("should be infrastructure point",
+                   merged.isInfrastructure(new ConnectPoint(did("48"), portNumber(1))));
+    }
+
+    @Test
+    public void incrementalLinkRemovalWithinCluster() {
+        // A single cluster: one bidirectional ring
+        Set<Device> devices = new HashSet<>();
+        Set<Link> links = new HashSet<>();
+        ring(0, 16, devices, links);
+        DefaultTopology full = topology(devices, links, null);
+        assertEquals("incorrect cluster count", 1, full.clusterCount());
+        assertEquals("incorrect broadcast set size", 30, full.broadcastSetSize(C0));
+
+        // One direction of a link goes down; the ring remains strongly
+        // connected the other way around, and no full search is needed
+        long searches = DefaultTopology.fullClusterSearches();
+        links.remove(link("0", 1, "1", 2));
+        DefaultTopology updated = topology(devices, links, full);
+        assertEquals("incorrect cluster count", 1, updated.clusterCount());
+        assertEquals("incorrect full cluster searches", searches, DefaultTopology.fullClusterSearches());
+
+        // The broadcast tree is rebuilt without the missing link
+        assertClusters(topology(devices, links, null), updated);
+    }
+
+    // Adds a bidirectional ring of the given size.
+    private static void ring(int first, int size, Set<Device> devices, Set<Link> links) {
+        for (int i = 0; i < size; i++) {
+            String id = Integer.toString(first + i);
+            String next = Integer.toString(first + (i + 1) % size);
+            devices.add(device(id));
+            links.add(link(id, 1, next, 2));
+            links.add(link(next, 2, id, 1));
+        }
+    }
+
+    private static DefaultTopology topology(Set<Device> devices, Set<Link> links,
+                                            DefaultTopology previous) {
+        GraphDescription graphDescription =
+                new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                            devices, links);
+        return new DefaultTopology(PID, graphDescription, null, previous);
+    }
+
+    // Checks that both topologies have the same clusters and broadcast sets.
+    private static void assertClusters(DefaultTopology expected, DefaultTopology actual) {
+        assertEquals("incorrect cluster count", expected.clusterCount(), actual.clusterCount());
+        for (TopologyCluster cluster : expected.getClusters()) {
+            TopologyCluster other = actual.getCluster(cluster.root().deviceId());
+            assertEquals("incorrect cluster root", cluster.root(), other.root());
+            assertEquals("incorrect cluster devices",
+                         expected.getClusterDevices(cluster), actual.getClusterDevices(other));
+            assertEquals("incorrect cluster links",
+                         expected.getClusterLinks(cluster), actual.getClusterLinks(other));
+            assertEquals("incorrect broadcast set",
+                         expected.broadcastPoints(cluster.id()), actual.broadcastPoints(other.id()));
+        }
+    }
+
     // Short-hand for creating a link.
     public static Link link(String src, int sp, String dst, int dp) {
         return DefaultLink.builder().providerId(PID)
@@ -15,88 +15,157 @@
  */
 package org.onosproject.event.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
+import org.onlab.util.Tools;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
 import org.onosproject.event.Event;
 import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
+import org.onosproject.net.Element;
+import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.host.HostEvent;
 import org.onosproject.net.intent.IntentEvent;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.topology.TopologyEvent;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Dictionary;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_LANE_WIDTH;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_LANE_WIDTH_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_QUEUE_SIZE;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_QUEUE_SIZE_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.EVENT_READ;
 import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * Events are dispatched in lanes selected by the event class, so that slow
+ * sinks of one lane do not hold back the events of the other lanes. Every lane
+ * runs one or more dispatch loops; the events of the same subject are always
+ * dispatched, in order, by the same loop of their lane.
+ * </p>
  */
-@Component(immediate = true, service = EventDeliveryService.class)
+@Component(
+        immediate = true,
+        service = EventDeliveryService.class,
+        property = {
+                CED_DISPATCH_LANE_WIDTH + ":Integer=" + CED_DISPATCH_LANE_WIDTH_DEFAULT,
+                CED_DISPATCH_QUEUE_SIZE + ":Integer=" + CED_DISPATCH_QUEUE_SIZE_DEFAULT
+        }
+)
 public class CoreEventDispatcher extends DefaultEventSinkRegistry
         implements EventDeliveryService {
 
     private final Logger log = getLogger(getClass());
 
-
-    private DispatchLoop topologyDispatcher = new DispatchLoop("topology");
-    private DispatchLoop programmingDispatcher = new DispatchLoop("programming");
-    private DispatchLoop defaultDispatcher = new DispatchLoop("default");
-
-    private Map<Class, DispatchLoop> dispatcherMap =
-            new ImmutableMap.Builder<Class, DispatchLoop>()
-                .put(TopologyEvent.class, topologyDispatcher)
-                .put(DeviceEvent.class, topologyDispatcher)
-                .put(LinkEvent.class, topologyDispatcher)
-                .put(HostEvent.class, topologyDispatcher)
-                .put(FlowRuleEvent.class, programmingDispatcher)
-                .put(IntentEvent.class, programmingDispatcher)
+    private static final String TOPOLOGY = "topology";
+    private static final String HOST = "host";
+    private static final String PROGRAMMING = "programming";
+    private static final String DEFAULT = "default";
+
+    private static final Map<Class, String> LANES =
+            new ImmutableMap.Builder<Class, String>()
+                .put(TopologyEvent.class, TOPOLOGY)
+                .put(DeviceEvent.class, TOPOLOGY)
+                .put(LinkEvent.class, TOPOLOGY)
+                .put(HostEvent.class, HOST)
+                .put(FlowRuleEvent.class, PROGRAMMING)
+                .put(IntentEvent.class, PROGRAMMING)
                 .build();
 
-    private Set<DispatchLoop> dispatchers =
-            new ImmutableSet.Builder<DispatchLoop>()
-                .addAll(dispatcherMap.values())
-                .add(defaultDispatcher)
-                .build();
+    private static final List<String> LANE_NAMES = ImmutableList.of(TOPOLOGY, HOST, PROGRAMMING, DEFAULT);
+
+    private static final String METRICS_COMPONENT = "EventDispatcher";
+    private static final String METRICS_SINKS = "sinks";
+    private static final String QUEUE_DEPTH = "queueDepth";
 
     // Default number of millis a sink can take to process an event.
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
+    // Longest time a thread posting to a full queue is held back.
+    private static final long BACKPRESSURE_MS = 1_000; // ms
+
+    // Longest time the lanes being replaced are given to dispatch their events.
+    private static final long DRAIN_MS = 5_000; // ms
+
+    // Marks the dispatch threads, which are never held back when posting.
+    private static final ThreadLocal<Boolean> DISPATCHING = ThreadLocal.withInitial(() -> false);
+
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
+    /** Number of dispatch loops of every lane. */
+    private int dispatchLaneWidth = CED_DISPATCH_LANE_WIDTH_DEFAULT;
+
+    /** Number of events queued by a dispatch loop past which posting threads are held back; 0 for no bound. */
+    private int dispatchQueueSize = CED_DISPATCH_QUEUE_SIZE_DEFAULT;
+
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
+    private volatile Map<String, DispatchLane> lanes = createLanes();
+    private boolean active;
+
+    private final Map<Class, Timer> sinkTimers = Maps.newConcurrentMap();
+    private MetricsComponent metricsComponent;
+
+    private Map<String, DispatchLane> createLanes() {
+        ImmutableMap.Builder<String, DispatchLane> builder = ImmutableMap.builder();
+        LANE_NAMES.forEach(name -> builder.put(name, new DispatchLane(name, dispatchLaneWidth)));
+        return builder.build();
+    }
+
     private DispatchLoop getDispatcher(Event event) {
-        DispatchLoop dispatcher = dispatcherMap.get(event.getClass());
-        if (dispatcher == null) {
-            dispatcher = defaultDispatcher;
-        }
-        return dispatcher;
+        return lanes.get(LANES.getOrDefault(event.getClass(), DEFAULT)).loop(event);
     }
 
     @Override
@@ -108,22 +177,111 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     }
 
     @Activate
-    public void activate() {
-
-        if (maxProcessMillis != 0) {
-            dispatchers.forEach(DispatchLoop::start);
+    public void activate(ComponentContext context) {
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+        }
+        if (readComponentConfiguration(context)) {
+            // The lanes were not started yet; re-create them as configured
+            Collection<DispatchLane> oldLanes = lanes.values();
+            lanes = createLanes();
+            oldLanes.forEach(DispatchLane::shutdown);
+            repost(oldLanes);
         }
+        startLanes(lanes.values());
+        active = true;
 
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        dispatchers.forEach(DispatchLoop::stop);
+        active = false;
+        stopLanes(lanes.values());
+        if (metricsService != null) {
+            MetricsFeature feature = metricsComponent.registerFeature(METRICS_SINKS);
+            sinkTimers.keySet().forEach(eventClass ->
+                    metricsService.removeMetric(metricsComponent, feature, eventClass.getName()));
+        }
+        sinkTimers.clear();
 
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (readComponentConfiguration(context) && active) {
+            // Swap in the new lanes, which queue the new events while the old
+            // lanes dispatch those they already hold; this keeps the events of
+            // a subject in order.
+            Collection<DispatchLane> oldLanes = lanes.values();
+            lanes = createLanes();
+            drainLanes(oldLanes);
+            stopLanes(oldLanes);
+            oldLanes.forEach(DispatchLane::shutdown);
+            repost(oldLanes);
+            startLanes(lanes.values());
+        }
+    }
+
+    // Lets the given lanes dispatch the events queued so far, for a bounded time.
+    private void drainLanes(Collection<DispatchLane> dispatchLanes) {
+        if (maxProcessMillis == 0) {
+            return;
+        }
+        dispatchLanes.forEach(DispatchLane::finish);
+        long deadline = System.currentTimeMillis() + DRAIN_MS;
+        for (DispatchLane lane : dispatchLanes) {
+            if (!lane.awaitFinished(deadline)) {
+                log.warn("Dispatch lanes did not drain in {} ms; moving their events to the new lanes", DRAIN_MS);
+                return;
+            }
+        }
+    }
+
+    // Posts to the current lanes the events left over by the given ones.
+    private void repost(Collection<DispatchLane> dispatchLanes) {
+        List<Event> pending = new ArrayList<>();
+        dispatchLanes.forEach(lane -> lane.drainTo(pending));
+        pending.forEach(this::post);
+    }
+
+    // Returns true if the lanes need to be re-created.
+    private boolean readComponentConfiguration(ComponentContext context) {
+        if (context == null) {
+            return false;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        int oldLaneWidth = dispatchLaneWidth;
+        int oldQueueSize = dispatchQueueSize;
+
+        int laneWidth = Tools.getIntegerProperty(properties, CED_DISPATCH_LANE_WIDTH, dispatchLaneWidth);
+        if (laneWidth > 0) {
+            dispatchLaneWidth = laneWidth;
+        } else {
+            log.warn("{} must be greater than 0", CED_DISPATCH_LANE_WIDTH);
+        }
+        int queueSize = Tools.getIntegerProperty(properties, CED_DISPATCH_QUEUE_SIZE, dispatchQueueSize);
+        if (queueSize >= 0) {
+            dispatchQueueSize = queueSize;
+        } else {
+            log.warn("{} must be greater than or equal to 0", CED_DISPATCH_QUEUE_SIZE);
+        }
+
+        log.info("Settings: dispatchLaneWidth={}, dispatchQueueSize={}", dispatchLaneWidth, dispatchQueueSize);
+        return dispatchLaneWidth != oldLaneWidth || dispatchQueueSize != oldQueueSize;
+    }
+
+    private void startLanes(Collection<DispatchLane> dispatchLanes) {
+        if (maxProcessMillis != 0) {
+            dispatchLanes.forEach(DispatchLane::start);
+        }
+    }
+
+    private void stopLanes(Collection<DispatchLane> dispatchLanes) {
+        dispatchLanes.forEach(DispatchLane::stop);
+    }
+
     @Override
     public void setDispatchTimeLimit(long millis) {
         checkPermission(EVENT_WRITE);
@@ -133,9 +291,9 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         maxProcessMillis = millis;
 
         if (millis == 0 && oldMillis != 0) {
-            dispatchers.forEach(DispatchLoop::stopWatchdog);
+            lanes.values().forEach(DispatchLane::stopWatchdog);
         } else if (millis != 0 && oldMillis == 0) {
-            dispatchers.forEach(DispatchLoop::startWatchdog);
+            lanes.values().forEach(DispatchLane::startWatchdog);
         }
     }
 
@@ -145,10 +303,90 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
+    // Returns the timer of the processing time of the sink of the event class.
+    private Timer sinkTimer(Class eventClass) {
+        if (metricsComponent == null) {
+            return null;
+        }
+        return sinkTimers.computeIfAbsent(eventClass, key -> metricsService.createTimer(
+                metricsComponent, metricsComponent.registerFeature(METRICS_SINKS), key.getName()));
+    }
+
+    // Returns the key selecting the dispatch loop of an event subject. Network
+    // elements and links are keyed by their identity, as their hash codes
+    // change with their mutable fields, e.g. the locations of a moving host.
+    private static Object stripeKey(Object subject) {
+        if (subject instanceof Element) {
+            return ((Element) subject).id();
+        } else if (subject instanceof Link) {
+            return LinkKey.linkKey((Link) subject);
+        }
+        return subject;
+    }
+
+    // Dispatch loops of a lane, selected by the event subject.
+    private class DispatchLane {
+        private final List<DispatchLoop> loops;
+
+        DispatchLane(String name, int width) {
+            ImmutableList.Builder<DispatchLoop> builder = ImmutableList.builder();
+            for (int i = 0; i < width; i++) {
+                builder.add(new DispatchLoop(width == 1 ? name : name + "-" + i, dispatchQueueSize));
+            }
+            loops = builder.build();
+        }
+
+        DispatchLoop loop(Event event) {
+            if (loops.size() == 1) {
+                return loops.get(0);
+            }
+            return loops.get(Math.floorMod(Objects.hashCode(stripeKey(event.subject())), loops.size()));
+        }
+
+        void drainTo(List<Event> events) {
+            loops.forEach(loop -> loop.drainTo(events));
+        }
+
+        void start() {
+            loops.forEach(DispatchLoop::start);
+        }
+
+        void finish() {
+            loops.forEach(DispatchLoop::finish);
+        }
+
+        boolean awaitFinished(long deadline) {
+            for (DispatchLoop loop : loops) {
+                if (!loop.awaitFinished(deadline)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void stop() {
+            loops.forEach(DispatchLoop::stop);
+        }
+
+        void shutdown() {
+            loops.forEach(loop -> loop.executor.shutdown());
+        }
+
+        void startWatchdog() {
+            loops.forEach(DispatchLoop::startWatchdog);
+        }
+
+        void stopWatchdog() {
+            loops.forEach(DispatchLoop::stopWatchdog);
+        }
+    }
+
     // Auxiliary event dispatching loop that feeds off the events queue.
     private class DispatchLoop implements Runnable {
         private final String name;
+        private final int capacity;
         private volatile boolean stopped;
+        private volatile boolean finishing;
         private volatile EventSink lastSink;
         // Means to detect long-running sinks
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
@@ -156,9 +394,14 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         private volatile Future<?> dispatchFuture;
         private final BlockingQueue<Event> eventsQueue;
         private final ExecutorService executor;
+        // Means to hold back posting threads while the queue is full
+        private final ReentrantLock capacityLock = new ReentrantLock();
+        private final Condition notFull = capacityLock.newCondition();
+        private final AtomicInteger heldBack = new AtomicInteger();
 
-        DispatchLoop(String name) {
+        DispatchLoop(String name, int capacity) {
             this.name = name;
+            this.capacity = capacity;
             executor = newSingleThreadExecutor(
                     groupedThreads("onos/event",
                     "dispatch-" + name + "%d", log));
@@ -166,18 +409,64 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         }
 
         public boolean add(Event event) {
+            if (capacity > 0 && eventsQueue.size() >= capacity && !DISPATCHING.get()) {
+                awaitCapacity();
+            }
             return eventsQueue.add(event);
         }
 
+        // Holds back the posting thread until the queue drains below its
+        // capacity, or for a bounded time if the sinks do not keep up.
+        private void awaitCapacity() {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(BACKPRESSURE_MS);
+            capacityLock.lock();
+            heldBack.incrementAndGet();
+            try {
+                while (eventsQueue.size() >= capacity && !stopped) {
+                    if (remaining <= 0) {
+                        log.warn("Dispatch loop({}) is backlogged with {} events", name, eventsQueue.size());
+                        return;
+                    }
+                    remaining = notFull.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                heldBack.decrementAndGet();
+                capacityLock.unlock();
+            }
+        }
+
+        // Resumes the posting threads held back, if the queue is no longer full.
+        private void signalCapacity() {
+            if (heldBack.get() > 0 && (eventsQueue.size() < capacity || stopped)) {
+                capacityLock.lock();
+                try {
+                    notFull.signalAll();
+                } finally {
+                    capacityLock.unlock();
+                }
+            }
+        }
+
+        void drainTo(List<Event> events) {
+            eventsQueue.drainTo(events);
+            events.removeIf(event -> event == KILL_PILL);
+        }
+
         @Override
         public void run() {
             log.info("Dispatch loop({}) initiated", name);
+            DISPATCHING.set(true);
             while (!stopped) {
                 try {
                     // Fetch the next event and if it is the kill-pill, bail
                     Event event = eventsQueue.take();
+                    signalCapacity();
                     if (event != KILL_PILL) {
                         process(event);
+                    } else if (finishing) {
+                        break;
                     }
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
@@ -194,9 +483,11 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
                 lastSink = sink;
+                Timer.Context timer = startTimer(sinkTimer(event.getClass()));
                 stopwatch.start();
                 sink.process(event);
                 stopwatch.reset();
+                stopTimer(timer);
             } else {
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
@@ -205,17 +496,59 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
         void stop() {
             stopped = true;
-            add(KILL_PILL);
+            eventsQueue.add(KILL_PILL);
+            signalCapacity();
             if (null != dispatchFuture) {
                 dispatchFuture.cancel(true);
             }
             stopWatchdog();
+            unregisterMetrics();
+        }
+
+        // Makes the loop terminate once it has dispatched the events queued so far.
+        void finish() {
+            finishing = true;
+            eventsQueue.add(KILL_PILL);
+        }
+
+        // Waits until the loop has terminated, up to the given time in millis.
+        boolean awaitFinished(long deadline) {
+            Future<?> future = dispatchFuture;
+            if (future == null) {
+                return true;
+            }
+            try {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException | TimeoutException | CancellationException e) {
+                return false;
+            }
         }
 
         void start() {
             stopped = false;
             dispatchFuture = executor.submit(this);
             startWatchdog();
+            registerMetrics();
+        }
+
+        // Exports the depth of the events queue.
+        private void registerMetrics() {
+            if (metricsComponent != null) {
+                MetricsFeature feature = metricsComponent.registerFeature(name);
+                metricsService.removeMetric(metricsComponent, feature, QUEUE_DEPTH);
+                metricsService.registerMetric(metricsComponent, feature, QUEUE_DEPTH,
+                                              (Gauge<Integer>) eventsQueue::size);
+            }
+        }
+
+        private void unregisterMetrics() {
+            if (metricsComponent != null) {
+                metricsService.removeMetric(metricsComponent, metricsComponent.registerFeature(name), QUEUE_DEPTH);
+            }
         }
 
         // Monitors event sinks to make sure none take too long to execute.
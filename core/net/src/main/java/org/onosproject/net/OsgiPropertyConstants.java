@@ -116,6 +116,12 @@ public final class OsgiPropertyConstants {
     public static final String IM_NUM_THREADS = "numThreads";
     public static final int IM_NUM_THREADS_DEFAULT = 12;
 
+    public static final String IM_NUM_BATCH_LANES = "numBatchLanes";
+    public static final int IM_NUM_BATCH_LANES_DEFAULT = 1;
+
+    public static final String PM_NUM_THREADS = "numThreads";
+    public static final int PM_NUM_THREADS_DEFAULT = 0;
+
     public static final String MM_NUM_THREADS = "numThreads";
     public static final int MM_NUM_THREADS_DEFAULT = 12;
 
@@ -166,4 +172,10 @@ public final class OsgiPropertyConstants {
 
     public static final String IFOM_OBJ_TIMEOUT_MS = "objectiveTimeoutMs";
     public static final int IFOM_OBJ_TIMEOUT_MS_DEFAULT = 15000;
+
+    public static final String CED_DISPATCH_LANE_WIDTH = "dispatchLaneWidth";
+    public static final int CED_DISPATCH_LANE_WIDTH_DEFAULT = 1;
+
+    public static final String CED_DISPATCH_QUEUE_SIZE = "dispatchQueueSize";
+    public static final int CED_DISPATCH_QUEUE_SIZE_DEFAULT = 100_000;
 }
@@ -25,6 +25,7 @@ import org.onlab.util.Tools;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.NodeId;
+import org.onosproject.event.CoalescingListenerRegistry;
 import org.onosproject.mastership.MastershipAdminService;
 import org.onosproject.mastership.MastershipEvent;
 import org.onosproject.mastership.MastershipListener;
@@ -136,6 +137,13 @@ public class DeviceManager
 
     private ScheduledExecutorService backgroundService;
 
+    // Window within which superseded port events are withheld from coalesced listeners
+    private static final long PORT_EVENT_COALESCING_MS = 50;
+
+    private ScheduledExecutorService coalescingExecutor;
+    private CoalescingListenerRegistry<DeviceEvent, DeviceListener> coalescedListenerRegistry;
+    private final DeviceListener coalescingListener = event -> coalescedListenerRegistry.event(event);
+
     private final NetworkConfigListener networkConfigListener = new InternalNetworkConfigListener();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
@@ -226,6 +234,12 @@ public class DeviceManager
                 groupedThreads("onos/device", "manager-background", log));
         localNodeId = clusterService.getLocalNode().id();
 
+        coalescingExecutor = newSingleThreadScheduledExecutor(
+                groupedThreads("onos/device", "event-coalescing", log));
+        coalescedListenerRegistry = new CoalescingListenerRegistry<>(
+                DeviceManager::coalescingKey, PORT_EVENT_COALESCING_MS, coalescingExecutor);
+        listenerRegistry.addListener(coalescingListener);
+
         store.setDelegate(delegate);
         eventDispatcher.addSink(DeviceEvent.class, listenerRegistry);
         mastershipService.addListener(mastershipListener);
@@ -274,12 +288,41 @@ public class DeviceManager
         store.unsetDelegate(delegate);
         mastershipService.removeListener(mastershipListener);
         eventDispatcher.removeSink(DeviceEvent.class);
+        listenerRegistry.removeListener(coalescingListener);
+        coalescingExecutor.shutdown();
         communicationService.removeSubscriber(PORT_UPDOWN_SUBJECT);
         clusterRequestExecutor.shutdown();
         backgroundRoleChecker.shutdown();
         log.info("Stopped");
     }
 
+    @Override
+    public void addCoalescedListener(DeviceListener listener) {
+        coalescedListenerRegistry.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(DeviceListener listener) {
+        if (coalescedListenerRegistry != null && coalescedListenerRegistry.contains(listener)) {
+            coalescedListenerRegistry.removeListener(listener);
+        } else {
+            super.removeListener(listener);
+        }
+    }
+
+    // Returns the key of the port events superseding each other; null for other events.
+    private static Object coalescingKey(DeviceEvent event) {
+        switch (event.type()) {
+            case PORT_UPDATED:
+                return event.port() != null ?
+                        ImmutableList.of(event.type(), event.subject().id(), event.port().number()) : null;
+            case PORT_STATS_UPDATED:
+                return ImmutableList.of(event.type(), event.subject().id());
+            default:
+                return null;
+        }
+    }
+
     @Override
     public int getDeviceCount() {
         checkPermission(DEVICE_READ);
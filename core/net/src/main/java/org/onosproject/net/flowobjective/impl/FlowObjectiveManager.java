@@ -24,6 +24,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.onlab.osgi.DefaultServiceDirectory;
 import org.onlab.osgi.ServiceDirectory;
 import org.onlab.util.ItemNotFoundException;
+import org.onlab.util.PredictableExecutor.PickyRunnable;
+import org.onlab.util.SharedScheduledExecutors;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
@@ -69,12 +71,19 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.util.PredictableExecutor.newPredictableExecutor;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.AnnotationKeys.DRIVER;
 import static org.onosproject.net.OsgiPropertyConstants.FOM_NUM_THREADS;
@@ -105,6 +114,7 @@ public class FlowObjectiveManager implements FlowObjectiveService {
 
     private static final int INSTALL_RETRY_ATTEMPTS = 5;
     private static final long INSTALL_RETRY_INTERVAL = 1000; // ms
+    private static final long BATCH_TIMEOUT = 15000; // ms
 
     private static final String INSTALLER_PATTERN = "installer-%d";
     private static final String VERIFIER_PATTERN = "verifier-%d";
@@ -175,6 +185,10 @@ public class FlowObjectiveManager implements FlowObjectiveService {
     // for debugging purposes
     private Map<Integer, DeviceId> nextToDevice = Maps.newConcurrentMap();
 
+    // Objectives waiting to be passed down to the pipeliner, by device
+    private final Map<DeviceId, DeviceObjectiveQueue> installerQueues = Maps.newConcurrentMap();
+
+    // Objectives of a device are always installed by the same worker
     ExecutorService installerExecutor;
     ExecutorService verifierExecutor;
     protected ExecutorService devEventExecutor;
@@ -182,8 +196,8 @@ public class FlowObjectiveManager implements FlowObjectiveService {
     @Activate
     protected void activate(ComponentContext context) {
         cfgService.registerProperties(FlowObjectiveManager.class);
-        installerExecutor = newFixedThreadPool(numThreads,
-                                           groupedThreads(GROUP_THREAD_NAME, INSTALLER_PATTERN, log));
+        installerExecutor = newPredictableExecutor(numThreads,
+                                                   groupedThreads(GROUP_THREAD_NAME, INSTALLER_PATTERN, log));
         verifierExecutor = newFixedThreadPool(numThreads,
                                            groupedThreads(GROUP_THREAD_NAME, VERIFIER_PATTERN, log));
 
@@ -209,6 +223,7 @@ public class FlowObjectiveManager implements FlowObjectiveService {
         pipeliners.clear();
         driverHandlers.clear();
         nextToDevice.clear();
+        installerQueues.clear();
         log.info("Stopped");
     }
 
@@ -231,7 +246,7 @@ public class FlowObjectiveManager implements FlowObjectiveService {
         if (newNumThreads != numThreads && newNumThreads > 0) {
             numThreads = newNumThreads;
             ExecutorService oldWorkerExecutor = installerExecutor;
-            installerExecutor = newFixedThreadPool(numThreads,
+            installerExecutor = newPredictableExecutor(numThreads,
                                          groupedThreads(GROUP_THREAD_NAME, INSTALLER_PATTERN, log));
             if (oldWorkerExecutor != null) {
                 oldWorkerExecutor.shutdown();
@@ -281,7 +296,7 @@ public class FlowObjectiveManager implements FlowObjectiveService {
      * make a few attempts to find the appropriate driver, then eventually give
      * up and report an error if no suitable driver could be found.
      */
-    class ObjectiveProcessor implements Runnable {
+    class ObjectiveProcessor implements PickyRunnable {
         final DeviceId deviceId;
         final Objective objective;
         final ExecutorService executor;
@@ -301,6 +316,11 @@ public class FlowObjectiveManager implements FlowObjectiveService {
             this.numAttempts = attempts;
         }
 
+        @Override
+        public int hint() {
+            return deviceId.hashCode();
+        }
+
         @Override
         public void run() {
             try {
@@ -333,10 +353,113 @@ public class FlowObjectiveManager implements FlowObjectiveService {
         }
     }
 
+    /**
+     * Queue of the objectives of a device, which are passed down to the
+     * pipeliner in order by a single task at a time. Consecutive forwarding
+     * objectives are passed down as a batch, so that the pipeliner can install
+     * their flow rules at once.
+     */
+    private final class DeviceObjectiveQueue implements PickyRunnable {
+        private final DeviceId deviceId;
+        private final Queue<Objective> objectives = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private DeviceObjectiveQueue(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        private void submit(Objective objective) {
+            objectives.add(objective);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                installerExecutor.execute(this);
+            }
+        }
+
+        @Override
+        public int hint() {
+            return deviceId.hashCode();
+        }
+
+        @Override
+        public void run() {
+            List<ForwardingObjective> batch = new ArrayList<>();
+            for (Objective objective = objectives.peek(); objective != null; objective = objectives.peek()) {
+                if (objective instanceof ForwardingObjective && batch.size() < accumulatorMaxObjectives) {
+                    batch.add((ForwardingObjective) objectives.poll());
+                    continue;
+                }
+                if (!flush(batch)) {
+                    return;
+                }
+                if (!(objective instanceof ForwardingObjective)) {
+                    objectives.poll();
+                    new ObjectiveProcessor(deviceId, objective, installerExecutor).run();
+                }
+            }
+            if (!flush(batch)) {
+                return;
+            }
+            scheduled.set(false);
+            // Pick up the objectives submitted while giving up the queue
+            if (!objectives.isEmpty()) {
+                schedule();
+            }
+        }
+
+        // Passes the batch down to the pipeliner; returns false if the queue
+        // is held until the rules of the batch are processed
+        private boolean flush(List<ForwardingObjective> batch) {
+            if (batch.isEmpty()) {
+                return true;
+            }
+            Pipeliner pipeliner = batch.size() > 1 ? getDevicePipeliner(deviceId) : null;
+            CompletableFuture<Void> processed = null;
+            if (pipeliner == null) {
+                // Single objectives and the retries of missing pipeliners go one by one
+                batch.forEach(fwd -> new ObjectiveProcessor(deviceId, fwd, installerExecutor).run());
+            } else {
+                try {
+                    processed = pipeliner.forward(ImmutableList.copyOf(batch));
+                } catch (Exception e) {
+                    log.warn("Exception while processing flow objectives", e);
+                }
+            }
+            batch.clear();
+            if (processed == null || processed.isDone()) {
+                return true;
+            }
+            // Later objectives must not overtake the stages of the batch; the
+            // timeout only keeps the queue alive if the batch never completes
+            AtomicBoolean resumed = new AtomicBoolean();
+            Runnable resume = () -> {
+                if (resumed.compareAndSet(false, true)) {
+                    installerExecutor.execute(this);
+                }
+            };
+            ScheduledFuture<?> timeout = SharedScheduledExecutors.newTimeout(() -> {
+                log.warn("Timed out waiting for a batch of forwarding objectives on {}", deviceId);
+                resume.run();
+            }, BATCH_TIMEOUT, TimeUnit.MILLISECONDS);
+            processed.whenComplete((r, e) -> {
+                timeout.cancel(false);
+                resume.run();
+            });
+            return false;
+        }
+    }
+
+    private void install(DeviceId deviceId, Objective objective) {
+        installerQueues.computeIfAbsent(deviceId, DeviceObjectiveQueue::new).submit(objective);
+    }
+
     @Override
     public void filter(DeviceId deviceId, FilteringObjective filteringObjective) {
         checkPermission(FLOWRULE_WRITE);
-        installerExecutor.execute(new ObjectiveProcessor(deviceId, filteringObjective, installerExecutor));
+        install(deviceId, filteringObjective);
     }
 
     @Override
@@ -346,7 +469,7 @@ public class FlowObjectiveManager implements FlowObjectiveService {
                 flowObjectiveStore.getNextGroup(forwardingObjective.nextId()) != null ||
                 !queueFwdObjective(deviceId, forwardingObjective)) {
             // fast path
-            installerExecutor.execute(new ObjectiveProcessor(deviceId, forwardingObjective, installerExecutor));
+            install(deviceId, forwardingObjective);
         }
     }
 
@@ -360,7 +483,7 @@ public class FlowObjectiveManager implements FlowObjectiveService {
                 flowObjectiveStore.getNextGroup(nextObjective.id()) != null ||
                 !queueNextObjective(deviceId, nextObjective)) {
             // either group exists or we are trying to create it - let it through
-            installerExecutor.execute(new ObjectiveProcessor(deviceId, nextObjective, installerExecutor));
+            install(deviceId, nextObjective);
         }
     }
 
@@ -25,10 +25,11 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. Only a bounded
+ * number of batches, by default one, should be in process per instance at a time.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
@@ -42,7 +43,8 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private final IntentBatchDelegate delegate;
 
-    private volatile boolean ready;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int maxInFlight = 1;
 
     /**
      * Creates an intent operation accumulator.
@@ -53,12 +55,21 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
         super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
         this.delegate = delegate;
         // Assume that the delegate is ready for work at the start
-        ready = true; //TODO validate the assumption that delegate is ready
+        //TODO validate the assumption that delegate is ready
+    }
+
+    /**
+     * Sets the number of batches that may be in process at the same time.
+     *
+     * @param maxInFlight maximum number of batches in process
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
     }
 
     @Override
     public void processItems(List<IntentData> items) {
-        ready = false;
+        inFlight.incrementAndGet();
         delegate.execute(reduce(items));
     }
 
@@ -73,10 +84,13 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     @Override
     public boolean isReady() {
-        return ready;
+        return inFlight.get() < maxInFlight;
     }
 
+    /**
+     * Notifies the accumulator that a batch is no longer in process.
+     */
     public void ready() {
-        ready = true;
+        inFlight.updateAndGet(count -> Math.max(count - 1, 0));
     }
 }
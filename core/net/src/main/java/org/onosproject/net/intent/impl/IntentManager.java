@@ -15,6 +15,7 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
@@ -62,6 +63,7 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
@@ -70,6 +72,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -77,6 +80,8 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_BATCH_LANES;
+import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_BATCH_LANES_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL;
@@ -104,7 +109,8 @@ import static org.slf4j.LoggerFactory.getLogger;
     },
     property = {
         IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL + ":Boolean=" + IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL_DEFAULT,
-        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT
+        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT,
+        IM_NUM_BATCH_LANES + ":Integer=" + IM_NUM_BATCH_LANES_DEFAULT
     }
 )
 public class IntentManager
@@ -127,6 +133,10 @@ public class IntentManager
     /** Number of worker threads. */
     private int numThreads = IM_NUM_THREADS_DEFAULT;
 
+    /** Number of batch lanes; intents are partitioned across lanes by key, and batches of different lanes are
+     * processed concurrently. */
+    private int numBatchLanes = IM_NUM_BATCH_LANES_DEFAULT;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected CoreService coreService;
 
@@ -157,7 +167,9 @@ public class IntentManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private NetworkConfigService networkConfigService;
 
-    private ExecutorService batchExecutor;
+    private volatile List<ExecutorService> batchExecutors;
+    // Guards the submission of batches against the replacement of the lanes
+    private final Object batchLanesLock = new Object();
     private ExecutorService workerExecutor;
 
     private final CompilerRegistry compilerRegistry = new CompilerRegistry();
@@ -182,7 +194,8 @@ public class IntentManager
         }
         trackerService.setDelegate(topoDelegate);
         eventDispatcher.addSink(IntentEvent.class, listenerRegistry);
-        batchExecutor = newSingleThreadExecutor(groupedThreads("onos/intent", "batch", log));
+        batchExecutors = createBatchExecutors(numBatchLanes);
+        accumulator.setMaxInFlight(numBatchLanes);
         workerExecutor = newFixedThreadPool(numThreads, groupedThreads("onos/intent", "worker-%d", log));
         idGenerator = coreService.getIdGenerator("intent-ids");
         Intent.unbindIdGenerator(idGenerator);
@@ -201,7 +214,7 @@ public class IntentManager
         configService.unregisterProperties(getClass(), false);
         trackerService.unsetDelegate(topoDelegate);
         eventDispatcher.removeSink(IntentEvent.class);
-        batchExecutor.shutdown();
+        batchExecutors.forEach(ExecutorService::shutdown);
         workerExecutor.shutdown();
         Intent.unbindIdGenerator(idGenerator);
         log.info("Stopped");
@@ -240,6 +253,46 @@ public class IntentManager
             }
             logConfig("Reconfigured number of worker threads");
         }
+
+        s = Tools.get(context.getProperties(), IM_NUM_BATCH_LANES);
+        int newNumBatchLanes = isNullOrEmpty(s) ? numBatchLanes : Integer.parseInt(s);
+        if (newNumBatchLanes > 0 && newNumBatchLanes != numBatchLanes) {
+            numBatchLanes = newNumBatchLanes;
+            List<ExecutorService> newBatchExecutors = createBatchExecutors(numBatchLanes);
+            synchronized (batchLanesLock) {
+                List<ExecutorService> oldBatchExecutors = batchExecutors;
+                if (oldBatchExecutors != null) {
+                    // Keys are partitioned differently across the new lanes, so hold
+                    // them until the old lanes are drained to keep the batches of a
+                    // key from running concurrently
+                    oldBatchExecutors.forEach(ExecutorService::shutdown);
+                    newBatchExecutors.forEach(executor -> executor.execute(
+                            () -> awaitTermination(oldBatchExecutors)));
+                }
+                batchExecutors = newBatchExecutors;
+            }
+            accumulator.setMaxInFlight(numBatchLanes);
+            log.info("Reconfigured number of batch lanes to {}", numBatchLanes);
+        }
+    }
+
+    private List<ExecutorService> createBatchExecutors(int lanes) {
+        ImmutableList.Builder<ExecutorService> executors = ImmutableList.builder();
+        for (int i = 0; i < lanes; i++) {
+            executors.add(newSingleThreadExecutor(groupedThreads("onos/intent", "batch-" + i, log)));
+        }
+        return executors.build();
+    }
+
+    private void awaitTermination(List<ExecutorService> executors) {
+        try {
+            for (ExecutorService executor : executors) {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while draining the previous batch lanes");
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void logConfig(String prefix) {
@@ -538,44 +591,23 @@ public class IntentManager
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
 
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            CompletableFuture.runAsync(() -> {
-                // process intent until the phase reaches one of the final phases
-                List<CompletableFuture<IntentData>> futures = operations.stream()
-                        .map(data -> {
-                            log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
-                            return data;
-                        })
-                        .map(x -> CompletableFuture.completedFuture(x)
-                                .thenApply(IntentManager.this::createInitialPhase)
-                                .thenApplyAsync(IntentProcessPhase::process, workerExecutor)
-                                .thenApply(FinalIntentProcessPhase::data)
-                                .exceptionally(e -> {
-                                    // When the future fails, we update the Intent to simulate the failure of
-                                    // the installation/withdrawal phase and we save in the current map. In
-                                    // the next round the CleanUp Thread will pick this Intent again.
-                                    log.warn("Future failed", e);
-                                    log.warn("Intent {} - state {} - request {}",
-                                             x.key(), x.state(), x.request());
-                                    switch (x.state()) {
-                                        case INSTALL_REQ:
-                                        case INSTALLING:
-                                        case WITHDRAW_REQ:
-                                        case WITHDRAWING:
-                                            // TODO should we swtich based on current
-                                            IntentData current = store.getIntentData(x.key());
-                                            return IntentData.nextState(current, FAILED);
-                                        default:
-                                            return null;
-                                    }
-                                }))
-                        .collect(Collectors.toList());
-
-                // write multiple data to store in order
-                store.batchWrite(Tools.allOf(futures).join().stream()
-                                         .filter(Objects::nonNull)
-                                         .collect(Collectors.toList()));
-            }, batchExecutor).exceptionally(e -> {
+            // Intents are partitioned by key across the single-threaded batch lanes, so that
+            // the operations of an intent are processed and written in order, while batches
+            // of different lanes are compiled, installed and written concurrently
+            List<CompletableFuture<Void>> lanes;
+            synchronized (batchLanesLock) {
+                List<ExecutorService> executors = batchExecutors;
+                List<List<IntentData>> partitions = partition(operations, executors.size());
+                lanes = new ArrayList<>(partitions.size());
+                for (int i = 0; i < partitions.size(); i++) {
+                    List<IntentData> partition = partitions.get(i);
+                    if (!partition.isEmpty()) {
+                        lanes.add(CompletableFuture.runAsync(() -> processBatch(partition), executors.get(i)));
+                    }
+                }
+            }
+
+            Tools.allOf(lanes).exceptionally(e -> {
                 log.error("Error submitting batches:", e);
                 // FIXME incomplete Intents should be cleaned up
                 //       (transition to FAILED, etc.)
@@ -589,6 +621,53 @@ public class IntentManager
         }
     }
 
+    private List<List<IntentData>> partition(Collection<IntentData> operations, int count) {
+        List<List<IntentData>> partitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        operations.forEach(data -> partitions.get(Math.floorMod(data.key().hashCode(), count)).add(data));
+        return partitions;
+    }
+
+    private void processBatch(Collection<IntentData> operations) {
+        // process intent until the phase reaches one of the final phases
+        List<CompletableFuture<IntentData>> futures = operations.stream()
+                .map(data -> {
+                    log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
+                    return data;
+                })
+                .map(x -> CompletableFuture.completedFuture(x)
+                        .thenApply(IntentManager.this::createInitialPhase)
+                        .thenApplyAsync(IntentProcessPhase::process, workerExecutor)
+                        .thenApply(FinalIntentProcessPhase::data)
+                        .exceptionally(e -> {
+                            // When the future fails, we update the Intent to simulate the failure of
+                            // the installation/withdrawal phase and we save in the current map. In
+                            // the next round the CleanUp Thread will pick this Intent again.
+                            log.warn("Future failed", e);
+                            log.warn("Intent {} - state {} - request {}",
+                                     x.key(), x.state(), x.request());
+                            switch (x.state()) {
+                                case INSTALL_REQ:
+                                case INSTALLING:
+                                case WITHDRAW_REQ:
+                                case WITHDRAWING:
+                                    // TODO should we swtich based on current
+                                    IntentData current = store.getIntentData(x.key());
+                                    return IntentData.nextState(current, FAILED);
+                                default:
+                                    return null;
+                            }
+                        }))
+                .collect(Collectors.toList());
+
+        // write multiple data to store in order
+        store.batchWrite(Tools.allOf(futures).join().stream()
+                                 .filter(Objects::nonNull)
+                                 .collect(Collectors.toList()));
+    }
+
     private IntentProcessPhase createInitialPhase(IntentData data) {
         IntentData pending = store.getPendingData(data.key());
         if (pending == null || pending.version().isNewerThan(data.version())) {
@@ -15,9 +15,6 @@
  */
 package org.onosproject.net.intent.impl;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.SetMultimap;
 import org.onosproject.event.Event;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
@@ -56,11 +53,13 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -68,7 +67,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
@@ -89,12 +87,13 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     private final Logger log = getLogger(getClass());
 
-    private final SetMultimap<LinkKey, Key> intentsByLink =
-            //TODO this could be slow as a point of synchronization
-            synchronizedSetMultimap(HashMultimap.<LinkKey, Key>create());
+    // Number of link events in a topology change above which the affected
+    // intents are looked up in parallel
+    private static final int PARALLEL_LOOKUP_THRESHOLD = 256;
 
-    private final SetMultimap<ElementId, Key> intentsByDevice =
-            synchronizedSetMultimap(HashMultimap.<ElementId, Key>create());
+    private final TrackedResourceIndex<LinkKey> intentsByLink = new TrackedResourceIndex<>();
+
+    private final TrackedResourceIndex<ElementId> intentsByDevice = new TrackedResourceIndex<>();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected TopologyService topologyService;
@@ -220,7 +219,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
             if (resource instanceof Link) {
                 intentsByLink.remove(linkKey((Link) resource), intentKey);
             } else if (resource instanceof ElementId) {
-                intentsByDevice.remove(resource, intentKey);
+                intentsByDevice.remove((ElementId) resource, intentKey);
             }
         }
     }
@@ -241,7 +240,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         if (log.isTraceEnabled()) {
             log.trace("intent {}, old: {}, new: {}, installableCount: {}, resourceCount: {}",
                       key,
-                      intentsByDevice.values().contains(key),
+                      intentsByDevice.contains(key),
                       isLocal && isInstalled,
                       installables.size(),
                       intent.resources().size() +
@@ -297,7 +296,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                 delegate.triggerCompile(Collections.emptySet(), true);
 
             } else {
-                Set<Key> intentsToRecompile = new HashSet<>();
+                List<LinkEvent> linkEvents = new ArrayList<>();
                 boolean dontRecompileAllFailedIntents = true;
 
                 // Scan through the list of reasons and keep accruing all
@@ -305,21 +304,36 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                 for (Event reason : event.reasons()) {
                     if (reason instanceof LinkEvent) {
                         LinkEvent linkEvent = (LinkEvent) reason;
-                        final LinkKey linkKey = linkKey(linkEvent.subject());
-                        synchronized (intentsByLink) {
-                            Set<Key> intentKeys = intentsByLink.get(linkKey);
-                            log.debug("recompile triggered by LinkEvent {} ({}) for {}",
-                                    linkKey, linkEvent.type(), intentKeys);
-                            intentsToRecompile.addAll(intentKeys);
-                        }
+                        linkEvents.add(linkEvent);
                         dontRecompileAllFailedIntents = dontRecompileAllFailedIntents &&
                                 (linkEvent.type() == LINK_REMOVED ||
                                 (linkEvent.type() == LINK_UPDATED &&
                                 linkEvent.subject().isExpected()));
                     }
                 }
-                delegate.triggerCompile(intentsToRecompile, !dontRecompileAllFailedIntents);
+                delegate.triggerCompile(affectedIntents(linkEvents), !dontRecompileAllFailedIntents);
+            }
+        }
+
+        // Large topology changes, such as a fiber cut, are looked up in parallel
+        private Set<Key> affectedIntents(List<LinkEvent> linkEvents) {
+            if (linkEvents.size() > PARALLEL_LOOKUP_THRESHOLD) {
+                Set<Key> intentsToRecompile = ConcurrentHashMap.newKeySet();
+                linkEvents.parallelStream().forEach(linkEvent -> lookup(linkEvent, intentsToRecompile));
+                return intentsToRecompile;
             }
+            Set<Key> intentsToRecompile = new HashSet<>();
+            linkEvents.forEach(linkEvent -> lookup(linkEvent, intentsToRecompile));
+            return intentsToRecompile;
+        }
+
+        private void lookup(LinkEvent linkEvent, Set<Key> intentsToRecompile) {
+            final LinkKey linkKey = linkKey(linkEvent.subject());
+            if (log.isDebugEnabled()) {
+                log.debug("recompile triggered by LinkEvent {} ({}) for {}",
+                          linkKey, linkEvent.type(), intentsByLink.get(linkKey));
+            }
+            intentsByLink.collect(linkKey, intentsToRecompile);
         }
     }
 
@@ -362,11 +376,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
             // TODO should we recompile on available==true?
 
-            final ImmutableSet<Key> snapshot;
-            synchronized (intentsByDevice) {
-                snapshot = ImmutableSet.copyOf(intentsByDevice.get(id));
-            }
-            delegate.triggerCompile(snapshot, available);
+            delegate.triggerCompile(intentsByDevice.get(id), available);
         }
     }
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.intent.Key;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index of the keys of the intents tracking a resource.
+ * <p>
+ * Updates only lock the hash bin of the affected resource, so that updates of
+ * different resources proceed concurrently, while lookups take no lock at all.
+ * </p>
+ *
+ * @param <R> resource type
+ */
+final class TrackedResourceIndex<R> {
+
+    private final Map<R, Set<Key>> intents = new ConcurrentHashMap<>();
+
+    /**
+     * Records that the given intent is tracking the given resource.
+     *
+     * @param resource  tracked resource
+     * @param intentKey intent key
+     */
+    void put(R resource, Key intentKey) {
+        intents.compute(resource, (r, keys) -> {
+            Set<Key> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            updated.add(intentKey);
+            return updated;
+        });
+    }
+
+    /**
+     * Records that the given intent is no longer tracking the given resource.
+     *
+     * @param resource  tracked resource
+     * @param intentKey intent key
+     */
+    void remove(R resource, Key intentKey) {
+        intents.computeIfPresent(resource, (r, keys) -> {
+            keys.remove(intentKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Returns a snapshot of the keys of the intents tracking the given
+     * resource.
+     *
+     * @param resource tracked resource
+     * @return intent keys
+     */
+    Set<Key> get(R resource) {
+        Set<Key> keys = intents.get(resource);
+        return keys != null ? ImmutableSet.copyOf(keys) : ImmutableSet.of();
+    }
+
+    /**
+     * Adds the keys of the intents tracking the given resource to the given
+     * collection.
+     *
+     * @param resource tracked resource
+     * @param result   collection to add the intent keys to
+     */
+    void collect(R resource, Collection<Key> result) {
+        Set<Key> keys = intents.get(resource);
+        if (keys != null) {
+            result.addAll(keys);
+        }
+    }
+
+    /**
+     * Indicates whether the given intent is tracking any resource.
+     *
+     * @param intentKey intent key
+     * @return true if the intent is tracking a resource
+     */
+    boolean contains(Key intentKey) {
+        return intents.values().stream().anyMatch(keys -> keys.contains(intentKey));
+    }
+}
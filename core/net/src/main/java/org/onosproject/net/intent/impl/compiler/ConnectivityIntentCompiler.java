@@ -305,12 +305,15 @@ public abstract class ConnectivityIntentCompiler<T extends ConnectivityIntent>
             resourceService.release(Lists.newArrayList(resourceAllocationsByKey));
         }
 
-        // Allocate resources
+        // Allocate resources; the bandwidth of each device along the path is
+        // allocated in its own transaction
         log.debug("Allocating bandwidth for intent {}: {} bps", newResourceConsumer, resourcesToAdd);
-        List<ResourceAllocation> allocations =
-                resourceService.allocate(newResourceConsumer, resourcesToAdd);
+        boolean allocated = resourceService.allocate(
+                resourcesToAdd.stream()
+                        .map(r -> new ResourceAllocation(r, newResourceConsumer))
+                        .collect(Collectors.toList()));
 
-        if (allocations.isEmpty()) {
+        if (!allocated) {
             log.debug("No resources allocated for intent {}", newResourceConsumer);
         }
 
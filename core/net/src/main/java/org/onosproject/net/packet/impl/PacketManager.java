@@ -16,8 +16,17 @@
 package org.onosproject.net.packet.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPacket;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onlab.packet.TCP;
+import org.onlab.packet.UDP;
 import org.onlab.util.ItemNotFoundException;
+import org.onlab.util.PredictableExecutor;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
@@ -29,9 +38,15 @@ import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.driver.Driver;
 import org.onosproject.net.driver.DriverService;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
 import org.onosproject.net.flowobjective.DefaultForwardingObjective;
 import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.flowobjective.ForwardingObjective;
@@ -56,23 +71,33 @@ import org.onosproject.net.provider.AbstractProviderRegistry;
 import org.onosproject.net.provider.AbstractProviderService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.onosproject.net.packet.PacketInFilter;
 import org.onosproject.net.packet.PacketInFilter.FilterAction;
 import org.slf4j.Logger;
 
+import java.util.Dictionary;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.CopyOnWriteArrayList;
-
-
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.PredictableExecutor.newPredictableExecutor;
+import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.PM_NUM_THREADS;
+import static org.onosproject.net.OsgiPropertyConstants.PM_NUM_THREADS_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.PACKET_EVENT;
 import static org.onosproject.security.AppPermission.Type.PACKET_READ;
@@ -82,7 +107,16 @@ import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Provides a basic implementation of the packet SB &amp; NB APIs.
  */
-@Component(immediate = true, service = { PacketService.class, PacketProviderRegistry.class })
+@Component(
+    immediate = true,
+    service = {
+        PacketService.class,
+        PacketProviderRegistry.class
+    },
+    property = {
+        PM_NUM_THREADS + ":Integer=" + PM_NUM_THREADS_DEFAULT
+    }
+)
 public class PacketManager
         extends AbstractProviderRegistry<PacketProvider, PacketProviderService>
         implements PacketService, PacketProviderRegistry {
@@ -115,12 +149,27 @@ public class PacketManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected FlowObjectiveService objectiveService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService cfgService;
+
+    /**
+     * Number of threads processing packets in parallel; 0 (default) to process packets in the
+     * receiving thread, which keeps providers throttled by the processors during punt storms.
+     */
+    private int numThreads = PM_NUM_THREADS_DEFAULT;
+
     private ExecutorService eventHandlingExecutor;
 
+    // Processes packets received from the same device in order
+    private PredictableExecutor packetExecutor;
+
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
 
+    // Processors interested in each packet, rebuilt whenever processors change
+    private volatile ProcessorIndex processorIndex = new ProcessorIndex(ImmutableList.of());
+
     private final PacketDriverProvider defaultProvider = new PacketDriverProvider();
 
     private ApplicationId appId;
@@ -129,7 +178,9 @@ public class PacketManager
     private List<PacketInFilter> filters = new CopyOnWriteArrayList<>();
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        modified(context);
         eventHandlingExecutor = Executors.newSingleThreadExecutor(
                 groupedThreads("onos/net/packet", "event-handler", log));
         localNodeId = clusterService.getLocalNode().id();
@@ -154,12 +205,47 @@ public class PacketManager
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
         store.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
         eventHandlingExecutor.shutdown();
+        if (packetExecutor != null) {
+            packetExecutor.shutdown();
+            packetExecutor = null;
+        }
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : new Properties();
+
+        int newNumThreads;
+        try {
+            String s = get(properties, PM_NUM_THREADS);
+            newNumThreads = isNullOrEmpty(s) ? numThreads : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newNumThreads = PM_NUM_THREADS_DEFAULT;
+        }
+
+        if (newNumThreads < 0) {
+            log.warn("Invalid {} value {}; using {}", PM_NUM_THREADS, newNumThreads, numThreads);
+            newNumThreads = numThreads;
+        }
+
+        if (newNumThreads != numThreads || (packetExecutor == null && newNumThreads > 0)) {
+            numThreads = newNumThreads;
+            PredictableExecutor oldExecutor = packetExecutor;
+            packetExecutor = numThreads > 0 ?
+                    newPredictableExecutor(numThreads, groupedThreads("onos/net/packet", "processor-%d", log)) :
+                    null;
+            if (oldExecutor != null) {
+                oldExecutor.shutdown();
+            }
+        }
+        log.info("Settings: numThreads={}", numThreads);
+    }
+
     @Override
     protected PacketProvider defaultProvider() {
         return defaultProvider;
@@ -167,9 +253,16 @@ public class PacketManager
 
     @Override
     public void addProcessor(PacketProcessor processor, int priority) {
+        addProcessor(processor, priority, DefaultTrafficSelector.emptySelector());
+    }
+
+    @Override
+    public synchronized void addProcessor(PacketProcessor processor, int priority,
+                                          TrafficSelector selector) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
+        checkNotNull(selector, ERROR_NULL_SELECTOR);
+        ProcessorEntry entry = new ProcessorEntry(processor, priority, selector);
 
         // Insert the new processor according to its priority.
         int i = 0;
@@ -179,10 +272,11 @@ public class PacketManager
             }
         }
         processors.add(i, entry);
+        processorIndex = new ProcessorIndex(processors);
     }
 
     @Override
-    public void removeProcessor(PacketProcessor processor) {
+    public synchronized void removeProcessor(PacketProcessor processor) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
 
@@ -193,6 +287,7 @@ public class PacketManager
                 break;
             }
         }
+        processorIndex = new ProcessorIndex(processors);
     }
 
     @Override
@@ -475,8 +570,29 @@ public class PacketManager
                 }
                 return;
             }
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
+
+            PredictableExecutor executor = packetExecutor;
+            if (executor == null) {
+                dispatchPacket(context);
+            } else {
+                // Packets from the same device are processed in order
+                executor.execute(() -> dispatchPacket(context),
+                                 context.inPacket().receivedFrom().deviceId().hashCode());
+            }
+        }
+
+        /**
+         * Passes the packet to the processors interested in it, in the
+         * order of their priority.
+         *
+         * @param context packet context
+         */
+        private void dispatchPacket(PacketContext context) {
+            Ethernet packet = context.inPacket().parsed();
+            for (ProcessorEntry entry : processorIndex.lookup(packet)) {
+                if (!entry.matches(packet)) {
+                    continue;
+                }
                 try {
                     if (log.isTraceEnabled()) {
                         log.trace("Starting packet processing by {}",
@@ -578,18 +694,192 @@ public class PacketManager
         }
     }
 
+    /**
+     * Index of the packet processors by the Ethernet type and IP protocol of
+     * the packets they are interested in.
+     */
+    private static final class ProcessorIndex {
+        private final List<ProcessorEntry> wildcards;
+        private final Map<Integer, EthTypeIndex> byEthType;
+
+        ProcessorIndex(List<ProcessorEntry> entries) {
+            this.wildcards = entries.stream()
+                    .filter(entry -> entry.ethType == ProcessorEntry.ANY)
+                    .collect(ImmutableList.toImmutableList());
+
+            // Each index keeps both the processors interested in the Ethernet
+            // type and the wildcard ones, in the order of their priority
+            ImmutableMap.Builder<Integer, EthTypeIndex> builder = ImmutableMap.builder();
+            entries.stream()
+                    .map(entry -> entry.ethType)
+                    .filter(ethType -> ethType != ProcessorEntry.ANY)
+                    .collect(Collectors.toSet())
+                    .forEach(ethType -> builder.put(ethType, new EthTypeIndex(entries.stream()
+                            .filter(entry -> entry.ethType == ProcessorEntry.ANY || entry.ethType == ethType)
+                            .collect(ImmutableList.toImmutableList()))));
+            this.byEthType = builder.build();
+        }
+
+        /**
+         * Returns the processors possibly interested in the given packet.
+         *
+         * @param packet parsed packet; null if the packet could not be parsed
+         * @return list of processors in the order of their priority
+         */
+        List<ProcessorEntry> lookup(Ethernet packet) {
+            if (packet == null) {
+                return wildcards;
+            }
+            EthTypeIndex index = byEthType.get(packet.getEtherType() & 0xffff);
+            return index != null ? index.lookup(packet) : wildcards;
+        }
+    }
+
+    /**
+     * Index of the packet processors interested in one Ethernet type by the
+     * IP protocol of the packets they are interested in.
+     */
+    private static final class EthTypeIndex {
+        private final List<ProcessorEntry> anyProto;
+        private final Map<Integer, List<ProcessorEntry>> byIpProto;
+
+        EthTypeIndex(List<ProcessorEntry> entries) {
+            this.anyProto = entries.stream()
+                    .filter(entry -> entry.ipProto == ProcessorEntry.ANY)
+                    .collect(ImmutableList.toImmutableList());
+
+            ImmutableMap.Builder<Integer, List<ProcessorEntry>> builder = ImmutableMap.builder();
+            entries.stream()
+                    .map(entry -> entry.ipProto)
+                    .filter(ipProto -> ipProto != ProcessorEntry.ANY)
+                    .collect(Collectors.toSet())
+                    .forEach(ipProto -> builder.put(ipProto, entries.stream()
+                            .filter(entry -> entry.ipProto == ProcessorEntry.ANY || entry.ipProto == ipProto)
+                            .collect(ImmutableList.toImmutableList())));
+            this.byIpProto = builder.build();
+        }
+
+        /**
+         * Returns the processors possibly interested in the given packet.
+         *
+         * @param packet parsed packet of the indexed Ethernet type
+         * @return list of processors in the order of their priority
+         */
+        List<ProcessorEntry> lookup(Ethernet packet) {
+            if (byIpProto.isEmpty()) {
+                return anyProto;
+            }
+            // Processors interested in an IP protocol never match other packets
+            return byIpProto.getOrDefault(ProcessorEntry.ipProtocol(packet), anyProto);
+        }
+    }
+
     /**
      * Entity for tracking stats for a packet processor.
      */
-    private class ProcessorEntry implements PacketProcessorEntry {
+    private static class ProcessorEntry implements PacketProcessorEntry {
+        private static final int ANY = -1;
+
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
-
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        private final TrafficSelector selector;
+        private final int ethType;
+        private final int ipProto;
+        private final int srcPort;
+        private final int dstPort;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        public ProcessorEntry(PacketProcessor processor, int priority, TrafficSelector selector) {
             this.processor = processor;
             this.priority = priority;
+            this.selector = selector;
+
+            Criterion criterion = selector.getCriterion(Criterion.Type.ETH_TYPE);
+            this.ethType = criterion != null ?
+                    ((EthTypeCriterion) criterion).ethType().toShort() & 0xffff : ANY;
+
+            int proto = ANY;
+            int src = ANY;
+            int dst = ANY;
+            criterion = selector.getCriterion(Criterion.Type.IP_PROTO);
+            if (criterion != null) {
+                proto = ((IPProtocolCriterion) criterion).protocol();
+            }
+            if (selector.getCriterion(Criterion.Type.TCP_SRC) != null ||
+                    selector.getCriterion(Criterion.Type.TCP_DST) != null) {
+                proto = IPv4.PROTOCOL_TCP;
+                src = tcpPort(selector, Criterion.Type.TCP_SRC);
+                dst = tcpPort(selector, Criterion.Type.TCP_DST);
+            } else if (selector.getCriterion(Criterion.Type.UDP_SRC) != null ||
+                    selector.getCriterion(Criterion.Type.UDP_DST) != null) {
+                proto = IPv4.PROTOCOL_UDP;
+                src = udpPort(selector, Criterion.Type.UDP_SRC);
+                dst = udpPort(selector, Criterion.Type.UDP_DST);
+            }
+            this.ipProto = proto;
+            this.srcPort = src;
+            this.dstPort = dst;
+        }
+
+        private static int tcpPort(TrafficSelector selector, Criterion.Type type) {
+            Criterion criterion = selector.getCriterion(type);
+            return criterion != null ? ((TcpPortCriterion) criterion).tcpPort().toInt() : ANY;
+        }
+
+        private static int udpPort(TrafficSelector selector, Criterion.Type type) {
+            Criterion criterion = selector.getCriterion(type);
+            return criterion != null ? ((UdpPortCriterion) criterion).udpPort().toInt() : ANY;
+        }
+
+        /**
+         * Indicates whether the given packet matches the IP protocol and
+         * transport ports the processor is interested in. The Ethernet type
+         * is matched by the processor index.
+         *
+         * @param packet parsed packet; null if the packet could not be parsed
+         * @return true if the processor is interested in the packet
+         */
+        boolean matches(Ethernet packet) {
+            if (ipProto == ANY) {
+                return true;
+            }
+            if (packet == null || ipProtocol(packet) != ipProto) {
+                return false;
+            }
+            if (srcPort == ANY && dstPort == ANY) {
+                return true;
+            }
+
+            IPacket transport = packet.getPayload().getPayload();
+            int src;
+            int dst;
+            if (transport instanceof TCP) {
+                src = ((TCP) transport).getSourcePort();
+                dst = ((TCP) transport).getDestinationPort();
+            } else if (transport instanceof UDP) {
+                src = ((UDP) transport).getSourcePort();
+                dst = ((UDP) transport).getDestinationPort();
+            } else {
+                return false;
+            }
+            return (srcPort == ANY || srcPort == src) && (dstPort == ANY || dstPort == dst);
+        }
+
+        /**
+         * Returns the IP protocol of the given packet.
+         *
+         * @param packet parsed packet
+         * @return IP protocol number; ANY if the packet is not an IP packet
+         */
+        static int ipProtocol(Ethernet packet) {
+            IPacket payload = packet.getPayload();
+            if (payload instanceof IPv4) {
+                return ((IPv4) payload).getProtocol() & 0xff;
+            } else if (payload instanceof IPv6) {
+                return ((IPv6) payload).getNextHeader() & 0xff;
+            }
+            return ANY;
         }
 
         @Override
@@ -602,24 +892,30 @@ public class PacketManager
             return priority;
         }
 
+        @Override
+        public TrafficSelector selector() {
+            return selector;
+        }
+
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.sum();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.sum();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations.sum();
+            return count > 0 ? nanos.sum() / count : 0;
         }
 
         void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+            this.nanos.add(nanos);
+            this.invocations.increment();
         }
     }
 }
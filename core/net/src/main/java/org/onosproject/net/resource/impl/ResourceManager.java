@@ -103,6 +103,14 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public boolean allocate(List<ResourceAllocation> allocations) {
+        checkPermission(RESOURCE_WRITE);
+        checkNotNull(allocations);
+
+        return store.allocate(allocations);
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         checkPermission(RESOURCE_WRITE);
@@ -169,10 +177,7 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
         checkNotNull(parent);
         checkNotNull(cls);
 
-        return store.getChildResources(parent, cls).stream()
-                // We access store twice in this method, then the store may be updated by others
-                .filter(store::isAvailable)
-                .collect(Collectors.toSet());
+        return store.getAvailableResources(parent, cls);
     }
 
     @Override
@@ -181,9 +186,7 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
         checkNotNull(parent);
         checkNotNull(cls);
 
-        return store.getChildResources(parent, cls).stream()
-                // We access store twice in this method, then the store may be updated by others
-                .filter(store::isAvailable)
+        return store.getAvailableResources(parent, cls).stream()
                 .map(x -> x.valueAs(cls))
                 .flatMap(Tools::stream)
                 .collect(Collectors.toSet());
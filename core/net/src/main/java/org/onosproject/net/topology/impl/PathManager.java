@@ -15,6 +15,11 @@
  */
 package org.onosproject.net.topology.impl;
 
+import com.codahale.metrics.Gauge;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.common.DefaultTopology;
 import org.onosproject.net.DisjointPath;
 import org.onosproject.net.ElementId;
 import org.onosproject.net.Link;
@@ -47,6 +52,11 @@ import static org.slf4j.LoggerFactory.getLogger;
 @Component(immediate = true, service = PathService.class)
 public class PathManager extends AbstractPathService implements PathService {
 
+    private static final String METRICS_COMPONENT = "Topology";
+    private static final String METRICS_FEATURE = "shortestPathTrees";
+    private static final String HITS = "hits";
+    private static final String MISSES = "misses";
+
     private final Logger log = getLogger(getClass());
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
@@ -55,19 +65,47 @@ public class PathManager extends AbstractPathService implements PathService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected HostService hostService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL)
+    protected volatile MetricsService metricsService;
+
     @Activate
     public void activate() {
         // initialize AbstractPathService
         super.topologyService = this.topologyService;
         super.hostService = this.hostService;
+        registerMetrics();
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
+        unregisterMetrics();
         log.info("Stopped");
     }
 
+    // Exports the hits and misses of the topology shortest-path tree caches.
+    private void registerMetrics() {
+        MetricsService metrics = metricsService;
+        if (metrics != null) {
+            MetricsComponent component = metrics.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metrics.registerMetric(component, feature, HITS,
+                                   (Gauge<Long>) DefaultTopology::shortestPathTreeHits);
+            metrics.registerMetric(component, feature, MISSES,
+                                   (Gauge<Long>) DefaultTopology::shortestPathTreeMisses);
+        }
+    }
+
+    private void unregisterMetrics() {
+        MetricsService metrics = metricsService;
+        if (metrics != null) {
+            MetricsComponent component = metrics.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metrics.removeMetric(component, feature, HITS);
+            metrics.removeMetric(component, feature, MISSES);
+        }
+    }
+
     @Override
     public Set<Path> getPaths(ElementId src, ElementId dst) {
         checkPermission(TOPOLOGY_READ);
@@ -18,16 +18,33 @@ package org.onosproject.event.impl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.host.HostEvent;
 
 import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.device;
+import static org.onosproject.net.NetTestTools.host;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_LANE_WIDTH;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_QUEUE_SIZE;
 
 /**
  * Test of the event dispatcher mechanism.
@@ -40,7 +57,7 @@ public class CoreEventDispatcherTest {
 
     @Before
     public void setUp() {
-        dispatcher.activate();
+        dispatcher.activate(null);
         dispatcher.addSink(Prickle.class, prickleSink);
         dispatcher.addSink(Goo.class, gooSink);
     }
@@ -88,6 +105,190 @@ public class CoreEventDispatcherTest {
         assertTrue(takesTooLong.interrupted);
     }
 
+    @Test
+    public void hostEventsDoNotStallTopologyEvents() throws Exception {
+        CountDownLatch hostRelease = new CountDownLatch(1);
+        CountDownLatch hostProcessed = new CountDownLatch(1);
+        CountDownLatch deviceProcessed = new CountDownLatch(1);
+        dispatcher.addSink(HostEvent.class, event -> {
+            try {
+                hostRelease.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            hostProcessed.countDown();
+        });
+        dispatcher.addSink(DeviceEvent.class, event -> deviceProcessed.countDown());
+        try {
+            dispatcher.post(new HostEvent(HostEvent.Type.HOST_ADDED, host("00:00:00:00:00:01/-1", "d1")));
+            dispatcher.post(new DeviceEvent(DeviceEvent.Type.DEVICE_ADDED, device("d1")));
+            assertTrue("device event held back by host sink", deviceProcessed.await(1, TimeUnit.SECONDS));
+            hostRelease.countDown();
+            assertTrue(hostProcessed.await(1, TimeUnit.SECONDS));
+        } finally {
+            hostRelease.countDown();
+            dispatcher.removeSink(DeviceEvent.class);
+            dispatcher.removeSink(HostEvent.class);
+        }
+    }
+
+    @Test
+    public void postInOrderPerSubject() throws Exception {
+        dispatcher.modified(configuration(CED_DISPATCH_LANE_WIDTH, "4"));
+        int subjects = 8;
+        int events = 100;
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(subjects * events);
+        dispatcher.addSink(Numbered.class, event -> {
+            received.computeIfAbsent(event.subject(), subject -> new CopyOnWriteArrayList<>())
+                    .add(event.number);
+            latch.countDown();
+        });
+        try {
+            for (int i = 0; i < events; i++) {
+                for (int j = 0; j < subjects; j++) {
+                    dispatcher.post(new Numbered("subject" + j, i));
+                }
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(subjects, received.size());
+            List<Integer> expected = IntStream.range(0, events).boxed().collect(Collectors.toList());
+            received.values().forEach(numbers -> assertEquals(expected, numbers));
+        } finally {
+            dispatcher.removeSink(Numbered.class);
+        }
+    }
+
+    @Test
+    public void moveHostInOrder() throws Exception {
+        dispatcher.modified(configuration(CED_DISPATCH_LANE_WIDTH, "4"));
+        int moves = 50;
+        List<Long> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(moves);
+        dispatcher.addSink(HostEvent.class, event -> {
+            received.add(event.subject().location().port().toLong());
+            latch.countDown();
+        });
+        try {
+            // Each move changes the host locations and so the host hash code
+            for (int i = 1; i <= moves; i++) {
+                dispatcher.post(new HostEvent(HostEvent.Type.HOST_MOVED, host("00:00:00:00:00:01/-1", "d1", i)));
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(LongStream.rangeClosed(1, moves).boxed().collect(Collectors.toList()), received);
+        } finally {
+            dispatcher.removeSink(HostEvent.class);
+        }
+    }
+
+    @Test
+    public void postToFullQueueIsHeldBack() throws Exception {
+        dispatcher.modified(configuration(CED_DISPATCH_QUEUE_SIZE, "1"));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(3);
+        dispatcher.addSink(Numbered.class, event -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.countDown();
+        });
+        try {
+            CountDownLatch posted = new CountDownLatch(1);
+            new Thread(() -> {
+                for (int i = 0; i < 3; i++) {
+                    dispatcher.post(new Numbered("subject", i));
+                }
+                posted.countDown();
+            }).start();
+            assertFalse("post not held back", posted.await(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertTrue(posted.await(1, TimeUnit.SECONDS));
+            assertTrue(processed.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            dispatcher.removeSink(Numbered.class);
+        }
+    }
+
+    @Test
+    public void activateWithConfiguration() throws Exception {
+        CoreEventDispatcher configured = new CoreEventDispatcher();
+        configured.activate(configuration(CED_DISPATCH_LANE_WIDTH, "2"));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(1);
+        configured.addSink(Numbered.class, event -> {
+            if (event.subject().equals("subject0")) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                processed.countDown();
+            }
+        });
+        try {
+            // Subjects of different hash parity are dispatched by different loops
+            configured.post(new Numbered("subject0", 0));
+            configured.post(new Numbered("subject1", 0));
+            assertTrue("event held back by another loop", processed.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            configured.removeSink(Numbered.class);
+            configured.deactivate();
+        }
+    }
+
+    @Test
+    public void modifiedKeepsOrder() throws Exception {
+        int events = 20;
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(events);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        dispatcher.addSink(Numbered.class, event -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            received.add(event.number);
+            latch.countDown();
+        });
+        try {
+            for (int i = 0; i < events / 2; i++) {
+                dispatcher.post(new Numbered("subject", i));
+            }
+            Thread modifier = new Thread(() -> dispatcher.modified(configuration(CED_DISPATCH_LANE_WIDTH, "2")));
+            modifier.start();
+            Thread.sleep(200);
+            for (int i = events / 2; i < events; i++) {
+                dispatcher.post(new Numbered("subject", i));
+            }
+            release.countDown();
+            modifier.join(5_000);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertFalse("sink interrupted by the new configuration", interrupted.get());
+            assertEquals(IntStream.range(0, events).boxed().collect(Collectors.toList()), received);
+        } finally {
+            release.countDown();
+            dispatcher.removeSink(Numbered.class);
+        }
+    }
+
+    private static ComponentContextAdapter configuration(String name, String value) {
+        return new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> properties = new Hashtable<>();
+                properties.put(name, value);
+                return properties;
+            }
+        };
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -116,6 +317,15 @@ public class CoreEventDispatcherTest {
         }
     }
 
+    private static class Numbered extends AbstractEvent<Type, String> {
+        final int number;
+
+        protected Numbered(String subject, int number) {
+            super(Type.FOO, subject);
+            this.number = number;
+        }
+    }
+
     private static class Sink {
         final List<String> subjects = new ArrayList<>();
         CountDownLatch latch;
@@ -58,9 +58,13 @@ import org.onosproject.net.intent.TestTools;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.onlab.junit.TestUtils.TestUtilsException;
@@ -86,6 +90,8 @@ public class FlowObjectiveManagerTest {
 
     List<String> filteringObjectives;
     List<String> forwardingObjectives;
+    List<Integer> forwardingBatches;
+    CompletableFuture<Void> batchProcessed = CompletableFuture.completedFuture(null);
     List<String> nextObjectives;
 
     private class TestDeviceService extends DeviceServiceAdapter {
@@ -162,6 +168,13 @@ public class FlowObjectiveManagerTest {
             forwardingObjectives.add(deviceId.toString());
         }
 
+        @Override
+        public CompletableFuture<Void> forward(List<ForwardingObjective> forwardObjectives) {
+            forwardingBatches.add(forwardObjectives.size());
+            forwardObjectives.forEach(this::forward);
+            return batchProcessed;
+        }
+
         @Override
         public void next(NextObjective nextObjective) {
             nextObjectives.add(deviceId.toString());
@@ -189,6 +202,7 @@ public class FlowObjectiveManagerTest {
 
         filteringObjectives = new ArrayList<>();
         forwardingObjectives = new ArrayList<>();
+        forwardingBatches = new ArrayList<>();
         nextObjectives = new ArrayList<>();
         manager.activate(null);
     }
@@ -228,6 +242,111 @@ public class FlowObjectiveManagerTest {
         assertThat(nextObjectives, hasSize(0));
     }
 
+    /**
+     * Tests that consecutive forwarding objectives of a device are passed down
+     * to the pipeliner as a batch.
+     */
+    @Test
+    public void forwardingObjectiveBatch() {
+        ForwardingObjective.Builder forward =
+                DefaultForwardingObjective.builder()
+                        .fromApp(NetTestTools.APP_ID)
+                        .withFlag(ForwardingObjective.Flag.SPECIFIC)
+                        .withSelector(DefaultTrafficSelector.emptySelector())
+                        .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                        .makePermanent();
+        FilteringObjective filter =
+                DefaultFilteringObjective.builder()
+                        .fromApp(NetTestTools.APP_ID)
+                        .makePermanent()
+                        .deny()
+                        .addCondition(Criteria.matchEthType(12))
+                        .add();
+
+        // Hold the installer while the objectives are queued up
+        manager.installerExecutor.shutdown();
+        manager.installerExecutor = newSingleThreadExecutor();
+        CountDownLatch held = new CountDownLatch(1);
+        manager.installerExecutor.execute(() -> {
+            try {
+                held.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            manager.forward(id1, forward.withPriority(i).add());
+        }
+        manager.filter(id1, filter);
+        for (int i = 0; i < 2; i++) {
+            manager.forward(id1, forward.withPriority(i).add());
+        }
+        held.countDown();
+
+        TestTools.assertAfter(RETRY_MS, () ->
+            assertThat(forwardingObjectives, hasSize(5)));
+
+        assertThat(forwardingBatches, contains(3, 2));
+        assertThat(filteringObjectives, hasSize(1));
+    }
+
+    /**
+     * Tests that the objectives queued behind a batch are not passed down to
+     * the pipeliner until the batch has been processed.
+     */
+    @Test
+    public void forwardingObjectiveBatchHoldsQueue() {
+        ForwardingObjective.Builder forward =
+                DefaultForwardingObjective.builder()
+                        .fromApp(NetTestTools.APP_ID)
+                        .withFlag(ForwardingObjective.Flag.SPECIFIC)
+                        .withSelector(DefaultTrafficSelector.emptySelector())
+                        .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                        .makePermanent();
+        FilteringObjective filter =
+                DefaultFilteringObjective.builder()
+                        .fromApp(NetTestTools.APP_ID)
+                        .makePermanent()
+                        .deny()
+                        .addCondition(Criteria.matchEthType(12))
+                        .add();
+        batchProcessed = new CompletableFuture<>();
+
+        // Hold the installer while the objectives are queued up
+        manager.installerExecutor.shutdown();
+        manager.installerExecutor = newSingleThreadExecutor();
+        CountDownLatch held = new CountDownLatch(1);
+        manager.installerExecutor.execute(() -> {
+            try {
+                held.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            manager.forward(id1, forward.withPriority(i).add());
+        }
+        manager.filter(id1, filter);
+        for (int i = 0; i < 2; i++) {
+            manager.forward(id1, forward.withPriority(i).add());
+        }
+        held.countDown();
+
+        TestTools.assertAfter(RETRY_MS, () ->
+            assertThat(forwardingObjectives, hasSize(3)));
+        assertThat(filteringObjectives, hasSize(0));
+        assertThat(forwardingBatches, contains(3));
+
+        batchProcessed.complete(null);
+
+        TestTools.assertAfter(RETRY_MS, () ->
+            assertThat(forwardingObjectives, hasSize(5)));
+        assertThat(forwardingBatches, contains(3, 2));
+        assertThat(filteringObjectives, hasSize(1));
+    }
+
     /**
      * Tests adding a filtering objective.
      */
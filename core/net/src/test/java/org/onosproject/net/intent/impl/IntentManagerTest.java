@@ -26,6 +26,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onosproject.TestApplicationId;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cfg.ComponentConfigService;
@@ -60,6 +61,8 @@ import org.onosproject.store.trivial.SimpleIntentStore;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -76,6 +79,7 @@ import static org.junit.Assert.*;
 import static org.onlab.junit.TestTools.assertAfter;
 import static org.onlab.util.Tools.delay;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
+import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_BATCH_LANES;
 import static org.onosproject.net.intent.IntentState.*;
 import static org.onosproject.net.intent.IntentTestsMocks.MockFlowRule;
 import static org.onosproject.net.intent.IntentTestsMocks.MockIntent;
@@ -195,6 +199,22 @@ public class IntentManagerTest {
     }
 
 
+    private static class TestIntentCompilerBlocking implements IntentCompiler<MockIntent> {
+        final CountDownLatch compiling = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<Intent> compile(MockIntent intent, List<Intent> installable) {
+            compiling.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Lists.newArrayList(new MockInstallableIntent());
+        }
+    }
+
     private static class TestIntentCompilerError implements IntentCompiler<MockIntent> {
         @Override
         public List<Intent> compile(MockIntent intent, List<Intent> installable) {
@@ -422,6 +442,94 @@ public class IntentManagerTest {
         verifyState();
     }
 
+    /**
+     * Tests that the operations of an intent are processed in order when the
+     * batches are spread across several lanes.
+     */
+    @Test
+    public void stressSubmitWithdrawSameMultipleLanes() {
+        flowRuleService.setFuture(true);
+        manager.modified(batchLanes(2));
+
+        int count = 50;
+
+        Intent intent = new MockIntent(MockIntent.nextId());
+        Intent other = new MockIntent(MockIntent.nextId());
+        for (int i = 0; i < count; i++) {
+            service.submit(intent);
+            service.submit(other);
+            service.withdraw(intent);
+        }
+
+        assertAfter(SUBMIT_TIMEOUT_MS, () -> {
+            assertEquals(2L, service.getIntentCount());
+            assertEquals(WITHDRAWN, service.getIntentState(intent.key()));
+            assertEquals(INSTALLED, service.getIntentState(other.key()));
+        });
+        verifyState();
+    }
+
+    /**
+     * Tests that the withdrawal of an intent waits for its installation when
+     * the number of batch lanes changes while the installation is in flight,
+     * even though the intent is then handled by another lane.
+     */
+    @Test
+    public void reconfigureBatchLanesInFlight() throws InterruptedException {
+        flowRuleService.setFuture(true);
+        manager.modified(batchLanes(2));
+
+        // pick an intent assigned to another lane once there are 3 lanes
+        Intent intent;
+        do {
+            intent = new MockIntent(MockIntent.nextId());
+        } while (Math.floorMod(intent.key().hashCode(), 2) == Math.floorMod(intent.key().hashCode(), 3));
+        Key key = intent.key();
+
+        List<IntentEvent.Type> events = Collections.synchronizedList(Lists.newArrayList());
+        IntentListener orderListener = event -> {
+            if (event.subject().key().equals(key) &&
+                    (event.type() == Type.INSTALLED || event.type() == Type.WITHDRAWN)) {
+                events.add(event.type());
+            }
+        };
+        service.addListener(orderListener);
+
+        TestIntentCompilerBlocking blocking = new TestIntentCompilerBlocking();
+        extensionService.registerCompiler(MockIntent.class, blocking);
+
+        service.submit(intent);
+        assertTrue("Timed out waiting for compilation",
+                   blocking.compiling.await(5, TimeUnit.SECONDS));
+
+        manager.modified(batchLanes(3));
+        listener.setLatch(1, Type.WITHDRAWN);
+        service.withdraw(intent);
+
+        // give the withdrawal a chance to overtake the installation
+        delay(100);
+        assertTrue(events.isEmpty());
+        blocking.release.countDown();
+
+        listener.await(Type.WITHDRAWN);
+        assertEquals(Lists.newArrayList(Type.INSTALLED, Type.WITHDRAWN), events);
+        assertEquals(WITHDRAWN, service.getIntentState(key));
+        assertEquals(0L, flowRuleService.getFlowRuleCount());
+        service.removeListener(orderListener);
+        verifyState();
+    }
+
+    private static ComponentContextAdapter batchLanes(int lanes) {
+        return new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> properties = new Hashtable<>();
+                properties.put(IM_NUM_BATCH_LANES, String.valueOf(lanes));
+                return properties;
+            }
+        };
+    }
+
 
     /**
      * Tests for proper behavior of installation of an intent that triggers
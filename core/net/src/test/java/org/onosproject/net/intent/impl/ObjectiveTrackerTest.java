@@ -216,6 +216,37 @@ public class ObjectiveTrackerTest extends AbstractIntentTest {
                    equalTo("0x333"));
     }
 
+    /**
+     * Tests an event for a large number of links down, whose affected intents
+     * are looked up in parallel.
+     *
+     * @throws InterruptedException if the latch wait fails.
+     */
+    @Test
+    public void testEventManyLinksDownMatch() throws Exception {
+        final int linkCount = 1000;
+        for (int i = 0; i < linkCount; i++) {
+            final Link link = link("src", i, "dst", i);
+            reasons.add(new LinkEvent(LinkEvent.Type.LINK_REMOVED, link));
+            // Every other intent spans two links
+            tracker.addTrackedResources(Key.of(i / 2, APP_ID), ImmutableSet.of(link));
+        }
+        tracker.removeTrackedResources(Key.of(0, APP_ID), ImmutableSet.of(link("src", 0, "dst", 0)));
+
+        final TopologyEvent event = new TopologyEvent(
+                TopologyEvent.Type.TOPOLOGY_CHANGED,
+                topology,
+                reasons);
+
+        listener.event(event);
+        assertThat(
+                delegate.latch.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                is(true));
+
+        assertThat(delegate.intentIdsFromEvent, hasSize(linkCount / 2));
+        assertThat(delegate.compileAllFailedFromEvent, is(false));
+    }
+
     /**
      * Tests a resource available event.
      *
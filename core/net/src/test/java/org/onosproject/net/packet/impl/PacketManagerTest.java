@@ -18,14 +18,24 @@ package org.onosproject.net.packet.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.TCP;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.UDP;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cluster.ClusterServiceAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.CoreServiceAdapter;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.TestListener;
 import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DefaultDevice;
 import org.onosproject.net.Device;
@@ -37,20 +47,38 @@ import org.onosproject.net.driver.DefaultDriver;
 import org.onosproject.net.driver.DriverRegistry;
 import org.onosproject.net.driver.impl.DriverManager;
 import org.onosproject.net.driver.impl.DriverRegistryManager;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.packet.DefaultInboundPacket;
 import org.onosproject.net.packet.DefaultOutboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
 import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketContext;
+import org.onosproject.net.packet.PacketProcessor;
 import org.onosproject.net.packet.PacketProgrammable;
+import org.onosproject.net.packet.PacketProvider;
 import org.onosproject.net.packet.PacketProviderRegistry;
+import org.onosproject.net.packet.PacketProviderService;
+import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.pi.PiPipeconfServiceAdapter;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.provider.TestProvider;
 import org.onosproject.store.trivial.SimplePacketStore;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
 
 /**
@@ -60,6 +88,8 @@ public class PacketManagerTest {
 
     private static final ProviderId FOO_PID = new ProviderId("foo", "foo");
 
+    private static final ProviderId BAR_PID = new ProviderId("bar", "bar");
+
     private static final DeviceId FOO_DID = DeviceId.deviceId("foo:002");
 
     private static final DefaultAnnotations ANNOTATIONS =
@@ -86,8 +116,9 @@ public class PacketManagerTest {
         mgr.deviceService = new TestDeviceService();
         mgr.deviceService = new TestDeviceService();
         mgr.coreService = new TestCoreService();
+        mgr.cfgService = new ComponentConfigAdapter();
         providerRegistry = mgr;
-        mgr.activate();
+        mgr.activate(null);
 
         DriverRegistryManager driverRegistry = new DriverRegistryManager();
         driverService = new TestDriverManager(driverRegistry);
@@ -108,6 +139,132 @@ public class PacketManagerTest {
         assertEquals("Packet not emitted correctly", packet, emittedPacket);
     }
 
+    /**
+     * Tests that packets are dispatched only to the processors interested in them.
+     */
+    @Test
+    public void packetProcessorInterests() {
+        CountingProcessor arpProcessor = new CountingProcessor();
+        CountingProcessor dhcpProcessor = new CountingProcessor();
+        CountingProcessor allProcessor = new CountingProcessor();
+        mgr.addProcessor(arpProcessor, 1, DefaultTrafficSelector.builder()
+                .matchEthType(Ethernet.TYPE_ARP)
+                .build());
+        mgr.addProcessor(dhcpProcessor, 2, DefaultTrafficSelector.builder()
+                .matchEthType(Ethernet.TYPE_IPV4)
+                .matchIPProtocol(IPv4.PROTOCOL_UDP)
+                .matchUdpDst(TpPort.tpPort(67))
+                .build());
+        mgr.addProcessor(allProcessor, 3);
+        assertEquals(3, mgr.getProcessors().size());
+
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+
+        Ethernet arp = new Ethernet();
+        arp.setEtherType(Ethernet.TYPE_ARP);
+        providerService.processPacket(new TestPacketContext(arp));
+
+        UDP udp = new UDP();
+        udp.setDestinationPort(67);
+        IPv4 dhcp = new IPv4();
+        dhcp.setProtocol(IPv4.PROTOCOL_UDP);
+        dhcp.setPayload(udp);
+        Ethernet dhcpEth = new Ethernet();
+        dhcpEth.setEtherType(Ethernet.TYPE_IPV4);
+        dhcpEth.setPayload(dhcp);
+        providerService.processPacket(new TestPacketContext(dhcpEth));
+
+        TCP tcp = new TCP();
+        tcp.setDestinationPort(67);
+        IPv4 ipv4 = new IPv4();
+        ipv4.setProtocol(IPv4.PROTOCOL_TCP);
+        ipv4.setPayload(tcp);
+        Ethernet tcpEth = new Ethernet();
+        tcpEth.setEtherType(Ethernet.TYPE_IPV4);
+        tcpEth.setPayload(ipv4);
+        providerService.processPacket(new TestPacketContext(tcpEth));
+
+        assertEquals(1, arpProcessor.count.get());
+        assertEquals(1, dhcpProcessor.count.get());
+        assertEquals(3, allProcessor.count.get());
+
+        mgr.removeProcessor(allProcessor);
+        providerService.processPacket(new TestPacketContext(arp));
+        assertEquals(2, arpProcessor.count.get());
+        assertEquals(3, allProcessor.count.get());
+    }
+
+    /**
+     * Tests that packets from the same device are processed in order by the
+     * packet processing threads once configured.
+     */
+    @Test
+    public void packetProcessorThreads() throws InterruptedException {
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put("numThreads", "2");
+        mgr.modified(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                return properties;
+            }
+        });
+
+        int packets = 100;
+        List<Short> received = Collections.synchronizedList(Lists.newArrayList());
+        Set<Thread> threads = Sets.newConcurrentHashSet();
+        CountDownLatch latch = new CountDownLatch(packets);
+        mgr.addProcessor(context -> {
+            received.add(context.inPacket().parsed().getEtherType());
+            threads.add(Thread.currentThread());
+            latch.countDown();
+        }, 1);
+
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        for (short i = 0; i < packets; i++) {
+            Ethernet packet = new Ethernet();
+            packet.setEtherType(i);
+            providerService.processPacket(new TestPacketContext(packet));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (short i = 0; i < packets; i++) {
+            assertEquals(i, (short) received.get(i));
+        }
+        assertFalse(threads.contains(Thread.currentThread()));
+        mgr.deactivate();
+    }
+
+    private static class CountingProcessor implements PacketProcessor {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void process(PacketContext context) {
+            count.incrementAndGet();
+        }
+    }
+
+    private static class TestPacketContext extends DefaultPacketContext {
+        TestPacketContext(Ethernet packet) {
+            super(0, new DefaultInboundPacket(ConnectPoint.deviceConnectPoint(FOO_DID + "/1"),
+                                              packet, ByteBuffer.allocate(0)),
+                  null, false);
+        }
+
+        @Override
+        public void send() {
+        }
+    }
+
+    private static class TestPacketProvider extends AbstractProvider implements PacketProvider {
+        TestPacketProvider() {
+            super(BAR_PID);
+        }
+
+        @Override
+        public void emit(OutboundPacket packet) {
+        }
+    }
+
     private static class TestDeviceService extends DeviceServiceAdapter {
         @Override
         public int getDeviceCount() {
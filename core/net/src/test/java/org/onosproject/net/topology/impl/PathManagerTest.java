@@ -15,17 +15,22 @@
  */
 package org.onosproject.net.topology.impl;
 
+import com.google.common.collect.ImmutableSet;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.junit.TestUtils;
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
+import org.onosproject.net.Link;
 import org.onosproject.net.Path;
 import org.onosproject.net.host.HostServiceAdapter;
 import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.topology.DefaultGraphDescription;
 import org.onosproject.net.topology.LinkWeigher;
 import org.onosproject.net.topology.PathService;
 import org.onosproject.net.topology.Topology;
@@ -137,6 +142,26 @@ public class PathManagerTest {
         assertTrue("there should be no paths", paths.isEmpty());
     }
 
+    @Test
+    public void shortestPathTreeReused() throws Exception {
+        Set<Device> devices = ImmutableSet.of(device("a"), device("b"), device("c"));
+        Set<Link> links = ImmutableSet.of(link("a", 1, "b", 1), link("b", 1, "a", 1),
+                                          link("b", 2, "c", 1), link("c", 1, "b", 2));
+        long now = System.currentTimeMillis();
+        DefaultTopology topology = new DefaultTopology(PID, new DefaultGraphDescription(now, now, devices, links));
+        TestUtils.setField(mgr, "topologyService", new TopologyServiceAdapter() {
+            @Override
+            public Set<Path> getPaths(Topology topo, DeviceId src, DeviceId dst, LinkWeigher weigher) {
+                return topology.getPaths(src, dst, weigher);
+            }
+        });
+
+        long hits = DefaultTopology.shortestPathTreeHits();
+        validatePaths(service.getPaths(did("a"), did("c")), 1, 2, did("a"), did("c"));
+        validatePaths(service.getPaths(did("a"), did("b")), 1, 1, did("a"), did("b"));
+        assertEquals("incorrect cache hits", hits + 1, DefaultTopology.shortestPathTreeHits());
+    }
+
     // Makes sure the set of paths meets basic expectations.
     private void validatePaths(Set<Path> paths, int count, int length,
                                ElementId src, ElementId dst) {
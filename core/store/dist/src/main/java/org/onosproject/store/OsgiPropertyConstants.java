@@ -35,9 +35,15 @@ public final class OsgiPropertyConstants {
     public static final String EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED = "persistenceEnabled";
     public static final boolean EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED_DEFAULT = false;
 
+    public static final String SNAPSHOT_PERIOD_MILLIS = "snapshotPeriod";
+    public static final int SNAPSHOT_PERIOD_MILLIS_DEFAULT = 10000;
+
     public static final String MAX_BACKUP_COUNT = "backupCount";
     public static final int MAX_BACKUP_COUNT_DEFAULT = 2;
 
+    public static final String REPLICATE_FLOW_COUNTERS = "replicateFlowCounters";
+    public static final boolean REPLICATE_FLOW_COUNTERS_DEFAULT = true;
+
     public static final String ELECTION_TIMEOUT_MILLIS = "electionTimeoutMillis";
     public static final long ELECTION_TIMEOUT_MILLIS_DEFAULT = 2500;
 
@@ -53,6 +59,12 @@ public final class OsgiPropertyConstants {
     public static final String GIS_PERSISTENCE_ENABLED = "persistenceEnabled";
     public static final boolean GIS_PERSISTENCE_ENABLED_DEFAULT = false;
 
+    public static final String GIS_PARTITIONED = "partitioned";
+    public static final boolean GIS_PARTITIONED_DEFAULT = false;
+
+    public static final String GIS_BACKUP_COUNT = "partitionBackupCount";
+    public static final int GIS_BACKUP_COUNT_DEFAULT = 1;
+
     public static final String DPS_MESSAGE_HANDLER_THREAD_POOL_SIZE = "messageHandlerThreadPoolSize";
     public static final int DPS_MESSAGE_HANDLER_THREAD_POOL_SIZE_DEFAULT = 4;
 
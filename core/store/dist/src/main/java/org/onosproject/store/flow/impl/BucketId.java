@@ -25,10 +25,12 @@ import org.onosproject.net.DeviceId;
 public class BucketId {
     private final DeviceId deviceId;
     private final int bucket;
+    private final int buckets;
 
-    BucketId(DeviceId deviceId, int bucket) {
+    BucketId(DeviceId deviceId, int bucket, int buckets) {
         this.deviceId = deviceId;
         this.bucket = bucket;
+        this.buckets = buckets;
     }
 
     /**
@@ -49,9 +51,18 @@ public class BucketId {
         return bucket;
     }
 
+    /**
+     * Returns the total number of buckets in the table to which the bucket belongs.
+     *
+     * @return the number of buckets in the device flow table
+     */
+    public int buckets() {
+        return buckets;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(deviceId, bucket);
+        return Objects.hash(deviceId, bucket, buckets);
     }
 
     @Override
@@ -59,13 +70,14 @@ public class BucketId {
         if (other instanceof BucketId) {
             BucketId that = (BucketId) other;
             return this.deviceId.equals(that.deviceId)
-                && this.bucket == that.bucket;
+                && this.bucket == that.bucket
+                && this.buckets == that.buckets;
         }
         return false;
     }
 
     @Override
     public String toString() {
-        return String.format("%s/%d", deviceId, bucket);
+        return String.format("%s/%d/%d", deviceId, bucket, buckets);
     }
 }
\ No newline at end of file
@@ -18,22 +18,23 @@ package org.onosproject.store.flow.impl;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.onlab.util.KryoNamespace;
@@ -67,14 +68,28 @@ import org.slf4j.LoggerFactory;
  * anti-entropy protocol is used to detect missing flows on backups (e.g. due to a node restart). Finally, when a
  * device mastership change occurs, the new master synchronizes flows with the prior master and/or backups for the
  * device, allowing mastership to be reassigned to non-backup nodes.
+ * <p>
+ * The number of buckets scales with the number of flows in the table. The master periodically resizes the table
+ * to keep the number of flows per bucket bounded, and replicas adopt the bucket count of the master. Buckets track
+ * the flows changed since they were last replicated so that backups only transfer the changed flows, and maintain
+ * a content hash that allows replicas to be compared using a single root digest.
+ * <p>
+ * If a {@link FlowTableSnapshot} is provided, the buckets changed since the last snapshot are periodically written
+ * to it, and the table is reloaded from it when created. After a restart, the reloaded buckets carry their term and
+ * timestamp, and recompute their content hash from their flows, so the digest exchange only requests the buckets
+ * that changed in the meantime.
  */
 public class DeviceFlowTable {
-    private static final int NUM_BUCKETS = 128;
-    private static final Serializer SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+    private static final int MIN_BUCKETS = 128;
+    private static final int MAX_BUCKETS = 8192;
+    private static final int MAX_FLOWS_PER_BUCKET = 256;
+    static final Serializer SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
         .register(KryoNamespaces.API)
         .register(BucketId.class)
         .register(FlowBucket.class)
+        .register(FlowBucketDelta.class)
         .register(FlowBucketDigest.class)
+        .register(FlowEntryCounters.class)
         .register(LogicalTimestamp.class)
         .register(Timestamped.class)
         .build());
@@ -82,9 +97,11 @@ public class DeviceFlowTable {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private final MessageSubject getRootDigestSubject;
     private final MessageSubject getDigestsSubject;
     private final MessageSubject getBucketSubject;
     private final MessageSubject backupSubject;
+    private final MessageSubject backupDeltaSubject;
     private final MessageSubject getFlowsSubject;
 
     private final DeviceId deviceId;
@@ -102,6 +119,7 @@ public class DeviceFlowTable {
     private volatile long activeTerm;
 
     private long backupPeriod;
+    private volatile boolean replicateCounters;
 
     private final LifecycleEventListener lifecycleEventListener = new LifecycleEventListener() {
         @Override
@@ -111,9 +129,16 @@ public class DeviceFlowTable {
     };
 
     private ScheduledFuture<?> antiEntropyFuture;
+    private ScheduledFuture<?> snapshotFuture;
+
+    private final FlowTableSnapshot snapshot;
+    private final Map<Integer, FlowBucketDigest> snapshotDigests = Maps.newConcurrentMap();
+    private int snapshotBuckets;
 
-    private final Map<Integer, Queue<Runnable>> flowTasks = Maps.newConcurrentMap();
-    private final Map<Integer, FlowBucket> flowBuckets = Maps.newConcurrentMap();
+    private final Queue<Runnable> flowTasks = new ConcurrentLinkedQueue<>();
+    private final ReadWriteLock bucketsLock = new ReentrantReadWriteLock();
+    // The number of buckets is the size of the map, so readers always see the count matching the buckets.
+    private volatile Map<Integer, FlowBucket> flowBuckets = Maps.newConcurrentMap();
 
     private final Map<BackupOperation, LogicalTimestamp> lastBackupTimes = Maps.newConcurrentMap();
     private final Set<BackupOperation> inFlightUpdates = Sets.newConcurrentHashSet();
@@ -127,7 +152,10 @@ public class DeviceFlowTable {
         ScheduledExecutorService scheduler,
         Executor executor,
         long backupPeriod,
-        long antiEntropyPeriod) {
+        long antiEntropyPeriod,
+        boolean replicateCounters,
+        FlowTableSnapshot snapshot,
+        long snapshotPeriod) {
         this.deviceId = deviceId;
         this.clusterCommunicator = clusterCommunicator;
         this.clusterService = clusterService;
@@ -137,20 +165,28 @@ public class DeviceFlowTable {
         this.executor = executor;
         this.localNodeId = clusterService.getLocalNode().id();
         this.replicaInfo = lifecycleManager.getReplicaInfo();
+        this.snapshot = snapshot;
 
-        for (int i = 0; i < NUM_BUCKETS; i++) {
-            flowBuckets.put(i, new FlowBucket(new BucketId(deviceId, i)));
+        for (int i = 0; i < MIN_BUCKETS; i++) {
+            flowBuckets.put(i, new FlowBucket(new BucketId(deviceId, i, MIN_BUCKETS)));
+        }
+        if (snapshot != null) {
+            loadSnapshot();
         }
 
+        getRootDigestSubject = new MessageSubject(String.format("flow-store-%s-root-digest", deviceId));
         getDigestsSubject = new MessageSubject(String.format("flow-store-%s-digests", deviceId));
         getBucketSubject = new MessageSubject(String.format("flow-store-%s-bucket", deviceId));
         backupSubject = new MessageSubject(String.format("flow-store-%s-backup", deviceId));
+        backupDeltaSubject = new MessageSubject(String.format("flow-store-%s-backup-delta", deviceId));
         getFlowsSubject = new MessageSubject(String.format("flow-store-%s-flows", deviceId));
 
         addListeners();
 
         setBackupPeriod(backupPeriod);
         setAntiEntropyPeriod(antiEntropyPeriod);
+        setSnapshotPeriod(snapshotPeriod);
+        setReplicateCounters(replicateCounters);
         registerSubscribers();
 
         scheduleBackups();
@@ -184,6 +220,38 @@ public class DeviceFlowTable {
                 TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Sets the flow table snapshot period.
+     *
+     * @param snapshotPeriod the flow table snapshot period in milliseconds
+     */
+    synchronized void setSnapshotPeriod(long snapshotPeriod) {
+        if (snapshot == null) {
+            return;
+        }
+        ScheduledFuture<?> snapshotFuture = this.snapshotFuture;
+        if (snapshotFuture != null) {
+            snapshotFuture.cancel(false);
+        }
+        this.snapshotFuture = scheduler.scheduleAtFixedRate(
+                () -> executor.execute(this::snapshot),
+                snapshotPeriod,
+                snapshotPeriod,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets whether changes to flow statistics counters are replicated to backups.
+     * <p>
+     * If counters are not replicated, statistics updates are kept local to the master and are only
+     * transferred to backups along with other changes to the flows' buckets.
+     *
+     * @param replicateCounters whether to replicate flow statistics counters
+     */
+    void setReplicateCounters(boolean replicateCounters) {
+        this.replicateCounters = replicateCounters;
+    }
+
     /**
      * Counts the flows in the table.
      *
@@ -195,6 +263,15 @@ public class DeviceFlowTable {
             .sum();
     }
 
+    /**
+     * Returns the number of buckets in the table.
+     *
+     * @return the number of buckets in the table
+     */
+    int buckets() {
+        return flowBuckets.size();
+    }
+
     /**
      * Returns the flow entry for the given rule.
      *
@@ -202,9 +279,14 @@ public class DeviceFlowTable {
      * @return the flow entry for the given rule
      */
     public StoredFlowEntry getFlowEntry(FlowRule rule) {
-        return getBucket(rule.id())
-            .getFlowEntries(rule.id())
-            .get(rule);
+        bucketsLock.readLock().lock();
+        try {
+            return getBucket(rule.id())
+                .getFlowEntries(rule.id())
+                .get(rule);
+        } finally {
+            bucketsLock.readLock().unlock();
+        }
     }
 
     /**
@@ -229,7 +311,18 @@ public class DeviceFlowTable {
      * @return a future to be completed once the flow entries have been retrieved
      */
     private CompletableFuture<Set<FlowEntry>> getFlowEntries(BucketId bucketId) {
-        return getFlowEntries(getBucket(bucketId.bucket()));
+        // If the requesting node has a different view of the number of buckets, select the flows
+        // that map to the requested bucket on the requesting node.
+        Map<Integer, FlowBucket> buckets = flowBuckets;
+        if (bucketId.buckets() != buckets.size() && lifecycleManager.getReplicaInfo().isMaster(localNodeId)) {
+            return CompletableFuture.completedFuture(buckets.values().stream()
+                .flatMap(bucket -> bucket.getFlowBucket().entrySet().stream())
+                .filter(entry -> bucket(entry.getKey(), bucketId.buckets()) == bucketId.bucket())
+                .flatMap(entry -> entry.getValue().values().stream())
+                .collect(Collectors.toSet()));
+        }
+        FlowBucket bucket = buckets.get(bucketId.bucket());
+        return bucket != null ? getFlowEntries(bucket) : CompletableFuture.completedFuture(Collections.emptySet());
     }
 
     /**
@@ -281,27 +374,49 @@ public class DeviceFlowTable {
      * @return the bucket for the given flow identifier
      */
     private FlowBucket getBucket(FlowId flowId) {
-        return getBucket(bucket(flowId));
+        Map<Integer, FlowBucket> buckets = flowBuckets;
+        return buckets.get(bucket(flowId, buckets.size()));
     }
 
     /**
      * Returns the bucket with the given identifier.
      *
      * @param bucketId the bucket identifier
-     * @return the bucket with the given identifier
+     * @return the bucket with the given identifier or {@code null} if the table has fewer buckets
      */
     private FlowBucket getBucket(int bucketId) {
         return flowBuckets.get(bucketId);
     }
 
     /**
-     * Returns the bucket number for the given flow identifier.
+     * Returns the bucket number for the given flow identifier in a table with the given number of buckets.
      *
-     * @param flowId the flow identifier
+     * @param flowId  the flow identifier
+     * @param buckets the number of buckets in the table
      * @return the bucket number for the given flow identifier
      */
-    private int bucket(FlowId flowId) {
-        return Math.abs((int) (flowId.id() % NUM_BUCKETS));
+    private static int bucket(FlowId flowId, int buckets) {
+        return Math.abs((int) (flowId.id() % buckets));
+    }
+
+    /**
+     * Returns the root digest for the table.
+     * <p>
+     * The root digest combines the digests of all buckets in the table. Two replicas of the table with equal
+     * root digests hold the same buckets, so the per-bucket digests need not be exchanged.
+     *
+     * @return the root digest for the table
+     */
+    private long getRootDigest() {
+        Map<Integer, FlowBucket> buckets = flowBuckets;
+        long rootDigest = buckets.size();
+        for (int i = 0; i < buckets.size(); i++) {
+            FlowBucketDigest digest = buckets.get(i).getDigest();
+            rootDigest = 31 * rootDigest + digest.term();
+            rootDigest = 31 * rootDigest + digest.timestamp().value();
+            rootDigest = 31 * rootDigest + digest.hash();
+        }
+        return rootDigest;
     }
 
     /**
@@ -320,10 +435,11 @@ public class DeviceFlowTable {
      * Returns the digest for the given bucket.
      *
      * @param bucket the bucket for which to return the digest
-     * @return the digest for the given bucket
+     * @return the digest for the given bucket or {@code null} if the table has fewer buckets
      */
     private FlowBucketDigest getDigest(int bucket) {
-        return flowBuckets.get(bucket).getDigest();
+        FlowBucket flowBucket = getBucket(bucket);
+        return flowBucket != null ? flowBucket.getDigest() : null;
     }
 
     /**
@@ -364,6 +480,22 @@ public class DeviceFlowTable {
         return runInTerm(rule.id(), (bucket, term) -> bucket.update(rule, function, term, clock));
     }
 
+    /**
+     * Applies the given statistics update function to the rule.
+     * <p>
+     * Updates that change only the statistics counters of the rule are replicated to backups as compact
+     * counters updates, or not at all if counters replication is disabled.
+     *
+     * @param rule     the rule to update
+     * @param function the update function to apply
+     * @param <T>      the result type
+     * @return a future to be completed with the update result or {@code null} if the rule was not updated
+     */
+    public <T> CompletableFuture<T> updateCounters(FlowRule rule, Function<StoredFlowEntry, T> function) {
+        return runInTerm(rule.id(),
+            (bucket, term) -> bucket.updateCounters(rule, function, term, clock, replicateCounters));
+    }
+
     /**
      * Removes an entry from the table.
      *
@@ -388,22 +520,40 @@ public class DeviceFlowTable {
             return Tools.exceptionalFuture(new IllegalStateException());
         }
 
-        FlowBucket bucket = getBucket(flowId);
-
         // If the master's term is not currently active (has not been synchronized with prior replicas), enqueue
         // the change to be executed once the master has been synchronized.
         final long term = replicaInfo.term();
         CompletableFuture<T> future = new CompletableFuture<>();
         if (activeTerm < term) {
             log.debug("Enqueueing operation for device {}", deviceId);
-            flowTasks.computeIfAbsent(bucket.bucketId().bucket(), b -> new LinkedList<>())
-                    .add(() -> future.complete(apply(function, bucket, term)));
+            flowTasks.add(() -> future.complete(apply(function, flowId, term)));
         } else {
-            future.complete(apply(function, bucket, term));
+            future.complete(apply(function, flowId, term));
         }
         return future;
     }
 
+    /**
+     * Applies the given function to the bucket for the given flow.
+     * <p>
+     * The bucket is looked up when the function is applied, preventing the table from being resized
+     * until the function has completed.
+     *
+     * @param function the function to apply
+     * @param flowId the flow identifier indicating the bucket to which to apply the function
+     * @param term the term in which to apply the function
+     * @param <T> the expected result type
+     * @return the function result
+     */
+    private <T> T apply(BiFunction<FlowBucket, Long, T> function, FlowId flowId, long term) {
+        bucketsLock.readLock().lock();
+        try {
+            return apply(function, getBucket(flowId), term);
+        } finally {
+            bucketsLock.readLock().unlock();
+        }
+    }
+
     /**
      * Applies the given function to the given bucket.
      *
@@ -486,17 +636,21 @@ public class DeviceFlowTable {
 
         // If the backup can be run (no concurrent backup to the node in progress) then run it.
         BackupOperation operation = new BackupOperation(nodeId, bucket.bucketId().bucket());
+        LogicalTimestamp lastBackupTime = lastBackupTimes.get(operation);
         if (startBackup(operation, timestamp)) {
             CompletableFuture<Void> future = new CompletableFuture<>();
-            backup(bucket, nodeId).whenCompleteAsync((succeeded, error) -> {
+            backup(bucket, nodeId, lastBackupTime).whenCompleteAsync((succeeded, error) -> {
                 if (error != null) {
                     log.debug("Backup operation {} failed", operation, error);
                     failBackup(operation);
                 } else if (succeeded) {
                     succeedBackup(operation, timestamp);
+                    pruneChanges(bucket);
                 } else {
-                    log.debug("Backup operation {} failed: term mismatch", operation);
+                    // The backup may have rejected a delta; reset the operation to replicate the full bucket.
+                    log.debug("Backup operation {} failed: term or bucket mismatch", operation);
                     failBackup(operation);
+                    resetBackup(operation);
                 }
                 future.complete(null);
             }, executor);
@@ -505,6 +659,30 @@ public class DeviceFlowTable {
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Discards the changes recorded in the given bucket that have been replicated to all backups.
+     *
+     * @param bucket the bucket for which to discard replicated changes
+     */
+    private void pruneChanges(FlowBucket bucket) {
+        int bucketNumber = bucket.bucketId().bucket();
+        LogicalTimestamp replicated = null;
+        for (NodeId nodeId : lifecycleManager.getReplicaInfo().backups()) {
+            LogicalTimestamp lastBackupTime = lastBackupTimes.get(new BackupOperation(nodeId, bucketNumber));
+            if (lastBackupTime == null) {
+                return;
+            }
+            if (replicated == null || lastBackupTime.isOlderThan(replicated)) {
+                replicated = lastBackupTime;
+            }
+        }
+        if (replicated != null) {
+            synchronized (bucket) {
+                bucket.pruneChanges(replicated);
+            }
+        }
+    }
+
     /**
      * Returns a boolean indicating whether the given {@link BackupOperation} can be started.
      * <p>
@@ -556,16 +734,25 @@ public class DeviceFlowTable {
 
     /**
      * Performs the given backup operation.
+     * <p>
+     * If the changes made to the bucket since the last backup to the node are known, only the changed flows are
+     * sent to the node. Otherwise, the full bucket is replicated.
      *
      * @param bucket the bucket to backup
      * @param nodeId the node to which to backup the bucket
+     * @param lastBackupTime the bucket timestamp at the last successful backup to the node or {@code null}
      * @return a future to be completed with a boolean indicating whether the backup operation was successful
      */
-    private CompletableFuture<Boolean> backup(FlowBucket bucket, NodeId nodeId) {
-        if (log.isDebugEnabled()) {
-            log.debug("Backing up {} flow entries in bucket {} to {}", bucket.count(), bucket.bucketId(), nodeId);
-        }
+    private CompletableFuture<Boolean> backup(FlowBucket bucket, NodeId nodeId, LogicalTimestamp lastBackupTime) {
         synchronized (bucket) {
+            FlowBucketDelta delta = bucket.getDelta(lastBackupTime);
+            if (delta != null) {
+                log.debug("Backing up {} changed flows in bucket {} to {}", delta.size(), bucket.bucketId(), nodeId);
+                return sendWithTimestamp(delta, backupDeltaSubject, nodeId);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Backing up {} flow entries in bucket {} to {}", bucket.count(), bucket.bucketId(), nodeId);
+            }
             return sendWithTimestamp(bucket, backupSubject, nodeId);
         }
     }
@@ -591,15 +778,212 @@ public class DeviceFlowTable {
                 return false;
             }
 
-            flowBuckets.compute(flowBucket.bucketId().bucket(),
-                (id, bucket) -> flowBucket.getDigest().isNewerThan(bucket.getDigest()) ? flowBucket : bucket);
-            return true;
+            // If the master has resized the table, adopt the master's bucket count.
+            if (flowBucket.bucketId().buckets() != flowBuckets.size()) {
+                adoptBuckets(flowBucket.bucketId().buckets());
+            }
+
+            bucketsLock.readLock().lock();
+            try {
+                // Reject the bucket if the table was resized again concurrently; the master will retry.
+                Map<Integer, FlowBucket> buckets = flowBuckets;
+                if (flowBucket.bucketId().buckets() != buckets.size()) {
+                    return false;
+                }
+                buckets.compute(flowBucket.bucketId().bucket(),
+                    (id, bucket) -> flowBucket.getDigest().supersedes(bucket.getDigest()) ? flowBucket : bucket);
+                return true;
+            } finally {
+                bucketsLock.readLock().unlock();
+            }
         } catch (Exception e) {
             log.warn("Failure processing backup request", e);
             return false;
         }
     }
 
+    /**
+     * Handles a flow bucket delta from a remote peer.
+     *
+     * @param delta the flow bucket delta to apply
+     * @return indicates whether the delta was applied
+     */
+    private boolean onBackupDelta(FlowBucketDelta delta) {
+        if (log.isDebugEnabled()) {
+            log.debug("{} - Received {} changed flows in bucket {} to backup",
+                deviceId, delta.size(), delta.bucketId());
+        }
+
+        try {
+            DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
+
+            // If the backup is for a different term, reject the request until we learn about the new term.
+            if (delta.term() != replicaInfo.term()) {
+                log.debug("Term mismatch for device {}: {} != {}", deviceId, delta.term(), replicaInfo);
+                return false;
+            }
+
+            // If the master has resized the table, adopt the master's bucket count and request the full bucket.
+            if (delta.bucketId().buckets() != flowBuckets.size()) {
+                adoptBuckets(delta.bucketId().buckets());
+                return false;
+            }
+
+            bucketsLock.readLock().lock();
+            try {
+                Map<Integer, FlowBucket> buckets = flowBuckets;
+                if (delta.bucketId().buckets() != buckets.size()) {
+                    return false;
+                }
+                FlowBucket bucket = buckets.get(delta.bucketId().bucket());
+                synchronized (bucket) {
+                    return bucket.applyDelta(delta);
+                }
+            } finally {
+                bucketsLock.readLock().unlock();
+            }
+        } catch (Exception e) {
+            log.warn("Failure processing backup request", e);
+            return false;
+        }
+    }
+
+    /**
+     * Resizes the table if the average number of flows per bucket is out of bounds.
+     *
+     * @param term the term in which to resize the table
+     */
+    private void resizeIfNeeded(long term) {
+        int buckets = flowBuckets.size();
+        int flows = count();
+        int newBuckets = buckets;
+        while (newBuckets < MAX_BUCKETS && flows > newBuckets * MAX_FLOWS_PER_BUCKET) {
+            newBuckets *= 2;
+        }
+        while (newBuckets > MIN_BUCKETS && flows < newBuckets * (MAX_FLOWS_PER_BUCKET / 4)) {
+            newBuckets /= 2;
+        }
+        if (newBuckets != buckets) {
+            log.info("Resizing flow table for device {} from {} to {} buckets ({} flows)",
+                deviceId, buckets, newBuckets, flows);
+            resize(newBuckets, term, clock.getTimestamp());
+        }
+    }
+
+    /**
+     * Adopts the given number of buckets from a remote replica.
+     * <p>
+     * Redistributed buckets are given an initial term and timestamp to ensure they are replaced by the
+     * remote replica's buckets.
+     *
+     * @param buckets the number of buckets to adopt
+     */
+    private void adoptBuckets(int buckets) {
+        log.debug("Resizing flow table for device {} from {} to {} buckets", deviceId, flowBuckets.size(), buckets);
+        resize(buckets, 0, new LogicalTimestamp(0));
+    }
+
+    /**
+     * Resizes the table to the given number of buckets, redistributing flows among the new buckets.
+     *
+     * @param buckets   the number of buckets
+     * @param term      the term to assign to the new buckets
+     * @param timestamp the timestamp to assign to the new buckets
+     */
+    private void resize(int buckets, long term, LogicalTimestamp timestamp) {
+        bucketsLock.writeLock().lock();
+        try {
+            Map<Integer, FlowBucket> newBuckets = Maps.newConcurrentMap();
+            for (int i = 0; i < buckets; i++) {
+                newBuckets.put(i, new FlowBucket(new BucketId(deviceId, i, buckets), term, timestamp));
+            }
+            for (FlowBucket bucket : flowBuckets.values()) {
+                synchronized (bucket) {
+                    bucket.getFlowBucket().forEach((flowId, entries) ->
+                        newBuckets.get(bucket(flowId, buckets)).load(flowId, entries));
+                }
+            }
+            flowBuckets = newBuckets;
+
+            // Bucket numbers have been reassigned, so prior backups no longer apply.
+            lastBackupTimes.clear();
+        } finally {
+            bucketsLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the table from the local snapshot.
+     * <p>
+     * The logical clock is advanced past the timestamps of the reloaded buckets so that changes made after the
+     * restart are ordered after the changes made before it.
+     */
+    private void loadSnapshot() {
+        Collection<FlowBucket> buckets = snapshot.load(deviceId);
+        if (buckets.isEmpty()) {
+            return;
+        }
+        Map<Integer, FlowBucket> newBuckets = Maps.newConcurrentMap();
+        for (FlowBucket bucket : buckets) {
+            newBuckets.put(bucket.bucketId().bucket(), bucket);
+            snapshotDigests.put(bucket.bucketId().bucket(), bucket.getDigest());
+            clock.tick(bucket.timestamp());
+        }
+        flowBuckets = newBuckets;
+        snapshotBuckets = newBuckets.size();
+        log.info("Loaded {} flows in {} buckets for device {} from local snapshot",
+            count(), snapshotBuckets, deviceId);
+    }
+
+    /**
+     * Writes the buckets changed since the last snapshot to the local snapshot.
+     */
+    synchronized void snapshot() {
+        if (snapshot == null) {
+            return;
+        }
+        bucketsLock.readLock().lock();
+        try {
+            // Buckets have been redistributed, so the whole table must be written again.
+            Map<Integer, FlowBucket> buckets = flowBuckets;
+            if (snapshotBuckets != buckets.size()) {
+                snapshot.resize(deviceId, buckets.size());
+                snapshotDigests.clear();
+                snapshotBuckets = buckets.size();
+            }
+            int written = 0;
+            for (FlowBucket bucket : buckets.values()) {
+                synchronized (bucket) {
+                    FlowBucketDigest digest = bucket.getDigest();
+                    if (!isSnapshotted(digest, snapshotDigests.get(digest.bucket()))) {
+                        snapshot.write(bucket);
+                        snapshotDigests.put(digest.bucket(), digest);
+                        written++;
+                    }
+                }
+            }
+            if (written > 0) {
+                log.debug("Wrote {} changed buckets of device {} to local snapshot", written, deviceId);
+            }
+        } finally {
+            bucketsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a boolean indicating whether a bucket with the given digest has already been written to the snapshot.
+     *
+     * @param digest      the current bucket digest
+     * @param snapshotted the bucket digest at the last snapshot or {@code null}
+     * @return indicates whether the bucket is unchanged since the last snapshot
+     */
+    private static boolean isSnapshotted(FlowBucketDigest digest, FlowBucketDigest snapshotted) {
+        return snapshotted != null
+            && snapshotted.term() == digest.term()
+            && snapshotted.timestamp().equals(digest.timestamp())
+            && snapshotted.hash() == digest.hash();
+    }
+
     /**
      * Runs the anti-entropy protocol.
      */
@@ -609,6 +993,10 @@ public class DeviceFlowTable {
             return;
         }
 
+        if (activeTerm == replicaInfo.term()) {
+            resizeIfNeeded(replicaInfo.term());
+        }
+
         for (NodeId nodeId : replicaInfo.backups()) {
             runAntiEntropy(nodeId);
         }
@@ -621,20 +1009,45 @@ public class DeviceFlowTable {
      */
     private void runAntiEntropy(NodeId nodeId) {
         backupAll().whenCompleteAsync((result, error) -> {
-            requestDigests(nodeId).thenAcceptAsync((digests) -> {
-                // Compute a set of missing BucketIds based on digest times and send them back to the master.
-                for (FlowBucketDigest remoteDigest : digests) {
-                    FlowBucket localBucket = getBucket(remoteDigest.bucket());
-                    if (localBucket.getDigest().isNewerThan(remoteDigest)) {
-                        log.debug("Detected missing flow entries on node {} in bucket {}/{}",
-                                nodeId, deviceId, remoteDigest.bucket());
-                        resetBackup(new BackupOperation(nodeId, remoteDigest.bucket()));
-                    }
+            // Compare the root digests first and only exchange bucket digests if the replicas differ.
+            requestRootDigest(nodeId).thenAcceptAsync(rootDigest -> {
+                if (rootDigest == getRootDigest()) {
+                    return;
                 }
+                requestDigests(nodeId).thenAcceptAsync((digests) -> {
+                    Map<Integer, FlowBucket> buckets = flowBuckets;
+                    if (digests.size() != buckets.size()) {
+                        log.debug("Detected bucket count mismatch on node {} for device {}", nodeId, deviceId);
+                        for (int bucket = 0; bucket < buckets.size(); bucket++) {
+                            resetBackup(new BackupOperation(nodeId, bucket));
+                        }
+                        return;
+                    }
+
+                    // Compute a set of missing BucketIds based on digest times and send them back to the master.
+                    for (FlowBucketDigest remoteDigest : digests) {
+                        FlowBucket localBucket = buckets.get(remoteDigest.bucket());
+                        if (localBucket != null && localBucket.getDigest().supersedes(remoteDigest)) {
+                            log.debug("Detected missing flow entries on node {} in bucket {}/{}",
+                                    nodeId, deviceId, remoteDigest.bucket());
+                            resetBackup(new BackupOperation(nodeId, remoteDigest.bucket()));
+                        }
+                    }
+                }, executor);
             }, executor);
         }, executor);
     }
 
+    /**
+     * Sends a root digest request to the given node.
+     *
+     * @param nodeId the node to which to send the request
+     * @return future to be completed with the root digest for the given device on the given node
+     */
+    private CompletableFuture<Long> requestRootDigest(NodeId nodeId) {
+        return sendWithTimestamp(deviceId, getRootDigestSubject, nodeId);
+    }
+
     /**
      * Sends a digest request to the given node.
      *
@@ -722,10 +1135,16 @@ public class DeviceFlowTable {
      */
     private CompletableFuture<Void> syncFlowsOn(NodeId nodeId) {
         return requestDigests(nodeId)
-            .thenCompose(digests -> Tools.allOf(digests.stream()
-                .filter(digest -> digest.isNewerThan(getDigest(digest.bucket())))
-                .map(digest -> syncBucketOn(nodeId, digest.bucket()))
-                .collect(Collectors.toList())))
+            .thenComposeAsync(digests -> {
+                // If the node's table has a different number of buckets, adopt its bucket count.
+                if (!digests.isEmpty() && digests.size() != flowBuckets.size()) {
+                    adoptBuckets(digests.size());
+                }
+                return Tools.allOf(digests.stream()
+                    .filter(digest -> digest.isNewerThan(getDigest(digest.bucket())))
+                    .map(digest -> syncBucketOn(nodeId, digest.bucket()))
+                    .collect(Collectors.toList()));
+            }, executor)
             .thenApply(v -> null);
     }
 
@@ -739,8 +1158,20 @@ public class DeviceFlowTable {
     private CompletableFuture<Void> syncBucketOn(NodeId nodeId, int bucketNumber) {
         return requestBucket(nodeId, bucketNumber)
             .thenAcceptAsync(flowBucket -> {
-                flowBuckets.compute(flowBucket.bucketId().bucket(),
-                    (id, bucket) -> flowBucket.getDigest().isNewerThan(bucket.getDigest()) ? flowBucket : bucket);
+                // Ignore the bucket if either table has been resized since the bucket was requested.
+                if (flowBucket == null) {
+                    return;
+                }
+                bucketsLock.readLock().lock();
+                try {
+                    Map<Integer, FlowBucket> buckets = flowBuckets;
+                    if (flowBucket.bucketId().buckets() == buckets.size()) {
+                        buckets.compute(flowBucket.bucketId().bucket(), (id, bucket) ->
+                            flowBucket.getDigest().isNewerThan(bucket.getDigest()) ? flowBucket : bucket);
+                    }
+                } finally {
+                    bucketsLock.readLock().unlock();
+                }
             }, executor);
     }
 
@@ -763,7 +1194,8 @@ public class DeviceFlowTable {
      * @return the flow bucket
      */
     private FlowBucket onGetBucket(int bucketId) {
-        return flowBuckets.get(bucketId).copy();
+        FlowBucket bucket = getBucket(bucketId);
+        return bucket != null ? bucket.copy() : null;
     }
 
     /**
@@ -774,24 +1206,22 @@ public class DeviceFlowTable {
     private void activateMaster(DeviceReplicaInfo replicaInfo) {
         if (replicaInfo.isMaster(localNodeId)) {
             log.debug("Activating term {} for device {}", replicaInfo.term(), deviceId);
-            for (int i = 0; i < NUM_BUCKETS; i++) {
-                activateBucket(i);
-            }
+            completeTasks();
             lifecycleManager.activate(replicaInfo.term());
             activeTerm = replicaInfo.term();
         }
     }
 
     /**
-     * Activates the given bucket number.
-     *
-     * @param bucket the bucket number to activate
+     * Completes the operations enqueued while the term was being synchronized.
      */
-    private void activateBucket(int bucket) {
-        Queue<Runnable> tasks = flowTasks.remove(bucket);
-        if (tasks != null) {
+    private void completeTasks() {
+        if (!flowTasks.isEmpty()) {
             log.debug("Completing enqueued operations for device {}", deviceId);
-            tasks.forEach(task -> task.run());
+            Runnable task;
+            while ((task = flowTasks.poll()) != null) {
+                task.run();
+            }
         }
     }
 
@@ -910,9 +1340,11 @@ public class DeviceFlowTable {
      * Registers internal message subscribers.
      */
     private void registerSubscribers() {
+        receiveWithTimestamp(getRootDigestSubject, v -> getRootDigest());
         receiveWithTimestamp(getDigestsSubject, v -> getDigests());
         receiveWithTimestamp(getBucketSubject, this::onGetBucket);
         receiveWithTimestamp(backupSubject, this::onBackup);
+        receiveWithTimestamp(backupDeltaSubject, this::onBackupDelta);
         clusterCommunicator.<BucketId, Set<FlowEntry>>addSubscriber(
             getFlowsSubject, SERIALIZER::decode, this::getFlowEntries, SERIALIZER::encode);
     }
@@ -921,9 +1353,11 @@ public class DeviceFlowTable {
      * Unregisters internal message subscribers.
      */
     private void unregisterSubscribers() {
+        clusterCommunicator.removeSubscriber(getRootDigestSubject);
         clusterCommunicator.removeSubscriber(getDigestsSubject);
         clusterCommunicator.removeSubscriber(getBucketSubject);
         clusterCommunicator.removeSubscriber(backupSubject);
+        clusterCommunicator.removeSubscriber(backupDeltaSubject);
         clusterCommunicator.removeSubscriber(getFlowsSubject);
     }
 
@@ -949,6 +1383,10 @@ public class DeviceFlowTable {
         if (antiEntropyFuture != null) {
             antiEntropyFuture.cancel(false);
         }
+        ScheduledFuture<?> snapshotFuture = this.snapshotFuture;
+        if (snapshotFuture != null) {
+            snapshotFuture.cancel(false);
+        }
     }
 
     /**
@@ -978,32 +1416,36 @@ public class DeviceFlowTable {
         // with prior replicas), enqueue the changes to be executed once the master
         // has been synchronized.
         final long term = replicaInfo.term();
-        List<CompletableFuture<Void>> completablePurges = Lists.newArrayList();
+        CompletableFuture<Void> future = new CompletableFuture<>();
         if (activeTerm < term) {
             log.debug("Enqueueing operations for device {}", deviceId);
-            flowBuckets.values().forEach(
-                    bucket -> {
-                        CompletableFuture<Void> future = new CompletableFuture<>();
-                        completablePurges.add(future);
-                        flowTasks.computeIfAbsent(bucket.bucketId().bucket(),
-                                                  b -> new LinkedList<>())
-                                .add(() -> future.complete(apply((bkt, trm) -> {
-                                    bkt.purge(appId, trm, clock);
-                                    return null;
-                                    }, bucket, term)));
-                    });
-
-        } else {
-            flowBuckets.values().forEach(bucket -> {
-                CompletableFuture<Void> future = new CompletableFuture<>();
-                completablePurges.add(future);
-                future.complete(apply((bkt, trm) -> {
-                    bkt.purge(appId, trm, clock);
-                    return null;
-                    }, bucket, term));
+            flowTasks.add(() -> {
+                purgeBuckets(appId, term);
+                future.complete(null);
             });
+        } else {
+            purgeBuckets(appId, term);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * Purges the flows with the given application id from all buckets.
+     *
+     * @param appId the application id
+     * @param term the term in which to purge the flows
+     */
+    private void purgeBuckets(ApplicationId appId, long term) {
+        bucketsLock.readLock().lock();
+        try {
+            flowBuckets.values().forEach(bucket -> apply((bkt, trm) -> {
+                bkt.purge(appId, trm, clock);
+                return null;
+            }, bucket, term));
+        } finally {
+            bucketsLock.readLock().unlock();
         }
-        return CompletableFuture.allOf(completablePurges.toArray(new CompletableFuture[0]));
     }
 
     /**
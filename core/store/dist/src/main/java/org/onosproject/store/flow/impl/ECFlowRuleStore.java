@@ -129,7 +129,9 @@ import static org.onosproject.store.OsgiPropertyConstants.*;
                 BACKUP_PERIOD_MILLIS + ":Integer=" + BACKUP_PERIOD_MILLIS_DEFAULT,
                 ANTI_ENTROPY_PERIOD_MILLIS + ":Integer=" + ANTI_ENTROPY_PERIOD_MILLIS_DEFAULT,
                 EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED + ":Boolean=" + EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED_DEFAULT,
-                MAX_BACKUP_COUNT + ":Integer=" + MAX_BACKUP_COUNT_DEFAULT
+                SNAPSHOT_PERIOD_MILLIS + ":Integer=" + SNAPSHOT_PERIOD_MILLIS_DEFAULT,
+                MAX_BACKUP_COUNT + ":Integer=" + MAX_BACKUP_COUNT_DEFAULT,
+                REPLICATE_FLOW_COUNTERS + ":Boolean=" + REPLICATE_FLOW_COUNTERS_DEFAULT
         }
 )
 public class ECFlowRuleStore
@@ -154,11 +156,19 @@ public class ECFlowRuleStore
     /** Indicates whether or not changes in the flow table should be persisted to disk. */
     private boolean persistenceEnabled = EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED_DEFAULT;
 
+    /** Delay in ms between local snapshots of the flow table, if persistence is enabled. */
+    private int snapshotPeriod = SNAPSHOT_PERIOD_MILLIS_DEFAULT;
+
     /** Max number of backup copies for each device. */
     protected static volatile int backupCount = MAX_BACKUP_COUNT_DEFAULT;
 
+    /** Indicates whether flow statistics counters are replicated to backups or kept on the master. */
+    private boolean replicateFlowCounters = REPLICATE_FLOW_COUNTERS_DEFAULT;
+
     private InternalFlowTable flowTable = new InternalFlowTable();
 
+    private FlowTableSnapshot snapshot;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected ReplicaInfoService replicaInfoManager;
 
@@ -235,6 +245,15 @@ public class ECFlowRuleStore
 
         registerMessageHandlers(messageHandlingExecutor);
 
+        // Persistence can only be enabled on activation, as the flow tables are reloaded when created.
+        if (context != null) {
+            String s = get(context.getProperties(), EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED);
+            persistenceEnabled = isNullOrEmpty(s) ? persistenceEnabled : Boolean.parseBoolean(s.trim());
+        }
+        if (persistenceEnabled) {
+            snapshot = new FlowTableSnapshot(persistenceService);
+        }
+
         mastershipTermLifecycles = storageService.<DeviceId, Long>consistentMapBuilder()
             .withName("onos-flow-store-terms")
             .withSerializer(serializer)
@@ -260,6 +279,7 @@ public class ECFlowRuleStore
         configService.unregisterProperties(getClass(), false);
         unregisterMessageHandlers();
         deviceService.removeListener(flowTable);
+        flowTable.snapshot();
         deviceTableStats.removeListener(tableStatsListener);
         deviceTableStats.destroy();
         eventHandler.shutdownNow();
@@ -284,6 +304,8 @@ public class ECFlowRuleStore
         int newBackupPeriod;
         int newBackupCount;
         int newAntiEntropyPeriod;
+        int newSnapshotPeriod;
+        boolean newReplicateFlowCounters;
         try {
             String s = get(properties, "msgHandlerPoolSize");
             newPoolSize = isNullOrEmpty(s) ? msgHandlerPoolSize : Integer.parseInt(s.trim());
@@ -296,11 +318,19 @@ public class ECFlowRuleStore
 
             s = get(properties, ANTI_ENTROPY_PERIOD_MILLIS);
             newAntiEntropyPeriod = isNullOrEmpty(s) ? antiEntropyPeriod : Integer.parseInt(s.trim());
+
+            s = get(properties, SNAPSHOT_PERIOD_MILLIS);
+            newSnapshotPeriod = isNullOrEmpty(s) ? snapshotPeriod : Integer.parseInt(s.trim());
+
+            s = get(properties, REPLICATE_FLOW_COUNTERS);
+            newReplicateFlowCounters = isNullOrEmpty(s) ? replicateFlowCounters : Boolean.parseBoolean(s.trim());
         } catch (NumberFormatException | ClassCastException e) {
             newPoolSize = MESSAGE_HANDLER_THREAD_POOL_SIZE_DEFAULT;
             newBackupPeriod = BACKUP_PERIOD_MILLIS_DEFAULT;
             newBackupCount = MAX_BACKUP_COUNT_DEFAULT;
             newAntiEntropyPeriod = ANTI_ENTROPY_PERIOD_MILLIS_DEFAULT;
+            newSnapshotPeriod = SNAPSHOT_PERIOD_MILLIS_DEFAULT;
+            newReplicateFlowCounters = REPLICATE_FLOW_COUNTERS_DEFAULT;
         }
 
         if (newBackupPeriod != backupPeriod) {
@@ -313,6 +343,16 @@ public class ECFlowRuleStore
             flowTable.setAntiEntropyPeriod(newAntiEntropyPeriod);
         }
 
+        if (newSnapshotPeriod != snapshotPeriod) {
+            snapshotPeriod = newSnapshotPeriod;
+            flowTable.setSnapshotPeriod(newSnapshotPeriod);
+        }
+
+        if (newReplicateFlowCounters != replicateFlowCounters) {
+            replicateFlowCounters = newReplicateFlowCounters;
+            flowTable.setReplicateCounters(newReplicateFlowCounters);
+        }
+
         if (newPoolSize != msgHandlerPoolSize) {
             msgHandlerPoolSize = newPoolSize;
             ExecutorService oldMsgHandler = messageHandlingExecutor;
@@ -360,8 +400,8 @@ public class ECFlowRuleStore
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}",
-            prefix, msgHandlerPoolSize, backupPeriod, backupCount);
+        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}, replicateFlowCounters = {}",
+            prefix, msgHandlerPoolSize, backupPeriod, backupCount, replicateFlowCounters);
     }
 
     @Override
@@ -576,7 +616,7 @@ public class ECFlowRuleStore
     }
 
     private FlowRuleEvent addOrUpdateFlowRuleInternal(FlowEntry rule) {
-        FlowRuleEvent event = flowTable.update(rule, stored -> {
+        FlowRuleEvent event = flowTable.updateCounters(rule, stored -> {
             stored.setBytes(rule.bytes());
             stored.setLife(rule.life(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
             stored.setLiveType(rule.liveType());
@@ -741,7 +781,10 @@ public class ECFlowRuleStore
                 backupScheduler,
                 new OrderedExecutor(backupExecutor),
                 backupPeriod,
-                antiEntropyPeriod));
+                antiEntropyPeriod,
+                replicateFlowCounters,
+                snapshot,
+                snapshotPeriod));
         }
 
         /**
@@ -762,6 +805,31 @@ public class ECFlowRuleStore
             flowTables.values().forEach(flowTable -> flowTable.setAntiEntropyPeriod(antiEntropyPeriod));
         }
 
+        /**
+         * Sets the flow table snapshot period.
+         *
+         * @param snapshotPeriod the flow table snapshot period
+         */
+        void setSnapshotPeriod(int snapshotPeriod) {
+            flowTables.values().forEach(flowTable -> flowTable.setSnapshotPeriod(snapshotPeriod));
+        }
+
+        /**
+         * Writes the changes made to the flow tables to the local snapshot.
+         */
+        void snapshot() {
+            flowTables.values().forEach(DeviceFlowTable::snapshot);
+        }
+
+        /**
+         * Sets whether flow statistics counters are replicated to backups.
+         *
+         * @param replicateCounters whether to replicate flow statistics counters
+         */
+        void setReplicateCounters(boolean replicateCounters) {
+            flowTables.values().forEach(flowTable -> flowTable.setReplicateCounters(replicateCounters));
+        }
+
         /**
          * Returns the flow table for a specific device.
          *
@@ -779,7 +847,10 @@ public class ECFlowRuleStore
                 backupScheduler,
                 new OrderedExecutor(backupExecutor),
                 backupPeriod,
-                antiEntropyPeriod));
+                antiEntropyPeriod,
+                replicateFlowCounters,
+                snapshot,
+                snapshotPeriod));
         }
 
         /**
@@ -876,6 +947,20 @@ public class ECFlowRuleStore
                 null);
         }
 
+        /**
+         * Applies the given statistics update function to the rule.
+         *
+         * @param function the update function to apply
+         * @return the update result or {@code null} if the rule was not updated
+         */
+        public <T> T updateCounters(FlowRule rule, Function<StoredFlowEntry, T> function) {
+            return Tools.futureGetOrElse(
+                getFlowTable(rule.deviceId()).updateCounters(rule, function),
+                FLOW_RULE_STORE_TIMEOUT_MILLIS,
+                TimeUnit.MILLISECONDS,
+                null);
+        }
+
         /**
          * Removes the given flow rule.
          *
@@ -907,6 +992,9 @@ public class ECFlowRuleStore
                 if (flowTable != null) {
                     flowTable.close();
                 }
+                if (snapshot != null) {
+                    snapshot.remove(deviceId);
+                }
             }
         }
 
@@ -941,10 +1029,14 @@ public class ECFlowRuleStore
          * Purges all flow rules from the table.
          */
         public void purgeFlowRules() {
-            Iterator<DeviceFlowTable> iterator = flowTables.values().iterator();
+            Iterator<Map.Entry<DeviceId, DeviceFlowTable>> iterator = flowTables.entrySet().iterator();
             while (iterator.hasNext()) {
-                iterator.next().close();
+                Map.Entry<DeviceId, DeviceFlowTable> entry = iterator.next();
+                entry.getValue().close();
                 iterator.remove();
+                if (snapshot != null) {
+                    snapshot.remove(entry.getKey());
+                }
             }
         }
     }
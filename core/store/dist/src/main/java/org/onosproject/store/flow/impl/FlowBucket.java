@@ -15,19 +15,32 @@
  */
 package org.onosproject.store.flow.impl;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowEntry.FlowLiveType;
 import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,13 +52,33 @@ import org.slf4j.LoggerFactory;
  */
 public class FlowBucket {
     private static final Logger LOGGER = LoggerFactory.getLogger(FlowBucket.class);
+    private static final int MIN_CHANGE_LOG_SIZE = 64;
+    private static final Serializer SERIALIZER = Serializer.using(KryoNamespaces.API);
+    private static final HashFunction TREATMENT_HASH = Hashing.murmur3_128();
+    // Hashes of the treatments of the stored entries, by treatment instance; weak keys are compared by identity
+    private static final Cache<TrafficTreatment, Long> TREATMENT_HASHES = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
     private final BucketId bucketId;
     private volatile long term;
     private volatile LogicalTimestamp timestamp;
     private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket;
 
+    // Content hash of the bucket, recomputed on demand once the flows have changed. Not replicated with the bucket.
+    private transient long hash;
+    private transient boolean hashValid;
+
+    // Log of the flows changed since changesSince, used to compute deltas. Not replicated with the bucket.
+    private transient Map<FlowId, LogicalTimestamp> changes;
+    private transient Map<FlowId, LogicalTimestamp> counterChanges;
+    private transient LogicalTimestamp changesSince;
+
     FlowBucket(BucketId bucketId) {
-        this(bucketId, 0, new LogicalTimestamp(0), Maps.newConcurrentMap());
+        this(bucketId, 0, new LogicalTimestamp(0));
+    }
+
+    FlowBucket(BucketId bucketId, long term, LogicalTimestamp timestamp) {
+        this(bucketId, term, timestamp, Maps.newConcurrentMap());
     }
 
     private FlowBucket(
@@ -92,7 +125,30 @@ public class FlowBucket {
      * @return the digest for the bucket
      */
     public FlowBucketDigest getDigest() {
-        return new FlowBucketDigest(bucketId().bucket(), term(), timestamp());
+        return new FlowBucketDigest(bucketId().bucket(), term(), timestamp(), hash());
+    }
+
+    /**
+     * Returns the content hash of the bucket.
+     * <p>
+     * The hash combines the flow identifier, treatment and state of each entry in the bucket. Statistics
+     * counters are excluded since they are not necessarily replicated. The hash is independent of the order
+     * in which flows were added to the bucket.
+     *
+     * @return the bucket content hash
+     */
+    synchronized long hash() {
+        if (!hashValid) {
+            long hash = 0;
+            for (Map<StoredFlowEntry, StoredFlowEntry> entries : flowBucket.values()) {
+                for (StoredFlowEntry entry : entries.values()) {
+                    hash += hash(entry);
+                }
+            }
+            this.hash = hash;
+            hashValid = true;
+        }
+        return hash;
     }
 
     /**
@@ -143,14 +199,171 @@ public class FlowBucket {
                 .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue())));
     }
 
+    /**
+     * Returns the changes made to the bucket after the given timestamp.
+     *
+     * @param since the timestamp after which to return changes
+     * @return the delta or {@code null} if the changes since the given timestamp are no longer known
+     */
+    FlowBucketDelta getDelta(LogicalTimestamp since) {
+        if (changes == null || since == null || since.isOlderThan(changesSince)) {
+            return null;
+        }
+
+        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowEntries = Maps.newHashMap();
+        changes.forEach((flowId, changed) -> {
+            if (changed.isNewerThan(since)) {
+                Map<StoredFlowEntry, StoredFlowEntry> entries = flowBucket.get(flowId);
+                flowEntries.put(flowId, entries != null ? Maps.newHashMap(entries) : Maps.newHashMap());
+            }
+        });
+
+        // Only send the counters for flows that have not otherwise changed and are not ambiguous.
+        List<FlowEntryCounters> counters = Lists.newArrayList();
+        counterChanges.forEach((flowId, changed) -> {
+            if (changed.isNewerThan(since) && !flowEntries.containsKey(flowId)) {
+                Map<StoredFlowEntry, StoredFlowEntry> entries = flowBucket.get(flowId);
+                if (entries != null && entries.size() == 1) {
+                    counters.add(FlowEntryCounters.of(entries.values().iterator().next()));
+                } else {
+                    flowEntries.put(flowId, entries != null ? Maps.newHashMap(entries) : Maps.newHashMap());
+                }
+            }
+        });
+        return new FlowBucketDelta(bucketId, term, since, timestamp, hash(), flowEntries, counters);
+    }
+
+    /**
+     * Applies the given delta to the bucket.
+     * <p>
+     * The delta can only be applied if the bucket is from the same term and at least as recent as
+     * the delta's base timestamp. If the contents of the bucket do not match the master's once the delta
+     * has been applied, the replica has drifted and the delta is reported as not applied so that the full
+     * bucket is replicated.
+     *
+     * @param delta the delta to apply
+     * @return indicates whether the delta was applied and the bucket matches the master's contents
+     */
+    boolean applyDelta(FlowBucketDelta delta) {
+        if (delta.term() != term || timestamp.isOlderThan(delta.base())) {
+            return false;
+        }
+
+        delta.getFlowEntries().forEach((flowId, entries) -> {
+            if (entries.isEmpty()) {
+                flowBucket.remove(flowId);
+            } else {
+                flowBucket.put(flowId, new ConcurrentHashMap<>(entries));
+            }
+        });
+        hashValid = false;
+        for (FlowEntryCounters counters : delta.getCounters()) {
+            Map<StoredFlowEntry, StoredFlowEntry> entries = flowBucket.get(counters.flowId());
+            if (entries != null && entries.size() == 1) {
+                counters.applyTo(entries.values().iterator().next());
+            }
+        }
+        if (delta.timestamp().isNewerThan(timestamp)) {
+            timestamp = delta.timestamp();
+        }
+        if (hash() != delta.hash()) {
+            LOGGER.debug("Bucket {} diverged from the master after applying delta", bucketId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Loads the given flow entries into the bucket without recording a change.
+     *
+     * @param flowId  the flow identifier
+     * @param entries the entries to load
+     */
+    void load(FlowId flowId, Map<StoredFlowEntry, StoredFlowEntry> entries) {
+        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = getFlowEntries(flowId);
+        flowEntries.putAll(entries);
+        hashValid = false;
+    }
+
+    /**
+     * Discards changes recorded up to the given timestamp.
+     * <p>
+     * Deltas can no longer be computed from timestamps older than the given timestamp once the changes
+     * have been discarded.
+     *
+     * @param timestamp the timestamp up to which changes have been replicated
+     */
+    void pruneChanges(LogicalTimestamp timestamp) {
+        if (changes != null && timestamp.isNewerThan(changesSince)) {
+            changes.values().removeIf(changed -> !changed.isNewerThan(timestamp));
+            counterChanges.values().removeIf(changed -> !changed.isNewerThan(timestamp));
+            changesSince = timestamp;
+        }
+    }
+
     /**
      * Records an update to the bucket.
      */
-    private void recordUpdate(long term, LogicalTimestamp timestamp) {
+    private void recordUpdate(FlowId flowId, long term, LogicalTimestamp timestamp) {
+        prepareChangeLog();
+        changes.put(flowId, timestamp);
+        this.term = term;
+        this.timestamp = timestamp;
+        hashValid = false;
+    }
+
+    /**
+     * Records an update to the statistics counters of a flow in the bucket.
+     */
+    private void recordCountersUpdate(FlowId flowId, long term, LogicalTimestamp timestamp) {
+        prepareChangeLog();
+        counterChanges.put(flowId, timestamp);
         this.term = term;
         this.timestamp = timestamp;
     }
 
+    /**
+     * Prepares the change log to record a change to the bucket.
+     */
+    private void prepareChangeLog() {
+        if (changes == null) {
+            changes = Maps.newHashMap();
+            counterChanges = Maps.newHashMap();
+            changesSince = this.timestamp;
+        } else if (changes.size() + counterChanges.size() >= Math.max(flowBucket.size(), MIN_CHANGE_LOG_SIZE)) {
+            // Once the log outgrows the bucket, replicating the full bucket is cheaper than a delta.
+            changes.clear();
+            counterChanges.clear();
+            changesSince = this.timestamp;
+        }
+    }
+
+    /**
+     * Returns the contribution of the given entry to the bucket hash.
+     */
+    private static long hash(StoredFlowEntry entry) {
+        long hash = entry.id().value();
+        hash = 31 * hash + hash(entry.treatment());
+        hash = 31 * hash + entry.state().ordinal();
+        return hash;
+    }
+
+    /**
+     * Returns a hash of the given treatment that is the same on every node. The treatment hashCode is not,
+     * since instructions hash their enum fields by identity, so the serialized treatment is hashed instead.
+     */
+    private static long hash(TrafficTreatment treatment) {
+        if (treatment == null) {
+            return 0;
+        }
+        Long hash = TREATMENT_HASHES.getIfPresent(treatment);
+        if (hash == null) {
+            hash = TREATMENT_HASH.hashBytes(SERIALIZER.encode(treatment)).asLong();
+            TREATMENT_HASHES.put(treatment, hash);
+        }
+        return hash;
+    }
+
     /**
      * Adds the given flow rule to the bucket.
      *
@@ -164,7 +377,7 @@ public class FlowBucket {
             flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
         }
         flowEntries.put((StoredFlowEntry) rule, (StoredFlowEntry) rule);
-        recordUpdate(term, clock.getTimestamp());
+        recordUpdate(rule.id(), term, clock.getTimestamp());
     }
 
     /**
@@ -185,7 +398,7 @@ public class FlowBucket {
                 if (stored instanceof DefaultFlowEntry) {
                     DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
                     if (updated.created() >= storedEntry.created()) {
-                        recordUpdate(term, clock.getTimestamp());
+                        recordUpdate(rule.id(), term, clock.getTimestamp());
                         return updated;
                     } else {
                         LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", updated, stored);
@@ -218,7 +431,7 @@ public class FlowBucket {
             if (stored != null) {
                 T result = function.apply(stored);
                 if (result != null) {
-                    recordUpdate(term, clock.getTimestamp());
+                    recordUpdate(rule.id(), term, clock.getTimestamp());
                     resultRef.set(result);
                 }
             }
@@ -227,6 +440,45 @@ public class FlowBucket {
         return resultRef.get();
     }
 
+    /**
+     * Applies the given statistics update function to the rule.
+     * <p>
+     * If the function changes only the statistics counters of the stored entry, the change is replicated
+     * as a counters update or, if counters are not replicated, not recorded at all.
+     *
+     * @param rule      the rule to update
+     * @param function  the update function to apply
+     * @param term      the term in which the change occurred
+     * @param clock     the logical clock
+     * @param replicate whether changes to the statistics counters should be replicated
+     * @param <T>       the result type
+     * @return the update result or {@code null} if the rule was not updated
+     */
+    public <T> T updateCounters(
+        FlowRule rule, Function<StoredFlowEntry, T> function, long term, LogicalClock clock, boolean replicate) {
+        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
+        if (flowEntries == null) {
+            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
+        }
+
+        AtomicReference<T> resultRef = new AtomicReference<>();
+        flowEntries.computeIfPresent(new DefaultFlowEntry(rule), (k, stored) -> {
+            FlowEntryState state = stored.state();
+            FlowLiveType liveType = stored.liveType();
+            T result = function.apply(stored);
+            if (result != null) {
+                if (stored.state() != state || stored.liveType() != liveType) {
+                    recordUpdate(rule.id(), term, clock.getTimestamp());
+                } else if (replicate) {
+                    recordCountersUpdate(rule.id(), term, clock.getTimestamp());
+                }
+                resultRef.set(result);
+            }
+            return stored;
+        });
+        return resultRef.get();
+    }
+
     /**
      * Removes the given flow rule from the bucket.
      *
@@ -257,7 +509,7 @@ public class FlowBucket {
         });
 
         if (removedRule.get() != null) {
-            recordUpdate(term, clock.getTimestamp());
+            recordUpdate(rule.id(), term, clock.getTimestamp());
             return removedRule.get();
         } else {
             return null;
@@ -269,6 +521,9 @@ public class FlowBucket {
      */
     public void purge() {
         flowBucket.clear();
+        hashValid = false;
+        changes = null;
+        counterChanges = null;
     }
 
     /**
@@ -279,12 +534,20 @@ public class FlowBucket {
      * @param clock the logical clock
      */
     public void purge(ApplicationId appId, long term, LogicalClock clock) {
-        boolean anythingRemoved = flowBucket.values().removeIf(flowEntryMap -> {
-            flowEntryMap.values().removeIf(storedFlowEntry -> storedFlowEntry.appId() == appId.id());
-            return flowEntryMap.isEmpty();
-        });
-        if (anythingRemoved) {
-            recordUpdate(term, clock.getTimestamp());
+        LogicalTimestamp timestamp = null;
+        Iterator<Map.Entry<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> iterator =
+            flowBucket.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> entry = iterator.next();
+            if (entry.getValue().values().removeIf(storedFlowEntry -> storedFlowEntry.appId() == appId.id())) {
+                if (timestamp == null) {
+                    timestamp = clock.getTimestamp();
+                }
+                recordUpdate(entry.getKey(), term, timestamp);
+            }
+            if (entry.getValue().isEmpty()) {
+                iterator.remove();
+            }
         }
     }
 
@@ -295,6 +558,9 @@ public class FlowBucket {
     public void clear() {
         term = 0;
         timestamp = new LogicalTimestamp(0);
+        changes = null;
+        counterChanges = null;
         flowBucket.clear();
+        hashValid = false;
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Changes made to a flow bucket since a given logical time.
+ * <p>
+ * A delta carries the current set of flow entries for each flow identifier that changed after the base
+ * timestamp. An empty set of entries indicates the flow identifier was removed from the bucket. Flows for which
+ * only the statistics changed are carried as {@link FlowEntryCounters} rather than full entries. Applying
+ * a delta to a replica of the bucket that is at least as recent as the base timestamp brings the replica
+ * up to date with the bucket as of the delta timestamp.
+ */
+public class FlowBucketDelta {
+    private final BucketId bucketId;
+    private final long term;
+    private final LogicalTimestamp base;
+    private final LogicalTimestamp timestamp;
+    private final long hash;
+    private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowEntries;
+    private final List<FlowEntryCounters> counters;
+
+    FlowBucketDelta(
+        BucketId bucketId,
+        long term,
+        LogicalTimestamp base,
+        LogicalTimestamp timestamp,
+        long hash,
+        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowEntries,
+        List<FlowEntryCounters> counters) {
+        this.bucketId = bucketId;
+        this.term = term;
+        this.base = base;
+        this.timestamp = timestamp;
+        this.hash = hash;
+        this.flowEntries = flowEntries;
+        this.counters = counters;
+    }
+
+    /**
+     * Returns the identifier of the bucket to which the delta applies.
+     *
+     * @return the flow bucket identifier
+     */
+    public BucketId bucketId() {
+        return bucketId;
+    }
+
+    /**
+     * Returns the term in which the bucket was last changed.
+     *
+     * @return the flow bucket term
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the timestamp after which changes are included in the delta.
+     *
+     * @return the base timestamp
+     */
+    public LogicalTimestamp base() {
+        return base;
+    }
+
+    /**
+     * Returns the bucket timestamp once the delta has been applied.
+     *
+     * @return the flow bucket timestamp
+     */
+    public LogicalTimestamp timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the bucket content hash once the delta has been applied.
+     *
+     * @return the flow bucket content hash
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Returns the changed flow entries, keyed by flow identifier.
+     *
+     * @return the changed flow entries
+     */
+    public Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowEntries() {
+        return flowEntries;
+    }
+
+    /**
+     * Returns the counters of the flows for which only the statistics changed.
+     *
+     * @return the changed flow counters
+     */
+    public List<FlowEntryCounters> getCounters() {
+        return counters;
+    }
+
+    /**
+     * Returns the number of changed flow identifiers in the delta.
+     *
+     * @return the number of changed flow identifiers
+     */
+    public int size() {
+        return flowEntries.size() + counters.size();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("bucketId", bucketId)
+            .add("term", term)
+            .add("base", base)
+            .add("timestamp", timestamp)
+            .add("size", size())
+            .toString();
+    }
+}
@@ -26,11 +26,13 @@ public class FlowBucketDigest {
     private final int bucket;
     private final long term;
     private final LogicalTimestamp timestamp;
+    private final long hash;
 
-    FlowBucketDigest(int bucket, long term, LogicalTimestamp timestamp) {
+    FlowBucketDigest(int bucket, long term, LogicalTimestamp timestamp, long hash) {
         this.bucket = bucket;
         this.term = term;
         this.timestamp = timestamp;
+        this.hash = hash;
     }
 
     /**
@@ -60,6 +62,18 @@ public class FlowBucketDigest {
         return timestamp;
     }
 
+    /**
+     * Returns the bucket content hash.
+     * <p>
+     * The hash is computed from the contents of the flows in the bucket, excluding statistics counters, and is
+     * independent of the order in which changes were applied.
+     *
+     * @return the bucket content hash
+     */
+    public long hash() {
+        return hash;
+    }
+
     /**
      * Returns a boolean indicating whether this digest is newer than the given digest.
      *
@@ -70,6 +84,20 @@ public class FlowBucketDigest {
         return digest == null || term() > digest.term() || timestamp().isNewerThan(digest.timestamp());
     }
 
+    /**
+     * Returns a boolean indicating whether a bucket with this digest should replace a bucket with the given digest.
+     * <p>
+     * A bucket is superseded if it is older than this bucket or if both buckets were changed at the same
+     * logical time but their contents differ.
+     *
+     * @param digest the digest to check
+     * @return indicates whether this digest supersedes the given digest
+     */
+    public boolean supersedes(FlowBucketDigest digest) {
+        return isNewerThan(digest) || (term() == digest.term()
+            && timestamp().equals(digest.timestamp()) && hash() != digest.hash());
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(bucket);
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Statistics counters of a flow entry.
+ * <p>
+ * Counters are replicated in place of the full flow entry when only the statistics of the entry changed.
+ */
+public class FlowEntryCounters {
+    private final FlowId flowId;
+    private final long bytes;
+    private final long packets;
+    private final long life;
+    private final long lastSeen;
+
+    FlowEntryCounters(FlowId flowId, long bytes, long packets, long life, long lastSeen) {
+        this.flowId = flowId;
+        this.bytes = bytes;
+        this.packets = packets;
+        this.life = life;
+        this.lastSeen = lastSeen;
+    }
+
+    /**
+     * Returns the counters of the given flow entry.
+     *
+     * @param entry the flow entry
+     * @return the counters of the flow entry
+     */
+    static FlowEntryCounters of(FlowEntry entry) {
+        return new FlowEntryCounters(
+            entry.id(), entry.bytes(), entry.packets(), entry.life(TimeUnit.NANOSECONDS), entry.lastSeen());
+    }
+
+    /**
+     * Returns the flow identifier.
+     *
+     * @return the flow identifier
+     */
+    public FlowId flowId() {
+        return flowId;
+    }
+
+    /**
+     * Returns the number of bytes seen by the flow.
+     *
+     * @return the number of bytes
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of packets seen by the flow.
+     *
+     * @return the number of packets
+     */
+    public long packets() {
+        return packets;
+    }
+
+    /**
+     * Returns the time the flow has been installed in nanoseconds.
+     *
+     * @return the flow life in nanoseconds
+     */
+    public long life() {
+        return life;
+    }
+
+    /**
+     * Returns the epoch time at which the flow was last seen.
+     *
+     * @return the last seen time in milliseconds
+     */
+    public long lastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * Applies the counters to the given flow entry.
+     *
+     * @param entry the flow entry to update
+     */
+    void applyTo(StoredFlowEntry entry) {
+        entry.setBytes(bytes);
+        entry.setPackets(packets);
+        entry.setLife(life, TimeUnit.NANOSECONDS);
+        entry.setLastSeen(lastSeen);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("flowId", flowId)
+            .add("bytes", bytes)
+            .add("packets", packets)
+            .add("life", life)
+            .add("lastSeen", lastSeen)
+            .toString();
+    }
+}
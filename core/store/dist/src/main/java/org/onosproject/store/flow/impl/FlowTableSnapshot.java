@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+import org.onosproject.persistence.PersistenceService;
+
+/**
+ * Local snapshot of the flow buckets of the device flow tables.
+ * <p>
+ * Buckets are kept in a persistent map along with their term and timestamp, so that the tables can be
+ * reloaded after a restart. The content hash of a bucket is not stored but recomputed from the reloaded
+ * flows, which hash their treatments in serialized form so that the hash matches the one of the replicas.
+ * Replicas then only have to exchange the digests of the reloaded buckets, and transfer the buckets that
+ * changed while the node was down.
+ */
+class FlowTableSnapshot {
+    private static final String SNAPSHOT_NAME = "onos-flow-store-snapshot";
+
+    private final Map<BucketId, FlowBucket> buckets;
+    private final Map<DeviceId, Set<BucketId>> bucketIds = Maps.newConcurrentMap();
+
+    FlowTableSnapshot(PersistenceService persistenceService) {
+        this.buckets = persistenceService.<BucketId, FlowBucket>persistentMapBuilder()
+            .withName(SNAPSHOT_NAME)
+            .withSerializer(DeviceFlowTable.SERIALIZER)
+            .build();
+        buckets.keySet().forEach(this::addBucketId);
+    }
+
+    private void addBucketId(BucketId bucketId) {
+        bucketIds.computeIfAbsent(bucketId.deviceId(), id -> Sets.newConcurrentHashSet()).add(bucketId);
+    }
+
+    /**
+     * Loads the snapshot of the flow table for the given device.
+     * <p>
+     * The snapshot is only returned if it holds every bucket of the table, as an incomplete table
+     * cannot be told apart from a table whose flows were removed.
+     *
+     * @param deviceId the device for which to load the flow table
+     * @return the buckets of the flow table or an empty collection if no complete snapshot is known
+     */
+    Collection<FlowBucket> load(DeviceId deviceId) {
+        Set<BucketId> ids = bucketIds.get(deviceId);
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int numBuckets = ids.iterator().next().buckets();
+        List<FlowBucket> loaded = Lists.newArrayListWithCapacity(numBuckets);
+        for (BucketId bucketId : ids) {
+            FlowBucket bucket = bucketId.buckets() == numBuckets ? buckets.get(bucketId) : null;
+            if (bucket == null) {
+                return Collections.emptyList();
+            }
+            loaded.add(bucket);
+        }
+        return loaded.size() == numBuckets ? loaded : Collections.emptyList();
+    }
+
+    /**
+     * Writes the given bucket to the snapshot.
+     * <p>
+     * Buckets are serialized before this method returns, so the caller must hold the bucket lock.
+     *
+     * @param bucket the bucket to write
+     */
+    void write(FlowBucket bucket) {
+        buckets.put(bucket.bucketId(), bucket);
+        addBucketId(bucket.bucketId());
+    }
+
+    /**
+     * Removes the buckets of the given device whose bucket count differs from the given one, once the
+     * table of the device has been resized.
+     *
+     * @param deviceId   the device identifier
+     * @param numBuckets the current number of buckets of the table
+     */
+    void resize(DeviceId deviceId, int numBuckets) {
+        Set<BucketId> ids = bucketIds.get(deviceId);
+        if (ids != null) {
+            for (BucketId bucketId : ids) {
+                if (bucketId.buckets() != numBuckets) {
+                    buckets.remove(bucketId);
+                    ids.remove(bucketId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the snapshot of the flow table for the given device.
+     *
+     * @param deviceId the device identifier
+     */
+    void remove(DeviceId deviceId) {
+        Set<BucketId> ids = bucketIds.remove(deviceId);
+        if (ids != null) {
+            ids.forEach(buckets::remove);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.host.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Secondary indexes of the hosts by IP address, MAC address, VLAN, location,
+ * auxiliary location and device, updated incrementally as hosts change.
+ * <p>
+ * An index key held by a single host, as most IP addresses, MAC addresses
+ * and locations are, maps to the host itself. Other keys map to a bucket of
+ * their hosts by host identifier, which lookups return as a weakly
+ * consistent unmodifiable view, so that neither updates nor lookups copy
+ * the hosts of large buckets such as the one of the untagged VLAN.
+ * </p>
+ */
+final class HostIndex {
+
+    private final Index<IpAddress> byIp = new Index<>(Host::ipAddresses);
+    private final Index<MacAddress> byMac = new Index<>(host -> ImmutableSet.of(host.mac()));
+    private final Index<VlanId> byVlan = new Index<>(host -> ImmutableSet.of(host.vlan()));
+    private final Index<ConnectPoint> byLocation = new Index<>(Host::locations);
+    private final Index<ConnectPoint> byAuxLocation = new Index<>(host ->
+            host.auxLocations() != null ? host.auxLocations() : ImmutableSet.of());
+    private final Index<DeviceId> byDevice = new Index<>(host -> host.locations().stream()
+            .map(HostLocation::deviceId)
+            .collect(Collectors.toSet()));
+
+    /**
+     * Indexes the given host, replacing its previous version if any.
+     *
+     * @param host     host
+     * @param prevHost previous version of the host; null if new
+     */
+    void update(Host host, Host prevHost) {
+        byIp.update(host, prevHost);
+        byMac.update(host, prevHost);
+        byVlan.update(host, prevHost);
+        byLocation.update(host, prevHost);
+        byAuxLocation.update(host, prevHost);
+        byDevice.update(host, prevHost);
+    }
+
+    /**
+     * Removes the given host from the indexes.
+     *
+     * @param host host
+     */
+    void remove(Host host) {
+        byIp.remove(host);
+        byMac.remove(host);
+        byVlan.remove(host);
+        byLocation.remove(host);
+        byAuxLocation.remove(host);
+        byDevice.remove(host);
+    }
+
+    /**
+     * Removes the given host from the hosts with the given IP address.
+     *
+     * @param host host
+     * @param ip   IP address no longer assigned to the host
+     */
+    void removeIp(Host host, IpAddress ip) {
+        byIp.remove(ip, host.id());
+    }
+
+    /**
+     * Returns the hosts with the given IP address.
+     *
+     * @param ip IP address
+     * @return set of hosts
+     */
+    Set<Host> getHosts(IpAddress ip) {
+        return byIp.get(ip);
+    }
+
+    /**
+     * Returns the hosts with the given MAC address.
+     *
+     * @param mac MAC address
+     * @return set of hosts
+     */
+    Set<Host> getHosts(MacAddress mac) {
+        return byMac.get(mac);
+    }
+
+    /**
+     * Returns the hosts in the given VLAN.
+     *
+     * @param vlanId VLAN identifier
+     * @return set of hosts
+     */
+    Set<Host> getHosts(VlanId vlanId) {
+        return byVlan.get(vlanId);
+    }
+
+    /**
+     * Returns the hosts located, or auxiliary located, at the given
+     * connection point.
+     *
+     * @param connectPoint      connection point
+     * @param matchAuxLocations whether to match the auxiliary locations
+     * @return set of hosts
+     */
+    Set<Host> getConnectedHosts(ConnectPoint connectPoint, boolean matchAuxLocations) {
+        return matchAuxLocations ? byAuxLocation.get(connectPoint) : byLocation.get(connectPoint);
+    }
+
+    /**
+     * Returns the hosts located on the given device.
+     *
+     * @param deviceId device identifier
+     * @return set of hosts
+     */
+    Set<Host> getConnectedHosts(DeviceId deviceId) {
+        return byDevice.get(deviceId);
+    }
+
+    // Index of the hosts by the keys extracted from them; every key maps
+    // either to its sole host or to a bucket of its hosts.
+    private static final class Index<K> {
+        private final Map<K, Object> entries = Maps.newConcurrentMap();
+        private final Function<Host, Collection<? extends K>> keys;
+
+        private Index(Function<Host, Collection<? extends K>> keys) {
+            this.keys = keys;
+        }
+
+        private void update(Host host, Host prevHost) {
+            Collection<? extends K> hostKeys = keys.apply(host);
+            if (prevHost != null) {
+                keys.apply(prevHost).stream()
+                        .filter(key -> !hostKeys.contains(key))
+                        .forEach(key -> remove(key, prevHost.id()));
+            }
+            hostKeys.forEach(key -> entries.compute(key, (k, entry) -> withHost(entry, host)));
+        }
+
+        private void remove(Host host) {
+            keys.apply(host).forEach(key -> remove(key, host.id()));
+        }
+
+        private void remove(K key, HostId hostId) {
+            entries.computeIfPresent(key, (k, entry) -> withoutHost(entry, hostId));
+        }
+
+        private Set<Host> get(K key) {
+            Object entry = entries.get(key);
+            if (entry == null) {
+                return ImmutableSet.of();
+            }
+            return entry instanceof Bucket ? ((Bucket) entry).view : ImmutableSet.of((Host) entry);
+        }
+
+        // Returns the entry holding the given host in addition to those of
+        // the given entry.
+        private static Object withHost(Object entry, Host host) {
+            if (entry == null) {
+                return host;
+            }
+            if (entry instanceof Bucket) {
+                ((Bucket) entry).hosts.put(host.id(), host);
+                return entry;
+            }
+            Host existing = (Host) entry;
+            if (existing.id().equals(host.id())) {
+                return host;
+            }
+            Bucket bucket = new Bucket();
+            bucket.hosts.put(existing.id(), existing);
+            bucket.hosts.put(host.id(), host);
+            return bucket;
+        }
+
+        // Returns the entry holding the hosts of the given entry but the one
+        // with the given identifier; null if none is left.
+        private static Object withoutHost(Object entry, HostId hostId) {
+            if (!(entry instanceof Bucket)) {
+                return ((Host) entry).id().equals(hostId) ? null : entry;
+            }
+            Map<HostId, Host> hosts = ((Bucket) entry).hosts;
+            hosts.remove(hostId);
+            if (hosts.size() > 1) {
+                return entry;
+            }
+            return hosts.isEmpty() ? null : hosts.values().iterator().next();
+        }
+    }
+
+    // Hosts of an index key held by more than one host.
+    private static final class Bucket {
+        private final Map<HostId, Host> hosts = Maps.newConcurrentMap();
+
+        // Unmodifiable view of the hosts
+        private final Set<Host> view = new AbstractSet<Host>() {
+            @Override
+            public Iterator<Host> iterator() {
+                return Iterators.unmodifiableIterator(hosts.values().iterator());
+            }
+
+            @Override
+            public int size() {
+                return hosts.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Host && o.equals(hosts.get(((Host) o).id()));
+            }
+        };
+    }
+}
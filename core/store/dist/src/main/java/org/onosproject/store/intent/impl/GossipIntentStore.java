@@ -33,6 +33,7 @@ import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.WorkPartitionService;
 import org.onosproject.store.AbstractStore;
 import org.onosproject.store.Timestamp;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.EventuallyConsistentMap;
 import org.onosproject.store.service.EventuallyConsistentMapBuilder;
@@ -63,6 +64,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static org.onlab.util.Tools.get;
 import static org.onosproject.net.intent.IntentState.PURGE_REQ;
+import static org.onosproject.store.OsgiPropertyConstants.GIS_BACKUP_COUNT;
+import static org.onosproject.store.OsgiPropertyConstants.GIS_BACKUP_COUNT_DEFAULT;
+import static org.onosproject.store.OsgiPropertyConstants.GIS_PARTITIONED;
+import static org.onosproject.store.OsgiPropertyConstants.GIS_PARTITIONED_DEFAULT;
 import static org.onosproject.store.OsgiPropertyConstants.GIS_PERSISTENCE_ENABLED;
 import static org.onosproject.store.OsgiPropertyConstants.GIS_PERSISTENCE_ENABLED_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -77,7 +82,9 @@ import static org.slf4j.LoggerFactory.getLogger;
         immediate = true,
         service = IntentStore.class,
         property = {
-                GIS_PERSISTENCE_ENABLED + ":Boolean=" + GIS_PERSISTENCE_ENABLED_DEFAULT
+                GIS_PERSISTENCE_ENABLED + ":Boolean=" + GIS_PERSISTENCE_ENABLED_DEFAULT,
+                GIS_PARTITIONED + ":Boolean=" + GIS_PARTITIONED_DEFAULT,
+                GIS_BACKUP_COUNT + ":Integer=" + GIS_BACKUP_COUNT_DEFAULT
         }
 )
 public class GossipIntentStore
@@ -100,6 +107,9 @@ public class GossipIntentStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected ClusterService clusterService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ClusterCommunicationService clusterCommunicator;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected StorageService storageService;
 
@@ -125,6 +135,11 @@ public class GossipIntentStore
     /** EXPERIMENTAL: Enable intent persistence. */
     private boolean persistenceEnabled = GIS_PERSISTENCE_ENABLED_DEFAULT;
 
+    /** Store intents only on the leader and backups of their partition; applied on activation. */
+    private boolean partitioned = GIS_PARTITIONED_DEFAULT;
+
+    /** Number of backups of every intent when partitioned; applied on activation. */
+    private int backupCount = GIS_BACKUP_COUNT_DEFAULT;
 
     /**
      * TimestampProvieder for currentMap.
@@ -146,6 +161,26 @@ public class GossipIntentStore
                             sequenceNumber.incrementAndGet()));
     }
 
+    /**
+     * TimestampProvider for pendingMap.
+     *
+     * @param key Intent key
+     * @param data Intent data
+     * @return generated time stamp
+     */
+    private Timestamp pendingTimestampProvider(Key key, IntentData data) {
+        /*
+            We always want to accept new values in the pending map,
+            so we should use a high performance logical clock.
+        */
+        /*
+            TODO We use the wall clock for the time being, but
+            this could result in issues if there is clock skew
+            across instances.
+         */
+        return new MultiValuedTimestamp<>(new WallClockTimestamp(), System.nanoTime());
+    }
+
     @Activate
     public void activate(ComponentContext context) {
         configService.registerProperties(getClass());
@@ -159,35 +194,37 @@ public class GossipIntentStore
                 .register(IntentData.class)
                 .register(MultiValuedTimestamp.class);
 
-        EventuallyConsistentMapBuilder currentECMapBuilder =
-                storageService.<Key, IntentData>eventuallyConsistentMapBuilder()
-                .withName("intent-current")
-                .withSerializer(intentSerializer)
-                .withTimestampProvider(this::currentTimestampProvider)
-                .withPeerUpdateFunction((key, intentData) -> getPeerNodes(key, intentData));
-
-        EventuallyConsistentMapBuilder pendingECMapBuilder =
-                storageService.<Key, IntentData>eventuallyConsistentMapBuilder()
-                .withName("intent-pending")
-                .withSerializer(intentSerializer)
-                .withTimestampProvider((key, intentData) ->
-                        /*
-                            We always want to accept new values in the pending map,
-                            so we should use a high performance logical clock.
-                        */
-                        /*
-                            TODO We use the wall clock for the time being, but
-                            this could result in issues if there is clock skew
-                            across instances.
-                         */
-                        new MultiValuedTimestamp<>(new WallClockTimestamp(), System.nanoTime()))
-                .withPeerUpdateFunction((key, intentData) -> getPeerNodes(key, intentData));
-        if (initiallyPersistent) {
-            currentECMapBuilder = currentECMapBuilder.withPersistence();
-            pendingECMapBuilder = pendingECMapBuilder.withPersistence();
+        if (partitioned) {
+            if (initiallyPersistent) {
+                log.warn("Persistence is not supported by the partitioned intent store");
+            }
+            currentMap = new PartitionedIntentMap("intent-current", clusterService, clusterCommunicator,
+                                                  partitionService, intentSerializer,
+                                                  this::currentTimestampProvider, backupCount);
+            pendingMap = new PartitionedIntentMap("intent-pending", clusterService, clusterCommunicator,
+                                                  partitionService, intentSerializer,
+                                                  this::pendingTimestampProvider, backupCount);
+        } else {
+            EventuallyConsistentMapBuilder currentECMapBuilder =
+                    storageService.<Key, IntentData>eventuallyConsistentMapBuilder()
+                    .withName("intent-current")
+                    .withSerializer(intentSerializer)
+                    .withTimestampProvider(this::currentTimestampProvider)
+                    .withPeerUpdateFunction((key, intentData) -> getPeerNodes(key, intentData));
+
+            EventuallyConsistentMapBuilder pendingECMapBuilder =
+                    storageService.<Key, IntentData>eventuallyConsistentMapBuilder()
+                    .withName("intent-pending")
+                    .withSerializer(intentSerializer)
+                    .withTimestampProvider(this::pendingTimestampProvider)
+                    .withPeerUpdateFunction((key, intentData) -> getPeerNodes(key, intentData));
+            if (initiallyPersistent) {
+                currentECMapBuilder = currentECMapBuilder.withPersistence();
+                pendingECMapBuilder = pendingECMapBuilder.withPersistence();
+            }
+            currentMap = currentECMapBuilder.build();
+            pendingMap = pendingECMapBuilder.build();
         }
-        currentMap = currentECMapBuilder.build();
-        pendingMap = pendingECMapBuilder.build();
 
         currentMap.addListener(mapCurrentListener);
         pendingMap.addListener(mapPendingListener);
@@ -227,6 +264,15 @@ public class GossipIntentStore
                               "session will not be persisted to disk",
                       initiallyPersistent);
         }
+        try {
+            String s = get(properties, GIS_PARTITIONED);
+            partitioned = isNullOrEmpty(s) ? GIS_PARTITIONED_DEFAULT : Boolean.parseBoolean(s.trim());
+
+            s = get(properties, GIS_BACKUP_COUNT);
+            backupCount = isNullOrEmpty(s) ? GIS_BACKUP_COUNT_DEFAULT : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            log.warn("Failed to retrieve the partitioning properties, using the current settings", e);
+        }
         if (persistenceEnabled) {
             //FIXME persistence is an experimental feature, warnings can be removed
             //when the feature is completed
@@ -269,7 +315,7 @@ public class GossipIntentStore
         if (localOnly || olderThan > 0) {
             long now = System.currentTimeMillis();
             final WallClockTimestamp time = new WallClockTimestamp(now - olderThan);
-            return currentMap.values().stream()
+            return values(currentMap, localOnly).stream()
                     .filter(data -> data.version().isOlderThan(time) &&
                             (!localOnly || isMaster(data.key())))
                     .collect(Collectors.toList());
@@ -450,12 +496,20 @@ public class GossipIntentStore
     public Iterable<IntentData> getPendingData(boolean localOnly, long olderThan) {
         long now = System.currentTimeMillis();
         final WallClockTimestamp time = new WallClockTimestamp(now - olderThan);
-        return pendingMap.values().stream()
+        return values(pendingMap, localOnly).stream()
                 .filter(data -> data.version().isOlderThan(time) &&
                         (!localOnly || isMaster(data.key())))
                 .collect(Collectors.toList());
     }
 
+    // Local-only reads of partitioned maps do not need to scan the other instances
+    private Collection<IntentData> values(EventuallyConsistentMap<Key, IntentData> map, boolean localOnly) {
+        if (localOnly && map instanceof PartitionedIntentMap) {
+            return ((PartitionedIntentMap) map).localValues();
+        }
+        return map.values();
+    }
+
     private final class InternalCurrentListener implements
             EventuallyConsistentMapListener<Key, IntentData> {
         @Override
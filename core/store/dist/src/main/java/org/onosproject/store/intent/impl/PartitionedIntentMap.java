@@ -0,0 +1,627 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.intent.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onlab.util.KryoNamespace;
+import org.onlab.util.Tools;
+import org.onosproject.cluster.ClusterService;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.WorkPartitionEvent;
+import org.onosproject.net.intent.WorkPartitionEventListener;
+import org.onosproject.net.intent.WorkPartitionService;
+import org.onosproject.store.Timestamp;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.EventuallyConsistentMapEvent;
+import org.onosproject.store.service.EventuallyConsistentMapListener;
+import org.onosproject.store.service.StorageException;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.WallClockTimestamp;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.PUT;
+import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.REMOVE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Map of intent data in which every key is only stored by the leader of its
+ * work partition and by a configurable number of backup instances.
+ * <p>
+ * Updates are sent to the replicas of the key, and to the origin of the
+ * intent data so that it can emit the intent events; the other instances read
+ * through the partition leader on demand. Bulk reads are answered by each
+ * instance with the entries of the partitions it leads. Replicas periodically
+ * exchange digests of their entries, which is also how entries are handed over
+ * to the new replicas after the partition leadership or the cluster
+ * membership changed.
+ * </p>
+ */
+final class PartitionedIntentMap implements EventuallyConsistentMap<Key, IntentData> {
+
+    private static final Logger log = getLogger(PartitionedIntentMap.class);
+
+    private static final long SYNC_PERIOD_MILLIS = 5000;
+    private static final long TOMBSTONE_TTL_MILLIS = 12 * SYNC_PERIOD_MILLIS;
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String name;
+    private final NodeId localNodeId;
+    private final ClusterService clusterService;
+    private final ClusterCommunicationService clusterCommunicator;
+    private final WorkPartitionService partitionService;
+    private final BiFunction<Key, IntentData, Timestamp> timestampProvider;
+    private final int backupCount;
+    private final Serializer serializer;
+
+    private final MessageSubject updateSubject;
+    private final MessageSubject getSubject;
+    private final MessageSubject scanSubject;
+    private final MessageSubject countSubject;
+    private final MessageSubject keysSubject;
+    private final MessageSubject syncSubject;
+    private final MessageSubject resyncSubject;
+
+    private final Map<Key, Entry> items = Maps.newConcurrentMap();
+    private final Set<EventuallyConsistentMapListener<Key, IntentData>> listeners =
+            Sets.newCopyOnWriteArraySet();
+    private final WorkPartitionEventListener partitionListener = new InternalPartitionListener();
+
+    private final ExecutorService messageExecutor;
+    private final ScheduledExecutorService syncExecutor;
+
+    /**
+     * Creates a partitioned intent map.
+     *
+     * @param name                name of the map
+     * @param clusterService      cluster service
+     * @param clusterCommunicator cluster communication service
+     * @param partitionService    work partition service
+     * @param namespace           namespace of the intent data and timestamps
+     * @param timestampProvider   provider of the timestamps of the updates
+     * @param backupCount         number of backups of every key
+     */
+    PartitionedIntentMap(String name,
+                         ClusterService clusterService,
+                         ClusterCommunicationService clusterCommunicator,
+                         WorkPartitionService partitionService,
+                         KryoNamespace.Builder namespace,
+                         BiFunction<Key, IntentData, Timestamp> timestampProvider,
+                         int backupCount) {
+        this.name = checkNotNull(name);
+        this.clusterService = checkNotNull(clusterService);
+        this.clusterCommunicator = checkNotNull(clusterCommunicator);
+        this.partitionService = checkNotNull(partitionService);
+        this.timestampProvider = checkNotNull(timestampProvider);
+        this.backupCount = Math.max(backupCount, 0);
+        this.localNodeId = clusterService.getLocalNode().id();
+        this.serializer = Serializer.using(KryoNamespace.newBuilder()
+                .register(namespace.build(name + "-data"))
+                .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID + 100)
+                .register(KryoNamespaces.BASIC)
+                .register(WallClockTimestamp.class)
+                .register(Update.class)
+                .build(name + "-partitioned"));
+
+        this.updateSubject = new MessageSubject("partitioned-intent-map-" + name + "-update");
+        this.getSubject = new MessageSubject("partitioned-intent-map-" + name + "-get");
+        this.scanSubject = new MessageSubject("partitioned-intent-map-" + name + "-scan");
+        this.countSubject = new MessageSubject("partitioned-intent-map-" + name + "-count");
+        this.keysSubject = new MessageSubject("partitioned-intent-map-" + name + "-keys");
+        this.syncSubject = new MessageSubject("partitioned-intent-map-" + name + "-sync");
+        this.resyncSubject = new MessageSubject("partitioned-intent-map-" + name + "-resync");
+
+        this.messageExecutor = Executors.newSingleThreadExecutor(
+                groupedThreads("onos/intent", name + "-messages", log));
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(
+                groupedThreads("onos/intent", name + "-sync", log));
+
+        clusterCommunicator.<List<Update>>addSubscriber(
+                updateSubject, serializer::decode, this::handleUpdates, messageExecutor);
+        clusterCommunicator.addSubscriber(
+                getSubject, serializer::decode, this::handleGet, serializer::encode, messageExecutor);
+        clusterCommunicator.<NodeId, List<Update>>addSubscriber(
+                scanSubject, serializer::decode, node -> leaderUpdates(), serializer::encode, messageExecutor);
+        clusterCommunicator.<NodeId, Integer>addSubscriber(
+                countSubject, serializer::decode, node -> leaderCount(), serializer::encode, messageExecutor);
+        clusterCommunicator.<NodeId, List<Key>>addSubscriber(
+                keysSubject, serializer::decode, node -> leaderKeys(), serializer::encode, messageExecutor);
+        clusterCommunicator.addSubscriber(
+                syncSubject, serializer::decode, this::handleSync, serializer::encode, messageExecutor);
+        clusterCommunicator.<NodeId>addSubscriber(
+                resyncSubject, serializer::decode, this::handleResync, messageExecutor);
+        partitionService.addListener(partitionListener);
+
+        syncExecutor.scheduleWithFixedDelay(this::sync, SYNC_PERIOD_MILLIS,
+                                            SYNC_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    // Sums the entry counts of the partition leaders; an entry whose partition
+    // is changing hands may briefly be counted by both leaders
+    @Override
+    public int size() {
+        return queryLeaders(countSubject, this::leaderCount).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Key key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(IntentData value) {
+        checkNotNull(value);
+        return Objects.equals(get(value.key()), value);
+    }
+
+    @Override
+    public IntentData get(Key key) {
+        checkNotNull(key);
+        if (isReplica(key)) {
+            Entry entry = items.get(key);
+            return entry != null ? entry.value : null;
+        }
+        NodeId leader = partitionService.getLeader(key, Key::hash);
+        if (leader == null) {
+            // the entry may exist; do not report it as missing
+            throw new StorageException.Unavailable();
+        }
+        try {
+            return clusterCommunicator.<Key, IntentData>sendAndReceive(
+                    key, getSubject, serializer::encode, serializer::decode, leader, READ_TIMEOUT)
+                    .get(READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException.Interrupted();
+        } catch (TimeoutException e) {
+            throw new StorageException.Timeout();
+        } catch (ExecutionException e) {
+            throw new StorageException(e.getCause());
+        }
+    }
+
+    @Override
+    public void put(Key key, IntentData value) {
+        checkNotNull(key);
+        checkNotNull(value);
+        update(new Update(key, value, timestampProvider.apply(key, value)), value.origin());
+    }
+
+    @Override
+    public IntentData remove(Key key) {
+        IntentData value = get(key);
+        if (value != null) {
+            remove(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void remove(Key key, IntentData value) {
+        checkNotNull(key);
+        checkNotNull(value);
+        if (isReplica(key)) {
+            Entry entry = items.get(key);
+            if (entry == null || !Objects.equals(entry.value, value)) {
+                return;
+            }
+        }
+        update(new Update(key, null, timestampProvider.apply(key, value)), value.origin());
+    }
+
+    @Override
+    public IntentData compute(Key key, BiFunction<Key, IntentData, IntentData> recomputeFunction) {
+        checkNotNull(key);
+        checkNotNull(recomputeFunction);
+        IntentData existing = get(key);
+        IntentData computed = recomputeFunction.apply(key, existing);
+        if (computed == existing) {
+            return existing;
+        }
+        if (computed == null) {
+            remove(key, existing);
+        } else {
+            put(key, computed);
+        }
+        return computed;
+    }
+
+    @Override
+    public void putAll(Map<? extends Key, ? extends IntentData> m) {
+        m.forEach(this::put);
+    }
+
+    @Override
+    public void clear() {
+        scan().forEach(this::remove);
+    }
+
+    @Override
+    public Set<Key> keySet() {
+        ImmutableSet.Builder<Key> keys = ImmutableSet.builder();
+        queryLeaders(keysSubject, this::leaderKeys).forEach(keys::addAll);
+        return keys.build();
+    }
+
+    @Override
+    public Collection<IntentData> values() {
+        return scan().values();
+    }
+
+    @Override
+    public Set<Map.Entry<Key, IntentData>> entrySet() {
+        return scan().entrySet();
+    }
+
+    /**
+     * Returns the intent data of the partitions led by the local instance,
+     * without contacting the other instances.
+     *
+     * @return intent data of the local partitions
+     */
+    Collection<IntentData> localValues() {
+        return leaderUpdates().stream()
+                .map(update -> update.value)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void addListener(EventuallyConsistentMapListener<Key, IntentData> listener) {
+        listeners.add(checkNotNull(listener));
+    }
+
+    @Override
+    public void removeListener(EventuallyConsistentMapListener<Key, IntentData> listener) {
+        listeners.remove(checkNotNull(listener));
+    }
+
+    @Override
+    public CompletableFuture<Void> destroy() {
+        partitionService.removeListener(partitionListener);
+        clusterCommunicator.removeSubscriber(updateSubject);
+        clusterCommunicator.removeSubscriber(getSubject);
+        clusterCommunicator.removeSubscriber(scanSubject);
+        clusterCommunicator.removeSubscriber(countSubject);
+        clusterCommunicator.removeSubscriber(keysSubject);
+        clusterCommunicator.removeSubscriber(syncSubject);
+        clusterCommunicator.removeSubscriber(resyncSubject);
+        syncExecutor.shutdown();
+        messageExecutor.shutdown();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Returns the instances storing the given key: the leader of its
+     * partition, followed by the next active instances in node identifier
+     * order.
+     *
+     * @param key intent key
+     * @return replicas of the key; empty if the partition has no leader
+     */
+    Set<NodeId> replicas(Key key) {
+        NodeId leader = partitionService.getLeader(key, Key::hash);
+        if (leader == null) {
+            return ImmutableSet.of();
+        }
+        List<NodeId> nodes = clusterService.getNodes().stream()
+                .map(ControllerNode::id)
+                .filter(node -> node.equals(leader) || isActive(node))
+                .sorted()
+                .collect(Collectors.toList());
+        ImmutableSet.Builder<NodeId> replicas = ImmutableSet.<NodeId>builder().add(leader);
+        int start = nodes.indexOf(leader);
+        for (int i = 1; i <= Math.min(backupCount, nodes.size() - 1); i++) {
+            replicas.add(nodes.get((start + i) % nodes.size()));
+        }
+        return replicas.build();
+    }
+
+    private boolean isActive(NodeId node) {
+        ControllerNode.State state = clusterService.getState(node);
+        return state != null && state.isActive();
+    }
+
+    private boolean isReplica(Key key) {
+        return replicas(key).contains(localNodeId);
+    }
+
+    // Applies an update locally and sends it to the other replicas and to the
+    // origin of the intent data.
+    private void update(Update update, NodeId origin) {
+        Set<NodeId> replicas = replicas(update.key);
+        Set<NodeId> peers = Sets.newHashSet(replicas);
+        if (origin != null) {
+            peers.add(origin);
+        }
+        peers.remove(localNodeId);
+        if (replicas.contains(localNodeId)) {
+            apply(update);
+        } else {
+            // Not stored locally; still emit the event of the local update
+            notifyListeners(update, update.value);
+        }
+        if (!peers.isEmpty()) {
+            clusterCommunicator.multicast(ImmutableList.of(update), updateSubject,
+                                          serializer::encode, peers);
+        }
+    }
+
+    // Stores the update if newer than the local entry and notifies the
+    // listeners; returns whether the update was stored.
+    private boolean apply(Update update) {
+        Entry[] previous = new Entry[1];
+        Entry entry = items.compute(update.key, (key, existing) -> {
+            previous[0] = existing;
+            if (existing == null || update.timestamp.isNewerThan(existing.timestamp)) {
+                return new Entry(update.value, update.timestamp);
+            }
+            return existing;
+        });
+        if (entry == previous[0]) {
+            return false;
+        }
+        if (update.value != null || (previous[0] != null && previous[0].value != null)) {
+            notifyListeners(update, update.value != null ? update.value : previous[0].value);
+        }
+        return true;
+    }
+
+    private void notifyListeners(Update update, IntentData value) {
+        if (value == null) {
+            return;
+        }
+        EventuallyConsistentMapEvent<Key, IntentData> event =
+                new EventuallyConsistentMapEvent<>(name, update.value != null ? PUT : REMOVE,
+                                                   update.key, value);
+        listeners.forEach(listener -> listener.event(event));
+    }
+
+    private void handleUpdates(List<Update> updates) {
+        updates.forEach(update -> {
+            if (items.containsKey(update.key) || isReplica(update.key)) {
+                apply(update);
+            } else {
+                // Updates of the intents originated by this instance
+                notifyListeners(update, update.value);
+            }
+        });
+    }
+
+    private IntentData handleGet(Key key) {
+        Entry entry = items.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    // Returns the live entries of the partitions led by the local instance.
+    private List<Update> leaderUpdates() {
+        return items.entrySet().stream()
+                .filter(e -> e.getValue().value != null)
+                .filter(e -> partitionService.isMine(e.getKey(), Key::hash))
+                .map(e -> new Update(e.getKey(), e.getValue().value, e.getValue().timestamp))
+                .collect(Collectors.toList());
+    }
+
+    // Returns the number of live entries of the partitions led by the local instance.
+    private int leaderCount() {
+        return (int) items.entrySet().stream()
+                .filter(e -> e.getValue().value != null)
+                .filter(e -> partitionService.isMine(e.getKey(), Key::hash))
+                .count();
+    }
+
+    // Returns the keys of the live entries of the partitions led by the local instance.
+    private List<Key> leaderKeys() {
+        return items.entrySet().stream()
+                .filter(e -> e.getValue().value != null)
+                .filter(e -> partitionService.isMine(e.getKey(), Key::hash))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    // Collects the entries led by every instance of the cluster.
+    private Map<Key, IntentData> scan() {
+        Map<Key, Update> latest = Maps.newHashMap();
+        queryLeaders(scanSubject, this::leaderUpdates).forEach(updates ->
+                updates.forEach(update -> latest.merge(update.key, update, (a, b) ->
+                        b.timestamp.isNewerThan(a.timestamp) ? b : a)));
+        return ImmutableMap.copyOf(Maps.transformValues(latest, update -> update.value));
+    }
+
+    // Asks every active instance of the cluster about the partitions it leads,
+    // and returns the answers received along with the local one.
+    private <T> List<T> queryLeaders(MessageSubject subject, Supplier<T> localAnswer) {
+        List<CompletableFuture<T>> futures = clusterService.getNodes().stream()
+                .map(ControllerNode::id)
+                .filter(node -> !node.equals(localNodeId) && isActive(node))
+                .map(node -> clusterCommunicator.<NodeId, T>sendAndReceive(
+                        localNodeId, subject, serializer::encode, serializer::decode,
+                        node, READ_TIMEOUT))
+                .collect(Collectors.toList());
+
+        List<T> answers = Lists.newArrayList();
+        answers.add(localAnswer.get());
+        futures.forEach(future -> {
+            T answer = Tools.futureGetOrElse(future, READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS, null);
+            if (answer == null) {
+                log.debug("Failed to query a remote instance for {}", name);
+                return;
+            }
+            answers.add(answer);
+        });
+        return answers;
+    }
+
+    /**
+     * Sends the digest of the local entries to their other replicas, and the
+     * entries they miss in return. Entries the local instance does not
+     * replicate anymore are dropped once all their replicas are up to date.
+     */
+    void sync() {
+        sync(key -> true);
+    }
+
+    // Synchronizes the local entries whose keys match the given predicate.
+    private void sync(Predicate<Key> scope) {
+        try {
+            long now = System.currentTimeMillis();
+            Map<NodeId, Map<Key, Timestamp>> digests = Maps.newHashMap();
+            Map<Key, Set<NodeId>> handedOver = Maps.newHashMap();
+            items.forEach((key, entry) -> {
+                if (!scope.test(key)) {
+                    return;
+                }
+                if (entry.value == null && now - entry.created > TOMBSTONE_TTL_MILLIS) {
+                    items.remove(key, entry);
+                    return;
+                }
+                Set<NodeId> replicas = replicas(key);
+                replicas.stream()
+                        .filter(node -> !node.equals(localNodeId))
+                        .forEach(node -> digests.computeIfAbsent(node, n -> Maps.newHashMap())
+                                .put(key, entry.timestamp));
+                if (!replicas.isEmpty() && !replicas.contains(localNodeId)) {
+                    handedOver.put(key, replicas);
+                }
+            });
+
+            Set<NodeId> synced = Sets.newConcurrentHashSet();
+            CompletableFuture<?>[] futures = digests.entrySet().stream()
+                    .map(e -> sync(e.getKey(), e.getValue())
+                            .thenRun(() -> synced.add(e.getKey())))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).whenComplete((result, error) ->
+                handedOver.forEach((key, replicas) -> {
+                    if (synced.containsAll(replicas)) {
+                        items.remove(key);
+                    }
+                }));
+        } catch (Exception e) {
+            log.warn("Failed to synchronize {}", name, e);
+        }
+    }
+
+    private CompletableFuture<Void> sync(NodeId node, Map<Key, Timestamp> digest) {
+        return clusterCommunicator.<Map<Key, Timestamp>, List<Key>>sendAndReceive(
+                digest, syncSubject, serializer::encode, serializer::decode, node, READ_TIMEOUT)
+                .thenCompose(missing -> {
+                    List<Update> updates = Lists.newArrayListWithCapacity(missing.size());
+                    missing.forEach(key -> {
+                        Entry entry = items.get(key);
+                        if (entry != null) {
+                            updates.add(new Update(key, entry.value, entry.timestamp));
+                        }
+                    });
+                    if (updates.isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return clusterCommunicator.unicast(updates, updateSubject, serializer::encode, node);
+                });
+    }
+
+    // Hands over right away the entries of the partitions the given instance
+    // has just been elected leader of. The partition of a key is only known
+    // through its leader, so the entries of the other partitions it leads are
+    // synchronized along.
+    private void handleResync(NodeId newLeader) {
+        syncExecutor.execute(() -> sync(key -> newLeader.equals(partitionService.getLeader(key, Key::hash))));
+    }
+
+    // Returns the keys of the digest whose local entries are missing or older.
+    private List<Key> handleSync(Map<Key, Timestamp> digest) {
+        return digest.entrySet().stream()
+                .filter(e -> {
+                    Entry entry = items.get(e.getKey());
+                    return entry == null || e.getValue().isNewerThan(entry.timestamp);
+                })
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private final class InternalPartitionListener implements WorkPartitionEventListener {
+        @Override
+        public void event(WorkPartitionEvent event) {
+            // Have the previous replicas hand the partitions led locally over right away
+            clusterCommunicator.broadcast(localNodeId, resyncSubject, serializer::encode);
+        }
+    }
+
+    // Locally stored entry; a null value denotes a removed entry.
+    private static final class Entry {
+        private final IntentData value;
+        private final Timestamp timestamp;
+        private final long created = System.currentTimeMillis();
+
+        private Entry(IntentData value, Timestamp timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+
+    // Update of an entry exchanged between the instances.
+    private static final class Update {
+        private final Key key;
+        private final IntentData value;
+        private final Timestamp timestamp;
+
+        private Update(Key key, IntentData value, Timestamp timestamp) {
+            this.key = key;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.onosproject.store.resource.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import org.onlab.util.Tools;
 import org.onosproject.net.resource.DiscreteResource;
 import org.onosproject.net.resource.DiscreteResourceId;
@@ -25,6 +26,7 @@ import org.onosproject.net.resource.ResourceAllocation;
 import org.onosproject.net.resource.ResourceConsumerId;
 import org.onosproject.net.resource.Resources;
 import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.StorageException;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.TransactionContext;
@@ -45,6 +47,11 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
     private ConsistentMap<DiscreteResourceId, ResourceConsumerId> consumers;
     private ConsistentMap<DiscreteResourceId, DiscreteResources> childMap;
 
+    // Local view of the allocated resources by parent, which serves the queries for
+    // available resources. It is updated on commit of the allocations made by this
+    // node, and from the consumer map events for the allocations made by the others
+    private final Map<DiscreteResourceId, DiscreteResources> allocatedCache = Maps.newConcurrentMap();
+
     @SuppressWarnings("ReturnValueIgnored")
     ConsistentDiscreteResourceSubStore(StorageService service) {
         this.consumers = service.<DiscreteResourceId, ResourceConsumerId>consistentMapBuilder()
@@ -62,6 +69,63 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
                 Integer.MAX_VALUE,
                 50
         ).get();
+
+        consumers.addListener(this::updateAllocatedCache);
+        consumers.keySet().forEach(this::cacheAllocated);
+    }
+
+    private void updateAllocatedCache(MapEvent<DiscreteResourceId, ResourceConsumerId> event) {
+        switch (event.type()) {
+            case INSERT:
+                cacheAllocated(event.key());
+                break;
+            case REMOVE:
+                uncacheAllocated(event.key());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Records the given resources as allocated in the local view, once their
+     * allocation has been committed by this node.
+     *
+     * @param resources allocated resources; non-discrete ones are ignored
+     */
+    void allocated(List<? extends Resource> resources) {
+        discreteIds(resources).forEach(this::cacheAllocated);
+    }
+
+    /**
+     * Records the given resources as released in the local view, once their
+     * release has been committed by this node.
+     *
+     * @param resources released resources; non-discrete ones are ignored
+     */
+    void released(List<? extends Resource> resources) {
+        discreteIds(resources).forEach(this::uncacheAllocated);
+    }
+
+    private static Stream<DiscreteResourceId> discreteIds(List<? extends Resource> resources) {
+        return resources.stream()
+                .filter(x -> x instanceof DiscreteResource)
+                .map(x -> ((DiscreteResource) x).id());
+    }
+
+    private void cacheAllocated(DiscreteResourceId id) {
+        id.parent().ifPresent(parent -> allocatedCache.merge(parent, singleton(id), DiscreteResources::add));
+    }
+
+    private void uncacheAllocated(DiscreteResourceId id) {
+        id.parent().ifPresent(parent -> allocatedCache.computeIfPresent(parent, (p, allocated) -> {
+            DiscreteResources remaining = allocated.difference(singleton(id));
+            return remaining.isEmpty() ? null : remaining;
+        }));
+    }
+
+    private static DiscreteResources singleton(DiscreteResourceId id) {
+        return DiscreteResources.of(ImmutableSet.of(Resources.discrete(id).resource()));
     }
 
     @Override
@@ -102,6 +166,27 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
         return children.value().valuesOf(cls);
     }
 
+    /**
+     * Returns the available child resources of the given parent, whose type is the
+     * given class. The allocations are looked up in the local view of the allocated
+     * resources, so they include those committed by this node but may lag behind
+     * the most recent allocations of the other nodes.
+     *
+     * @param parent the parent resource ID
+     * @param cls    the type of the resources
+     * @return available child resources
+     */
+    Set<DiscreteResource> getAvailableResources(DiscreteResourceId parent, Class<?> cls) {
+        Versioned<DiscreteResources> children = childMap.get(parent);
+
+        if (children == null) {
+            return ImmutableSet.of();
+        }
+
+        DiscreteResources allocated = allocatedCache.getOrDefault(parent, DiscreteResources.empty());
+        return children.value().difference(allocated).valuesOf(cls);
+    }
+
     @Override
     public boolean isAvailable(DiscreteResource resource) {
         return getResourceAllocations(resource.id()).isEmpty();
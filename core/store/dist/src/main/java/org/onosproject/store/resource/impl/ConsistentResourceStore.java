@@ -46,6 +46,7 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -228,19 +229,62 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         checkNotNull(resources);
         checkNotNull(consumer);
 
+        return allocateAtOnce(resources.stream()
+                                      .map(x -> new ResourceAllocation(x, consumer))
+                                      .collect(Collectors.toList()));
+    }
+
+    // The allocations are made in one transaction per partition, i.e. per top-level
+    // resource such as a device, so that a conflict only retries the transaction
+    // of its own partition. The partitions committed before a failure are released.
+    @Override
+    public boolean allocate(List<ResourceAllocation> allocations) {
+        checkNotNull(allocations);
+
+        // the order is preserved by LinkedHashMap
+        Map<ResourceId, List<ResourceAllocation>> partitions = allocations.stream()
+                .collect(groupingBy(x -> partition(x.resource().id()), LinkedHashMap::new, Collectors.toList()));
+
+        List<ResourceAllocation> allocated = new ArrayList<>();
+        for (List<ResourceAllocation> partition : partitions.values()) {
+            if (!allocateAtOnce(partition)) {
+                if (!allocated.isEmpty() && !release(allocated)) {
+                    log.warn("Failed to roll back the allocation of {}", allocated);
+                }
+                return false;
+            }
+            allocated.addAll(partition);
+        }
+        return true;
+    }
+
+    // Returns the top-level resource, right below the root, the given resource belongs to
+    private static ResourceId partition(ResourceId id) {
+        ResourceId partition = id;
+        while (partition.parent().isPresent() && partition.parent().get().parent().isPresent()) {
+            partition = partition.parent().get();
+        }
+        return partition;
+    }
+
+    // Makes the given allocations in a single transaction
+    private boolean allocateAtOnce(List<ResourceAllocation> allocations) {
         while (true) {
             TransactionContext tx = service.transactionContextBuilder().build();
             tx.begin();
 
             TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
             TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
-            for (Resource resource : resources) {
+            for (ResourceAllocation allocation : allocations) {
+                Resource resource = allocation.resource();
+                ResourceConsumerId consumerId = allocation.consumerId();
+
                 if (resource instanceof DiscreteResource) {
-                    if (!discreteTxStore.allocate(consumer.consumerId(), (DiscreteResource) resource)) {
+                    if (!discreteTxStore.allocate(consumerId, (DiscreteResource) resource)) {
                         return abortTransaction(tx);
                     }
                 } else if (resource instanceof ContinuousResource) {
-                    if (!continuousTxStore.allocate(consumer.consumerId(), (ContinuousResource) resource)) {
+                    if (!continuousTxStore.allocate(consumerId, (ContinuousResource) resource)) {
                         return abortTransaction(tx);
                     }
                 }
@@ -248,10 +292,13 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
 
             try {
                 if (commitTransaction(tx) == CommitStatus.SUCCESS) {
+                    discreteStore.allocated(allocations.stream()
+                                                    .map(ResourceAllocation::resource)
+                                                    .collect(Collectors.toList()));
                     return true;
                 }
             } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                log.warn("Failed to allocate {}: {}", resources, e);
+                log.warn("Failed to allocate {}: {}", allocations, e);
                 return false;
             }
         }
@@ -284,6 +331,9 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
 
             try {
                 if (commitTransaction(tx) == CommitStatus.SUCCESS) {
+                    discreteStore.released(allocations.stream()
+                                                   .map(ResourceAllocation::resource)
+                                                   .collect(Collectors.toList()));
                     return true;
                 }
             } catch (InterruptedException | ExecutionException | TimeoutException e) {
@@ -345,6 +395,21 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
                 .build();
     }
 
+    // computational complexity: O(r) for the discrete children, where r is the number of ranges
+    // of the encoded children of the parent, plus O(n) for the continuous children
+    @Override
+    public <T> Set<Resource> getAvailableResources(DiscreteResourceId parent, Class<T> cls) {
+        checkNotNull(parent);
+        checkNotNull(cls);
+
+        return ImmutableSet.<Resource>builder()
+                .addAll(discreteStore.getAvailableResources(parent, cls))
+                .addAll(continuousStore.getChildResources(parent, cls).stream()
+                                .filter(continuousStore::isAvailable)
+                                .iterator())
+                .build();
+    }
+
     // computational complexity: O(n) where n is the number of the children of the parent
     @Override
     public <T> Collection<Resource> getAllocatedResources(DiscreteResourceId parent, Class<T> cls) {
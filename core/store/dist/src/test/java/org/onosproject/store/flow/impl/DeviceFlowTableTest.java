@@ -0,0 +1,324 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.util.Tools;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Tests of the replicated device flow table, with a master and one backup.
+ */
+public class DeviceFlowTableTest {
+
+    private static final NodeId NODE1 = new NodeId("node1");
+    private static final NodeId NODE2 = new NodeId("node2");
+    private static final List<NodeId> NODES = ImmutableList.of(NODE1, NODE2);
+    private static final DeviceId DEVICE_ID = did("device1");
+    private static final DeviceReplicaInfo REPLICA_INFO = new DeviceReplicaInfo(1, NODE1, ImmutableList.of(NODE2));
+
+    // Enough flows to double the minimum number of buckets.
+    private static final int FLOWS = 128 * 256 + 1000;
+    private static final long ANTI_ENTROPY_PERIOD = 50;
+
+    private final Map<NodeId, TestClusterCommunicator> communicators = Maps.newConcurrentMap();
+    private final List<ExecutorService> executors = Lists.newArrayList();
+    private ScheduledExecutorService scheduler;
+    private DeviceFlowTable master;
+    private DeviceFlowTable backup;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        master = createTable(NODE1);
+        backup = createTable(NODE2);
+    }
+
+    @After
+    public void tearDown() {
+        master.close();
+        backup.close();
+        executors.forEach(ExecutorService::shutdownNow);
+        scheduler.shutdownNow();
+    }
+
+    private DeviceFlowTable createTable(NodeId nodeId) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executors.add(executor);
+        return new DeviceFlowTable(
+            DEVICE_ID,
+            new TestClusterService(nodeId),
+            new TestClusterCommunicator(nodeId),
+            new TestLifecycleManager(),
+            new DeviceServiceAdapter(),
+            scheduler,
+            executor,
+            ANTI_ENTROPY_PERIOD,
+            ANTI_ENTROPY_PERIOD,
+            true,
+            null,
+            0);
+    }
+
+    private static FlowRule rule(int priority) {
+        return DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(DefaultTrafficSelector.emptySelector())
+            .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+            .withPriority(priority)
+            .makePermanent()
+            .fromApp(APP_ID)
+            .build();
+    }
+
+    /**
+     * Tests that lookups stay consistent while the table is resized and that the backup follows
+     * the master's bucket count.
+     */
+    @Test
+    public void testResize() throws Exception {
+        List<FlowRule> rules = Lists.newArrayList();
+        for (int i = 0; i < FLOWS; i++) {
+            FlowRule rule = rule(i + 1);
+            rules.add(rule);
+            master.add(new DefaultFlowEntry(rule)).join();
+        }
+
+        // Look up flows that are never removed while the table grows and shrinks.
+        List<FlowRule> sample = rules.subList(0, 100);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                try {
+                    for (FlowRule rule : sample) {
+                        if (master.getFlowEntry(rule) == null) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                    return;
+                }
+            }
+        });
+        reader.start();
+
+        try {
+            assertAfter(10000, () -> {
+                assertThat(master.buckets(), is(256));
+                assertThat(backup.buckets(), is(256));
+                assertThat(backup.count(), is(FLOWS));
+            });
+
+            for (FlowRule rule : rules.subList(sample.size(), FLOWS - 10000)) {
+                master.remove(new DefaultFlowEntry(rule)).join();
+            }
+            assertAfter(10000, () -> {
+                assertThat(master.buckets(), is(128));
+                assertThat(backup.buckets(), is(128));
+                assertThat(backup.count(), is(10000 + sample.size()));
+            });
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+        assertThat(failure.get(), nullValue());
+        assertThat(misses.get(), is(0));
+        for (FlowRule rule : sample) {
+            assertThat(backup.getFlowEntry(rule), notNullValue());
+        }
+    }
+
+    /**
+     * Tests that anti-entropy repairs a backup that acknowledged an update it did not apply.
+     */
+    @Test
+    public void testAntiEntropy() {
+        FlowRule rule = rule(10);
+        master.add(new DefaultFlowEntry(rule)).join();
+        assertAfter(5000, () -> assertThat(backup.getFlowEntry(rule), notNullValue()));
+
+        // The update may be replicated either as a delta or as the full bucket.
+        TestClusterCommunicator communicator = communicators.get(NODE2);
+        communicator.dropNext(ImmutableSet.of(
+            new MessageSubject(String.format("flow-store-%s-backup", DEVICE_ID)),
+            new MessageSubject(String.format("flow-store-%s-backup-delta", DEVICE_ID))));
+        master.update(rule, stored -> {
+            stored.setState(FlowEntry.FlowEntryState.ADDED);
+            return true;
+        }).join();
+        assertAfter(5000, () -> assertThat(communicator.dropped(), is(true)));
+
+        assertAfter(5000, () ->
+            assertThat(backup.getFlowEntry(rule).state(), is(FlowEntry.FlowEntryState.ADDED)));
+    }
+
+    private static class TestLifecycleManager implements LifecycleManager {
+        @Override
+        public DeviceReplicaInfo getReplicaInfo() {
+            return REPLICA_INFO;
+        }
+
+        @Override
+        public void activate(long term) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void addListener(LifecycleEventListener listener) {
+        }
+
+        @Override
+        public void removeListener(LifecycleEventListener listener) {
+        }
+    }
+
+    private class TestClusterService extends ClusterServiceAdapter {
+        private final ControllerNode local;
+
+        TestClusterService(NodeId localNodeId) {
+            local = new DefaultControllerNode(localNodeId, IpAddress.valueOf("127.0.0.1"));
+        }
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return local;
+        }
+
+        @Override
+        public Set<ControllerNode> getNodes() {
+            return NODES.stream()
+                .map(node -> new DefaultControllerNode(node, IpAddress.valueOf("127.0.0.1")))
+                .collect(Collectors.toSet());
+        }
+    }
+
+    private class TestClusterCommunicator extends ClusterCommunicationServiceAdapter {
+        private final Map<MessageSubject, Function<byte[], CompletableFuture<byte[]>>> subscribers =
+            Maps.newConcurrentMap();
+        private final AtomicReference<Set<MessageSubject>> drops = new AtomicReference<>(ImmutableSet.of());
+        private volatile boolean dropped;
+
+        TestClusterCommunicator(NodeId localNodeId) {
+            communicators.put(localNodeId, this);
+        }
+
+        /**
+         * Acknowledges the next message to any of the given subjects without delivering it.
+         */
+        void dropNext(Set<MessageSubject> subjects) {
+            drops.set(subjects);
+        }
+
+        boolean dropped() {
+            return dropped;
+        }
+
+        private boolean drop(MessageSubject subject) {
+            Set<MessageSubject> subjects = drops.get();
+            if (subjects.contains(subject) && drops.compareAndSet(subjects, ImmutableSet.of())) {
+                dropped = true;
+                return true;
+            }
+            return false;
+        }
+
+        private CompletableFuture<byte[]> handle(NodeId nodeId, MessageSubject subject, byte[] message) {
+            TestClusterCommunicator node = communicators.get(nodeId);
+            if (node != null && node.drop(subject)) {
+                return CompletableFuture.completedFuture(DeviceFlowTable.SERIALIZER.encode(
+                    new Timestamped<>(true, new LogicalTimestamp(0))));
+            }
+            Function<byte[], CompletableFuture<byte[]>> subscriber =
+                node != null ? node.subscribers.get(subject) : null;
+            if (subscriber == null) {
+                return Tools.exceptionalFuture(new MessagingException.NoRemoteHandler());
+            }
+            return subscriber.apply(message);
+        }
+
+        @Override
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder,
+                                                          NodeId toNodeId, Duration timeout) {
+            return handle(toNodeId, subject, encoder.apply(message)).thenApply(decoder);
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                         Function<M, R> handler, Function<R, byte[]> encoder,
+                                         Executor executor) {
+            subscribers.put(subject, message -> CompletableFuture.supplyAsync(
+                () -> encoder.apply(handler.apply(decoder.apply(message))), executor));
+        }
+
+        @Override
+        public void removeSubscriber(MessageSubject subject) {
+            subscribers.remove(subject);
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.onosproject.store.flow.impl;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import org.junit.After;
 import org.junit.Before;
@@ -39,17 +40,26 @@ import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
+import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.intent.IntentTestsMocks;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.persistence.PersistenceService;
+import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.store.persistence.PersistenceServiceAdapter;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.AsyncConsistentMapAdapter;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.TestStorageService;
 
 import org.onlab.packet.Ip4Address;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Map;
 import java.util.Optional;
 
 import org.osgi.service.component.ComponentContext;
@@ -80,8 +90,8 @@ public class ECFlowRuleStoreTest {
 
     private static final IntentTestsMocks.MockSelector SELECTOR =
             new IntentTestsMocks.MockSelector();
-    private static final IntentTestsMocks.MockTreatment TREATMENT =
-            new IntentTestsMocks.MockTreatment();
+    // The flow buckets hash the serialized treatments
+    private static final TrafficTreatment TREATMENT = DefaultTrafficTreatment.emptyTreatment();
     DeviceId deviceId = did("device1");
     DeviceId deviceId2 = did("device2");
     FlowRule flowRule =
@@ -180,7 +190,20 @@ public class ECFlowRuleStoreTest {
 
     @Before
     public void setUp() throws Exception {
-        flowStoreImpl = new ECFlowRuleStore();
+        mockClusterService = createMock(ClusterService.class);
+        nodeId = new NodeId("1");
+        mockControllerNode = new MockControllerNode(nodeId);
+
+        expect(mockClusterService.getLocalNode())
+                .andReturn(mockControllerNode).anyTimes();
+        replay(mockClusterService);
+
+        flowStoreImpl = createStore(new PersistenceServiceAdapter());
+        flowStoreImpl.activate(context);
+    }
+
+    private ECFlowRuleStore createStore(PersistenceService persistenceService) {
+        ECFlowRuleStore flowStoreImpl = new ECFlowRuleStore();
         flowStoreImpl.storageService = new TestStorageService() {
             @Override
             public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
@@ -202,22 +225,14 @@ public class ECFlowRuleStoreTest {
         replicaInfoManager.mastershipService = new MasterOfAll();
 
         flowStoreImpl.replicaInfoManager = replicaInfoManager;
-        mockClusterService = createMock(ClusterService.class);
         flowStoreImpl.clusterService = mockClusterService;
-        nodeId = new NodeId("1");
-        mockControllerNode = new MockControllerNode(nodeId);
-
-        expect(mockClusterService.getLocalNode())
-                .andReturn(mockControllerNode).anyTimes();
-        replay(mockClusterService);
-
         flowStoreImpl.clusterCommunicator = new ClusterCommunicationServiceAdapter();
         flowStoreImpl.mastershipService = new MasterOfAll();
         flowStoreImpl.deviceService = new DeviceServiceAdapter();
         flowStoreImpl.coreService = new CoreServiceAdapter();
         flowStoreImpl.configService = new ComponentConfigAdapter();
-        flowStoreImpl.persistenceService = new PersistenceServiceAdapter();
-        flowStoreImpl.activate(context);
+        flowStoreImpl.persistenceService = persistenceService;
+        return flowStoreImpl;
     }
 
     @After
@@ -325,6 +340,92 @@ public class ECFlowRuleStoreTest {
         assertFlowsOnDevice(deviceId2, 1);
     }
 
+    /**
+     * Tests reloading the flow tables from the local snapshot after a restart.
+     */
+    @Test
+    public void testSnapshotRestart() {
+        SnapshotPersistenceService persistenceService = new SnapshotPersistenceService();
+        ComponentContext persistentContext = createMock(ComponentContext.class);
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put("persistenceEnabled", "true");
+        expect(persistentContext.getProperties()).andReturn(properties).anyTimes();
+        replay(persistentContext);
+
+        // Snapshotted flows must be serializable, unlike the mock selectors and treatments.
+        FlowRule rule1 = snapshotRule(deviceId, 11);
+        FlowRule rule2 = snapshotRule(deviceId, 22);
+        FlowRule rule3 = snapshotRule(deviceId2, 33);
+
+        flowStoreImpl.deactivate(context);
+        flowStoreImpl = createStore(persistenceService);
+        flowStoreImpl.activate(persistentContext);
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(rule1));
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(rule2));
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(rule3));
+        flowStoreImpl.deactivate(persistentContext);
+
+        // Simulate a restart by reloading serialized copies of the snapshotted buckets.
+        persistenceService.reload();
+        flowStoreImpl = createStore(persistenceService);
+        flowStoreImpl.activate(persistentContext);
+        assertFlowsOnDevice(deviceId, 2);
+        assertFlowsOnDevice(deviceId2, 1);
+        assertThat(flowStoreImpl.getFlowEntry(rule2), notNullValue());
+
+        flowStoreImpl.purgeFlowRules();
+        flowStoreImpl.deactivate(persistentContext);
+        persistenceService.reload();
+        flowStoreImpl = createStore(persistenceService);
+        flowStoreImpl.activate(persistentContext);
+        assertFlowsOnDevice(deviceId, 0);
+    }
+
+    private static FlowRule snapshotRule(DeviceId deviceId, int priority) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withSelector(DefaultTrafficSelector.emptySelector())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(priority)
+                .makePermanent()
+                .fromApp(APP_ID)
+                .build();
+    }
+
+    /**
+     * Persistence service whose maps survive the stores, holding the values as last written.
+     */
+    private static class SnapshotPersistenceService extends PersistenceServiceAdapter {
+        private final Map<Object, Object> map = Maps.newConcurrentMap();
+        private Serializer serializer;
+
+        void reload() {
+            map.replaceAll((key, value) -> serializer.decode(serializer.encode(value)));
+        }
+
+        @Override
+        public <K, V> PersistentMapBuilder<K, V> persistentMapBuilder() {
+            return new PersistentMapBuilder<K, V>() {
+                @Override
+                public PersistentMapBuilder<K, V> withName(String name) {
+                    return this;
+                }
+
+                @Override
+                public PersistentMapBuilder<K, V> withSerializer(Serializer serializer) {
+                    SnapshotPersistenceService.this.serializer = serializer;
+                    return this;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Map<K, V> build() {
+                    return (Map<K, V>) map;
+                }
+            };
+        }
+    }
+
     private void assertFlowsOnDevice(DeviceId deviceId, int nFlows) {
         Iterable<FlowEntry> flows1 = flowStoreImpl.getFlowEntries(deviceId);
         int sum1 = 0;
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.intent.IntentTestsMocks;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.APP_ID_2;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the flow bucket change tracking.
+ */
+public class FlowBucketTest {
+
+    private static final DeviceId DEVICE_ID = did("device1");
+    private static final long TERM = 1;
+
+    private final LogicalClock clock = new LogicalClock();
+    private FlowBucket master;
+    private FlowBucket backup;
+
+    private static FlowEntry flowEntry(int priority, boolean app2) {
+        FlowRule rule = DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(new IntentTestsMocks.MockSelector())
+            .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+            .withPriority(priority)
+            .makePermanent()
+            .fromApp(app2 ? APP_ID_2 : APP_ID)
+            .build();
+        return new DefaultFlowEntry(rule);
+    }
+
+    @Before
+    public void setUp() {
+        BucketId bucketId = new BucketId(DEVICE_ID, 0, 1);
+        master = new FlowBucket(bucketId);
+        backup = new FlowBucket(bucketId);
+    }
+
+    /**
+     * Tests that the bucket hash reflects the flows in the bucket regardless of the order of changes.
+     */
+    @Test
+    public void testHash() {
+        FlowEntry entry1 = flowEntry(10, false);
+        FlowEntry entry2 = flowEntry(20, false);
+        long empty = master.getDigest().hash();
+
+        master.add(entry1, TERM, clock);
+        master.add(entry2, TERM, clock);
+        backup.add(entry2, TERM, clock);
+        backup.add(entry1, TERM, clock);
+        assertEquals(master.getDigest().hash(), backup.getDigest().hash());
+        assertNotEquals(empty, master.getDigest().hash());
+
+        master.add(entry1, TERM, clock);
+        assertEquals(master.getDigest().hash(), backup.getDigest().hash());
+
+        master.remove(entry1, TERM, clock);
+        master.remove(entry2, TERM, clock);
+        assertEquals(empty, master.getDigest().hash());
+    }
+
+    /**
+     * Tests that buckets holding independently deserialized copies of the same flows have the same hash.
+     */
+    @Test
+    public void testHashOfDeserializedFlows() {
+        Serializer serializer = Serializer.using(KryoNamespaces.API);
+        FlowRule rule = DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4).build())
+            .withTreatment(DefaultTrafficTreatment.builder()
+                               .setEthDst(MacAddress.valueOf("00:00:00:00:00:01"))
+                               .setOutput(PortNumber.portNumber(1))
+                               .build())
+            .withPriority(10)
+            .makePermanent()
+            .fromApp(APP_ID)
+            .build();
+        byte[] bytes = serializer.encode(new DefaultFlowEntry(rule));
+
+        FlowEntry copy1 = serializer.decode(bytes);
+        FlowEntry copy2 = serializer.decode(bytes);
+        master.add(copy1, TERM, clock);
+        backup.add(copy2, TERM, clock);
+        assertEquals(master.getDigest().hash(), backup.getDigest().hash());
+    }
+
+    /**
+     * Tests replicating changes to a backup bucket using deltas.
+     */
+    @Test
+    public void testDelta() {
+        FlowEntry entry1 = flowEntry(10, false);
+        FlowEntry entry2 = flowEntry(20, false);
+        FlowEntry entry3 = flowEntry(30, true);
+
+        master.add(entry1, TERM, clock);
+        master.add(entry2, TERM, clock);
+        backup = master.copy();
+        LogicalTimestamp replicated = master.timestamp();
+
+        master.remove(entry1, TERM, clock);
+        master.add(entry3, TERM, clock);
+
+        FlowBucketDelta delta = master.getDelta(replicated);
+        assertNotNull(delta);
+        assertEquals(2, delta.size());
+        assertTrue(backup.applyDelta(delta));
+        assertEquals(master.count(), backup.count());
+        assertEquals(master.timestamp(), backup.timestamp());
+        assertFalse(master.getDigest().supersedes(backup.getDigest()));
+        assertNull(backup.getFlowEntries(entry1.id()).get(entry1));
+        assertNotNull(backup.getFlowEntries(entry3.id()).get(entry3));
+
+        master.purge(APP_ID_2, TERM, clock);
+        delta = master.getDelta(delta.timestamp());
+        assertTrue(backup.applyDelta(delta));
+        assertEquals(1, backup.count());
+        assertEquals(master.getDigest().hash(), backup.getDigest().hash());
+    }
+
+    /**
+     * Tests that the bucket hash reflects the contents of the flows and that a delta is rejected by a replica
+     * whose contents have drifted from the master's.
+     */
+    @Test
+    public void testDeltaDrift() {
+        FlowEntry entry1 = flowEntry(10, false);
+        FlowEntry entry2 = flowEntry(20, false);
+        master.add(entry1, TERM, clock);
+        long pending = master.getDigest().hash();
+        master.update(entry1, stored -> {
+            stored.setState(FlowEntry.FlowEntryState.ADDED);
+            return true;
+        }, TERM, clock);
+        assertNotEquals(pending, master.getDigest().hash());
+
+        // The backup holds a flow the master does not know about.
+        backup.load(entry2.id(), ImmutableMap.of((StoredFlowEntry) entry2, (StoredFlowEntry) entry2));
+        FlowBucketDelta delta = master.getDelta(new LogicalTimestamp(0));
+        assertNotNull(delta);
+        assertFalse(backup.applyDelta(delta));
+    }
+
+    /**
+     * Tests replicating statistics counters updates as counters deltas.
+     */
+    @Test
+    public void testCountersDelta() {
+        FlowEntry entry = flowEntry(10, false);
+        master.add(entry, TERM, clock);
+        backup = master.copy();
+        LogicalTimestamp replicated = master.timestamp();
+
+        assertTrue(master.updateCounters(entry, stored -> {
+            stored.setBytes(100);
+            stored.setPackets(10);
+            return true;
+        }, TERM, clock, true));
+
+        FlowBucketDelta delta = master.getDelta(replicated);
+        assertNotNull(delta);
+        assertEquals(0, delta.getFlowEntries().size());
+        assertEquals(1, delta.getCounters().size());
+        assertTrue(backup.applyDelta(delta));
+        FlowEntry stored = backup.getFlowEntries(entry.id()).get(entry);
+        assertEquals(100, stored.bytes());
+        assertEquals(10, stored.packets());
+        assertEquals(master.timestamp(), backup.timestamp());
+
+        replicated = master.timestamp();
+        master.updateCounters(entry, s -> {
+            s.setBytes(200);
+            return true;
+        }, TERM, clock, false);
+        assertEquals(replicated, master.timestamp());
+
+        master.updateCounters(entry, s -> {
+            s.setState(FlowEntry.FlowEntryState.ADDED);
+            return true;
+        }, TERM, clock, false);
+        delta = master.getDelta(replicated);
+        assertEquals(1, delta.getFlowEntries().size());
+        assertEquals(0, delta.getCounters().size());
+    }
+
+    /**
+     * Tests that deltas are rejected by replicas that are not up to date with the delta base.
+     */
+    @Test
+    public void testRejectDelta() {
+        master.add(flowEntry(10, false), TERM, clock);
+        LogicalTimestamp replicated = master.timestamp();
+        master.add(flowEntry(20, false), TERM, clock);
+
+        FlowBucketDelta delta = master.getDelta(replicated);
+        assertNotNull(delta);
+        assertFalse(backup.applyDelta(delta));
+    }
+
+    /**
+     * Tests that deltas are unavailable once the changes have been pruned.
+     */
+    @Test
+    public void testPruneChanges() {
+        master.add(flowEntry(10, false), TERM, clock);
+        LogicalTimestamp first = master.timestamp();
+        master.add(flowEntry(20, false), TERM, clock);
+        LogicalTimestamp second = master.timestamp();
+
+        master.pruneChanges(second);
+        assertNull(master.getDelta(first));
+        assertEquals(0, master.getDelta(second).size());
+    }
+
+    /**
+     * Tests that a bucket with the same timestamp but different contents is superseded.
+     */
+    @Test
+    public void testSupersedes() {
+        master.add(flowEntry(10, false), TERM, clock);
+        FlowBucketDigest digest = master.getDigest();
+        FlowBucketDigest divergent = new FlowBucketDigest(
+            digest.bucket(), digest.term(), digest.timestamp(), digest.hash() + 1);
+
+        assertFalse(digest.supersedes(digest));
+        assertTrue(digest.supersedes(divergent));
+        assertTrue(digest.supersedes(backup.getDigest()));
+        assertFalse(backup.getDigest().supersedes(digest));
+    }
+}
@@ -420,6 +420,31 @@ public class DistributedHostStoreTest {
                 ecXHostStore.getConnectedHosts(HOST_LOC12, true));
     }
 
+    @Test
+    public void testHostIndexes() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_DESC_WITHOUT_AUX, false);
+        ecXHostStore.createOrUpdateHost(PID, HOSTID1, HOST_DESC_WITH_AUX, false);
+
+        assertEquals(Sets.newHashSet(HOST_WITHOUT_AUX), ecXHostStore.getHosts(HOSTID.mac()));
+        assertEquals(Sets.newHashSet(HOST_WITHOUT_AUX, HOST_WITH_AUX), ecXHostStore.getHosts(VlanId.NONE));
+        assertEquals(Sets.newHashSet(HOST_WITHOUT_AUX, HOST_WITH_AUX), ecXHostStore.getConnectedHosts(DEV1));
+        // Keys held by many hosts are looked up without copying their hosts
+        Set<Host> untagged = ecXHostStore.getHosts(VlanId.NONE);
+        assertSame(untagged, ecXHostStore.getHosts(VlanId.NONE));
+
+        // Move the host to the second port
+        ecXHostStore.appendLocation(HOSTID, HOST_LOC12);
+        assertEquals(Sets.newHashSet(HOST_WITH_AUX), ecXHostStore.getConnectedHosts(CP11));
+        assertEquals(Sets.newHashSet(ecXHostStore.getHost(HOSTID)), ecXHostStore.getConnectedHosts(CP12));
+        assertEquals(Sets.newHashSet(ecXHostStore.getHost(HOSTID), HOST_WITH_AUX), untagged);
+
+        ecXHostStore.removeHost(HOSTID1);
+        assertEquals(Sets.newHashSet(), ecXHostStore.getConnectedHosts(CP11));
+        assertEquals(Sets.newHashSet(), ecXHostStore.getHosts(HOSTID1.mac()));
+        assertEquals(Sets.newHashSet(ecXHostStore.getHost(HOSTID)), ecXHostStore.getHosts(IP2));
+        assertEquals(Sets.newHashSet(ecXHostStore.getHost(HOSTID)), ecXHostStore.getConnectedHosts(DEV1));
+    }
+
     private class TestStoreDelegate implements HostStoreDelegate {
         public HostEvent lastEvent;
 
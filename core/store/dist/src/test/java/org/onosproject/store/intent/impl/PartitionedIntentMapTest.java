@@ -0,0 +1,307 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.intent.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.util.KryoNamespace;
+import org.onlab.util.Tools;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.intent.AbstractIntentTest;
+import org.onosproject.net.intent.HostToHostIntent;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.IntentState;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.WorkPartitionServiceAdapter;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.EventuallyConsistentMapEvent;
+import org.onosproject.store.service.MultiValuedTimestamp;
+import org.onosproject.store.service.StorageException;
+import org.onosproject.store.service.WallClockTimestamp;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onosproject.net.NetTestTools.hid;
+
+/**
+ * Tests of the partitioned intent map, with three instances and one backup.
+ */
+public class PartitionedIntentMapTest extends AbstractIntentTest {
+
+    private static final NodeId NODE1 = new NodeId("node1");
+    private static final NodeId NODE2 = new NodeId("node2");
+    private static final NodeId NODE3 = new NodeId("node3");
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "intent-test");
+    private static final List<NodeId> NODES = Lists.newArrayList(NODE1, NODE2, NODE3);
+
+    private final Map<NodeId, TestClusterCommunicator> communicators = Maps.newConcurrentMap();
+    private final Map<NodeId, PartitionedIntentMap> maps = Maps.newHashMap();
+    private final Map<NodeId, List<EventuallyConsistentMapEvent<Key, IntentData>>> events =
+            Maps.newConcurrentMap();
+    private volatile NodeId leader = NODE1;
+
+    private HostToHostIntent intent;
+
+    @Override
+    @Before
+    public void setUp() {
+        super.setUp();
+        intent = HostToHostIntent.builder()
+                .one(hid("12:34:56:78:91:ab/1"))
+                .two(hid("12:34:56:78:91:ac/1"))
+                .appId(APP_ID)
+                .build();
+
+        KryoNamespace.Builder namespace = KryoNamespace.newBuilder()
+                .register(KryoNamespaces.API)
+                .register(IntentData.class)
+                .register(MultiValuedTimestamp.class);
+        NODES.forEach(node -> {
+            PartitionedIntentMap map = new PartitionedIntentMap(
+                    "intent-test", new TestClusterService(node), new TestClusterCommunicator(node),
+                    new TestPartitionService(node), namespace,
+                    (key, data) -> new MultiValuedTimestamp<>(new WallClockTimestamp(), System.nanoTime()), 1);
+            List<EventuallyConsistentMapEvent<Key, IntentData>> nodeEvents = Lists.newCopyOnWriteArrayList();
+            map.addListener(nodeEvents::add);
+            maps.put(node, map);
+            events.put(node, nodeEvents);
+        });
+    }
+
+    @Override
+    @After
+    public void tearDown() {
+        maps.values().forEach(PartitionedIntentMap::destroy);
+        super.tearDown();
+    }
+
+    private IntentData data(IntentState state, NodeId origin) {
+        return IntentData.assign(new IntentData(intent, state, null), new WallClockTimestamp(), origin);
+    }
+
+    /**
+     * Tests that the intent data is only stored by the leader and the backup,
+     * and read through the leader by the other instances.
+     */
+    @Test
+    public void testReplication() {
+        assertThat(maps.get(NODE1).replicas(intent.key()), is(ImmutableSet.of(NODE1, NODE2)));
+
+        IntentData installed = data(IntentState.INSTALLED, NODE1);
+        maps.get(NODE1).put(intent.key(), installed);
+
+        assertAfter(2000, () -> assertThat(events.get(NODE2), hasSize(1)));
+        assertThat(events.get(NODE3), hasSize(0));
+        assertThat(maps.get(NODE1).localValues(), contains(installed));
+        assertThat(maps.get(NODE2).localValues(), hasSize(0));
+        assertThat(maps.get(NODE3).get(intent.key()), is(installed));
+        assertThat(maps.get(NODE3).values(), contains(installed));
+        assertThat(maps.get(NODE2).size(), is(1));
+        assertThat(maps.get(NODE3).keySet(), contains(intent.key()));
+        assertThat(maps.get(NODE3).containsValue(installed), is(true));
+
+        maps.get(NODE3).remove(intent.key(), installed);
+        assertAfter(2000, () -> assertThat(maps.get(NODE1).get(intent.key()), nullValue()));
+        assertThat(maps.get(NODE3).size(), is(0));
+    }
+
+    /**
+     * Tests that the origin of the intent data receives its events without
+     * storing it.
+     */
+    @Test
+    public void testOriginEvents() {
+        IntentData installing = data(IntentState.INSTALLING, NODE3);
+        maps.get(NODE3).put(intent.key(), installing);
+        assertThat(events.get(NODE3), hasSize(1));
+
+        maps.get(NODE1).put(intent.key(), data(IntentState.INSTALLED, NODE3));
+        assertAfter(2000, () -> assertThat(events.get(NODE3), hasSize(2)));
+        assertThat(events.get(NODE3).get(1).value().state(), is(IntentState.INSTALLED));
+    }
+
+    /**
+     * Tests that the entries are handed over to the new replicas after the
+     * partition leadership changed.
+     */
+    @Test
+    public void testHandOver() {
+        IntentData installed = data(IntentState.INSTALLED, NODE1);
+        maps.get(NODE1).put(intent.key(), installed);
+        assertAfter(2000, () -> assertThat(events.get(NODE2), hasSize(1)));
+
+        // The new leader is backed up by the former leader
+        leader = NODE3;
+        maps.values().forEach(PartitionedIntentMap::sync);
+
+        assertAfter(2000, () -> {
+            assertThat(maps.get(NODE3).localValues(), contains(installed));
+            assertThat(maps.get(NODE2).get(intent.key()), is(installed));
+        });
+    }
+
+    /**
+     * Tests that a read through an unreachable leader is reported as failed
+     * rather than as a missing entry.
+     */
+    @Test(expected = StorageException.class)
+    public void testReadFailure() {
+        maps.get(NODE1).put(intent.key(), data(IntentState.INSTALLED, NODE1));
+        communicators.remove(NODE1);
+
+        maps.get(NODE3).get(intent.key());
+    }
+
+    private class TestClusterService extends ClusterServiceAdapter {
+        private final ControllerNode local;
+
+        TestClusterService(NodeId localNodeId) {
+            local = new DefaultControllerNode(localNodeId, IpAddress.valueOf("127.0.0.1"));
+        }
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return local;
+        }
+
+        @Override
+        public Set<ControllerNode> getNodes() {
+            return NODES.stream()
+                    .map(node -> new DefaultControllerNode(node, IpAddress.valueOf("127.0.0.1")))
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public ControllerNode.State getState(NodeId nodeId) {
+            return ControllerNode.State.ACTIVE;
+        }
+    }
+
+    private class TestPartitionService extends WorkPartitionServiceAdapter {
+        private final NodeId localNodeId;
+
+        TestPartitionService(NodeId localNodeId) {
+            this.localNodeId = localNodeId;
+        }
+
+        @Override
+        public <K> boolean isMine(K id, Function<K, Long> hasher) {
+            return localNodeId.equals(leader);
+        }
+
+        @Override
+        public <K> NodeId getLeader(K id, Function<K, Long> hasher) {
+            return leader;
+        }
+    }
+
+    private class TestClusterCommunicator extends ClusterCommunicationServiceAdapter {
+        private final NodeId localNodeId;
+        private final Map<MessageSubject, Function<byte[], CompletableFuture<byte[]>>> subscribers =
+                Maps.newConcurrentMap();
+
+        TestClusterCommunicator(NodeId localNodeId) {
+            this.localNodeId = localNodeId;
+            communicators.put(localNodeId, this);
+        }
+
+        private CompletableFuture<byte[]> handle(NodeId nodeId, MessageSubject subject, byte[] message) {
+            TestClusterCommunicator node = communicators.get(nodeId);
+            Function<byte[], CompletableFuture<byte[]>> subscriber =
+                    node != null ? node.subscribers.get(subject) : null;
+            if (subscriber == null) {
+                return Tools.exceptionalFuture(new MessagingException.NoRemoteHandler());
+            }
+            return subscriber.apply(message);
+        }
+
+        @Override
+        public <M> void broadcast(M message, MessageSubject subject, Function<M, byte[]> encoder) {
+            NODES.stream()
+                    .filter(node -> !node.equals(localNodeId))
+                    .forEach(node -> handle(node, subject, encoder.apply(message)));
+        }
+
+        @Override
+        public <M> CompletableFuture<Void> unicast(M message, MessageSubject subject,
+                                                   Function<M, byte[]> encoder, NodeId toNodeId) {
+            return handle(toNodeId, subject, encoder.apply(message)).thenApply(bytes -> null);
+        }
+
+        @Override
+        public <M> void multicast(M message, MessageSubject subject,
+                                  Function<M, byte[]> encoder, Set<NodeId> nodeIds) {
+            nodeIds.forEach(node -> handle(node, subject, encoder.apply(message)));
+        }
+
+        @Override
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder,
+                                                          NodeId toNodeId, Duration timeout) {
+            return handle(toNodeId, subject, encoder.apply(message)).thenApply(decoder);
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                         Function<M, R> handler, Function<R, byte[]> encoder,
+                                         Executor executor) {
+            subscribers.put(subject, message -> CompletableFuture.supplyAsync(
+                    () -> encoder.apply(handler.apply(decoder.apply(message))), executor));
+        }
+
+        @Override
+        public <M> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                      Consumer<M> handler, Executor executor) {
+            subscribers.put(subject, message -> CompletableFuture.supplyAsync(() -> {
+                handler.accept(decoder.apply(message));
+                return null;
+            }, executor));
+        }
+
+        @Override
+        public void removeSubscriber(MessageSubject subject) {
+            subscribers.remove(subject);
+        }
+    }
+}
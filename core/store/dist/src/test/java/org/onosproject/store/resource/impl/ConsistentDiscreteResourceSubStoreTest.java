@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.DiscreteResourceId;
+import org.onosproject.net.resource.ResourceConsumerId;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.TestStorageService;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests of the consistent substore for discrete resources.
+ */
+public class ConsistentDiscreteResourceSubStoreTest {
+
+    private final DiscreteResource port =
+            Resources.discrete(DeviceId.deviceId("a"), PortNumber.portNumber(1)).resource();
+    private final Set<DiscreteResource> vlans = IntStream.range(1, 11)
+            .mapToObj(x -> VlanId.vlanId((short) x))
+            .map(port::child)
+            .collect(Collectors.toSet());
+    private final DiscreteResource vlan3 = port.child(VlanId.vlanId((short) 3));
+    private final ResourceConsumerId consumerId = ResourceConsumerId.of(1L, IntentId.class);
+
+    private ConsistentDiscreteResourceSubStore store;
+    private ConsistentMap<DiscreteResourceId, ResourceConsumerId> consumers;
+
+    @Before
+    public void setUp() throws TestUtils.TestUtilsException {
+        store = new ConsistentDiscreteResourceSubStore(new TestStorageService());
+        ConsistentMap<DiscreteResourceId, DiscreteResources> childMap = TestUtils.getField(store, "childMap");
+        childMap.put(port.id(), DiscreteResources.of(vlans));
+        consumers = TestUtils.getField(store, "consumers");
+    }
+
+    /**
+     * Tests that the available resources exclude the allocated ones.
+     */
+    @Test
+    public void testAvailableResources() {
+        assertThat(store.getAvailableResources(port.id(), VlanId.class), is(vlans));
+
+        consumers.put(vlan3.id(), consumerId);
+        Set<DiscreteResource> available = store.getAvailableResources(port.id(), VlanId.class);
+        assertThat(available.size(), is(9));
+        assertThat(available.contains(vlan3), is(false));
+
+        consumers.remove(vlan3.id());
+        assertThat(store.getAvailableResources(port.id(), VlanId.class), is(vlans));
+    }
+
+    /**
+     * Tests that the allocations committed by this node are visible before the
+     * consumer map events are received.
+     */
+    @Test
+    public void testLocalAllocations() {
+        store.allocated(ImmutableList.of(vlan3));
+        Set<DiscreteResource> available = store.getAvailableResources(port.id(), VlanId.class);
+        assertThat(available.size(), is(9));
+        assertThat(available.contains(vlan3), is(false));
+
+        store.released(ImmutableList.of(vlan3));
+        assertThat(store.getAvailableResources(port.id(), VlanId.class), is(vlans));
+    }
+
+    /**
+     * Tests the available resources of a parent without children.
+     */
+    @Test
+    public void testNoChildren() {
+        DiscreteResourceId other = Resources.discrete(DeviceId.deviceId("b")).id();
+        assertThat(store.getAvailableResources(other, VlanId.class), is(ImmutableSet.of()));
+    }
+}
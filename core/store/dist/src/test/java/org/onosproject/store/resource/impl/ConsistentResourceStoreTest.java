@@ -0,0 +1,256 @@
+/*
+ * Copyright 2026-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.net.resource.ResourceConsumerId;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.CommitStatus;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.TestConsistentMap;
+import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionContextBuilder;
+import org.onosproject.store.service.TransactionalMap;
+import org.onosproject.store.service.Versioned;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests of the consistent resource store.
+ */
+public class ConsistentResourceStoreTest {
+
+    private final DiscreteResource device1 = Resources.discrete(DeviceId.deviceId("a")).resource();
+    private final DiscreteResource device2 = Resources.discrete(DeviceId.deviceId("b")).resource();
+    private final DiscreteResource port1 = device1.child(PortNumber.portNumber(1));
+    private final DiscreteResource port2 = device2.child(PortNumber.portNumber(1));
+    private final DiscreteResource vlan1 = port1.child(VlanId.vlanId((short) 10));
+    private final DiscreteResource vlan2 = port2.child(VlanId.vlanId((short) 10));
+    private final ResourceConsumerId consumer1 = ResourceConsumerId.of(1L, IntentId.class);
+    private final ResourceConsumerId consumer2 = ResourceConsumerId.of(2L, IntentId.class);
+
+    private ConsistentResourceStore store;
+
+    @Before
+    public void setUp() {
+        store = new ConsistentResourceStore();
+        store.service = new TestTransactionalStorageService();
+        store.activate();
+
+        assertThat(store.register(ImmutableList.of(device1, device2)), is(true));
+        assertThat(store.register(ImmutableList.of(port1, port2)), is(true));
+        assertThat(store.register(ImmutableList.of(vlan1, vlan2)), is(true));
+    }
+
+    /**
+     * Tests that the allocations of many consumers on many devices are all made.
+     */
+    @Test
+    public void allocateAllocations() {
+        ResourceAllocation allocation1 = new ResourceAllocation(vlan1, consumer1);
+        ResourceAllocation allocation2 = new ResourceAllocation(vlan2, consumer2);
+
+        assertThat(store.allocate(ImmutableList.of(allocation1, allocation2)), is(true));
+
+        assertThat(store.getResourceAllocations(vlan1.id()), contains(allocation1));
+        assertThat(store.getResourceAllocations(vlan2.id()), contains(allocation2));
+    }
+
+    /**
+     * Tests that the partitions already allocated are released when the
+     * allocation of a later partition conflicts.
+     */
+    @Test
+    public void allocateRollsBackOnConflict() {
+        ResourceAllocation taken = new ResourceAllocation(vlan2, consumer2);
+        assertThat(store.allocate(ImmutableList.of(taken)), is(true));
+
+        assertThat(store.allocate(ImmutableList.of(new ResourceAllocation(vlan1, consumer1),
+                                                   new ResourceAllocation(vlan2, consumer1))), is(false));
+
+        assertThat(store.isAvailable(vlan1), is(true));
+        assertThat(store.getResourceAllocations(vlan1.id()).isEmpty(), is(true));
+        assertThat(store.getResourceAllocations(vlan2.id()), contains(taken));
+    }
+
+    // Storage service whose transactions are applied on the maps of the same name
+    private static final class TestTransactionalStorageService extends TestStorageService {
+        private final Map<String, ConsistentMap<?, ?>> maps = Maps.newHashMap();
+
+        @Override
+        public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+            return new TestConsistentMap.Builder<K, V>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public ConsistentMap<K, V> build() {
+                    return (ConsistentMap<K, V>) maps.computeIfAbsent(name(), k -> super.build());
+                }
+            };
+        }
+
+        @Override
+        public TransactionContextBuilder transactionContextBuilder() {
+            return new TransactionContextBuilder() {
+                @Override
+                public TransactionContext build() {
+                    return new TestTransactionContext(maps);
+                }
+            };
+        }
+    }
+
+    // Transaction context buffering the updates until the commit
+    private static final class TestTransactionContext implements TransactionContext {
+        private final Map<String, ConsistentMap<?, ?>> maps;
+        private final Map<String, TestTransactionalMap<?, ?>> txMaps = new LinkedHashMap<>();
+        private boolean open;
+
+        private TestTransactionContext(Map<String, ConsistentMap<?, ?>> maps) {
+            this.maps = maps;
+        }
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public TransactionId transactionId() {
+            return TransactionId.from("test");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void begin() {
+            open = true;
+        }
+
+        @Override
+        public CompletableFuture<CommitStatus> commit() {
+            txMaps.values().forEach(TestTransactionalMap::commit);
+            open = false;
+            return CompletableFuture.completedFuture(CommitStatus.SUCCESS);
+        }
+
+        @Override
+        public void abort() {
+            open = false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K, V> TransactionalMap<K, V> getTransactionalMap(String mapName, Serializer serializer) {
+            return (TransactionalMap<K, V>) txMaps.computeIfAbsent(
+                    mapName, k -> new TestTransactionalMap<>((ConsistentMap<K, V>) maps.get(k)));
+        }
+    }
+
+    private static final class TestTransactionalMap<K, V> implements TransactionalMap<K, V> {
+        private final ConsistentMap<K, V> map;
+        private final Map<K, Optional<V>> updates = new LinkedHashMap<>();
+
+        private TestTransactionalMap(ConsistentMap<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public V get(K key) {
+            Optional<V> update = updates.get(key);
+            return update != null ? update.orElse(null) : Versioned.valueOrNull(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V oldValue = get(key);
+            updates.put(key, Optional.of(value));
+            return oldValue;
+        }
+
+        @Override
+        public V remove(K key) {
+            V oldValue = get(key);
+            updates.put(key, Optional.empty());
+            return oldValue;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V oldValue = get(key);
+            if (oldValue == null) {
+                updates.put(key, Optional.of(value));
+            }
+            return oldValue;
+        }
+
+        @Override
+        public boolean remove(K key, V value) {
+            if (!Objects.equals(get(key), value)) {
+                return false;
+            }
+            updates.put(key, Optional.empty());
+            return true;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            if (!Objects.equals(get(key), oldValue)) {
+                return false;
+            }
+            updates.put(key, Optional.of(newValue));
+            return true;
+        }
+
+        private void commit() {
+            updates.forEach((key, update) -> {
+                if (update.isPresent()) {
+                    map.put(key, update.get());
+                } else {
+                    map.remove(key);
+                }
+            });
+        }
+    }
+}
@@ -21,17 +21,21 @@ import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.store.service.Serializer;
 
 import java.util.Map;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Default builder for persistent maps stored in the mapDB local database via the persistence service.
+ * Default builder for persistent maps stored via the persistence service, either in the mapDB local
+ * database or in memory-mapped segment logs.
  */
 public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K, V> {
 
     private final DB localDB;
 
+    private final Function<String, SegmentLog> segmentLogs;
+
     private String name = null;
 
     private Serializer serializer = null;
@@ -40,6 +44,13 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
     public DefaultPersistentMapBuilder(DB localDB) {
         checkNotNull(localDB, "The local database cannot be null.");
         this.localDB = localDB;
+        this.segmentLogs = null;
+    }
+
+    DefaultPersistentMapBuilder(Function<String, SegmentLog> segmentLogs) {
+        checkNotNull(segmentLogs, "The segment logs cannot be null.");
+        this.localDB = null;
+        this.segmentLogs = segmentLogs;
     }
 
     public PersistentMapBuilder<K, V> withName(String name) {
@@ -58,6 +69,9 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
         checkNotNull(name, "The name must be assigned.");
         checkNotNull(serializer, "The key serializer must be assigned.");
 
+        if (segmentLogs != null) {
+            return new MappedPersistentMap<K, V>(serializer, segmentLogs.apply(name));
+        }
         return new PersistentMap<K, V>(serializer, localDB, name);
     }
 }
\ No newline at end of file
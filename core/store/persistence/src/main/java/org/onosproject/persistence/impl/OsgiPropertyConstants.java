@@ -0,0 +1,34 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.persistence.impl;
+
+/**
+ * Name/Value constants for properties.
+ */
+public final class OsgiPropertyConstants {
+    private OsgiPropertyConstants() {
+    }
+
+    public static final String MAPPED_SEGMENTS = "mappedSegments";
+    public static final boolean MAPPED_SEGMENTS_DEFAULT = false;
+
+    public static final String SEGMENT_SIZE = "segmentSize";
+    public static final int SEGMENT_SIZE_DEFAULT = 64 * 1024 * 1024;
+
+    public static final String COMPACTION_RATIO = "compactionRatio";
+    public static final double COMPACTION_RATIO_DEFAULT = 0.5;
+}
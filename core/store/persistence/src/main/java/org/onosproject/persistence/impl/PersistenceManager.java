@@ -16,11 +16,13 @@
 
 package org.onosproject.persistence.impl;
 
+import com.google.common.collect.Maps;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.onosproject.persistence.PersistenceService;
 import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.persistence.PersistentSetBuilder;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -30,20 +32,40 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Dictionary;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
+import static org.onosproject.persistence.impl.OsgiPropertyConstants.COMPACTION_RATIO;
+import static org.onosproject.persistence.impl.OsgiPropertyConstants.COMPACTION_RATIO_DEFAULT;
+import static org.onosproject.persistence.impl.OsgiPropertyConstants.MAPPED_SEGMENTS;
+import static org.onosproject.persistence.impl.OsgiPropertyConstants.MAPPED_SEGMENTS_DEFAULT;
+import static org.onosproject.persistence.impl.OsgiPropertyConstants.SEGMENT_SIZE;
+import static org.onosproject.persistence.impl.OsgiPropertyConstants.SEGMENT_SIZE_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.PERSISTENCE_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Service that maintains local disk backed maps and sets.
+ * Maps are kept in memory-mapped segment logs unless disabled, in which case
+ * they are kept in the mapDB local database alongside the sets.
  * This implementation automatically deletes empty structures on shutdown.
  */
-@Component(immediate = true, service = PersistenceService.class)
+@Component(
+        immediate = true,
+        service = PersistenceService.class,
+        property = {
+                MAPPED_SEGMENTS + ":Boolean=" + MAPPED_SEGMENTS_DEFAULT,
+                SEGMENT_SIZE + ":Integer=" + SEGMENT_SIZE_DEFAULT,
+                COMPACTION_RATIO + ":Double=" + COMPACTION_RATIO_DEFAULT
+        }
+)
 public class PersistenceManager implements PersistenceService {
 
     private static final String DATABASE_ROOT =
@@ -51,6 +73,8 @@ public class PersistenceManager implements PersistenceService {
 
     private static final String DATABASE_PATH = "cache";
 
+    private static final String SEGMENTS_PATH = "segments";
+
     static final String MAP_PREFIX = "map:";
     static final String SET_PREFIX = "set:";
 
@@ -64,8 +88,20 @@ public class PersistenceManager implements PersistenceService {
 
     private final CommitTask commitTask = new CommitTask();
 
+    /** Keep persistent maps in memory-mapped segment logs rather than in mapDB. */
+    private boolean mappedSegments = MAPPED_SEGMENTS_DEFAULT;
+
+    /** Size of the segment files, in bytes. */
+    private int segmentSize = SEGMENT_SIZE_DEFAULT;
+
+    /** Ratio of superseded records above which a segment log is compacted. */
+    private double compactionRatio = COMPACTION_RATIO_DEFAULT;
+
+    private final Map<String, SegmentLog> segmentLogs = Maps.newConcurrentMap();
+
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        readComponentConfiguration(context);
         timer = new Timer();
 
         File dbFolderPath = new File(DATABASE_ROOT);
@@ -89,6 +125,9 @@ public class PersistenceManager implements PersistenceService {
 
         } else {
             log.info("A previous database file has been found.");
+            if (mappedSegments) {
+                log.warn("Persistent maps are kept in segment logs; the maps of the previous database are ignored.");
+            }
         }
         localDB = DBMaker.newFileDB(dbPath.toFile())
                 .asyncWriteEnable()
@@ -98,9 +137,49 @@ public class PersistenceManager implements PersistenceService {
         log.info("Started");
     }
 
+    /**
+     * Extracts properties from the component configuration context. The
+     * properties are only read on activation, as the backend of the existing
+     * structures cannot be changed on the fly.
+     *
+     * @param context the component context
+     */
+    private void readComponentConfiguration(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        try {
+            String s = get(properties, MAPPED_SEGMENTS);
+            mappedSegments = isNullOrEmpty(s) ? MAPPED_SEGMENTS_DEFAULT : Boolean.parseBoolean(s.trim());
+
+            s = get(properties, SEGMENT_SIZE);
+            segmentSize = isNullOrEmpty(s) ? SEGMENT_SIZE_DEFAULT : Integer.parseInt(s.trim());
+
+            s = get(properties, COMPACTION_RATIO);
+            compactionRatio = isNullOrEmpty(s) ? COMPACTION_RATIO_DEFAULT : Double.parseDouble(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            log.warn("Invalid persistence configuration, using defaults", e);
+            mappedSegments = MAPPED_SEGMENTS_DEFAULT;
+            segmentSize = SEGMENT_SIZE_DEFAULT;
+            compactionRatio = COMPACTION_RATIO_DEFAULT;
+        }
+        log.info("Settings: mappedSegments={}, segmentSize={}, compactionRatio={}",
+                 mappedSegments, segmentSize, compactionRatio);
+    }
+
     @Deactivate
     public void deactivate() {
         timer.cancel();
+        segmentLogs.values().forEach(segmentLog -> {
+            if (segmentLog.size() == 0) {
+                //the log is empty and may be deleted
+                segmentLog.destroy();
+            } else {
+                segmentLog.flush();
+            }
+        });
+        segmentLogs.clear();
         for (Map.Entry<String, Object> entry : localDB.getAll().entrySet()) {
             String key = entry.getKey();
             Object value = entry.getValue();
@@ -128,6 +207,9 @@ public class PersistenceManager implements PersistenceService {
     @Override
     public <K, V> PersistentMapBuilder<K, V> persistentMapBuilder() {
         checkPermission(PERSISTENCE_WRITE);
+        if (mappedSegments) {
+            return new DefaultPersistentMapBuilder<>(this::segmentLog);
+        }
         return new DefaultPersistentMapBuilder<>(localDB);
     }
 
@@ -137,11 +219,31 @@ public class PersistenceManager implements PersistenceService {
         return new DefaultPersistentSetBuilder<>(localDB);
     }
 
+    private SegmentLog segmentLog(String name) {
+        return segmentLogs.computeIfAbsent(name, n -> SegmentLog.open(
+                Paths.get(DATABASE_ROOT, SEGMENTS_PATH, directoryName(n)), segmentSize));
+    }
+
+    // Structure names are not necessarily valid file names
+    private static String directoryName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(name.hashCode());
+    }
+
     private class CommitTask extends TimerTask {
 
         @Override
         public void run() {
             localDB.commit();
+            segmentLogs.forEach((name, segmentLog) -> {
+                try {
+                    if (segmentLog.needsCompaction(compactionRatio)) {
+                        segmentLog.compact();
+                    }
+                    segmentLog.flush();
+                } catch (PersistenceException e) {
+                    log.warn("Unable to commit {}", name, e);
+                }
+            });
         }
     }
 }
\ No newline at end of file
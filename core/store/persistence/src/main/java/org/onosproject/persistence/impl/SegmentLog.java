@@ -0,0 +1,523 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Log-structured store of binary key/value pairs, kept in memory-mapped,
+ * append-only segment files.
+ * <p>
+ * Every update is appended to the active segment as a checksummed record; only
+ * the keys and the location of their latest record are kept on heap, whereas
+ * the values are read back from the mapped segments, leaving it to the OS to
+ * page cold values out. The index is rebuilt on open by replaying the
+ * segments, stopping at the first torn or corrupted record of each segment.
+ * </p>
+ * <p>
+ * Superseded records are reclaimed by {@link #compact()}, which appends the
+ * live records to fresh segments before deleting the old ones, oldest first,
+ * so that replaying whatever is left after a crash always yields the latest
+ * state.
+ * </p>
+ */
+final class SegmentLog {
+
+    private final Logger log = getLogger(getClass());
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // Record header: CRC, key length and value length
+    static final int HEADER_SIZE = 12;
+
+    // Value lengths of the removal and clear records
+    private static final int TOMBSTONE = -1;
+    private static final int CLEAR = -2;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Integer, Segment> segments = Maps.newTreeMap();
+    private final Map<ByteBuffer, Long> index = Maps.newHashMap();
+    private Segment active;
+
+    private long totalBytes;
+    private long garbageBytes;
+
+    private SegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the log kept in the given directory, recovering its content.
+     *
+     * @param directory   directory holding the segment files
+     * @param segmentSize size of the segment files, in bytes
+     * @return segment log
+     * @throws PersistenceException if the segments cannot be opened
+     */
+    static SegmentLog open(Path directory, int segmentSize) {
+        checkNotNull(directory, "Directory cannot be null");
+        checkArgument(segmentSize > HEADER_SIZE, "Segment size is too small");
+        SegmentLog segmentLog = new SegmentLog(directory, segmentSize);
+        try {
+            Files.createDirectories(directory);
+            segmentLog.recover();
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to open segments in " + directory + ": " + e.getMessage());
+        }
+        return segmentLog;
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(id, Segment.map(id, file, (int) Files.size(file)));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {} in {}", name, directory);
+                }
+            }
+        }
+        for (Segment segment : segments.values()) {
+            replay(segment);
+        }
+        active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (active != null) {
+            // Records past a torn write must never become reachable again
+            // once overwritten by new appends
+            active.erase();
+        }
+        log.debug("Recovered {} entries from {} segments in {}", index.size(), segments.size(), directory);
+    }
+
+    private void replay(Segment segment) {
+        int offset = 0;
+        int size = segment.recordSize(offset);
+        while (size > 0) {
+            int valueLength = segment.valueLength(offset);
+            if (valueLength == CLEAR) {
+                index.clear();
+                garbageBytes = totalBytes + size;
+            } else {
+                long previous = valueLength == TOMBSTONE ?
+                        remove(ByteBuffer.wrap(segment.key(offset))) :
+                        index(ByteBuffer.wrap(segment.key(offset)), segment.id, offset);
+                garbageBytes += valueLength == TOMBSTONE ? size : 0;
+                garbageBytes += previous != 0 ? recordSize(previous) : 0;
+            }
+            totalBytes += size;
+            offset += size;
+            size = segment.recordSize(offset);
+        }
+        segment.position = offset;
+    }
+
+    // Locations pack the segment identifier and the record offset; identifiers
+    // start from 1 so that a valid location is never 0
+    private long index(ByteBuffer key, int segment, int offset) {
+        Long previous = index.put(key, ((long) segment << Integer.SIZE) | offset);
+        return previous != null ? previous : 0;
+    }
+
+    private long remove(ByteBuffer key) {
+        Long previous = index.remove(key);
+        return previous != null ? previous : 0;
+    }
+
+    private Segment segment(long location) {
+        return segments.get((int) (location >>> Integer.SIZE));
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    private int recordSize(long location) {
+        Segment segment = segment(location);
+        int valueLength = segment.valueLength(offset(location));
+        return HEADER_SIZE + segment.keyLength(offset(location)) + Math.max(valueLength, 0);
+    }
+
+    private byte[] value(long location) {
+        return segment(location).value(offset(location));
+    }
+
+    /**
+     * Returns the number of entries of the log.
+     *
+     * @return entry count
+     */
+    int size() {
+        return read(index::size);
+    }
+
+    /**
+     * Indicates whether the log holds an entry for the given key.
+     *
+     * @param key entry key
+     * @return true if an entry exists
+     */
+    boolean containsKey(byte[] key) {
+        return read(() -> index.containsKey(ByteBuffer.wrap(key)));
+    }
+
+    /**
+     * Returns the value of the given key.
+     *
+     * @param key entry key
+     * @return entry value; null if no entry exists
+     */
+    byte[] get(byte[] key) {
+        return read(() -> {
+            Long location = index.get(ByteBuffer.wrap(key));
+            return location != null ? value(location) : null;
+        });
+    }
+
+    /**
+     * Iterates over a snapshot of the entries of the log.
+     *
+     * @param action action to perform on each key and value
+     */
+    void forEach(BiConsumer<byte[], byte[]> action) {
+        List<Map.Entry<byte[], byte[]>> entries = read(() -> {
+            List<Map.Entry<byte[], byte[]>> list = Lists.newArrayListWithCapacity(index.size());
+            index.forEach((key, location) -> list.add(Maps.immutableEntry(key.array(), value(location))));
+            return list;
+        });
+        entries.forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Associates the given value to the given key.
+     *
+     * @param key   entry key
+     * @param value entry value
+     * @return previous value; null if no entry existed
+     */
+    byte[] put(byte[] key, byte[] value) {
+        checkArgument(key.length > 0, "Key cannot be empty");
+        return write(() -> {
+            int size = HEADER_SIZE + key.length + value.length;
+            Segment segment = reserve(size);
+            int offset = segment.append(key, value.length, value);
+            totalBytes += size;
+            long previous = index(ByteBuffer.wrap(key), segment.id, offset);
+            if (previous == 0) {
+                return null;
+            }
+            garbageBytes += recordSize(previous);
+            return value(previous);
+        });
+    }
+
+    /**
+     * Removes the entry of the given key.
+     *
+     * @param key entry key
+     * @return removed value; null if no entry existed
+     */
+    byte[] remove(byte[] key) {
+        return write(() -> {
+            Long previous = index.get(ByteBuffer.wrap(key));
+            if (previous == null) {
+                return null;
+            }
+            byte[] value = value(previous);
+            int size = HEADER_SIZE + key.length;
+            reserve(size).append(key, TOMBSTONE, null);
+            index.remove(ByteBuffer.wrap(key));
+            totalBytes += size;
+            garbageBytes += size + recordSize(previous);
+            return value;
+        });
+    }
+
+    /**
+     * Removes all entries of the log.
+     */
+    void clear() {
+        write(() -> {
+            reserve(HEADER_SIZE).append(new byte[0], CLEAR, null);
+            index.clear();
+            totalBytes += HEADER_SIZE;
+            garbageBytes = totalBytes;
+            return null;
+        });
+    }
+
+    /**
+     * Flushes the content of the segments written since the last flush to disk.
+     */
+    void flush() {
+        write(() -> {
+            segments.values().forEach(Segment::flush);
+            return null;
+        });
+    }
+
+    /**
+     * Indicates whether compacting the log would be worthwhile, that is if at
+     * least a segment worth of records is superseded and those records make
+     * the most of the log.
+     *
+     * @param ratio minimum ratio of superseded records to trigger compaction
+     * @return true if compaction is worthwhile
+     */
+    boolean needsCompaction(double ratio) {
+        return read(() -> garbageBytes >= segmentSize && garbageBytes >= totalBytes * ratio);
+    }
+
+    /**
+     * Rewrites the live records into new segments and deletes the old ones.
+     */
+    void compact() {
+        write(() -> {
+            List<Segment> old = Lists.newArrayList(segments.values());
+            long reclaimed = garbageBytes;
+            active = null;
+            totalBytes = 0;
+            garbageBytes = 0;
+            for (Map.Entry<ByteBuffer, Long> entry : index.entrySet()) {
+                byte[] key = entry.getKey().array();
+                byte[] value = value(entry.getValue());
+                int size = HEADER_SIZE + key.length + value.length;
+                Segment segment = reserve(size);
+                entry.setValue(((long) segment.id << Integer.SIZE) | segment.append(key, value.length, value));
+                totalBytes += size;
+            }
+            segments.values().forEach(Segment::flush);
+            for (Segment segment : old) {
+                segments.remove(segment.id);
+                delete(segment.path);
+            }
+            log.debug("Compacted {}: reclaimed {} bytes from {} segments", directory, reclaimed, old.size());
+            return null;
+        });
+    }
+
+    /**
+     * Deletes the segments of the log. The log must not be used afterwards.
+     */
+    void destroy() {
+        write(() -> {
+            segments.values().forEach(segment -> delete(segment.path));
+            segments.clear();
+            index.clear();
+            delete(directory);
+            return null;
+        });
+    }
+
+    // The mapping of a deleted segment is released once its buffer is
+    // garbage collected
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete {}", path, e);
+        }
+    }
+
+    // Returns the active segment, rolling over to a new one if the record of
+    // the given size does not fit in it
+    private Segment reserve(int size) {
+        if (active != null && active.remaining() >= size) {
+            return active;
+        }
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path path = directory.resolve(String.format("%010d%s", id, SEGMENT_SUFFIX));
+        try {
+            active = Segment.map(id, path, Math.max(segmentSize, size));
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to create segment " + path + ": " + e.getMessage());
+        }
+        segments.put(id, active);
+        return active;
+    }
+
+    private <T> T read(LockedOperation<T> operation) {
+        return locked(lock.readLock(), operation);
+    }
+
+    private <T> T write(LockedOperation<T> operation) {
+        return locked(lock.writeLock(), operation);
+    }
+
+    private static <T> T locked(Lock lock, LockedOperation<T> operation) {
+        lock.lock();
+        try {
+            return operation.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private interface LockedOperation<T> {
+        T run();
+    }
+
+    /**
+     * Memory-mapped segment file. The shared buffer is only accessed through
+     * absolute operations or duplicates, so that concurrent readers never
+     * interfere with each other.
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private boolean dirty;
+
+        private Segment(int id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        static Segment map(int id, Path path, int size) throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+                 FileChannel channel = file.getChannel()) {
+                if (file.length() < size) {
+                    file.setLength(size);
+                }
+                return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        int keyLength(int offset) {
+            return buffer.getInt(offset + Integer.BYTES);
+        }
+
+        int valueLength(int offset) {
+            return buffer.getInt(offset + 2 * Integer.BYTES);
+        }
+
+        byte[] key(int offset) {
+            return bytes(offset + HEADER_SIZE, keyLength(offset));
+        }
+
+        byte[] value(int offset) {
+            return bytes(offset + HEADER_SIZE + keyLength(offset), valueLength(offset));
+        }
+
+        private byte[] bytes(int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.get(bytes);
+            return bytes;
+        }
+
+        // Returns the size of the valid record at the given offset; 0 if the
+        // record is incomplete or corrupted, as is the zeroed space past the
+        // last record
+        int recordSize(int offset) {
+            if (buffer.capacity() - offset < HEADER_SIZE) {
+                return 0;
+            }
+            int keyLength = keyLength(offset);
+            int valueLength = valueLength(offset);
+            if (keyLength < 0 || valueLength < CLEAR) {
+                return 0;
+            }
+            long size = (long) HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+            if (size > buffer.capacity() - offset) {
+                return 0;
+            }
+            return checksum(offset, (int) size) == buffer.getInt(offset) ? (int) size : 0;
+        }
+
+        private int checksum(int offset, int size) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset + Integer.BYTES).limit(offset + size);
+            CRC32 crc = new CRC32();
+            crc.update(view);
+            return (int) crc.getValue();
+        }
+
+        // Appends a record and returns its offset
+        int append(byte[] key, int valueLength, byte[] value) {
+            int offset = position;
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset + Integer.BYTES);
+            view.putInt(key.length).putInt(valueLength).put(key);
+            if (value != null) {
+                view.put(value);
+            }
+            position = view.position();
+            buffer.putInt(offset, checksum(offset, position - offset));
+            dirty = true;
+            return offset;
+        }
+
+        // Zeroes the space past the last record
+        void erase() {
+            int offset = position;
+            for (; offset + Long.BYTES <= buffer.capacity(); offset += Long.BYTES) {
+                if (buffer.getLong(offset) != 0) {
+                    buffer.putLong(offset, 0);
+                    dirty = true;
+                }
+            }
+            for (; offset < buffer.capacity(); offset++) {
+                if (buffer.get(offset) != 0) {
+                    buffer.put(offset, (byte) 0);
+                    dirty = true;
+                }
+            }
+        }
+
+        void flush() {
+            if (dirty) {
+                buffer.force();
+                dirty = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.persistence.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test suite for the memory-mapped segment log.
+ */
+public class SegmentLogTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path directory;
+    private SegmentLog segmentLog;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = tmpFolder.newFolder().toPath();
+        segmentLog = SegmentLog.open(directory, SEGMENT_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        segmentLog.destroy();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private SegmentLog reopen() {
+        segmentLog.flush();
+        segmentLog = SegmentLog.open(directory, SEGMENT_SIZE);
+        return segmentLog;
+    }
+
+    private List<Path> segments() throws Exception {
+        return Files.list(directory).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Tests basic updates and lookups.
+     */
+    @Test
+    public void testUpdates() {
+        assertNull(segmentLog.put(bytes("a"), bytes("1")));
+        assertNull(segmentLog.put(bytes("b"), bytes("2")));
+        assertArrayEquals(bytes("1"), segmentLog.put(bytes("a"), bytes("3")));
+        assertArrayEquals(bytes("3"), segmentLog.get(bytes("a")));
+        assertEquals(2, segmentLog.size());
+
+        assertArrayEquals(bytes("2"), segmentLog.remove(bytes("b")));
+        assertNull(segmentLog.remove(bytes("b")));
+        assertFalse(segmentLog.containsKey(bytes("b")));
+        assertTrue(segmentLog.containsKey(bytes("a")));
+
+        segmentLog.clear();
+        assertEquals(0, segmentLog.size());
+        assertNull(segmentLog.get(bytes("a")));
+    }
+
+    /**
+     * Tests that the latest state is recovered when reopening the log.
+     */
+    @Test
+    public void testRecovery() {
+        for (int i = 0; i < 100; i++) {
+            segmentLog.put(bytes("key" + i), bytes("value" + i));
+        }
+        segmentLog.put(bytes("key1"), bytes("updated"));
+        segmentLog.remove(bytes("key2"));
+        segmentLog.clear();
+        segmentLog.put(bytes("key3"), bytes("value3"));
+        segmentLog.put(bytes("key4"), bytes("value4"));
+        segmentLog.remove(bytes("key4"));
+
+        reopen();
+        assertEquals(1, segmentLog.size());
+        assertArrayEquals(bytes("value3"), segmentLog.get(bytes("key3")));
+
+        segmentLog.put(bytes("key5"), bytes("value5"));
+        reopen();
+        assertEquals(2, segmentLog.size());
+        assertArrayEquals(bytes("value5"), segmentLog.get(bytes("key5")));
+    }
+
+    /**
+     * Tests that a torn record is dropped on recovery and then overwritten.
+     */
+    @Test
+    public void testTornRecord() throws Exception {
+        segmentLog.put(bytes("a"), bytes("1"));
+        segmentLog.put(bytes("b"), bytes("2"));
+        segmentLog.flush();
+
+        // Corrupt the value of the last record
+        int offset = 2 * SegmentLog.HEADER_SIZE + 3;
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(offset);
+            file.write('x');
+        }
+
+        reopen();
+        assertEquals(1, segmentLog.size());
+        assertArrayEquals(bytes("1"), segmentLog.get(bytes("a")));
+
+        segmentLog.put(bytes("c"), bytes("3"));
+        reopen();
+        assertEquals(2, segmentLog.size());
+        assertArrayEquals(bytes("3"), segmentLog.get(bytes("c")));
+    }
+
+    /**
+     * Tests that compaction reclaims superseded records and keeps live ones.
+     */
+    @Test
+    public void testCompaction() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            segmentLog.put(bytes("key" + (i % 10)), bytes("value" + i));
+        }
+        segmentLog.remove(bytes("key0"));
+        assertTrue(segments().size() > 1);
+        assertTrue(segmentLog.needsCompaction(0.5));
+
+        segmentLog.compact();
+        assertFalse(segmentLog.needsCompaction(0.5));
+        assertEquals(1, segments().size());
+        assertEquals(9, segmentLog.size());
+        assertArrayEquals(bytes("value199"), segmentLog.get(bytes("key9")));
+
+        reopen();
+        assertEquals(9, segmentLog.size());
+        assertNull(segmentLog.get(bytes("key0")));
+        assertArrayEquals(bytes("value191"), segmentLog.get(bytes("key1")));
+    }
+
+    /**
+     * Tests that a map backed by the log is reloaded from its segments.
+     */
+    @Test
+    public void testMappedPersistentMap() {
+        MappedPersistentMap<String, String> map =
+                new MappedPersistentMap<>(new StringSerializer(), segmentLog);
+        map.put("foo", "bar");
+        map.put("baz", "qux");
+        assertEquals("bar", map.remove("foo"));
+
+        map = new MappedPersistentMap<>(new StringSerializer(), reopen());
+        assertEquals(1, map.size());
+        assertEquals("qux", map.get("baz"));
+        assertTrue(map.containsValue("qux"));
+        assertEquals(1, map.entrySet().size());
+    }
+
+    private static final class StringSerializer implements org.onosproject.store.service.Serializer {
+        @Override
+        public <T> byte[] encode(T object) {
+            return bytes((String) object);
+        }
+
+        @Override
+        public <T> T decode(byte[] bytes) {
+            return (T) new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public <T> T copy(T object) {
+            return object;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.WallClockTimestamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization and deserialization throughput of the messages
+ * exchanged by eventually consistent maps, using the same serializer as the
+ * maps themselves and hosts as map values.
+ * <p>
+ * Run with the GC profiler, i.e. {@code -prof gc}, to also measure the
+ * allocation rate of each operation.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventuallyConsistentMapSerializerBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "foo");
+
+    @Param({"MapValue", "UpdateEntry", "UpdateEntries"})
+    private String payload;
+
+    // Number of updates in a batch of update entries
+    @Param({"100"})
+    private int batchSize;
+
+    private final Serializer serializer =
+            EventuallyConsistentMapImpl.createSerializer(KryoNamespaces.API, "benchmark");
+
+    private Object object;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        switch (payload) {
+            case "MapValue":
+                object = new MapValue<>(host(1), new WallClockTimestamp());
+                break;
+            case "UpdateEntry":
+                object = updateEntry(1);
+                break;
+            case "UpdateEntries":
+                List<UpdateEntry<HostId, Host>> entries = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    entries.add(updateEntry(i));
+                }
+                object = entries;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown payload " + payload);
+        }
+        bytes = serializer.encode(object);
+    }
+
+    private static UpdateEntry<HostId, Host> updateEntry(int index) {
+        Host host = host(index);
+        return new UpdateEntry<>(host.id(), new MapValue<>(host, new WallClockTimestamp()));
+    }
+
+    private static Host host(int index) {
+        MacAddress mac = MacAddress.valueOf(index + 1);
+        DeviceId deviceId = DeviceId.deviceId(String.format("of:%016x", index / 48 + 1));
+        HostLocation location = new HostLocation(new ConnectPoint(deviceId, PortNumber.portNumber(index % 48 + 1)),
+                                                 0L);
+        return new DefaultHost(PID, HostId.hostId(mac, VlanId.NONE), mac, VlanId.NONE, location,
+                               ImmutableSet.of(IpAddress.valueOf(0x0a000000 + index + 1)));
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.encode(object);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.decode(bytes);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import org.onosproject.cluster.NodeId;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy advertisement message for eventually consistent map, whose
+ * digest only covers the map entries in some of the buckets of the map.
+ * <p>
+ * It answers an {@link AntiEntropySummary}, on its own subject, so that the
+ * format of the full {@link AntiEntropyAdvertisement} is left unchanged.
+ * </p>
+ *
+ * @param <K> key type
+ */
+public class AntiEntropyBucketAdvertisement<K> {
+
+    private final NodeId sender;
+    private final Map<K, MapValue.Digest> digest;
+    private final int bucketCount;
+    private final int[] buckets;
+
+    /**
+     * Creates a new anti entropy bucket advertisement message.
+     *
+     * @param sender      the sender's node ID
+     * @param digest      for map entries in the given buckets
+     * @param bucketCount number of buckets the map entries are split into
+     * @param buckets     sorted indexes of the buckets covered by the digest
+     */
+    public AntiEntropyBucketAdvertisement(NodeId sender,
+                                          Map<K, MapValue.Digest> digest,
+                                          int bucketCount,
+                                          int[] buckets) {
+        this.sender = checkNotNull(sender);
+        this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.bucketCount = bucketCount;
+        this.buckets = checkNotNull(buckets).clone();
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the digest for the map entries in the covered buckets.
+     *
+     * @return mapping from key to associated digest
+     */
+    public Map<K, MapValue.Digest> digest() {
+        return digest;
+    }
+
+    /**
+     * Returns the number of buckets the map entries are split into.
+     *
+     * @return bucket count
+     */
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * Indicates whether the digest covers the map entries in the given bucket.
+     *
+     * @param bucket bucket index
+     * @return true if the entries of the bucket are covered
+     */
+    public boolean covers(int bucket) {
+        return Arrays.binarySearch(buckets, bucket) >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("totalEntries", digest.size())
+                .add("buckets", buckets.length)
+                .toString();
+    }
+}
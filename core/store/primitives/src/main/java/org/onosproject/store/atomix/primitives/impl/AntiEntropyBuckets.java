@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.onosproject.store.Timestamp;
+import org.onosproject.store.serializers.StoreSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Splits the entries of an eventually consistent map into buckets, and hashes
+ * the digests of the entries of every bucket.
+ * <p>
+ * Keys and digests are hashed in their serialized form, so that instances
+ * sharing the same map serializer assign a key to the same bucket and compute
+ * the same bucket hash for the same entries. As every anti-entropy round
+ * hashes the whole map, the hashes of an entry are kept along with the
+ * timestamp and tombstone flag they were computed for, so that only the
+ * entries updated since the previous round are serialized again.
+ * </p>
+ *
+ * @param <K> key type
+ */
+final class AntiEntropyBuckets<K> {
+
+    static final int MIN_BUCKETS = 16;
+    static final int MAX_BUCKETS = 4096;
+
+    // Targeted number of entries per bucket
+    private static final int BUCKET_SIZE = 64;
+
+    private static final HashFunction BUCKET_HASH = Hashing.murmur3_32();
+    private static final HashFunction ENTRY_HASH = Hashing.murmur3_128();
+
+    private final StoreSerializer serializer;
+    private final Map<K, EntryHash> entryHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the buckets of the entries serialized with the given serializer.
+     *
+     * @param serializer map serializer
+     */
+    AntiEntropyBuckets(StoreSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns the number of buckets to split the given number of entries into:
+     * a power of two between {@link #MIN_BUCKETS} and {@link #MAX_BUCKETS}.
+     *
+     * @param size number of map entries
+     * @return bucket count
+     */
+    static int bucketCount(int size) {
+        int count = Integer.highestOneBit(Math.max(size / BUCKET_SIZE, 1));
+        return Math.max(MIN_BUCKETS, Math.min(MAX_BUCKETS, count));
+    }
+
+    /**
+     * Returns the bucket of the given map entry, reusing the hashes of the
+     * entry unless it was updated since they were computed.
+     *
+     * @param key         map key
+     * @param value       map value of the key
+     * @param bucketCount number of buckets, a power of two
+     * @return bucket index
+     */
+    int bucket(K key, MapValue<?> value, int bucketCount) {
+        return entryHash(key, value).keyHash & (bucketCount - 1);
+    }
+
+    private static int keyHash(ByteBuffer key) {
+        return put(BUCKET_HASH.newHasher(), key).hash().asInt();
+    }
+
+    private EntryHash entryHash(K key, MapValue<?> value) {
+        EntryHash entryHash = entryHashes.get(key);
+        // the digest of an entry only changes with its timestamp or tombstone flag
+        if (entryHash == null || !entryHash.matches(value)) {
+            Hasher entryHasher = ENTRY_HASH.newHasher();
+            int keyHash = serializer.encode(key, bytes -> {
+                put(entryHasher, bytes.duplicate());
+                return keyHash(bytes);
+            });
+            serializer.encode(value.timestamp(), bytes -> put(entryHasher, bytes));
+            entryHash = new EntryHash(value.timestamp(), value.isTombstone(), keyHash, entryHasher.putBoolean(value.isTombstone()).hash().asLong());
+            entryHashes.put(key, entryHash);
+        }
+        return entryHash;
+    }
+
+    // Feeds the remaining bytes of the given buffer to the hasher.
+    private static Hasher put(Hasher hasher, ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            hasher.putByte(bytes.get());
+        }
+        return hasher;
+    }
+
+    /**
+     * Returns the hashes of the digests of the given map entries, by bucket.
+     * A bucket hash is the sum of the hashes of its entries, so that it does
+     * not depend on the iteration order of the map.
+     *
+     * @param items       map entries
+     * @param bucketCount number of buckets, a power of two
+     * @return bucket hashes
+     */
+    long[] hashes(Map<K, ? extends MapValue<?>> items, int bucketCount) {
+        long[] hashes = new long[bucketCount];
+        items.forEach((key, value) -> {
+            EntryHash entryHash = entryHash(key, value);
+            hashes[entryHash.keyHash & (bucketCount - 1)] += entryHash.hash;
+        });
+        if (entryHashes.size() > items.size()) {
+            // forget the entries removed from the map since
+            entryHashes.keySet().retainAll(items.keySet());
+        }
+        return hashes;
+    }
+
+    // Hashes of the serialized forms of a map entry.
+    private static final class EntryHash {
+        private final Timestamp timestamp;
+        private final boolean tombstone;
+        private final int keyHash;
+        private final long hash;
+
+        private EntryHash(Timestamp timestamp, boolean tombstone, int keyHash, long hash) {
+            this.timestamp = timestamp;
+            this.tombstone = tombstone;
+            this.keyHash = keyHash;
+            this.hash = hash;
+        }
+
+        // Indicates whether the hashes were computed for the digest of the given value.
+        private boolean matches(MapValue<?> value) {
+            return tombstone == value.isTombstone() && timestamp.equals(value.timestamp());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.cluster.NodeId;
+
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy summary message for eventually consistent map.
+ * <p>
+ * Rather than the digest of every map entry, the summary carries one hash per
+ * bucket of map entries; the receiver answers with the buckets whose hashes
+ * differ from its own, so that only the digests of those buckets need to be
+ * advertised.
+ * </p>
+ */
+public class AntiEntropySummary {
+
+    private final NodeId sender;
+    private final long[] bucketHashes;
+
+    /**
+     * Creates a new anti entropy summary message.
+     *
+     * @param sender       the sender's node ID
+     * @param bucketHashes hashes of the map entries, by bucket
+     */
+    public AntiEntropySummary(NodeId sender, long[] bucketHashes) {
+        this.sender = checkNotNull(sender);
+        this.bucketHashes = checkNotNull(bucketHashes).clone();
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the number of buckets the map entries are split into.
+     *
+     * @return bucket count
+     */
+    public int bucketCount() {
+        return bucketHashes.length;
+    }
+
+    /**
+     * Returns the buckets whose hashes differ from the given ones.
+     *
+     * @param hashes hashes of the map entries, by bucket
+     * @return sorted indexes of the differing buckets
+     */
+    public int[] differingBuckets(long[] hashes) {
+        return IntStream.range(0, bucketHashes.length)
+                .filter(bucket -> bucket >= hashes.length || bucketHashes[bucket] != hashes[bucket])
+                .toArray();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("buckets", bucketHashes.length)
+                .toString();
+    }
+
+    @SuppressWarnings("unused")
+    private AntiEntropySummary() {
+        this.sender = null;
+        this.bucketHashes = null;
+    }
+}
@@ -16,6 +16,7 @@
 package org.onosproject.store.atomix.primitives.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -36,6 +37,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -57,12 +59,13 @@ import org.onosproject.store.LogicalTimestamp;
 import org.onosproject.store.Timestamp;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
 import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.serializers.StoreSerializer;
 import org.onosproject.store.service.DistributedPrimitive;
 import org.onosproject.store.service.EventuallyConsistentMap;
 import org.onosproject.store.service.EventuallyConsistentMapEvent;
 import org.onosproject.store.service.EventuallyConsistentMapListener;
-import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.WallClockTimestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,13 +95,15 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private final Map<K, MapValue<V>> items;
     private final ClusterCommunicationService clusterCommunicator;
-    private final Serializer serializer;
+    private final StoreSerializer serializer;
     private final PersistenceService persistenceService;
     private final BiFunction<K, V, Timestamp> timestampProvider;
     private final MessageSubject bootstrapMessageSubject;
     private final MessageSubject initializeMessageSubject;
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
+    private final MessageSubject antiEntropySummarySubject;
+    private final MessageSubject antiEntropyBucketAdvertisementSubject;
     private final MessageSubject updateRequestSubject;
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
             = Sets.newCopyOnWriteArraySet();
@@ -108,6 +113,7 @@ public class EventuallyConsistentMapImpl<K, V>
     private final ExecutorService communicationExecutor;
     private final Map<NodeId, EventAccumulator> senderPending;
     private final Map<NodeId, Long> antiEntropyTimes = Maps.newConcurrentMap();
+    private final AntiEntropyBuckets<K> antiEntropyBuckets;
     private final String mapName;
     private final String destroyedMessage;
     private final long initialDelaySec = 5;
@@ -141,7 +147,9 @@ public class EventuallyConsistentMapImpl<K, V>
      * @param tombstonesDisabled     true if this map should not maintain tombstones
      * @param antiEntropyPeriod      period that the anti-entropy task should run
      * @param antiEntropyTimeUnit    time unit for anti-entropy period
-     * @param convergeFaster         make anti-entropy try to converge faster
+     * @param convergeFaster         make anti-entropy try to converge faster, by
+     *                               advertising the digest of all map entries on
+     *                               every round rather than a summary of them
      * @param persistent             persist data to disk
      * @param persistenceService     persistence service
      * @param peersSupplier          supplier for peers
@@ -170,7 +178,9 @@ public class EventuallyConsistentMapImpl<K, V>
         //CHECKSTYLE:ON
         this.localNodeId = localNodeId;
         this.mapName = mapName;
-        this.serializer = createSerializer(ns);
+        this.serializer = createSerializer(ns, mapName);
+        this.antiEntropyBuckets = new AntiEntropyBuckets<>(serializer);
+        this.lightweightAntiEntropy = !convergeFaster;
         this.persistenceService = persistenceService;
         this.persistent =
                 persistent;
@@ -273,6 +283,24 @@ public class EventuallyConsistentMapImpl<K, V>
                 this.backgroundExecutor
         );
 
+        antiEntropySummarySubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-summary");
+        clusterCommunicator.addSubscriber(
+                antiEntropySummarySubject,
+                serializer::decode,
+                this::handleAntiEntropySummary,
+                serializer::encode,
+                this.backgroundExecutor
+        );
+
+        antiEntropyBucketAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-buckets");
+        clusterCommunicator.addSubscriber(
+                antiEntropyBucketAdvertisementSubject,
+                serializer::decode,
+                this::handleAntiEntropyBucketAdvertisement,
+                serializer::encode,
+                this.backgroundExecutor
+        );
+
         updateRequestSubject = new MessageSubject("ecm-" + mapName + "-update-request");
         clusterCommunicator.addSubscriber(
                 updateRequestSubject,
@@ -292,14 +320,21 @@ public class EventuallyConsistentMapImpl<K, V>
         }
 
         this.tombstonesDisabled = tombstonesDisabled;
-        this.lightweightAntiEntropy = !convergeFaster;
 
         // Initiate first round of Gossip
         this.bootstrap();
     }
 
-    private Serializer createSerializer(KryoNamespace ns) {
-        return Serializer.using(KryoNamespace.newBuilder()
+    /**
+     * Creates the serializer of the internal messages of a map, whose keys
+     * and values are serialized with the given namespace.
+     *
+     * @param ns      namespace of the map keys and values
+     * @param mapName name of the map
+     * @return map messages serializer
+     */
+    static StoreSerializer createSerializer(KryoNamespace ns, String mapName) {
+        return StoreSerializer.using(KryoNamespace.newBuilder()
                 .register(ns)
                 // not so robust way to avoid collision with other
                 // user supplied registrations
@@ -313,7 +348,9 @@ public class EventuallyConsistentMapImpl<K, V>
                 .register(MapValue.class)
                 .register(MapValue.Digest.class)
                 .register(UpdateRequest.class)
-                .build(name() + "-ecmap"));
+                .register(AntiEntropySummary.class)
+                .register(AntiEntropyBucketAdvertisement.class)
+                .build(mapName + "-ecmap"));
     }
 
     @Override
@@ -569,6 +606,8 @@ public class EventuallyConsistentMapImpl<K, V>
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(updateRequestSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        clusterCommunicator.removeSubscriber(antiEntropySummarySubject);
+        clusterCommunicator.removeSubscriber(antiEntropyBucketAdvertisementSubject);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -599,7 +638,11 @@ public class EventuallyConsistentMapImpl<K, V>
             if (underHighLoad() || destroyed) {
                 return;
             }
-            pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+            if (lightweightAntiEntropy) {
+                pickRandomActivePeer().ifPresent(this::sendSummaryToPeer);
+            } else {
+                pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+            }
         } catch (Exception e) {
             // Catch all exceptions to avoid scheduled task being suppressed.
             log.error("Exception thrown while sending advertisement", e);
@@ -612,11 +655,47 @@ public class EventuallyConsistentMapImpl<K, V>
         return activePeers.stream().findFirst();
     }
 
+    private void sendSummaryToPeer(NodeId peer) {
+        long summaryCreationTime = System.currentTimeMillis();
+        int bucketCount = AntiEntropyBuckets.bucketCount(items.size());
+        AntiEntropySummary summary = new AntiEntropySummary(localNodeId,
+                antiEntropyBuckets.hashes(items, bucketCount));
+        clusterCommunicator.<AntiEntropySummary, int[]>sendAndReceive(summary,
+                antiEntropySummarySubject,
+                serializer::encode,
+                serializer::decode,
+                peer)
+                .whenComplete((differingBuckets, error) -> {
+                    if (error != null) {
+                        if (ExceptionUtils.getRootCause(error) instanceof MessagingException.NoRemoteHandler) {
+                            // peers running an older version do not handle summaries
+                            log.debug("No anti-entropy summary handler on {}, sending advertisement", peer);
+                            if (!destroyed) {
+                                backgroundExecutor.execute(() -> sendAdvertisementToPeer(peer));
+                            }
+                        } else {
+                            log.debug("Failed to send anti-entropy summary to {}: {}", peer, error.getMessage());
+                        }
+                    } else if (differingBuckets != null && differingBuckets.length == 0) {
+                        // peer is in sync with all of the local entries, tombstones included
+                        antiEntropyTimes.put(peer, summaryCreationTime);
+                    } else if (differingBuckets != null && !destroyed) {
+                        // the remaining buckets were in sync when the summary was created
+                        backgroundExecutor.execute(() -> sendAdvertisementToPeer(peer,
+                                createAdvertisement(bucketCount, differingBuckets),
+                                antiEntropyBucketAdvertisementSubject, summaryCreationTime));
+                    }
+                });
+    }
+
     private void sendAdvertisementToPeer(NodeId peer) {
         long adCreationTime = System.currentTimeMillis();
-        AntiEntropyAdvertisement<K> ad = createAdvertisement();
-        clusterCommunicator.sendAndReceive(ad,
-                antiEntropyAdvertisementSubject,
+        sendAdvertisementToPeer(peer, createAdvertisement(), antiEntropyAdvertisementSubject, adCreationTime);
+    }
+
+    private <A> void sendAdvertisementToPeer(NodeId peer, A ad, MessageSubject subject, long adCreationTime) {
+        clusterCommunicator.<A, AntiEntropyResponse>sendAndReceive(ad,
+                subject,
                 serializer::encode,
                 serializer::decode,
                 peer)
@@ -649,6 +728,36 @@ public class EventuallyConsistentMapImpl<K, V>
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    private AntiEntropyBucketAdvertisement<K> createAdvertisement(int bucketCount, int[] buckets) {
+        ImmutableMap.Builder<K, MapValue.Digest> digest = ImmutableMap.builder();
+        items.forEach((key, value) -> {
+            if (Arrays.binarySearch(buckets, antiEntropyBuckets.bucket(key, value, bucketCount)) >= 0) {
+                digest.put(key, value.digest());
+            }
+        });
+        return new AntiEntropyBucketAdvertisement<>(localNodeId, digest.build(), bucketCount, buckets);
+    }
+
+    /**
+     * Compares the summary of the entries of a peer with the local entries.
+     *
+     * @param summary summary of the entries of the peer
+     * @return sorted indexes of the buckets whose entries differ; null if the
+     * summary was ignored
+     */
+    private int[] handleAntiEntropySummary(AntiEntropySummary summary) {
+        if (destroyed || underHighLoad()) {
+            return null;
+        }
+        int[] differingBuckets = summary.differingBuckets(
+                antiEntropyBuckets.hashes(items, summary.bucketCount()));
+        if (log.isTraceEnabled()) {
+            log.trace("Received anti-entropy summary from {} for {} with {} out of {} buckets differing",
+                    summary.sender(), mapName, differingBuckets.length, summary.bucketCount());
+        }
+        return differingBuckets;
+    }
+
     private AntiEntropyResponse handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
         if (destroyed || underHighLoad()) {
             return AntiEntropyResponse.IGNORED;
@@ -658,7 +767,27 @@ public class EventuallyConsistentMapImpl<K, V>
                 log.trace("Received anti-entropy advertisement from {} for {} with {} entries in it",
                         ad.sender(), mapName, ad.digest().size());
             }
-            antiEntropyCheckLocalItems(ad).forEach(this::notifyListeners);
+            antiEntropyCheckLocalItems(ad.sender(), ad.digest(), (key, value) -> true)
+                    .forEach(this::notifyListeners);
+        } catch (Exception e) {
+            log.warn("Error handling anti-entropy advertisement", e);
+            return AntiEntropyResponse.FAILED;
+        }
+        return AntiEntropyResponse.PROCESSED;
+    }
+
+    private AntiEntropyResponse handleAntiEntropyBucketAdvertisement(AntiEntropyBucketAdvertisement<K> ad) {
+        if (destroyed || underHighLoad()) {
+            return AntiEntropyResponse.IGNORED;
+        }
+        try {
+            if (log.isTraceEnabled()) {
+                log.trace("Received anti-entropy advertisement from {} for {} with {} entries in it",
+                        ad.sender(), mapName, ad.digest().size());
+            }
+            antiEntropyCheckLocalItems(ad.sender(), ad.digest(),
+                    (key, value) -> ad.covers(antiEntropyBuckets.bucket(key, value, ad.bucketCount())))
+                    .forEach(this::notifyListeners);
         } catch (Exception e) {
             log.warn("Error handling anti-entropy advertisement", e);
             return AntiEntropyResponse.FAILED;
@@ -671,18 +800,21 @@ public class EventuallyConsistentMapImpl<K, V>
      * 1. If peer has an old entry, updates peer.
      * 2. If peer indicates an entry is removed and has a more recent
      * timestamp than the local entry, update local state.
+     * Local entries not covered by the digest of the ad are skipped.
      */
     private List<EventuallyConsistentMapEvent<K, V>> antiEntropyCheckLocalItems(
-            AntiEntropyAdvertisement<K> ad) {
+            NodeId sender, Map<K, MapValue.Digest> digest, BiPredicate<K, MapValue<V>> covered) {
         final List<EventuallyConsistentMapEvent<K, V>> externalEvents = Lists.newLinkedList();
-        final NodeId sender = ad.sender();
         final List<NodeId> peers = ImmutableList.of(sender);
         Set<K> staleOrMissing = new HashSet<>();
-        Set<K> locallyUnknown = new HashSet<>(ad.digest().keySet());
+        Set<K> locallyUnknown = new HashSet<>(digest.keySet());
 
         items.forEach((key, localValue) -> {
+            if (!covered.test(key, localValue)) {
+                return;
+            }
             locallyUnknown.remove(key);
-            MapValue.Digest remoteValueDigest = ad.digest().get(key);
+            MapValue.Digest remoteValueDigest = digest.get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
                 // local value is more recent, push to sender
                 queueUpdate(new UpdateEntry<>(key, localValue), peers);
@@ -22,6 +22,7 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
@@ -49,6 +50,7 @@ import java.util.function.Supplier;
 
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -92,6 +94,10 @@ public class EventuallyConsistentMapImplTest {
             = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy");
     private static final MessageSubject UPDATE_REQUEST_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-update-request");
+    private static final MessageSubject ANTI_ENTROPY_SUMMARY_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy-summary");
+    private static final MessageSubject ANTI_ENTROPY_BUCKETS_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy-buckets");
 
     private static final String KEY1 = "one";
     private static final String KEY2 = "two";
@@ -104,6 +110,8 @@ public class EventuallyConsistentMapImplTest {
     private Consumer<Collection<UpdateEntry<String, String>>> updateHandler;
     private Consumer<Collection<UpdateRequest<String>>> requestHandler;
     private Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse> antiEntropyHandler;
+    private Function<AntiEntropySummary, int[]> antiEntropySummaryHandler;
+    private Function<AntiEntropyBucketAdvertisement<String>, AntiEntropyResponse> antiEntropyBucketsHandler;
     private Supplier<List<NodeId>> peersHandler = ArrayList::new;
 
     @Before
@@ -134,7 +142,7 @@ public class EventuallyConsistentMapImplTest {
                                                           anyObject(Function.class),
                                                           anyObject(Function.class),
                                                           anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(2);
         clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
                 anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
         expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
@@ -648,6 +656,89 @@ public class EventuallyConsistentMapImplTest {
         return true;
     }
 
+    private AntiEntropyBuckets<String> antiEntropyBuckets() {
+        return new AntiEntropyBuckets<>(EventuallyConsistentMapImpl.createSerializer(
+                KryoNamespace.newBuilder()
+                        .register(KryoNamespaces.API)
+                        .register(TestTimestamp.class)
+                        .build(MAP_NAME),
+                MAP_NAME));
+    }
+
+    @Test
+    public void testAntiEntropySummary() throws Exception {
+        expectPeerMessage(clusterCommunicator);
+
+        AntiEntropyBuckets<String> buckets = antiEntropyBuckets();
+        int bucketCount = AntiEntropyBuckets.bucketCount(1);
+        NodeId peer = new NodeId("peer");
+
+        Map<String, MapValue<String>> remoteItems = new HashMap<>();
+        remoteItems.put(KEY1, new MapValue<>(VALUE1, clockService.peekAtNextTimestamp()));
+        ecMap.put(KEY1, VALUE1);
+
+        // Peer has the same entries
+        int[] differing = antiEntropySummaryHandler.apply(
+                new AntiEntropySummary(peer, buckets.hashes(remoteItems, bucketCount)));
+        assertEquals(0, differing.length);
+
+        // Peer has an older value
+        remoteItems.put(KEY1, new MapValue<>(VALUE1, new TestTimestamp(0)));
+        differing = antiEntropySummaryHandler.apply(
+                new AntiEntropySummary(peer, buckets.hashes(remoteItems, bucketCount)));
+        assertEquals(1, differing.length);
+        assertEquals(buckets.bucket(KEY1, remoteItems.get(KEY1), bucketCount), differing[0]);
+
+        // Peer has no entries
+        differing = antiEntropySummaryHandler.apply(
+                new AntiEntropySummary(peer, buckets.hashes(new HashMap<>(), bucketCount)));
+        assertEquals(1, differing.length);
+        assertEquals(buckets.bucket(KEY1, remoteItems.get(KEY1), bucketCount), differing[0]);
+    }
+
+    @Test
+    public void testPartialAntiEntropyAdvertisement() throws Exception {
+        AntiEntropyBuckets<String> buckets = antiEntropyBuckets();
+        int bucketCount = AntiEntropyBuckets.MIN_BUCKETS;
+        MapValue<String> value = new MapValue<>(VALUE1, new TestTimestamp(0));
+        int bucket1 = buckets.bucket(KEY1, value, bucketCount);
+        String key2 = KEY2;
+        for (int i = 0; buckets.bucket(key2, value, bucketCount) == bucket1; i++) {
+            key2 = KEY2 + i;
+        }
+        NodeId peer = new NodeId("peer");
+
+        List<UpdateEntry<String, String>> pushed = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        reset(clusterCommunicator);
+        expect(clusterCommunicator.unicast(
+                anyObject(),
+                anyObject(MessageSubject.class),
+                anyObject(Function.class),
+                eq(peer)))
+                .andAnswer(() -> {
+                    if (UPDATE_MESSAGE_SUBJECT.equals(getCurrentArguments()[1])) {
+                        pushed.addAll((Collection<UpdateEntry<String, String>>) getCurrentArguments()[0]);
+                        latch.countDown();
+                    }
+                    return CompletableFuture.completedFuture(null);
+                })
+                .anyTimes();
+        replay(clusterCommunicator);
+
+        ecMap.put(KEY1, VALUE1);
+        ecMap.put(key2, VALUE2);
+
+        // Peer has no entries in the bucket of the first key, and says nothing of the second one
+        AntiEntropyBucketAdvertisement<String> ad = new AntiEntropyBucketAdvertisement<>(
+                peer, ImmutableMap.of(), bucketCount, new int[]{bucket1});
+        assertEquals(AntiEntropyResponse.PROCESSED, antiEntropyBucketsHandler.apply(ad));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, pushed.size());
+        assertEquals(KEY1, pushed.get(0).key());
+    }
+
     @Test
     public void testDestroy() throws Exception {
         clusterCommunicator.removeSubscriber(BOOTSTRAP_MESSAGE_SUBJECT);
@@ -655,6 +746,8 @@ public class EventuallyConsistentMapImplTest {
         clusterCommunicator.removeSubscriber(UPDATE_MESSAGE_SUBJECT);
         clusterCommunicator.removeSubscriber(UPDATE_REQUEST_SUBJECT);
         clusterCommunicator.removeSubscriber(ANTI_ENTROPY_MESSAGE_SUBJECT);
+        clusterCommunicator.removeSubscriber(ANTI_ENTROPY_SUMMARY_SUBJECT);
+        clusterCommunicator.removeSubscriber(ANTI_ENTROPY_BUCKETS_SUBJECT);
 
         replay(clusterCommunicator);
 
@@ -813,6 +906,11 @@ public class EventuallyConsistentMapImplTest {
                 Function<byte[], M> decoder, Function<M, R> handler, Function<R, byte[]> encoder, Executor executor) {
             if (subject.equals(ANTI_ENTROPY_MESSAGE_SUBJECT)) {
                 antiEntropyHandler = (Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse>) handler;
+            } else if (subject.equals(ANTI_ENTROPY_SUMMARY_SUBJECT)) {
+                antiEntropySummaryHandler = (Function<AntiEntropySummary, int[]>) handler;
+            } else if (subject.equals(ANTI_ENTROPY_BUCKETS_SUBJECT)) {
+                antiEntropyBucketsHandler =
+                        (Function<AntiEntropyBucketAdvertisement<String>, AntiEntropyResponse>) handler;
             } else if (!subject.equals(INITIALIZE_MESSAGE_SUBJECT)) {
                 throw new IllegalStateException("Unexpected message subject " + subject.toString());
             }
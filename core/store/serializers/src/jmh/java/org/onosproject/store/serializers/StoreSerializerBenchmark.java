@@ -0,0 +1,188 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultAnnotations;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.FilteredConnectPoint;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.PointToPointIntent;
+import org.onosproject.net.provider.ProviderId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the serialization and deserialization throughput of the payloads
+ * most commonly replicated by the distributed stores, using the
+ * {@link KryoNamespaces#API} namespace.
+ * <p>
+ * Run with the GC profiler, i.e. {@code -prof gc}, to also measure the
+ * allocation rate of each operation.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreSerializerBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "foo");
+    private static final DeviceId DID1 = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:0000000000000002");
+    private static final ConnectPoint CP1 = new ConnectPoint(DID1, PortNumber.portNumber(1));
+    private static final ConnectPoint CP2 = new ConnectPoint(DID2, PortNumber.portNumber(2));
+    private static final DefaultApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.bench");
+    private static final MacAddress MAC = MacAddress.valueOf("00:00:00:00:00:01");
+
+    @Param({"FlowRule", "DefaultFlowEntry", "Link", "Host", "Intent"})
+    private String payload;
+
+    private final StoreSerializer serializer = StoreSerializer.using(KryoNamespaces.API);
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    private final IdGenerator idGenerator = new AtomicLong()::incrementAndGet;
+
+    private Object object;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        Intent.bindIdGenerator(idGenerator);
+        object = payload(payload);
+        bytes = serializer.encode(object);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Intent.unbindIdGenerator(idGenerator);
+    }
+
+    /**
+     * Returns a representative instance of the given payload type.
+     *
+     * @param type payload type
+     * @return payload instance
+     */
+    private static Object payload(String type) {
+        switch (type) {
+            case "FlowRule":
+                return flowRule();
+            case "DefaultFlowEntry":
+                return new DefaultFlowEntry(flowRule(), FlowEntry.FlowEntryState.ADDED,
+                                            120, TimeUnit.SECONDS, 1_000_000L, 64_000_000L);
+            case "Link":
+                return DefaultLink.builder()
+                        .providerId(PID)
+                        .src(CP1)
+                        .dst(CP2)
+                        .type(Link.Type.DIRECT)
+                        .annotations(DefaultAnnotations.builder().set("latency", "1").build())
+                        .build();
+            case "Host":
+                return new DefaultHost(PID, HostId.hostId(MAC, VlanId.vlanId((short) 100)), MAC,
+                                       VlanId.vlanId((short) 100), new HostLocation(CP1, 0L),
+                                       ImmutableSet.of(IpAddress.valueOf("10.0.0.1")));
+            case "Intent":
+                return PointToPointIntent.builder()
+                        .appId(APP_ID)
+                        .selector(selector())
+                        .treatment(DefaultTrafficTreatment.emptyTreatment())
+                        .filteredIngressPoint(new FilteredConnectPoint(CP1))
+                        .filteredEgressPoint(new FilteredConnectPoint(CP2))
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unknown payload " + type);
+        }
+    }
+
+    private static FlowRule flowRule() {
+        TrafficTreatment treatment = DefaultTrafficTreatment.builder()
+                .setEthDst(MAC)
+                .setOutput(PortNumber.portNumber(2))
+                .build();
+        return DefaultFlowRule.builder()
+                .forDevice(DID1)
+                .withSelector(selector())
+                .withTreatment(treatment)
+                .withPriority(40000)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build();
+    }
+
+    private static TrafficSelector selector() {
+        return DefaultTrafficSelector.builder()
+                .matchInPort(PortNumber.portNumber(1))
+                .matchEthType((short) 0x0800)
+                .matchIPDst(IpPrefix.valueOf("10.0.0.0/24"))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.encode(object);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeToBuffer() {
+        buffer.clear();
+        serializer.encode(object, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.decode(bytes);
+    }
+}
@@ -18,6 +18,7 @@ package org.onosproject.store.serializers;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.function.Function;
 
 import org.onlab.util.KryoNamespace;
 import org.onosproject.store.service.Serializer;
@@ -47,6 +48,24 @@ public interface StoreSerializer extends Serializer {
      */
     void encode(final Object obj, ByteBuffer buffer);
 
+    /**
+     * Serializes the specified object into a reusable buffer, and applies the
+     * given function to the serialized bytes. The buffer must not be retained
+     * by the function once it returns.
+     * <p>
+     * This is meant for callers consuming the serialized bytes in place, such
+     * as the anti-entropy hashing of eventually consistent maps. Cluster
+     * messages and Atomix primitives take their payloads as byte arrays and
+     * go through {@link #encode(Object)} instead.
+     * </p>
+     *
+     * @param obj object to be serialized
+     * @param function function consuming the serialized bytes
+     * @return function result
+     * @param <T> function result type
+     */
+    <T> T encode(final Object obj, final Function<ByteBuffer, T> function);
+
     /**
      * Serializes the specified object into bytes.
      *
@@ -111,6 +130,11 @@ public interface StoreSerializer extends Serializer {
                 ns.serialize(obj, buffer);
             }
 
+            @Override
+            public <T> T encode(Object obj, Function<ByteBuffer, T> function) {
+                return ns.serialize(obj, function);
+            }
+
             @Override
             public byte[] encode(Object obj) {
                 return ns.serialize(obj);
@@ -75,6 +75,8 @@ import org.onlab.packet.Ip4Prefix;
 import org.onlab.packet.Ip6Prefix;
 import org.onlab.packet.MacAddress;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -159,8 +161,17 @@ public class KryoSerializerTest {
 
         T copy2 = serializer.decode(serializer.encode(original));
 
+        // Decode from the reused direct buffer, and from a slice of a larger array
+        T copy3 = serializer.encode(original, bytes -> serializer.decode(bytes));
+        byte[] padded = serializer.encode(original, bytes -> {
+            byte[] array = new byte[bytes.remaining() + 2];
+            bytes.get(array, 1, bytes.remaining());
+            return array;
+        });
+        T copy4 = KryoNamespaces.API.deserialize(padded, 1, padded.length - 2);
+
         new EqualsTester()
-            .addEqualityGroup(original, copy, copy2)
+            .addEqualityGroup(original, copy, copy2, copy3, copy4)
             .testEquals();
     }
 
@@ -494,6 +505,28 @@ public class KryoSerializerTest {
         }
     }
 
+    @Test
+    public void testLargeObject() {
+        // Outgrows the default buffer size of the pooled outputs
+        ImmutableList.Builder<DeviceId> builder = ImmutableList.builder();
+        for (int i = 0; i < KryoNamespace.DEFAULT_BUFFER_SIZE; i++) {
+            builder.add(DeviceId.deviceId("of:" + i));
+        }
+        ImmutableList<DeviceId> original = builder.build();
+
+        byte[] bytes = serializer.encode(original);
+        assertEquals(original, serializer.decode(bytes));
+        assertEquals(bytes.length, (int) serializer.encode(original, ByteBuffer::remaining));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        serializer.encode(original, stream);
+        assertArrayEquals(bytes, stream.toByteArray());
+        assertEquals(original, serializer.decode(new ByteArrayInputStream(stream.toByteArray())));
+
+        // Pooled outputs are left empty for the next object
+        testSerializedEquals(DID1);
+    }
+
     @Test
     public void testBitSet() {
         BitSet bs = new BitSet(32);
@@ -19,6 +19,9 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Sets;
 import org.onlab.osgi.ServiceDirectory;
 import org.onlab.util.KryoNamespace;
 import org.onosproject.core.ApplicationId;
@@ -45,12 +48,16 @@ import org.onosproject.net.flowobjective.ObjectiveError;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.onosproject.net.flowobjective.Objective.Operation.ADD;
+import static org.onosproject.net.flowobjective.Objective.Operation.REMOVE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -141,6 +148,87 @@ public class DefaultSingleTablePipeline extends AbstractHandlerBehaviour impleme
 
     @Override
     public void forward(ForwardingObjective fwd) {
+        FlowRule.Builder ruleBuilder = forwardingRule(fwd);
+        if (ruleBuilder != null) {
+            installObjective(ruleBuilder, fwd);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> forward(List<ForwardingObjective> fwds) {
+        // Group the rules of the batch in stages, starting a new stage whenever
+        // the operation changes to keep additions and removals in order
+        List<ListMultimap<FlowRule, ForwardingObjective>> stages = new ArrayList<>();
+        ListMultimap<FlowRule, ForwardingObjective> stage = null;
+        Objective.Operation stageOp = null;
+        for (ForwardingObjective fwd : fwds) {
+            if (fwd.op() != ADD && fwd.op() != REMOVE) {
+                log.warn("Unknown operation {}", fwd.op());
+                fwd.context().ifPresent(c -> c.onError(fwd, ObjectiveError.UNSUPPORTED));
+                continue;
+            }
+            FlowRule.Builder ruleBuilder = forwardingRule(fwd);
+            if (ruleBuilder == null) {
+                continue;
+            }
+            if (stage == null || stageOp != fwd.op()) {
+                stage = LinkedListMultimap.create();
+                stages.add(stage);
+                stageOp = fwd.op();
+            }
+            stage.put(ruleBuilder.build(), fwd);
+        }
+        CompletableFuture<Void> installed = new CompletableFuture<>();
+        installStage(stages, 0, installed);
+        return installed;
+    }
+
+    // Installs the given stage through a single flow rule batch and moves to
+    // the next one once the stage completes. All the rules of a stage are for
+    // this device, so each stage completes with exactly one callback and the
+    // rules not reported as failed have been installed. The future completes
+    // after the last stage, which holds the objectives queued behind the batch.
+    private void installStage(List<ListMultimap<FlowRule, ForwardingObjective>> stages, int index,
+                              CompletableFuture<Void> installed) {
+        if (index >= stages.size()) {
+            installed.complete(null);
+            return;
+        }
+        ListMultimap<FlowRule, ForwardingObjective> stage = stages.get(index);
+        FlowRuleOperations.Builder flowBuilder = FlowRuleOperations.builder();
+        stage.entries().forEach(entry -> {
+            if (entry.getValue().op() == ADD) {
+                flowBuilder.add(entry.getKey());
+            } else {
+                flowBuilder.remove(entry.getKey());
+            }
+        });
+
+        flowRuleService.apply(flowBuilder.build(new FlowRuleOperationsContext() {
+            @Override
+            public void onSuccess(FlowRuleOperations ops) {
+                stage.values().forEach(fwd -> fwd.context().ifPresent(context -> context.onSuccess(fwd)));
+                installStage(stages, index + 1, installed);
+            }
+
+            @Override
+            public void onError(FlowRuleOperations ops) {
+                Set<ForwardingObjective> failed = Sets.newIdentityHashSet();
+                ops.stages().forEach(ruleOps -> ruleOps.forEach(op -> failed.addAll(stage.get(op.rule()))));
+                stage.values().forEach(fwd -> fwd.context().ifPresent(context -> {
+                    if (failed.contains(fwd)) {
+                        context.onError(fwd, ObjectiveError.FLOWINSTALLATIONFAILED);
+                    } else {
+                        context.onSuccess(fwd);
+                    }
+                }));
+                installStage(stages, index + 1, installed);
+            }
+        }));
+    }
+
+    // Builds the flow rule of the given forwarding objective; null if the objective failed
+    private FlowRule.Builder forwardingRule(ForwardingObjective fwd) {
         TrafficSelector selector = fwd.selector();
         if (fwd.treatment() != null) {
             // Deal with SPECIFIC and VERSATILE in the same manner.
@@ -156,7 +244,7 @@ public class DefaultSingleTablePipeline extends AbstractHandlerBehaviour impleme
             } else {
                 ruleBuilder.makeTemporary(fwd.timeout());
             }
-            installObjective(ruleBuilder, fwd);
+            return ruleBuilder;
 
         } else {
             NextObjective nextObjective;
@@ -174,7 +262,7 @@ public class DefaultSingleTablePipeline extends AbstractHandlerBehaviour impleme
                     // the treatment in order to re-build the flow rule.
                     if (next == null) {
                         fwd.context().ifPresent(c -> c.onError(fwd, ObjectiveError.GROUPMISSING));
-                        return;
+                        return null;
                     }
                     treatment = appKryo.deserialize(next.data());
                 } else {
@@ -182,7 +270,7 @@ public class DefaultSingleTablePipeline extends AbstractHandlerBehaviour impleme
                     treatment = getTreatment(nextObjective);
                     if (treatment == null) {
                         fwd.context().ifPresent(c -> c.onError(fwd, ObjectiveError.UNSUPPORTED));
-                        return;
+                        return null;
                     }
                 }
             } else {
@@ -194,7 +282,7 @@ public class DefaultSingleTablePipeline extends AbstractHandlerBehaviour impleme
             // If the treatment is null we cannot re-build the original flow
             if (treatment == null)  {
                 fwd.context().ifPresent(c -> c.onError(fwd, ObjectiveError.GROUPMISSING));
-                return;
+                return null;
             }
             // Finally we build the flow rule and push to the flow rule subsystem.
             FlowRule.Builder ruleBuilder = DefaultFlowRule.builder()
@@ -208,7 +296,7 @@ public class DefaultSingleTablePipeline extends AbstractHandlerBehaviour impleme
             } else {
                 ruleBuilder.makeTemporary(fwd.timeout());
             }
-            installObjective(ruleBuilder, fwd);
+            return ruleBuilder;
         }
     }
 
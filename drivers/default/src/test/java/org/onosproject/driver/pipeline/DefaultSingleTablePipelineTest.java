@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.driver.pipeline;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.osgi.ServiceDirectory;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.behaviour.PipelinerContext;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowRuleOperation;
+import org.onosproject.net.flow.FlowRuleOperations;
+import org.onosproject.net.flow.FlowRuleService;
+import org.onosproject.net.flow.FlowRuleServiceAdapter;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flowobjective.DefaultForwardingObjective;
+import org.onosproject.net.flowobjective.FlowObjectiveStore;
+import org.onosproject.net.flowobjective.ForwardingObjective;
+import org.onosproject.net.flowobjective.Objective;
+import org.onosproject.net.flowobjective.ObjectiveContext;
+import org.onosproject.net.flowobjective.ObjectiveError;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the default single table pipeline.
+ */
+public class DefaultSingleTablePipelineTest {
+
+    private static final DeviceId DEV1 = DeviceId.deviceId("of:1");
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.test");
+    private static final int PRIORITY = 1000;
+
+    private DefaultSingleTablePipeline pipeline;
+    private TestFlowRuleService flowRuleService;
+
+    private final List<Objective> succeeded = Lists.newArrayList();
+    private final List<Objective> failed = Lists.newArrayList();
+
+    private final ObjectiveContext context = new ObjectiveContext() {
+        @Override
+        public void onSuccess(Objective objective) {
+            succeeded.add(objective);
+        }
+
+        @Override
+        public void onError(Objective objective, ObjectiveError error) {
+            failed.add(objective);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        flowRuleService = new TestFlowRuleService();
+        ServiceDirectory directory = new ServiceDirectory() {
+            @Override
+            public <T> T get(Class<T> serviceClass) {
+                return serviceClass == FlowRuleService.class ? serviceClass.cast(flowRuleService) : null;
+            }
+        };
+        pipeline = new DefaultSingleTablePipeline();
+        pipeline.init(DEV1, new PipelinerContext() {
+            @Override
+            public ServiceDirectory directory() {
+                return directory;
+            }
+
+            @Override
+            public FlowObjectiveStore store() {
+                return null;
+            }
+        });
+    }
+
+    private ForwardingObjective forwarding(String prefix, boolean add) {
+        DefaultForwardingObjective.Builder builder = DefaultForwardingObjective.builder()
+                .fromApp(APP_ID)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchEthType(Ethernet.TYPE_IPV4)
+                                      .matchIPDst(IpPrefix.valueOf(prefix))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder().punt().build())
+                .withPriority(PRIORITY)
+                .withFlag(ForwardingObjective.Flag.SPECIFIC)
+                .makePermanent();
+        return add ? builder.add(context) : builder.remove(context);
+    }
+
+    /**
+     * Tests that only the objective owning the failed rule is reported as
+     * failed and that the others in the batch are reported as installed.
+     */
+    @Test
+    public void partialFailure() {
+        ForwardingObjective fwd1 = forwarding("10.0.1.0/24", true);
+        ForwardingObjective fwd2 = forwarding("10.0.2.0/24", true);
+        ForwardingObjective fwd3 = forwarding("10.0.3.0/24", true);
+        flowRuleService.failedPrefix = IpPrefix.valueOf("10.0.2.0/24");
+
+        pipeline.forward(ImmutableList.of(fwd1, fwd2, fwd3));
+
+        assertEquals(1, flowRuleService.fops.size());
+        assertEquals(ImmutableList.of(fwd2), failed);
+        assertEquals(ImmutableList.of(fwd1, fwd3), succeeded);
+    }
+
+    /**
+     * Tests that every stage of the batch is reported exactly once.
+     */
+    @Test
+    public void stagedBatch() {
+        ForwardingObjective fwd1 = forwarding("10.0.1.0/24", true);
+        ForwardingObjective fwd2 = forwarding("10.0.2.0/24", false);
+        ForwardingObjective fwd3 = forwarding("10.0.3.0/24", true);
+        flowRuleService.failedPrefix = IpPrefix.valueOf("10.0.1.0/24");
+
+        CompletableFuture<Void> installed = pipeline.forward(ImmutableList.of(fwd1, fwd2, fwd3));
+
+        assertEquals(3, flowRuleService.fops.size());
+        assertEquals(ImmutableList.of(fwd1), failed);
+        assertEquals(ImmutableList.of(fwd2, fwd3), succeeded);
+        assertTrue(installed.isDone());
+    }
+
+    /**
+     * Tests that the batch is reported as processed only once its last stage
+     * has completed.
+     */
+    @Test
+    public void batchCompletesAfterLastStage() {
+        ForwardingObjective fwd1 = forwarding("10.0.1.0/24", true);
+        ForwardingObjective fwd2 = forwarding("10.0.1.0/24", false);
+        flowRuleService.deferred = true;
+
+        CompletableFuture<Void> installed = pipeline.forward(ImmutableList.of(fwd1, fwd2));
+
+        assertEquals(1, flowRuleService.fops.size());
+        assertFalse(installed.isDone());
+
+        flowRuleService.completePending();
+        assertEquals(2, flowRuleService.fops.size());
+        assertFalse(installed.isDone());
+
+        flowRuleService.completePending();
+        assertTrue(installed.isDone());
+        assertEquals(ImmutableList.of(fwd1, fwd2), succeeded);
+    }
+
+    // Flow rule service failing the rules matching the given destination prefix
+    private class TestFlowRuleService extends FlowRuleServiceAdapter {
+
+        List<FlowRuleOperations> fops = Lists.newArrayList();
+        IpPrefix failedPrefix;
+        boolean deferred;
+        FlowRuleOperations pending;
+
+        @Override
+        public void apply(FlowRuleOperations ops) {
+            fops.add(ops);
+            if (deferred) {
+                pending = ops;
+            } else {
+                complete(ops);
+            }
+        }
+
+        void completePending() {
+            FlowRuleOperations ops = pending;
+            pending = null;
+            complete(ops);
+        }
+
+        private void complete(FlowRuleOperations ops) {
+            FlowRuleOperations.Builder failures = FlowRuleOperations.builder();
+            boolean hasFailed = false;
+            for (Set<FlowRuleOperation> stage : ops.stages()) {
+                for (FlowRuleOperation op : stage) {
+                    if (failedPrefix != null && op.rule().selector().equals(selector(failedPrefix))) {
+                        failures.add(op.rule());
+                        hasFailed = true;
+                    }
+                }
+            }
+            assertEquals(1, ops.stages().size());
+            if (hasFailed) {
+                ops.callback().onError(failures.build());
+            } else {
+                ops.callback().onSuccess(ops);
+            }
+        }
+
+        private TrafficSelector selector(IpPrefix prefix) {
+            return DefaultTrafficSelector.builder()
+                    .matchEthType(Ethernet.TYPE_IPV4)
+                    .matchIPDst(prefix)
+                    .build();
+        }
+    }
+
+}
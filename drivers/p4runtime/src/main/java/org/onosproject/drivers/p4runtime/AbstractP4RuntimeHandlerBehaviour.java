@@ -91,4 +91,21 @@ public abstract class AbstractP4RuntimeHandlerBehaviour
             return Boolean.parseBoolean(handler().driver().getProperty(propName));
         }
     }
+
+    /**
+     * Returns the value of the given driver property, if present, otherwise
+     * returns the given default value.
+     *
+     * @param propName   property name
+     * @param defaultVal default value
+     * @return int
+     */
+    int driverIntProperty(String propName, int defaultVal) {
+        checkNotNull(propName);
+        if (handler().driver().getProperty(propName) == null) {
+            return defaultVal;
+        } else {
+            return Integer.parseInt(handler().driver().getProperty(propName));
+        }
+    }
 }
@@ -56,4 +56,16 @@ public final class P4RuntimeDriverProperties {
     // Otherwise, we submit a read request with wildcard read on a table basis.
     public static final String TABLE_WILCARD_READS = "tableWildcardReads";
     public static final boolean DEFAULT_TABLE_WILCARD_READS = false;
-}
\ No newline at end of file
+
+    // If true, table entries in the mirror are trusted and, at each poll, we
+    // read only direct counters. Entries are re-read only for those tables
+    // whose set of entries reported with the counters differs from the mirror
+    // one. Tables without direct counters are not read between full reads.
+    public static final String TABLE_DELTA_RECONCILE = "tableDeltaReconcile";
+    public static final boolean DEFAULT_TABLE_DELTA_RECONCILE = false;
+
+    // When tableDeltaReconcile is true, minimum period in seconds between full
+    // reads of table entries from the device.
+    public static final String TABLE_FULL_AUDIT_PERIOD = "tableFullAuditPeriod";
+    public static final int DEFAULT_TABLE_FULL_AUDIT_PERIOD = 300;
+}
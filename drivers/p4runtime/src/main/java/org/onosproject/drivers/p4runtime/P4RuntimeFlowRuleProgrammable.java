@@ -19,6 +19,7 @@ package org.onosproject.drivers.p4runtime;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.Striped;
 import org.onosproject.drivers.p4runtime.mirror.P4RuntimeDefaultEntryMirror;
@@ -31,6 +32,7 @@ import org.onosproject.net.flow.FlowRuleProgrammable;
 import org.onosproject.net.pi.model.PiCounterType;
 import org.onosproject.net.pi.model.PiPipelineModel;
 import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.model.PiTableModel;
 import org.onosproject.net.pi.runtime.PiCounterCell;
 import org.onosproject.net.pi.runtime.PiCounterCellData;
 import org.onosproject.net.pi.runtime.PiCounterCellHandle;
@@ -65,12 +67,16 @@ import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAUL
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_READ_FROM_MIRROR;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_SUPPORT_TABLE_COUNTERS;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_TABLE_DELTA_RECONCILE;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_TABLE_FULL_AUDIT_PERIOD;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_TABLE_WILCARD_READS;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DELETE_BEFORE_UPDATE;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.READ_COUNTERS_WITH_TABLE_ENTRIES;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.READ_FROM_MIRROR;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.SUPPORT_DEFAULT_TABLE_ENTRY;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.SUPPORT_TABLE_COUNTERS;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.TABLE_DELTA_RECONCILE;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.TABLE_FULL_AUDIT_PERIOD;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.TABLE_WILCARD_READS;
 import static org.onosproject.drivers.p4runtime.P4RuntimeFlowRuleProgrammable.Operation.APPLY;
 import static org.onosproject.drivers.p4runtime.P4RuntimeFlowRuleProgrammable.Operation.REMOVE;
@@ -121,8 +127,18 @@ public class P4RuntimeFlowRuleProgrammable
             return getFlowEntriesFromMirror();
         }
 
-        final ImmutableList.Builder<FlowEntry> result = ImmutableList.builder();
-        final List<PiTableEntry> inconsistentEntries = Lists.newArrayList();
+        final boolean deltaReconcile = driverBoolProperty(
+                TABLE_DELTA_RECONCILE, DEFAULT_TABLE_DELTA_RECONCILE);
+        if (deltaReconcile && !isFullAuditDue()) {
+            final Map<PiTableEntryHandle, PiCounterCellData> counterCellMap =
+                    Maps.newHashMap();
+            final Collection<PiTableEntry> deviceEntries =
+                    getTableEntriesFromMirrorAndDevice(counterCellMap);
+            if (deviceEntries != null) {
+                return reconcileTableEntries(deviceEntries, counterCellMap);
+            }
+            // Potential error at the client level, fall back to a full read.
+        }
 
         // Read table entries from device.
         final Collection<PiTableEntry> deviceEntries = getAllTableEntriesFromDevice();
@@ -131,6 +147,10 @@ public class P4RuntimeFlowRuleProgrammable
             return Collections.emptyList();
         }
 
+        if (deltaReconcile) {
+            tableMirror.fullAuditDone(deviceId);
+        }
+
         // Synchronize mirror with the device state.
         tableMirror.sync(deviceId, deviceEntries);
 
@@ -139,8 +159,16 @@ public class P4RuntimeFlowRuleProgrammable
             return Collections.emptyList();
         }
 
-        final Map<PiTableEntryHandle, PiCounterCellData> counterCellMap =
-                readEntryCounters(deviceEntries);
+        return reconcileTableEntries(deviceEntries, readEntryCounters(deviceEntries));
+    }
+
+    private Collection<FlowEntry> reconcileTableEntries(
+            Collection<PiTableEntry> deviceEntries,
+            Map<PiTableEntryHandle, PiCounterCellData> counterCellMap) {
+
+        final ImmutableList.Builder<FlowEntry> result = ImmutableList.builder();
+        final List<PiTableEntry> inconsistentEntries = Lists.newArrayList();
+
         // Forge flow entries with counter values.
         for (PiTableEntry entry : deviceEntries) {
             final PiTableEntryHandle handle = entry.handle(deviceId);
@@ -210,28 +238,115 @@ public class P4RuntimeFlowRuleProgrammable
         return result.build();
     }
 
-    private Collection<PiTableEntry> getAllTableEntriesFromDevice() {
+    private boolean isFullAuditDue() {
+        final long periodMillis = driverIntProperty(
+                TABLE_FULL_AUDIT_PERIOD, DEFAULT_TABLE_FULL_AUDIT_PERIOD) * 1000L;
+        return System.currentTimeMillis() - tableMirror.lastFullAudit(deviceId) >= periodMillis;
+    }
+
+    private Collection<PiTableEntry> getTableEntriesFromMirrorAndDevice(
+            Map<PiTableEntryHandle, PiCounterCellData> counterCellMap) {
+        // Trusts the mirror for the content of table entries, and reads from
+        // the device only the direct counters, which come with the match key
+        // of each entry. Entries are read only for those tables whose match
+        // keys on the device differ from the mirror ones.
+        final Map<PiTableId, List<PiTableEntry>> mirrorEntries = tableMirror.getAll(deviceId)
+                .stream()
+                .map(TimedEntry::entry)
+                .collect(Collectors.groupingBy(PiTableEntry::table));
+        final Set<PiTableId> counterTables = !driverBoolProperty(
+                SUPPORT_TABLE_COUNTERS, DEFAULT_SUPPORT_TABLE_COUNTERS)
+                ? Collections.emptySet()
+                : pipelineModel.tables().stream()
+                .filter(t -> !t.isConstantTable() && !t.counters().isEmpty())
+                .map(PiTableModel::id)
+                .collect(Collectors.toSet());
+        final Map<PiTableId, Set<PiTableEntryHandle>> deviceHandles = Maps.newHashMap();
+        if (!counterTables.isEmpty()) {
+            final P4RuntimeReadClient.ReadResponse response = client.read(p4DeviceId, pipeconf)
+                    .directCounterCells(counterTables)
+                    .submitSync();
+            if (!response.isSuccess()) {
+                return null;
+            }
+            response.all(PiCounterCell.class).stream()
+                    .filter(c -> c.cellId().counterType().equals(PiCounterType.DIRECT))
+                    .forEach(c -> {
+                        final PiTableEntry keyEntry = c.cellId().tableEntry();
+                        final PiTableEntryHandle handle = keyEntry.handle(deviceId);
+                        counterCellMap.put(handle, c.data());
+                        deviceHandles.computeIfAbsent(keyEntry.table(), t -> Sets.newHashSet())
+                                .add(handle);
+                    });
+        }
+        final Set<PiTableId> staleTables = counterTables.stream()
+                .filter(t -> !deviceHandles.getOrDefault(t, Collections.emptySet()).equals(
+                        mirrorEntries.getOrDefault(t, Collections.emptyList()).stream()
+                                .filter(e -> !e.isDefaultAction())
+                                .map(e -> e.handle(deviceId))
+                                .collect(Collectors.toSet())))
+                .collect(Collectors.toSet());
+        final List<PiTableEntry> entries = Lists.newArrayList();
+        mirrorEntries.forEach((tableId, tableEntries) -> {
+            if (!staleTables.contains(tableId)) {
+                entries.addAll(tableEntries);
+            }
+        });
+        if (!staleTables.isEmpty()) {
+            log.debug("Found {} tables out of sync with the mirror on {}, reading entries: {}",
+                      staleTables.size(), deviceId, staleTables);
+            final Collection<PiTableEntry> staleTableEntries =
+                    getTableEntriesFromDevice(staleTables);
+            if (staleTableEntries == null) {
+                return null;
+            }
+            entries.addAll(staleTableEntries);
+            // Synchronize mirror with the device state.
+            tableMirror.sync(deviceId, entries);
+        }
+        return entries;
+    }
+
+    private Collection<PiTableEntry> getTableEntriesFromDevice(Collection<PiTableId> tableIds) {
         final P4RuntimeReadClient.ReadRequest request = client.read(
                 p4DeviceId, pipeconf);
         final boolean supportDefaultTableEntry = driverBoolProperty(
                 SUPPORT_DEFAULT_TABLE_ENTRY, DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY);
+        // Read entries from the given tables, including default ones.
+        tableIds.forEach(tableId -> {
+            request.tableEntries(tableId);
+            if (supportDefaultTableEntry && pipelineModel.table(tableId)
+                    .map(t -> t.constDefaultAction().isEmpty()).orElse(false)) {
+                request.defaultTableEntry(tableId);
+            }
+        });
+        final P4RuntimeReadClient.ReadResponse response = request.submitSync();
+        if (!response.isSuccess()) {
+            return null;
+        }
+        // Device implementation might return duplicate entries.
+        return response.all(PiTableEntry.class).stream()
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private Collection<PiTableEntry> getAllTableEntriesFromDevice() {
         final boolean tableWildcardReads = driverBoolProperty(
                 TABLE_WILCARD_READS, DEFAULT_TABLE_WILCARD_READS);
         if (!tableWildcardReads) {
             // Read entries from all non-constant tables, including default ones.
-            pipelineModel.tables().stream()
-                    .filter(t -> !t.isConstantTable())
-                    .forEach(t -> {
-                        request.tableEntries(t.id());
-                        if (supportDefaultTableEntry && t.constDefaultAction().isEmpty()) {
-                            request.defaultTableEntry(t.id());
-                        }
-                    });
-        } else {
-            request.allTableEntries();
-            if (supportDefaultTableEntry) {
-                request.allDefaultTableEntries();
-            }
+            return getTableEntriesFromDevice(pipelineModel.tables().stream()
+                                                     .filter(t -> !t.isConstantTable())
+                                                     .map(PiTableModel::id)
+                                                     .collect(Collectors.toList()));
+        }
+        final P4RuntimeReadClient.ReadRequest request = client.read(
+                p4DeviceId, pipeconf);
+        final boolean supportDefaultTableEntry = driverBoolProperty(
+                SUPPORT_DEFAULT_TABLE_ENTRY, DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY);
+        request.allTableEntries();
+        if (supportDefaultTableEntry) {
+            request.allDefaultTableEntries();
         }
         final P4RuntimeReadClient.ReadResponse response = request.submitSync();
         if (!response.isSuccess()) {
@@ -243,20 +358,18 @@ public class P4RuntimeFlowRuleProgrammable
                 // non-default entries are returned, by using distinct() we
                 // are robust against that possibility.
                 .distinct();
-        if (tableWildcardReads) {
-            // When doing a wildcard read on all tables, the device might
-            // return table entries of tables not present in the pipeline
-            // model or constant (default) entries that are filtered out.
-            piTableEntries = piTableEntries.filter(te -> {
-                var piTableModel = pipelineModel.table(te.table());
-                    if (piTableModel.isEmpty() ||
-                            piTableModel.get().isConstantTable() ||
-                            (supportDefaultTableEntry && piTableModel.get().constDefaultAction().isPresent())) {
-                        return false;
-                    }
-                return true;
-            });
-        }
+        // When doing a wildcard read on all tables, the device might
+        // return table entries of tables not present in the pipeline
+        // model or constant (default) entries that are filtered out.
+        piTableEntries = piTableEntries.filter(te -> {
+            var piTableModel = pipelineModel.table(te.table());
+                if (piTableModel.isEmpty() ||
+                        piTableModel.get().isConstantTable() ||
+                        (supportDefaultTableEntry && piTableModel.get().constDefaultAction().isPresent())) {
+                    return false;
+                }
+            return true;
+        });
         return piTableEntries.collect(Collectors.toList());
     }
 
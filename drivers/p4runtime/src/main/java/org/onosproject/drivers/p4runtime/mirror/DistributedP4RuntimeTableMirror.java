@@ -16,10 +16,25 @@
 
 package org.onosproject.drivers.p4runtime.mirror;
 
+import com.google.common.collect.Maps;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
+import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.pi.runtime.PiEntityType;
 import org.onosproject.net.pi.runtime.PiTableEntry;
 import org.onosproject.net.pi.runtime.PiTableEntryHandle;
+import org.onosproject.net.pi.service.PiPipeconfWatchdogEvent;
+import org.onosproject.net.pi.service.PiPipeconfWatchdogListener;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Distributed implementation of a P4Runtime table mirror.
@@ -30,12 +45,78 @@ public final class DistributedP4RuntimeTableMirror
                         <PiTableEntryHandle, PiTableEntry>
         implements P4RuntimeTableMirror {
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected DeviceService deviceService;
+
+    // Time of the last full read of table entries, by device. Kept locally,
+    // as table entries are read by the master of the device.
+    private final Map<DeviceId, Long> lastFullAudits = Maps.newConcurrentMap();
+
+    private final DeviceListener deviceListener = new InternalDeviceListener();
+    private final PiPipeconfWatchdogListener pipelineListener =
+            new InternalPipelineListener();
+
     public DistributedP4RuntimeTableMirror() {
         super(PiEntityType.TABLE_ENTRY);
     }
 
+    @Activate
+    @Override
+    public void activate() {
+        super.activate();
+        deviceService.addListener(deviceListener);
+        pipeconfWatchdogService.addListener(pipelineListener);
+    }
+
+    @Deactivate
+    @Override
+    public void deactivate() {
+        pipeconfWatchdogService.removeListener(pipelineListener);
+        deviceService.removeListener(deviceListener);
+        lastFullAudits.clear();
+        super.deactivate();
+    }
+
+    @Override
+    public void fullAuditDone(DeviceId deviceId) {
+        checkNotNull(deviceId);
+        lastFullAudits.put(deviceId, System.currentTimeMillis());
+    }
+
+    @Override
+    public long lastFullAudit(DeviceId deviceId) {
+        checkNotNull(deviceId);
+        return lastFullAudits.getOrDefault(deviceId, 0L);
+    }
+
     @Override
     protected String mapSimpleName() {
         return PiEntityType.TABLE_ENTRY.name().toLowerCase();
     }
+
+    private class InternalDeviceListener implements DeviceListener {
+        @Override
+        public void event(DeviceEvent event) {
+            lastFullAudits.remove(event.subject().id());
+        }
+
+        @Override
+        public boolean isRelevant(DeviceEvent event) {
+            return event.type() == DeviceEvent.Type.DEVICE_REMOVED;
+        }
+    }
+
+    // The tables of a device whose pipeline is unknown may have been wiped,
+    // the next read of its table entries must be a full one.
+    private class InternalPipelineListener implements PiPipeconfWatchdogListener {
+        @Override
+        public void event(PiPipeconfWatchdogEvent event) {
+            lastFullAudits.remove(event.subject());
+        }
+
+        @Override
+        public boolean isRelevant(PiPipeconfWatchdogEvent event) {
+            return event.type() == PiPipeconfWatchdogEvent.Type.PIPELINE_UNKNOWN;
+        }
+    }
 }
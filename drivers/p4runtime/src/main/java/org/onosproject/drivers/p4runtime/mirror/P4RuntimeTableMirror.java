@@ -16,6 +16,7 @@
 
 package org.onosproject.drivers.p4runtime.mirror;
 
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.pi.runtime.PiTableEntry;
 import org.onosproject.net.pi.runtime.PiTableEntryHandle;
 
@@ -24,4 +25,22 @@ import org.onosproject.net.pi.runtime.PiTableEntryHandle;
  */
 public interface P4RuntimeTableMirror
         extends P4RuntimeMirror<PiTableEntryHandle, PiTableEntry> {
+
+    /**
+     * Records that the table entries of the given device have just been read
+     * in full from the device and synchronized with this mirror.
+     *
+     * @param deviceId device ID
+     */
+    void fullAuditDone(DeviceId deviceId);
+
+    /**
+     * Returns the time of the last full read of the table entries of the
+     * given device, or 0 if there was none since the device was added or
+     * its pipeline was last found unknown.
+     *
+     * @param deviceId device ID
+     * @return time in milliseconds since the epoch
+     */
+    long lastFullAudit(DeviceId deviceId);
 }
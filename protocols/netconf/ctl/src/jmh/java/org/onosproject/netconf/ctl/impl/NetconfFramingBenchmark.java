@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the former character-based framing of the NETCONF stream thread,
+ * which validates and strips chunked messages with regular expressions, with
+ * the byte-level message framer, on large get-config replies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetconfFramingBenchmark {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private static final Pattern MSGID_PATTERN = Pattern.compile("message-id=\"(\\d+)\"");
+    private static final Pattern CHUNKED_FRAMING_PATTERN =
+            Pattern.compile("(\\n#([1-9][0-9]*)\\n(.+))+\\n##\\n", Pattern.DOTALL);
+    private static final Pattern CHUNKED_SIZE_PATTERN = Pattern.compile("\\n#([1-9][0-9]*)\\n");
+
+    @Param({"eom", "chunked"})
+    private String framing;
+
+    @Param({"1", "16"})
+    private int megabytes;
+
+    private byte[] stream;
+
+    @Setup
+    public void setup() {
+        byte[] reply = reply(megabytes * 1024 * 1024).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(reply.length + reply.length / 100 + 16);
+        if (framing.equals("eom")) {
+            out.write(reply, 0, reply.length);
+            out.write("]]>]]>".getBytes(StandardCharsets.UTF_8), 0, 6);
+        } else {
+            for (int i = 0; i < reply.length; i += CHUNK_SIZE) {
+                int size = Math.min(CHUNK_SIZE, reply.length - i);
+                byte[] header = ("\n#" + size + "\n").getBytes(StandardCharsets.UTF_8);
+                out.write(header, 0, header.length);
+                out.write(reply, i, size);
+            }
+            out.write("\n##\n".getBytes(StandardCharsets.UTF_8), 0, 4);
+        }
+        stream = out.toByteArray();
+    }
+
+    // Get-config reply shaped after the component inventory of an optical
+    // device, of roughly the given size.
+    private static String reply(int size) {
+        StringBuilder builder = new StringBuilder(size + 1024);
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"42\">")
+                .append("<data><components xmlns=\"http://openconfig.net/yang/platform\">");
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append("<component><name>port-").append(i).append("</name>")
+                    .append("<config><name>port-").append(i).append("</name></config>")
+                    .append("<state><type>PORT</type><oper-status>ACTIVE</oper-status>")
+                    .append("<description>line port ").append(i).append(" ]]&gt;</description></state>")
+                    .append("<optical-channel xmlns=\"http://openconfig.net/yang/terminal-device\">")
+                    .append("<config><frequency>").append(191300000 + 50000 * (i % 96)).append("</frequency>")
+                    .append("<target-output-power>1.00</target-output-power></config></optical-channel>")
+                    .append("</component>\n");
+        }
+        return builder.append("</components></data></rpc-reply>").toString();
+    }
+
+    @Benchmark
+    public void characterFraming(Blackhole blackhole) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(stream), StandardCharsets.UTF_8));
+        NetconfMessageState state = NetconfMessageState.NO_MATCHING_PATTERN;
+        StringBuilder builder = new StringBuilder();
+        int c;
+        do {
+            c = reader.read();
+            state = state.evaluateChar((char) c);
+            builder.append((char) c);
+            if (state == NetconfMessageState.END_PATTERN) {
+                String reply = builder.toString().replace("]]>]]>", "");
+                consume(reply, blackhole);
+                builder.setLength(0);
+            } else if (state == NetconfMessageState.END_CHUNKED_PATTERN) {
+                String reply = builder.toString();
+                if (validateChunkedFraming(reply)) {
+                    reply = reply.replaceAll("\n#\\d+\n", "");
+                    reply = reply.replaceAll("\n##\n", "");
+                    consume(reply, blackhole);
+                }
+                builder.setLength(0);
+            }
+        } while (c != -1);
+    }
+
+    private static void consume(String reply, Blackhole blackhole) {
+        Matcher matcher = MSGID_PATTERN.matcher(reply);
+        blackhole.consume(matcher.find() ? Integer.valueOf(matcher.group(1)) : null);
+        blackhole.consume(reply);
+    }
+
+    // Former chunked framing validation of the stream thread.
+    private static boolean validateChunkedFraming(String reply) {
+        if (!CHUNKED_FRAMING_PATTERN.matcher(reply).matches()) {
+            return false;
+        }
+        Matcher chunkM = CHUNKED_SIZE_PATTERN.matcher(reply);
+        while (chunkM.find()) {
+            int bytes = Integer.parseInt(chunkM.group(1));
+            byte[] chunkdata = reply.substring(chunkM.end()).getBytes(StandardCharsets.UTF_8);
+            if (bytes > chunkdata.length || chunkdata[bytes] != '\n' || chunkdata[bytes + 1] != '#') {
+                return false;
+            }
+            String chunkdataStr = new String(chunkdata, 0, bytes, StandardCharsets.UTF_8);
+            chunkM.region(chunkM.end() + chunkdataStr.length(), reply.length());
+        }
+        return true;
+    }
+
+    @Benchmark
+    public void byteFraming(Blackhole blackhole) throws IOException {
+        NetconfMessageFramer framer = new NetconfMessageFramer();
+        InputStream in = new ByteArrayInputStream(stream);
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int count = in.read(buffer);
+        while (count != -1) {
+            framer.decode(ByteBuffer.wrap(buffer, 0, count), message -> {
+                blackhole.consume(message.messageId());
+                blackhole.consume(message.text());
+            });
+            count = in.read(buffer);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Incremental decoder of the NETCONF messages received from a device, which
+ * supports both the end-of-message framing of NETCONF 1.0 and the chunked
+ * framing of RFC 6242.
+ * <p>
+ * The framing is detected at the start of every message and decoded byte by
+ * byte, with bulk copies of the chunk data, from buffers of any size. Decoded
+ * messages own their bytes and are only converted to text on demand. The
+ * message buffer grows as the bytes arrive, whatever size the device declares
+ * for its chunks, up to a maximum message size.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+final class NetconfMessageFramer {
+
+    private static final Logger log = LoggerFactory.getLogger(NetconfMessageFramer.class);
+
+    private static final byte[] END_OF_MESSAGE = "]]>]]>".getBytes(StandardCharsets.UTF_8);
+    private static final int[] END_OF_MESSAGE_FALLBACK = fallback(END_OF_MESSAGE);
+    private static final int INITIAL_CAPACITY = 4096;
+    // Largest message accepted from a device by default
+    static final int DEFAULT_MAX_MESSAGE_SIZE = 256 * 1024 * 1024;
+
+    private enum State {
+        // Start of a message, before its framing is known
+        START,
+        // Line feed at the start of a message
+        START_LF,
+        // End-of-message framed data
+        END_OF_MESSAGE,
+        // After "\n#", chunk size or end-of-chunks hash
+        CHUNK_HEADER,
+        // Chunk size digits
+        CHUNK_SIZE,
+        // Chunk data
+        CHUNK_DATA,
+        // Line feed after the chunk data
+        CHUNK_LF,
+        // Hash after the chunk data
+        CHUNK_HASH,
+        // Line feed of the end-of-chunks marker
+        END_OF_CHUNKS
+    }
+
+    private final int maxMessageSize;
+    private State state = State.START;
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int matched;
+    private long chunkSize;
+    private long remaining;
+    private int chunks;
+
+    /**
+     * Creates a decoder of messages of up to {@link #DEFAULT_MAX_MESSAGE_SIZE}
+     * bytes.
+     */
+    NetconfMessageFramer() {
+        this(DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    /**
+     * Creates a decoder of messages of up to the given size.
+     *
+     * @param maxMessageSize largest message size in bytes, framing excluded
+     */
+    NetconfMessageFramer(int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * Decodes the given bytes, handing out every message they complete.
+     * Bytes of incomplete messages are retained until the next call.
+     *
+     * @param buffer   bytes received from the device; consumed entirely
+     * @param messages consumer of the decoded messages
+     * @throws IllegalArgumentException if the bytes are not properly framed
+     *                                  or exceed the maximum message size;
+     *                                  the decoder is then reset
+     */
+    void decode(ByteBuffer buffer, Consumer<Message> messages) {
+        while (buffer.hasRemaining()) {
+            switch (state) {
+                case START:
+                    byte first = buffer.get();
+                    if (first == '\n') {
+                        state = State.START_LF;
+                    } else {
+                        state = State.END_OF_MESSAGE;
+                        appendEndOfMessage(first, messages);
+                    }
+                    break;
+                case START_LF:
+                    byte second = buffer.get();
+                    if (second == '#') {
+                        state = State.CHUNK_HEADER;
+                    } else {
+                        state = State.END_OF_MESSAGE;
+                        appendEndOfMessage((byte) '\n', messages);
+                        appendEndOfMessage(second, messages);
+                    }
+                    break;
+                case END_OF_MESSAGE:
+                    decodeEndOfMessage(buffer, messages);
+                    break;
+                case CHUNK_HEADER:
+                    byte header = buffer.get();
+                    if (header == '#' && chunks > 0) {
+                        state = State.END_OF_CHUNKS;
+                    } else if (header >= '1' && header <= '9') {
+                        chunkSize = header - '0';
+                        state = State.CHUNK_SIZE;
+                    } else {
+                        throw badFraming("chunk header");
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    byte digit = buffer.get();
+                    if (digit == '\n') {
+                        if (length + chunkSize > maxMessageSize) {
+                            throw badFraming("message size");
+                        }
+                        remaining = chunkSize;
+                        state = State.CHUNK_DATA;
+                    } else if (digit >= '0' && digit <= '9' && chunkSize <= maxMessageSize) {
+                        chunkSize = chunkSize * 10 + digit - '0';
+                    } else {
+                        throw badFraming("chunk size");
+                    }
+                    break;
+                case CHUNK_DATA:
+                    int count = (int) Math.min(remaining, buffer.remaining());
+                    ensureCapacity(count);
+                    buffer.get(data, length, count);
+                    length += count;
+                    remaining -= count;
+                    if (remaining == 0) {
+                        chunks++;
+                        state = State.CHUNK_LF;
+                    }
+                    break;
+                case CHUNK_LF:
+                    if (buffer.get() != '\n') {
+                        throw badFraming("chunk end");
+                    }
+                    state = State.CHUNK_HASH;
+                    break;
+                case CHUNK_HASH:
+                    if (buffer.get() != '#') {
+                        throw badFraming("chunk end");
+                    }
+                    state = State.CHUNK_HEADER;
+                    break;
+                case END_OF_CHUNKS:
+                    if (buffer.get() != '\n') {
+                        throw badFraming("end of chunks");
+                    }
+                    complete(length, messages);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected state " + state);
+            }
+        }
+    }
+
+    /**
+     * Discards the partially decoded message, if any.
+     */
+    void reset() {
+        state = State.START;
+        data = new byte[INITIAL_CAPACITY];
+        length = 0;
+        matched = 0;
+        chunks = 0;
+    }
+
+    // Copies the bytes of an end-of-message framed message up to the end of
+    // the buffer or of the message, whichever comes first.
+    private void decodeEndOfMessage(ByteBuffer buffer, Consumer<Message> messages) {
+        int start = buffer.position();
+        int end = start;
+        int limit = buffer.limit();
+        while (end < limit && matched < END_OF_MESSAGE.length) {
+            byte b = buffer.get(end++);
+            if (matched != 0 || b == END_OF_MESSAGE[0]) {
+                matched = match(b);
+            }
+        }
+        ensureCapacity(end - start);
+        buffer.get(data, length, end - start);
+        length += end - start;
+        if (matched == END_OF_MESSAGE.length) {
+            complete(length - END_OF_MESSAGE.length, messages);
+        }
+    }
+
+    // Appends a single byte of an end-of-message framed message.
+    private void appendEndOfMessage(byte b, Consumer<Message> messages) {
+        ensureCapacity(1);
+        data[length++] = b;
+        matched = match(b);
+        if (matched == END_OF_MESSAGE.length) {
+            complete(length - END_OF_MESSAGE.length, messages);
+        }
+    }
+
+    // Returns the length of the delimiter prefix matched after the given byte.
+    private int match(byte b) {
+        int k = matched;
+        while (k > 0 && END_OF_MESSAGE[k] != b) {
+            k = END_OF_MESSAGE_FALLBACK[k - 1];
+        }
+        return END_OF_MESSAGE[k] == b ? k + 1 : k;
+    }
+
+    private void complete(int messageLength, Consumer<Message> messages) {
+        Message message = new Message(data, messageLength);
+        reset();
+        messages.accept(message);
+    }
+
+    // Grows the message buffer for the given number of bytes to come, up to
+    // the maximum message size, delimiter included.
+    private void ensureCapacity(int extra) {
+        long required = (long) length + extra;
+        long limit = (long) maxMessageSize + END_OF_MESSAGE.length;
+        if (required > limit) {
+            throw badFraming("message size");
+        }
+        if (required > data.length) {
+            data = Arrays.copyOf(data, (int) Math.min(Math.max(required, 2L * data.length), limit));
+        }
+    }
+
+    private IllegalArgumentException badFraming(String where) {
+        String partial = new String(data, 0, Math.min(length, 256), StandardCharsets.UTF_8);
+        reset();
+        return new IllegalArgumentException("Bad " + where + " framing after " + partial);
+    }
+
+    // Knuth-Morris-Pratt failure function of the given delimiter.
+    private static int[] fallback(byte[] delimiter) {
+        int[] fallback = new int[delimiter.length];
+        int k = 0;
+        for (int i = 1; i < delimiter.length; i++) {
+            while (k > 0 && delimiter[i] != delimiter[k]) {
+                k = fallback[k - 1];
+            }
+            if (delimiter[i] == delimiter[k]) {
+                k++;
+            }
+            fallback[i] = k;
+        }
+        return fallback;
+    }
+
+    /**
+     * NETCONF message received from a device, without its framing.
+     */
+    static final class Message {
+
+        private static final byte[] MESSAGE_ID = "message-id=".getBytes(StandardCharsets.UTF_8);
+
+        private final byte[] data;
+        private final int length;
+        private String root;
+        private int rootStart;
+        private int rootEnd;
+
+        private Message(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        /**
+         * Returns the size of the message in bytes.
+         *
+         * @return message size
+         */
+        int length() {
+            return length;
+        }
+
+        /**
+         * Indicates whether the message is empty.
+         *
+         * @return true if the message has no bytes
+         */
+        boolean isEmpty() {
+            return length == 0;
+        }
+
+        /**
+         * Returns a stream of the message bytes.
+         *
+         * @return message stream
+         */
+        InputStream body() {
+            return new ByteArrayInputStream(data, 0, length);
+        }
+
+        /**
+         * Returns the message decoded as UTF-8 text.
+         *
+         * @return message text
+         */
+        String text() {
+            return new String(data, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the local name of the root element of the message.
+         *
+         * @return root element name; empty if none was found
+         */
+        String rootElement() {
+            if (root == null) {
+                parseRoot();
+            }
+            return root;
+        }
+
+        /**
+         * Returns the message-id attribute of the root element; -1 for hello
+         * messages, which have none.
+         *
+         * @return message identifier, if any
+         */
+        Optional<Integer> messageId() {
+            String element = rootElement();
+            int index = indexOf(MESSAGE_ID, rootStart, rootEnd);
+            if (index >= 0) {
+                int start = index + MESSAGE_ID.length;
+                if (start < rootEnd && (data[start] == '"' || data[start] == '\'')) {
+                    long id = 0;
+                    int i = start + 1;
+                    for (; i < rootEnd && data[i] >= '0' && data[i] <= '9' && id <= Integer.MAX_VALUE; i++) {
+                        id = id * 10 + data[i] - '0';
+                    }
+                    if (i > start + 1 && i < rootEnd && data[i] == data[start] && id <= Integer.MAX_VALUE) {
+                        return Optional.of((int) id);
+                    }
+                    log.warn("Failed to parse message-id from {}",
+                             new String(data, index, rootEnd - index, StandardCharsets.UTF_8));
+                }
+            }
+            if ("hello".equals(element)) {
+                return Optional.of(-1);
+            }
+            return Optional.empty();
+        }
+
+        // Finds the first element start tag, skipping the XML declaration,
+        // processing instructions and comments.
+        private void parseRoot() {
+            root = "";
+            int i = 0;
+            while (i < length) {
+                if (data[i] != '<') {
+                    i++;
+                } else if (i + 1 < length && (data[i + 1] == '?' || data[i + 1] == '!')) {
+                    i = skipMarkup(i);
+                } else {
+                    rootStart = i;
+                    int nameStart = i + 1;
+                    int nameEnd = nameStart;
+                    while (nameEnd < length && !isNameEnd(data[nameEnd])) {
+                        if (data[nameEnd] == ':') {
+                            nameStart = nameEnd + 1;
+                        }
+                        nameEnd++;
+                    }
+                    root = new String(data, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+                    rootEnd = nameEnd;
+                    while (rootEnd < length && data[rootEnd] != '>') {
+                        rootEnd++;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private int skipMarkup(int start) {
+            boolean comment = start + 3 < length && data[start + 2] == '-' && data[start + 3] == '-';
+            int i = start + 2;
+            while (i < length) {
+                if (data[i] == '>' && (!comment || (data[i - 1] == '-' && data[i - 2] == '-'))) {
+                    return i + 1;
+                }
+                i++;
+            }
+            return length;
+        }
+
+        private static boolean isNameEnd(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '>' || b == '/';
+        }
+
+        private int indexOf(byte[] pattern, int start, int end) {
+            for (int i = start; i <= end - pattern.length; i++) {
+                int j = 0;
+                while (j < pattern.length && data[i + j] == pattern[j]) {
+                    j++;
+                }
+                if (j == pattern.length) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
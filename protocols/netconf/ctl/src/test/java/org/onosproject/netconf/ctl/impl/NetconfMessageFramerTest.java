@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the NETCONF message framer.
+ */
+public class NetconfMessageFramerTest {
+
+    private static final String REPLY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"7\">" +
+            "<data>été ]]> ]]]>]>#\n##\n</data></rpc-reply>";
+    private static final String HELLO = "<hello xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">" +
+            "<capabilities/></hello>";
+    private static final String NOTIFICATION = "<!-- comment <rpc-reply message-id=\"3\"> -->" +
+            "<notification xmlns=\"urn:ietf:params:xml:ns:netconf:notification:1.0\">" +
+            "<eventTime>2022-01-01T00:00:00Z</eventTime></notification>";
+
+    private final NetconfMessageFramer framer = new NetconfMessageFramer();
+    private final List<NetconfMessageFramer.Message> messages = new ArrayList<>();
+
+    private static byte[] endOfMessage(String message) {
+        return (message + "]]>]]>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] chunked(String message, int chunkSize) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length * 8 + 64);
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            int size = Math.min(chunkSize, bytes.length - i);
+            buffer.put(("\n#" + size + "\n").getBytes(StandardCharsets.UTF_8));
+            buffer.put(bytes, i, size);
+        }
+        buffer.put("\n##\n".getBytes(StandardCharsets.UTF_8));
+        byte[] framed = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(framed);
+        return framed;
+    }
+
+    // Feeds the bytes in slices of the given size.
+    private void decode(byte[] bytes, int slice) {
+        for (int i = 0; i < bytes.length; i += slice) {
+            framer.decode(ByteBuffer.wrap(bytes, i, Math.min(slice, bytes.length - i)), messages::add);
+        }
+    }
+
+    private List<String> texts() {
+        List<String> texts = new ArrayList<>();
+        messages.forEach(message -> texts.add(message.text()));
+        return texts;
+    }
+
+    /**
+     * Tests end-of-message framing, whole and split at every byte.
+     */
+    @Test
+    public void testEndOfMessage() {
+        for (int slice : new int[]{1, 2, 5, 1024}) {
+            messages.clear();
+            decode(endOfMessage(HELLO), slice);
+            decode(endOfMessage(REPLY), slice);
+            assertThat(texts(), contains(HELLO, REPLY));
+        }
+        assertThat(messages.get(0).messageId(), is(Optional.of(-1)));
+        assertThat(messages.get(1).messageId(), is(Optional.of(7)));
+        assertThat(messages.get(1).rootElement(), is("rpc-reply"));
+    }
+
+    /**
+     * Tests chunked framing, with several chunk sizes and split at every byte.
+     */
+    @Test
+    public void testChunked() throws IOException {
+        for (int chunkSize : new int[]{1, 7, 4096}) {
+            for (int slice : new int[]{1, 3, 4096}) {
+                messages.clear();
+                decode(chunked(REPLY, chunkSize), slice);
+                decode(chunked(NOTIFICATION, chunkSize), slice);
+                assertThat(texts(), contains(REPLY, NOTIFICATION));
+            }
+        }
+        assertThat(messages.get(1).rootElement(), is("notification"));
+        assertThat(messages.get(1).messageId(), is(Optional.empty()));
+        assertThat(new String(ByteStreams.toByteArray(messages.get(0).body()), StandardCharsets.UTF_8),
+                   is(REPLY));
+    }
+
+    /**
+     * Tests that a hello in end-of-message framing may be followed by
+     * chunked messages.
+     */
+    @Test
+    public void testFramingSwitch() {
+        byte[] hello = endOfMessage(HELLO);
+        byte[] reply = chunked(REPLY, 16);
+        byte[] bytes = new byte[hello.length + reply.length];
+        System.arraycopy(hello, 0, bytes, 0, hello.length);
+        System.arraycopy(reply, 0, bytes, hello.length, reply.length);
+        decode(bytes, bytes.length);
+        assertThat(texts(), contains(HELLO, REPLY));
+    }
+
+    /**
+     * Tests that bad chunk sizes are rejected.
+     */
+    @Test
+    public void testBadChunkSize() {
+        try {
+            decode("\n#4\nabcdef\n##\n".getBytes(StandardCharsets.UTF_8), 1);
+            fail("Bad chunk size was accepted");
+        } catch (IllegalArgumentException e) {
+            assertThat(messages, is(empty()));
+        }
+        // The framer recovers at the next message
+        decode(chunked(REPLY, 100), 100);
+        assertThat(texts(), contains(REPLY));
+    }
+
+    /**
+     * Tests that chunked messages without chunks are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoChunks() {
+        decode("\n##\n".getBytes(StandardCharsets.UTF_8), 4);
+    }
+
+    /**
+     * Tests that messages larger than the maximum size are rejected, whatever
+     * the framing, without buffering the declared chunk sizes up front.
+     */
+    @Test
+    public void testMaxMessageSize() {
+        NetconfMessageFramer small = new NetconfMessageFramer(REPLY.getBytes(StandardCharsets.UTF_8).length);
+        try {
+            small.decode(ByteBuffer.wrap("\n#2147483647\n<rpc".getBytes(StandardCharsets.UTF_8)), messages::add);
+            fail("Oversized chunk was accepted");
+        } catch (IllegalArgumentException e) {
+            assertThat(messages, is(empty()));
+        }
+        try {
+            small.decode(ByteBuffer.wrap(endOfMessage(REPLY + " ")), messages::add);
+            fail("Oversized message was accepted");
+        } catch (IllegalArgumentException e) {
+            assertThat(messages, is(empty()));
+        }
+        small.decode(ByteBuffer.wrap(chunked(REPLY, 100)), messages::add);
+        small.decode(ByteBuffer.wrap(endOfMessage(HELLO)), messages::add);
+        assertThat(texts(), contains(REPLY, HELLO));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.ctl.impl;
+
+/**
+ * Character-based state machine detecting the end of NETCONF messages, used
+ * by the test device to frame the requests it receives.
+ */
+enum NetconfMessageState {
+
+    NO_MATCHING_PATTERN {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == ']') {
+                return FIRST_BRACKET;
+            } else if (c == '\n') {
+                return FIRST_LF;
+            } else {
+                return this;
+            }
+        }
+    },
+    FIRST_BRACKET {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == ']') {
+                return SECOND_BRACKET;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    SECOND_BRACKET {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == '>') {
+                return FIRST_BIGGER;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    FIRST_BIGGER {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == ']') {
+                return THIRD_BRACKET;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    THIRD_BRACKET {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == ']') {
+                return ENDING_BIGGER;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    ENDING_BIGGER {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == '>') {
+                return END_PATTERN;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    FIRST_LF {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == '#') {
+                return FIRST_HASH;
+            } else if (c == ']') {
+                return FIRST_BRACKET;
+            } else if (c == '\n') {
+                return this;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    FIRST_HASH {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == '#') {
+                return SECOND_HASH;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    SECOND_HASH {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            if (c == '\n') {
+                return END_CHUNKED_PATTERN;
+            } else {
+                return NO_MATCHING_PATTERN;
+            }
+        }
+    },
+    END_CHUNKED_PATTERN {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            return NO_MATCHING_PATTERN;
+        }
+    },
+    END_PATTERN {
+        @Override
+        NetconfMessageState evaluateChar(char c) {
+            return NO_MATCHING_PATTERN;
+        }
+    };
+
+    abstract NetconfMessageState evaluateChar(char c);
+}
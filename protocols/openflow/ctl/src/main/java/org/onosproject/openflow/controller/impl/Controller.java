@@ -30,6 +30,7 @@ import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.config.NetworkConfigRegistry;
@@ -42,6 +43,8 @@ import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.driver.OpenFlowAgent;
 import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
 import org.projectfloodlight.openflow.protocol.OFDescStatsReply;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
 import org.projectfloodlight.openflow.protocol.OFVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -110,6 +113,7 @@ public class Controller {
     protected int workerThreads = 0;
     protected int[] cfgQueueSizes = {FIRST_QUEUE_SIZE, 0, 0, 0, 0, 0, 0, DEFAULT_QUEUE_SIZE};
     protected int[] cfgBulkSizes = new int[8];
+    protected boolean lockFreeQueues = false;
 
     // Start time of the controller
     protected long systemStartTime;
@@ -135,6 +139,7 @@ public class Controller {
 
     private DriverService driverService;
     private NetworkConfigRegistry netCfgService;
+    private MetricsService metricsService;
 
     public Controller() {
         Arrays.fill(cfgBulkSizes, DEFAULT_BULK_SIZE);
@@ -148,6 +153,45 @@ public class Controller {
         return cfgBulkSizes[queueId];
     }
 
+    /**
+     * Creates a new dispatch queue for received messages.
+     * <p>
+     * When a lock-free queue is full, the oldest queued statistics reply is
+     * evicted to make room for the new message, wherever it stands in the
+     * queue. Other messages, such as flow removed or port status ones, are
+     * never evicted: the new message is rejected if no statistics reply is
+     * queued.
+     *
+     * @param queueId queue identifier
+     * @param onEvict  callback invoked whenever a message is evicted
+     * @return messages queue
+     */
+    public MessagesQueue<OFMessage> newMessagesQueue(int queueId, Runnable onEvict) {
+        if (lockFreeQueues) {
+            return new RingBufferMessagesQueue<>(queueId, cfgQueueSizes[queueId], cfgBulkSizes[queueId],
+                                                 message -> message.getType() == OFType.STATS_REPLY, onEvict);
+        }
+        return new LinkedBlockingMessagesQueue<>(queueId, cfgQueueSizes[queueId], cfgBulkSizes[queueId]);
+    }
+
+    /**
+     * Returns the metrics service used to export per switch metrics.
+     *
+     * @return metrics service; null if metrics are not available
+     */
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
+    /**
+     * Sets the metrics service used to export per switch metrics.
+     *
+     * @param metricsService metrics service
+     */
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
     // **************
     // Initialization
     // **************
@@ -323,6 +367,12 @@ public class Controller {
         setQueueParams(properties, "queueSizeN5", "bulkSizeN5", 5);
         setQueueParams(properties, "queueSizeN6", "bulkSizeN6", 6);
 
+        String lockFree = get(properties, "lockFreeQueues");
+        if (!Strings.isNullOrEmpty(lockFree)) {
+            this.lockFreeQueues = Boolean.parseBoolean(lockFree);
+        }
+        log.debug("Lock-free dispatch queues {}", this.lockFreeQueues ? "enabled" : "disabled");
+
         return oldValue != this.workerThreads; // restart if number of threads has changed
     }
 
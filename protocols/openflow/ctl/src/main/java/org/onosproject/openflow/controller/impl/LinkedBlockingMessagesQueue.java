@@ -18,6 +18,7 @@ package org.onosproject.openflow.controller.impl;
 import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class wrap existing class LinkedBlockingQueue for solution problem
@@ -25,7 +26,7 @@ import java.util.concurrent.LinkedBlockingQueue;
  *
  * @see java.util.concurrent.LinkedBlockingQueue
  */
-public class LinkedBlockingMessagesQueue<T> {
+public class LinkedBlockingMessagesQueue<T> implements MessagesQueue<T> {
 
     /**
      * Identifier of queue.
@@ -47,6 +48,11 @@ public class LinkedBlockingMessagesQueue<T> {
      */
     private BlockingQueue<T> queue;
 
+    /**
+     * Count of rejected messages.
+     */
+    private final LongAdder rejected = new LongAdder();
+
     /**
      * Constructor.
      *
@@ -66,6 +72,7 @@ public class LinkedBlockingMessagesQueue<T> {
      *
      * @return the id of this queue
      */
+    @Override
     public int idQueue() {
         return idQueue;
     }
@@ -75,6 +82,7 @@ public class LinkedBlockingMessagesQueue<T> {
      *
      * @return the size of this queue
      */
+    @Override
     public int sizeOfQueue() {
         return sizeOfQueue;
     }
@@ -95,8 +103,13 @@ public class LinkedBlockingMessagesQueue<T> {
      * @param message  elemet to add
      * @return <code>true</code> if the element was added to this queue, else <code>false</code>
      */
+    @Override
     public boolean offer(T message) {
-        return this.queue.offer(message);
+        if (!this.queue.offer(message)) {
+            rejected.increment();
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -105,6 +118,7 @@ public class LinkedBlockingMessagesQueue<T> {
      * @param messages  the collection to transfer bulk of elements from this queue
      * @return the numbers of elements transfered
      */
+    @Override
     public int drainTo(Collection<? super T> messages) {
         return this.queue.drainTo(messages, this.bulk);
     }
@@ -114,6 +128,7 @@ public class LinkedBlockingMessagesQueue<T> {
      *
      * @return the elements count
      */
+    @Override
     public int size() {
         return this.queue.size();
     }
@@ -123,10 +138,16 @@ public class LinkedBlockingMessagesQueue<T> {
      *
      * @return maximal bulk of messages that will be processed
      */
+    @Override
     public int bulk() {
         return bulk;
     }
 
+    @Override
+    public long rejectedMessages() {
+        return rejected.sum();
+    }
+
     /**
      * Set the maximal bulk of messages for this queue.
      *
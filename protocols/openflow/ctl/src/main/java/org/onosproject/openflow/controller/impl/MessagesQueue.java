@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.Collection;
+
+/**
+ * Bounded queue of received messages waiting to be dispatched.
+ *
+ * @param <T> type of messages
+ */
+public interface MessagesQueue<T> {
+
+    /**
+     * Returns the identifier of this queue.
+     *
+     * @return the id of this queue
+     */
+    int idQueue();
+
+    /**
+     * Return the size of this queue.
+     *
+     * @return the size of this queue
+     */
+    int sizeOfQueue();
+
+    /**
+     * Offer new message to this queue.
+     *
+     * @param message  element to add
+     * @return <code>true</code> if the element was added to this queue, else <code>false</code>
+     */
+    boolean offer(T message);
+
+    /**
+     * Transfer bulk of elements from this queue to the <code>messages</code> collection.
+     *
+     * @param messages  the collection to transfer bulk of elements from this queue
+     * @return the numbers of elements transferred
+     */
+    int drainTo(Collection<? super T> messages);
+
+    /**
+     * Return the elements count in this queue.
+     *
+     * @return the elements count
+     */
+    int size();
+
+    /**
+     * Return the maximal bulk of messages for this queue.
+     *
+     * @return maximal bulk of messages that will be processed
+     */
+    int bulk();
+
+    /**
+     * Returns the number of messages rejected because this queue was full.
+     *
+     * @return the rejected messages count
+     */
+    long rejectedMessages();
+
+    /**
+     * Returns the number of queued messages evicted to make room for newer ones.
+     *
+     * @return the evicted messages count
+     */
+    default long evictedMessages() {
+        return 0;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.collect.ImmutableList;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.openflow.controller.Dpid;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exports the depth and overflow counters of the dispatch queues of a switch
+ * as metrics.
+ */
+final class MessagesQueueMetrics {
+
+    private static final String QUEUE_FEATURE = "dispatchQueue";
+    private static final String QUEUE_DEPTH = "depth";
+    private static final String QUEUE_REJECTED = "rejected";
+    private static final String QUEUE_EVICTED = "evicted";
+
+    private final MetricsService metricsService;
+    private final MetricsComponent component;
+    private final List<MessagesQueue<?>> queues;
+
+    /**
+     * Creates the metrics of the given queues.
+     *
+     * @param metricsService metrics service
+     * @param switchId       identifier of the switch owning the queues
+     * @param queues         dispatch queues
+     */
+    MessagesQueueMetrics(MetricsService metricsService, String switchId,
+                         Collection<? extends MessagesQueue<?>> queues) {
+        this.metricsService = metricsService;
+        this.component = metricsService.registerComponent(switchId);
+        this.queues = ImmutableList.copyOf(queues);
+    }
+
+    /**
+     * Exports the metrics of the given dispatch queues of a switch.
+     *
+     * @param controller controller providing the metrics service
+     * @param dpid       switch datapath identifier
+     * @param queues     dispatch queues
+     * @return queues metrics; null if there are no queues or metrics are not available
+     */
+    static MessagesQueueMetrics register(Controller controller, long dpid,
+                                         Collection<? extends MessagesQueue<?>> queues) {
+        if (queues.isEmpty() || controller.metricsService() == null) {
+            return null;
+        }
+        MessagesQueueMetrics metrics =
+                new MessagesQueueMetrics(controller.metricsService(), Dpid.uri(dpid).toString(), queues);
+        metrics.register();
+        return metrics;
+    }
+
+    /**
+     * Registers the queues metrics.
+     */
+    void register() {
+        queues.forEach(queue -> {
+            MetricsFeature feature = feature(queue);
+            register(feature, QUEUE_DEPTH, queue::size);
+            register(feature, QUEUE_REJECTED, queue::rejectedMessages);
+            register(feature, QUEUE_EVICTED, queue::evictedMessages);
+        });
+    }
+
+    /**
+     * Removes the queues metrics.
+     */
+    void unregister() {
+        queues.forEach(queue -> {
+            MetricsFeature feature = feature(queue);
+            metricsService.removeMetric(component, feature, QUEUE_DEPTH);
+            metricsService.removeMetric(component, feature, QUEUE_REJECTED);
+            metricsService.removeMetric(component, feature, QUEUE_EVICTED);
+        });
+    }
+
+    private MetricsFeature feature(MessagesQueue<?> queue) {
+        return component.registerFeature(QUEUE_FEATURE + queue.idQueue());
+    }
+
+    private <T> void register(MetricsFeature feature, String name, Gauge<T> gauge) {
+        // Replace the gauge left over by a previous connection of the same switch
+        metricsService.removeMetric(component, feature, name);
+        metricsService.registerMetric(component, feature, name, gauge);
+    }
+}
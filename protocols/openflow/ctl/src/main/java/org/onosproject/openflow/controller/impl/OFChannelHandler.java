@@ -192,9 +192,12 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
     private static final int BACKLOG_READ_BUFFER_DEFAULT = 1000;
 
     /**
-     * Map with all LinkedBlockingMessagesQueue queues which contains OFMessages.
+     * Map with all MessagesQueue queues which contains OFMessages.
      */
-    private Map<Integer, LinkedBlockingMessagesQueue<OFMessage>> dispatchQueuesMapProducer = new ConcurrentHashMap<>();
+    private Map<Integer, MessagesQueue<OFMessage>> dispatchQueuesMapProducer = new ConcurrentHashMap<>();
+
+    // Metrics of the dispatch queues; null if metrics are not exported
+    private MessagesQueueMetrics queueMetrics;
 
     /**
      * OFMessage classifiers map.
@@ -272,8 +275,7 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         dispatchBacklog = new LinkedBlockingDeque<>(BACKLOG_READ_BUFFER_DEFAULT);
         for (int i = 0; i < NUM_OF_QUEUES; i++) {
             if (controller.getQueueSize(i) > 0) {
-                dispatchQueuesMapProducer.put(i,
-                        new LinkedBlockingMessagesQueue<>(i, controller.getQueueSize(i), controller.getBulkSize(i)));
+                dispatchQueuesMapProducer.put(i, controller.newMessagesQueue(i, totalCount::decrementAndGet));
             }
             if (i != NUM_OF_QUEUES) {
                 messageClassifiersMapProducer.add(i, new CopyOnWriteArraySet<>());
@@ -656,6 +658,8 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                         return;
                     } else {
                         h.initClassifiers();
+                        h.queueMetrics = MessagesQueueMetrics.register(
+                                h.controller, h.thisdpid, h.dispatchQueuesMapProducer.values());
                     }
                     handlePendingPortStatusMessages(h);
                     h.setState(ACTIVE);
@@ -750,6 +754,8 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                     disconnectDuplicate(h);
                     return;
                 }
+                h.queueMetrics = MessagesQueueMetrics.register(
+                        h.controller, h.thisdpid, h.dispatchQueuesMapProducer.values());
                 handlePendingPortStatusMessages(h);
                 h.setState(ACTIVE);
             }
@@ -1421,6 +1427,9 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                 // switch was a duplicate-dpid, calling the method below would clear
                 // all state for the original switch (with the same dpid),
                 // which we obviously don't want.
+                if (queueMetrics != null) {
+                    queueMetrics.unregister();
+                }
                 runtimeStatusExecutor.submit(() -> {
                     log.info("{}:removal called", getSwitchInfoString());
                     if (sw != null) {
@@ -1671,8 +1680,8 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         int processed;
         do {
             processed = 0;
-            while (processed < queuesSize) {
-                for (LinkedBlockingMessagesQueue<OFMessage> queue :
+            while (processed < Math.min(queuesSize, totalCount.get())) {
+                for (MessagesQueue<OFMessage> queue :
                         dispatchQueuesMapProducer.values()) {
                     processed += queue.drainTo(msgs);
                 }
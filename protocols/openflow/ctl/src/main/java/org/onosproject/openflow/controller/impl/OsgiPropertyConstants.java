@@ -63,6 +63,9 @@ public final class OsgiPropertyConstants {
     public static final String QUEUE_SIZE_N6 = "queueSizeN6";
     public static final String BULK_SIZE_N6 = "bulkSizeN6";
 
+    public static final String LOCK_FREE_QUEUES = "lockFreeQueues";
+    public static final boolean LOCK_FREE_QUEUES_DEFAULT = false;
+
     public static final int DEFAULT_QUEUE_SIZE_DEFAULT = 5000;
     public static final int QUEUE_SIZE_N0_DEFAULT = 1000;
     public static final int BULK_SIZE_DEFAULT = 100;
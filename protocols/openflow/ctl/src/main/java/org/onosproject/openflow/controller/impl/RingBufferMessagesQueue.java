@@ -0,0 +1,291 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lock-free bounded messages queue backed by ring buffers.
+ * <p>
+ * Producers and consumers claim slots of a ring with a single CAS on the
+ * tail and head sequence respectively, so neither offers nor drains ever
+ * take a lock. Each slot carries its own sequence number telling whether it
+ * is free or holds a published message.
+ * <p>
+ * Messages the overflow policy allows to evict are kept in a lane of their
+ * own, and the others in a protected lane. Every message is stamped with
+ * its arrival order, and drains merge both lanes in that order. When the
+ * queue is full, the oldest evictable message, wherever it stands in the
+ * queue, is evicted to make room for the new one; messages of the protected
+ * lane are never evicted. If no evictable message is queued, the new
+ * message is rejected and it is up to the caller to retry or drop it.
+ *
+ * @param <T> type of messages
+ */
+public class RingBufferMessagesQueue<T> implements MessagesQueue<T> {
+
+    private final int idQueue;
+    private final int capacity;
+    private final int bulk;
+    private final Predicate<? super T> evictable;
+    private final Runnable onEvict;
+
+    // Both lanes can hold a full queue; the count bounds their sum
+    private final Ring<T> protectedLane;
+    private final Ring<T> evictableLane;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong order = new AtomicLong();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Creates a ring buffer queue which never evicts queued messages.
+     *
+     * @param idQueue     Identifier of queue
+     * @param sizeOfQueue Size of queue
+     * @param bulk        Maximal bulk of messages that will be processed
+     */
+    public RingBufferMessagesQueue(int idQueue, int sizeOfQueue, int bulk) {
+        this(idQueue, sizeOfQueue, bulk, message -> false, () -> { });
+    }
+
+    /**
+     * Creates a ring buffer queue.
+     *
+     * @param idQueue     Identifier of queue
+     * @param sizeOfQueue Size of queue
+     * @param bulk        Maximal bulk of messages that will be processed
+     * @param evictable   overflow policy telling whether a queued message may be
+     *                    evicted to make room for a new one when the queue is full
+     * @param onEvict     callback invoked whenever a message is evicted, before the
+     *                    new message is added
+     */
+    public RingBufferMessagesQueue(int idQueue, int sizeOfQueue, int bulk,
+                                   Predicate<? super T> evictable, Runnable onEvict) {
+        checkArgument(sizeOfQueue > 0, "Size of queue must be positive");
+        this.idQueue = idQueue;
+        this.capacity = sizeOfQueue;
+        this.bulk = bulk;
+        this.evictable = checkNotNull(evictable);
+        this.onEvict = checkNotNull(onEvict);
+        this.protectedLane = new Ring<>(sizeOfQueue);
+        this.evictableLane = new Ring<>(sizeOfQueue);
+    }
+
+    @Override
+    public int idQueue() {
+        return idQueue;
+    }
+
+    @Override
+    public int sizeOfQueue() {
+        return capacity;
+    }
+
+    @Override
+    public int bulk() {
+        return bulk;
+    }
+
+    @Override
+    public boolean offer(T message) {
+        checkNotNull(message);
+        for (;;) {
+            int size = count.get();
+            if (size < capacity) {
+                if (count.compareAndSet(size, size + 1)) {
+                    break;
+                }
+            } else if (!evictOldest()) {
+                rejected.increment();
+                return false;
+            }
+        }
+        // The reserved room guarantees a free slot in either lane
+        Ring<T> lane = evictable.test(message) ? evictableLane : protectedLane;
+        lane.offer(message, order.getAndIncrement());
+        return true;
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> collection) {
+        int drained = 0;
+        while (drained < bulk) {
+            T message = poll();
+            if (message == null) {
+                break;
+            }
+            collection.add(message);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public long rejectedMessages() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long evictedMessages() {
+        return evicted.sum();
+    }
+
+    /**
+     * Retrieves and removes the oldest message of this queue.
+     *
+     * @return the oldest message or null if the queue is empty
+     */
+    public T poll() {
+        for (;;) {
+            long protectedOrder = protectedLane.headOrder();
+            long evictableOrder = evictableLane.headOrder();
+            if (protectedOrder == Ring.EMPTY && evictableOrder == Ring.EMPTY) {
+                return null;
+            }
+            T message = (protectedOrder <= evictableOrder ? protectedLane : evictableLane).poll();
+            if (message != null) {
+                count.decrementAndGet();
+                return message;
+            }
+            // The head was evicted concurrently; look again
+        }
+    }
+
+    /**
+     * Evicts the oldest message of the evictable lane.
+     *
+     * @return true if a message was evicted, false if no evictable message
+     *         is queued
+     */
+    private boolean evictOldest() {
+        T message = evictableLane.poll();
+        if (message == null) {
+            return false;
+        }
+        count.decrementAndGet();
+        evicted.increment();
+        onEvict.run();
+        return true;
+    }
+
+    // Lock-free ring of messages stamped with their arrival order.
+    private static final class Ring<E> {
+
+        // Order of the head of an empty ring, greater than any other
+        private static final long EMPTY = Long.MAX_VALUE;
+
+        private final int capacity;
+        private final AtomicReferenceArray<E> messages;
+        private final AtomicLongArray orders;
+        private final AtomicLongArray sequences;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        private Ring(int capacity) {
+            this.capacity = capacity;
+            this.messages = new AtomicReferenceArray<>(capacity);
+            this.orders = new AtomicLongArray(capacity);
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /**
+         * Adds the message to the tail of the ring, waiting for the slot to
+         * be released if it is still being consumed.
+         *
+         * @param message message to add
+         * @param order   arrival order of the message
+         */
+        private void offer(E message, long order) {
+            for (;;) {
+                long position = tail.get();
+                int index = index(position);
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        messages.lazySet(index, message);
+                        orders.lazySet(index, order);
+                        sequences.set(index, position + 1);
+                        return;
+                    }
+                } else if (difference < 0) {
+                    // Slot claimed by a consumer but not released yet
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * Returns the arrival order of the oldest message of the ring.
+         *
+         * @return arrival order, or {@link #EMPTY} if the ring is empty
+         */
+        private long headOrder() {
+            long position = head.get();
+            int index = index(position);
+            if (sequences.get(index) != position + 1) {
+                return EMPTY;
+            }
+            return orders.get(index);
+        }
+
+        /**
+         * Retrieves and removes the oldest message of the ring.
+         *
+         * @return the oldest message or null if the ring is empty
+         */
+        private E poll() {
+            for (;;) {
+                long position = head.get();
+                int index = index(position);
+                long difference = sequences.get(index) - (position + 1);
+                if (difference == 0) {
+                    if (head.compareAndSet(position, position + 1)) {
+                        E message = messages.get(index);
+                        messages.lazySet(index, null);
+                        sequences.set(index, position + capacity);
+                        return message;
+                    }
+                } else if (difference < 0) {
+                    // Slot not yet published; the ring is empty
+                    return null;
+                }
+            }
+        }
+
+        private int index(long position) {
+            return (int) (position % capacity);
+        }
+    }
+}
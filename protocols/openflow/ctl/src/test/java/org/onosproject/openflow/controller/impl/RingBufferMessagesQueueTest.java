@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.onosproject.openflow.OfMessageAdapter;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for the lock-free ring buffer messages queue.
+ */
+public class RingBufferMessagesQueueTest {
+
+    private static class MockOfMessage extends OfMessageAdapter {
+        MockOfMessage(OFType type) {
+            super(type);
+        }
+    }
+
+    private final RingBufferMessagesQueue<OFMessage> queue =
+            new RingBufferMessagesQueue<>(0, 3, 2, message -> message.getType() == OFType.STATS_REPLY, () -> { });
+
+    /**
+     * Tests that messages are drained in order and in bulks.
+     */
+    @Test
+    public void testOfferAndDrain() {
+        OFMessage m1 = new MockOfMessage(OFType.PACKET_IN);
+        OFMessage m2 = new MockOfMessage(OFType.PORT_STATUS);
+        OFMessage m3 = new MockOfMessage(OFType.FLOW_REMOVED);
+        assertThat(queue.offer(m1), is(true));
+        assertThat(queue.offer(m2), is(true));
+        assertThat(queue.offer(m3), is(true));
+        assertThat(queue.size(), is(3));
+
+        List<OFMessage> messages = new ArrayList<>();
+        assertThat(queue.drainTo(messages), is(2));
+        assertThat(queue.drainTo(messages), is(1));
+        assertThat(queue.drainTo(messages), is(0));
+        assertThat(messages, contains(m1, m2, m3));
+        assertThat(queue.size(), is(0));
+    }
+
+    /**
+     * Tests that only the oldest statistics replies are evicted when the queue is full.
+     */
+    @Test
+    public void testOverflow() {
+        OFMessage stats = new MockOfMessage(OFType.STATS_REPLY);
+        OFMessage flowRemoved = new MockOfMessage(OFType.FLOW_REMOVED);
+        OFMessage portStatus = new MockOfMessage(OFType.PORT_STATUS);
+        OFMessage packetIn = new MockOfMessage(OFType.PACKET_IN);
+        queue.offer(stats);
+        queue.offer(flowRemoved);
+        queue.offer(portStatus);
+
+        // The oldest message is a statistics reply, make room for the new message
+        assertThat(queue.offer(packetIn), is(true));
+        assertThat(queue.evictedMessages(), is(1L));
+
+        // No statistics reply is left to evict
+        assertThat(queue.offer(new MockOfMessage(OFType.STATS_REPLY)), is(false));
+        assertThat(queue.rejectedMessages(), is(1L));
+
+        List<OFMessage> messages = new ArrayList<>();
+        queue.drainTo(messages);
+        queue.drainTo(messages);
+        assertThat(messages, contains(flowRemoved, portStatus, packetIn));
+    }
+
+    /**
+     * Tests that the oldest statistics reply is evicted from a full queue
+     * whose head is not a statistics reply, and that the other messages
+     * are kept in order.
+     */
+    @Test
+    public void testOverflowBehindHead() {
+        OFMessage flowRemoved = new MockOfMessage(OFType.FLOW_REMOVED);
+        OFMessage stats1 = new MockOfMessage(OFType.STATS_REPLY);
+        OFMessage stats2 = new MockOfMessage(OFType.STATS_REPLY);
+        OFMessage portStatus = new MockOfMessage(OFType.PORT_STATUS);
+        OFMessage stats3 = new MockOfMessage(OFType.STATS_REPLY);
+        queue.offer(flowRemoved);
+        queue.offer(stats1);
+        queue.offer(stats2);
+
+        // The flow removed at the head is kept, the oldest statistics reply is evicted
+        assertThat(queue.offer(portStatus), is(true));
+        assertThat(queue.offer(stats3), is(true));
+        assertThat(queue.evictedMessages(), is(2L));
+        assertThat(queue.rejectedMessages(), is(0L));
+        assertThat(queue.size(), is(3));
+
+        List<OFMessage> messages = new ArrayList<>();
+        queue.drainTo(messages);
+        queue.drainTo(messages);
+        assertThat(messages, contains(flowRemoved, portStatus, stats3));
+    }
+
+    /**
+     * Tests concurrent producers against a single consumer.
+     */
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        int producers = 4;
+        int messagesPerProducer = 10000;
+        RingBufferMessagesQueue<OFMessage> ring = new RingBufferMessagesQueue<>(0, 64, 16);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int i = 0; i < producers; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < messagesPerProducer; j++) {
+                    OFMessage message = new MockOfMessage(OFType.PACKET_IN);
+                    while (!ring.offer(message)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        List<OFMessage> messages = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (messages.size() < producers * messagesPerProducer && System.currentTimeMillis() < deadline) {
+            ring.drainTo(messages);
+        }
+        executor.shutdownNow();
+        assertThat(done.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(messages.size(), is(producers * messagesPerProducer));
+        assertThat(ring.size(), is(0));
+    }
+}
@@ -71,6 +71,7 @@ public final class P4RuntimeClientImpl
     private final PiPipeconfService pipeconfService;
     private final MasterElectionIdStore masterElectionIdStore;
     private final ConcurrentMap<Long, StreamClientImpl> streamClients = Maps.newConcurrentMap();
+    private final WritePipeline writePipeline;
 
     /**
      * Instantiates a new client with the given arguments.
@@ -96,12 +97,15 @@ public final class P4RuntimeClientImpl
         this.pipeconfService = pipeconfService;
         this.masterElectionIdStore = masterElectionIdStore;
         this.pipelineConfigClient = new PipelineConfigClientImpl(this);
+        this.writePipeline = new WritePipeline(controller::writeMaxInFlight);
     }
 
     @Override
     public void shutdown() {
-        streamClients.forEach((p4DeviceId, streamClient) ->
-                                      streamClient.closeSession(p4DeviceId));
+        streamClients.forEach((p4DeviceId, streamClient) -> {
+            streamClient.closeSession(p4DeviceId);
+            streamClient.shutdown();
+        });
         super.shutdown();
     }
 
@@ -249,6 +253,35 @@ public final class P4RuntimeClientImpl
         }
     }
 
+    /**
+     * Returns the pipeline used to execute Write RPCs towards the device.
+     *
+     * @return write pipeline
+     */
+    WritePipeline writePipeline() {
+        return writePipeline;
+    }
+
+    /**
+     * Returns the maximum number of updates to send in the same Write RPC.
+     *
+     * @return maximum number of updates per Write RPC; 0 if no limit
+     */
+    int writeMaxBatchUpdates() {
+        return controller.writeMaxBatchUpdates();
+    }
+
+    /**
+     * Returns the maximum serialized size of the updates to send in the same
+     * Write RPC.
+     *
+     * @return maximum size in bytes of the updates of a Write RPC; 0 if no
+     * limit
+     */
+    int writeMaxBatchBytes() {
+        return controller.writeMaxBatchBytes();
+    }
+
     /**
      * Forces execution of an RPC in a cancellable context with the given
      * timeout (in seconds).
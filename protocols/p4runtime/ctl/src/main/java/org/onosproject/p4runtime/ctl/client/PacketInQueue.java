@@ -0,0 +1,299 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.client;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.Queues;
+import io.grpc.stub.CallStreamObserver;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.net.DeviceId;
+import org.onosproject.p4runtime.ctl.controller.PacketInDropPolicy;
+import org.slf4j.Logger;
+import p4.v1.P4RuntimeOuterClass.PacketIn;
+
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onosproject.p4runtime.ctl.controller.PacketInDropPolicy.BACKPRESSURE;
+import static org.onosproject.p4runtime.ctl.controller.PacketInDropPolicy.DROP_OLDEST;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Bounded queue of the packet-ins received from a device, which are handled
+ * by a shared executor. To be fair with other devices, at most
+ * {@link #DRAIN_BATCH} packet-ins are handled before yielding the executor.
+ * <p>
+ * Inbound flow control of the StreamChannel RPC is managed by this queue:
+ * with the {@link PacketInDropPolicy#BACKPRESSURE} policy, a new message is
+ * requested only when a queued packet-in has been handled, otherwise as soon
+ * as one is received.
+ */
+final class PacketInQueue {
+
+    private static final Logger log = getLogger(PacketInQueue.class);
+
+    static final int DRAIN_BATCH = 64;
+
+    private static final String FEATURE = "packetIn";
+    private static final String RECEIVED = "received";
+    private static final String DROPPED = "dropped";
+    private static final String DEPTH = "depth";
+
+    private final DeviceId deviceId;
+    private final Executor executor;
+    private final Consumer<PacketIn> handler;
+    private final Queue<PacketIn> queue = Queues.newArrayDeque();
+
+    private final MetricsService metricsService;
+    private final MetricsComponent component;
+    private final MetricsFeature feature;
+    private final Meter receivedMeter;
+    private final Meter droppedMeter;
+
+    private CallStreamObserver<?> stream;
+    private int capacity = 1;
+    private PacketInDropPolicy dropPolicy = PacketInDropPolicy.DROP_NEWEST;
+    private boolean draining;
+    private long received;
+    private long dropped;
+
+    /**
+     * Creates a new packet-in queue.
+     *
+     * @param deviceId       device ID
+     * @param executor       executor used to handle packet-ins
+     * @param metricsService metrics service, or null if metrics are not
+     *                       available
+     * @param handler        packet-in handler
+     */
+    PacketInQueue(DeviceId deviceId, Executor executor,
+                  MetricsService metricsService, Consumer<PacketIn> handler) {
+        this.deviceId = checkNotNull(deviceId);
+        this.executor = checkNotNull(executor);
+        this.handler = checkNotNull(handler);
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            this.component = metricsService.registerComponent(deviceId.toString());
+            this.feature = component.registerFeature(FEATURE);
+            this.receivedMeter = metricsService.createMeter(component, feature, RECEIVED);
+            this.droppedMeter = metricsService.createMeter(component, feature, DROPPED);
+            // Replace the gauge left over by a previous client of the same device.
+            metricsService.removeMetric(component, feature, DEPTH);
+            metricsService.registerMetric(component, feature, DEPTH, (Gauge<Integer>) this::size);
+        } else {
+            this.component = null;
+            this.feature = null;
+            this.receivedMeter = null;
+            this.droppedMeter = null;
+        }
+    }
+
+    /**
+     * Binds this queue to a newly started StreamChannel RPC, whose inbound
+     * flow control is manual. The given capacity and drop policy apply until
+     * the next RPC is started.
+     *
+     * @param newStream   request stream of the RPC
+     * @param newCapacity maximum number of queued packet-ins
+     * @param newPolicy   policy applied when the queue is full
+     */
+    void streamStarted(CallStreamObserver<?> newStream, int newCapacity,
+                       PacketInDropPolicy newPolicy) {
+        final int credits;
+        synchronized (this) {
+            stream = newStream;
+            capacity = Math.max(1, newCapacity);
+            dropPolicy = checkNotNull(newPolicy);
+            // One message is requested by gRPC when starting the RPC.
+            credits = dropPolicy == BACKPRESSURE
+                    ? capacity - queue.size() - 1 : 0;
+        }
+        if (credits > 0) {
+            newStream.request(credits);
+        }
+    }
+
+    /**
+     * Unbinds this queue from the current StreamChannel RPC. Packet-ins
+     * already queued are still handled.
+     */
+    synchronized void streamClosed() {
+        stream = null;
+    }
+
+    /**
+     * Signals that a message other than a packet-in was received from the
+     * StreamChannel RPC, and requests the next one.
+     */
+    void messageReceived() {
+        request();
+    }
+
+    /**
+     * Queues the given packet-in, applying the drop policy if the queue is
+     * full.
+     *
+     * @param packetIn packet-in
+     */
+    void offer(PacketIn packetIn) {
+        final boolean wasDropped;
+        final boolean scheduleDrain;
+        final PacketInDropPolicy policy;
+        synchronized (this) {
+            policy = dropPolicy;
+            received++;
+            if (queue.size() < capacity) {
+                queue.add(packetIn);
+                wasDropped = false;
+            } else if (policy == DROP_OLDEST) {
+                queue.poll();
+                queue.add(packetIn);
+                wasDropped = true;
+            } else {
+                // Also with backpressure, if more messages than the queue
+                // capacity were requested, e.g. because of a new RPC.
+                wasDropped = true;
+            }
+            if (wasDropped) {
+                dropped++;
+            }
+            scheduleDrain = !draining && !queue.isEmpty();
+            draining = draining || scheduleDrain;
+        }
+        if (receivedMeter != null) {
+            receivedMeter.mark();
+        }
+        if (wasDropped) {
+            if (droppedMeter != null) {
+                droppedMeter.mark();
+            }
+            log.debug("Packet-in queue of {} is full, dropped {} packet-in",
+                      deviceId, policy == DROP_OLDEST ? "oldest" : "newest");
+        }
+        // With backpressure, the next message is requested only once the
+        // queued one has been handled, unless this one was dropped.
+        if (policy != BACKPRESSURE || wasDropped) {
+            request();
+        }
+        if (scheduleDrain) {
+            scheduleDrain();
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            final PacketIn packetIn;
+            final boolean backpressure;
+            synchronized (this) {
+                packetIn = queue.poll();
+                if (packetIn == null) {
+                    draining = false;
+                    return;
+                }
+                backpressure = dropPolicy == BACKPRESSURE;
+            }
+            try {
+                handler.accept(packetIn);
+            } catch (Throwable ex) {
+                log.error("Exception while handling packet-in from {}", deviceId, ex);
+            }
+            if (backpressure) {
+                request();
+            }
+        }
+        synchronized (this) {
+            if (queue.isEmpty()) {
+                draining = false;
+                return;
+            }
+        }
+        // Yield to the packet-ins of other devices.
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // The executor is shut down, queued packet-ins can no longer be
+            // handled.
+            final int discarded;
+            synchronized (this) {
+                discarded = queue.size();
+                dropped += discarded;
+                queue.clear();
+                draining = false;
+            }
+            log.debug("Packet-in executor is shut down, discarded {} packet-ins from {}",
+                      discarded, deviceId);
+        }
+    }
+
+    private void request() {
+        final CallStreamObserver<?> currentStream;
+        synchronized (this) {
+            currentStream = stream;
+        }
+        if (currentStream != null) {
+            currentStream.request(1);
+        }
+    }
+
+    /**
+     * Returns the number of queued packet-ins.
+     *
+     * @return queue size
+     */
+    synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of packet-ins received.
+     *
+     * @return received packet-ins count
+     */
+    synchronized long received() {
+        return received;
+    }
+
+    /**
+     * Returns the number of packet-ins dropped because the queue was full.
+     *
+     * @return dropped packet-ins count
+     */
+    synchronized long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Removes the metrics of this queue.
+     */
+    void shutdown() {
+        if (metricsService != null) {
+            metricsService.removeMetric(component, feature, RECEIVED);
+            metricsService.removeMetric(component, feature, DROPPED);
+            metricsService.removeMetric(component, feature, DEPTH);
+        }
+    }
+}
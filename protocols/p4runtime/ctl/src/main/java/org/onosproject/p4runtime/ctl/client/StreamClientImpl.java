@@ -20,7 +20,7 @@ import com.google.protobuf.TextFormat;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.ClientCallStreamObserver;
-import io.grpc.stub.StreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import org.onlab.util.SharedScheduledExecutors;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceAgentEvent;
@@ -74,6 +74,7 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
 
     private final StreamChannelManager streamChannelManager = new StreamChannelManager();
     private final MasterElectionIdListener masterElectionIdListener = new InternalMasterElectionIdListener();
+    private final PacketInQueue packetInQueue;
 
     private final AtomicBoolean isMaster = new AtomicBoolean(false);
     private final AtomicBoolean requestedToBeMaster = new AtomicBoolean(false);
@@ -96,6 +97,9 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
         this.pipeconfService = pipeconfService;
         this.masterElectionIdStore = masterElectionIdStore;
         this.controller = controller;
+        this.packetInQueue = new PacketInQueue(
+                deviceId, controller.packetInExecutor(),
+                controller.metricsService(), this::handlePacketIn);
     }
 
     @Override
@@ -201,6 +205,14 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
         }
     }
 
+    /**
+     * Releases the resources of this client that outlive the session, such as
+     * packet-in metrics.
+     */
+    void shutdown() {
+        packetInQueue.shutdown();
+    }
+
     @Override
     public boolean isMaster(long p4DeviceId) {
         checkArgument(this.p4DeviceId == p4DeviceId);
@@ -291,7 +303,7 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
             log.warn("Unable to process packet-int: {}", e.getMessage());
             return;
         }
-        controller.postEvent(new P4RuntimeEvent(
+        controller.processPacketIn(new P4RuntimeEvent(
                 P4RuntimeEvent.Type.PACKET_IN,
                 new PacketInEvent(deviceId, pktOperation)));
     }
@@ -360,8 +372,8 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
     private final class StreamChannelManager {
 
         private final AtomicBoolean open = new AtomicBoolean(false);
-        private final StreamObserver<StreamMessageResponse> responseObserver =
-                new InternalStreamResponseObserver(this);
+        private final ClientResponseObserver<StreamMessageRequest, StreamMessageResponse>
+                responseObserver = new InternalStreamResponseObserver(this);
         private ClientCallStreamObserver<StreamMessageRequest> requestObserver;
 
         void send(StreamMessageRequest value) {
@@ -383,12 +395,18 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
                                 (ClientCallStreamObserver<StreamMessageRequest>)
                                         s.streamChannel(responseObserver)
                 );
+                if (requestObserver != null) {
+                    packetInQueue.streamStarted(requestObserver,
+                                                controller.packetInQueueSize(),
+                                                controller.packetInDropPolicy());
+                }
             }
         }
 
         void teardown() {
             synchronized (this) {
                 signalClosed();
+                packetInQueue.streamClosed();
                 if (requestObserver != null) {
                     requestObserver.onCompleted();
                     requestObserver.cancel("Completed", null);
@@ -419,9 +437,10 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
 
     /**
      * Handles messages received from the device on the StreamChannel RPC.
+     * Inbound flow control is delegated to the packet-in queue.
      */
     private final class InternalStreamResponseObserver
-            implements StreamObserver<StreamMessageResponse> {
+            implements ClientResponseObserver<StreamMessageRequest, StreamMessageResponse> {
 
         private final StreamChannelManager streamChannelManager;
 
@@ -430,8 +449,17 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
             this.streamChannelManager = streamChannelManager;
         }
 
+        @Override
+        public void beforeStart(ClientCallStreamObserver<StreamMessageRequest> requestStream) {
+            requestStream.disableAutoInboundFlowControl();
+        }
+
         @Override
         public void onNext(StreamMessageResponse message) {
+            if (message.getUpdateCase() != StreamMessageResponse.UpdateCase.PACKET) {
+                // Packet-ins request the next message once queued or handled.
+                packetInQueue.messageReceived();
+            }
             try {
                 if (log.isTraceEnabled()) {
                     log.trace("Received {} from {}: {}",
@@ -440,7 +468,7 @@ public final class StreamClientImpl implements P4RuntimeStreamClient {
                 }
                 switch (message.getUpdateCase()) {
                     case PACKET:
-                        handlePacketIn(message.getPacket());
+                        packetInQueue.offer(message.getPacket());
                         return;
                     case ARBITRATION:
                         handleArbitrationUpdate(message.getArbitration());
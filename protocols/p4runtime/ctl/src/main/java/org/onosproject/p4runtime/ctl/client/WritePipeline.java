@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.client;
+
+import com.google.common.collect.Queues;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Pipeline of Write RPCs towards the same device, which allows up to a
+ * maximum number of RPCs to be in flight at the same time. RPCs exceeding the
+ * limit are queued and started, in submission order, as soon as one of the
+ * in-flight ones completes.
+ */
+final class WritePipeline {
+
+    private final IntSupplier maxInFlight;
+    private final Queue<Runnable> queue = Queues.newArrayDeque();
+    private int inFlight;
+
+    /**
+     * Creates a new pipeline.
+     *
+     * @param maxInFlight supplier of the maximum number of RPCs in flight, a
+     *                    non-positive value means unbounded
+     */
+    WritePipeline(IntSupplier maxInFlight) {
+        this.maxInFlight = checkNotNull(maxInFlight);
+    }
+
+    /**
+     * Starts the given RPC, or queues it if the maximum number of in-flight
+     * RPCs has been reached.
+     *
+     * @param rpc RPC starter, returning a future completed with the RPC
+     * @param <T> RPC result type
+     * @return future completed with the RPC result
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> rpc) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Runnable task = () -> start(rpc, future);
+        final boolean startNow;
+        synchronized (this) {
+            final int max = maxInFlight.getAsInt();
+            startNow = max <= 0 || inFlight < max;
+            if (startNow) {
+                inFlight++;
+            } else {
+                queue.add(task);
+            }
+        }
+        if (startNow) {
+            task.run();
+        }
+        return future;
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> rpc,
+                           CompletableFuture<T> future) {
+        final CompletableFuture<T> rpcFuture;
+        try {
+            rpcFuture = rpc.get();
+        } catch (RuntimeException e) {
+            release();
+            future.completeExceptionally(e);
+            return;
+        }
+        rpcFuture.whenComplete((result, error) -> {
+            release();
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        });
+    }
+
+    private void release() {
+        final Runnable next;
+        synchronized (this) {
+            next = queue.poll();
+            if (next == null) {
+                inFlight--;
+            }
+        }
+        // The permit is handed over to the next queued RPC, if any.
+        if (next != null) {
+            next.run();
+        }
+    }
+}
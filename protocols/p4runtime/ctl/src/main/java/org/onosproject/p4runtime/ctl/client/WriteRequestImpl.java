@@ -16,12 +16,17 @@
 
 package org.onosproject.p4runtime.ctl.client;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.google.protobuf.TextFormat;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.onosproject.net.pi.model.PiPipeconf;
 import org.onosproject.net.pi.runtime.PiEntity;
+import org.onosproject.net.pi.runtime.PiEntityType;
 import org.onosproject.net.pi.runtime.PiHandle;
 import org.onosproject.p4runtime.api.P4RuntimeWriteClient;
 import org.onosproject.p4runtime.ctl.codec.CodecException;
@@ -29,6 +34,9 @@ import org.slf4j.Logger;
 import p4.v1.P4RuntimeOuterClass;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -36,7 +44,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
 import static java.util.concurrent.CompletableFuture.completedFuture;
-import static org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateStatus.PENDING;
 import static org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl.SHORT_TIMEOUT_SECONDS;
 import static org.onosproject.p4runtime.ctl.codec.Codecs.CODECS;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -61,6 +68,8 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
     // entities to this request. The status of each entity response will be
     // set once we receive a response from the device.
     private final WriteResponseImpl.Builder responseBuilder;
+    // Handles of the updates in the request message, in the same order.
+    private final List<PiHandle> pendingHandles = Lists.newArrayList();
 
     WriteRequestImpl(P4RuntimeClientImpl client, long p4DeviceId, PiPipeconf pipeconf) {
         this.client = checkNotNull(client);
@@ -161,18 +170,118 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
     public CompletableFuture<P4RuntimeWriteClient.WriteResponse> submit() {
         checkState(!submitted.getAndSet(true),
                    "Request has already been submitted, cannot submit again");
-        final P4RuntimeOuterClass.WriteRequest writeRequest = requestMsg
-                .setElectionId(client.lastUsedElectionId(
-                        requestMsg.getDeviceId()))
-                .build();
+        requestMsg.setElectionId(client.lastUsedElectionId(requestMsg.getDeviceId()));
         log.debug("Sending write request to {} with {} updates...",
-                  client.deviceId(), writeRequest.getUpdatesCount());
-        if (writeRequest.getUpdatesCount() == 0) {
+                  client.deviceId(), requestMsg.getUpdatesCount());
+        if (requestMsg.getUpdatesCount() == 0) {
             // No need to ask the server.
             return completedFuture(responseBuilder.buildAsIs());
         }
-        final CompletableFuture<P4RuntimeWriteClient.WriteResponse> future =
-                new CompletableFuture<>();
+        final List<Batch> batches = batches(
+                client.writeMaxBatchUpdates(), client.writeMaxBatchBytes());
+        if (batches.size() == 1) {
+            return client.writePipeline()
+                    .submit(() -> write(requestMsg.build(), 0))
+                    .thenApply(v -> responseBuilder.buildAsIs());
+        }
+        log.debug("Splitting write request to {} in {} batches...",
+                  client.deviceId(), batches.size());
+        // Consecutive batches with the same kind of updates are written
+        // concurrently. A batch with another kind of updates, or updating an
+        // entity already updated by one of those batches, waits for all
+        // previous batches to complete, so that entities are written after
+        // the ones they refer to (e.g. groups after their members).
+        final List<CompletableFuture<Void>> futures = Lists.newArrayList();
+        CompletableFuture<Void> barrier = completedFuture(null);
+        for (Batch batch : batches) {
+            if (batch.barrier) {
+                barrier = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+            }
+            futures.add(barrier.thenCompose(v -> client.writePipeline().submit(
+                    () -> write(batch.build(), batch.offset))));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> responseBuilder.buildAsIs());
+    }
+
+    /**
+     * Splits the updates of this request in batches, each one with at most
+     * the given number of updates and serialized size of updates.
+     *
+     * @param maxUpdates maximum number of updates per batch, 0 if no limit
+     * @param maxBytes   maximum size in bytes of the updates of a batch, 0 if
+     *                   no limit
+     * @return batches
+     */
+    private List<Batch> batches(int maxUpdates, int maxBytes) {
+        final int count = requestMsg.getUpdatesCount();
+        if ((maxUpdates <= 0 || count <= maxUpdates) && maxBytes <= 0) {
+            return ImmutableList.of(new Batch(0, count, false));
+        }
+        final List<Batch> batches = Lists.newArrayList();
+        // Handles and kind of updates of the batches since the last barrier;
+        // the kind is null if the updates are of different kinds.
+        final Set<PiHandle> previousHandles = Sets.newHashSet();
+        Map.Entry<PiEntityType, P4RuntimeOuterClass.Update.Type> previousKind = null;
+        final Set<PiHandle> batchHandles = Sets.newHashSet();
+        Map.Entry<PiEntityType, P4RuntimeOuterClass.Update.Type> batchKind = null;
+        boolean dependent = false;
+        int offset = 0;
+        int bytes = 0;
+        for (int i = 0; i < count; i++) {
+            final int size = requestMsg.getUpdates(i).getSerializedSize();
+            final boolean full = (maxUpdates > 0 && i - offset == maxUpdates)
+                    || (maxBytes > 0 && bytes + size > maxBytes);
+            if (full && i > offset) {
+                final boolean barrier = !batches.isEmpty()
+                        && isBarrier(dependent, previousKind, batchKind);
+                batches.add(new Batch(offset, i - offset, barrier));
+                if (barrier) {
+                    previousHandles.clear();
+                }
+                previousHandles.addAll(batchHandles);
+                previousKind = batchKind;
+                batchHandles.clear();
+                batchKind = null;
+                dependent = false;
+                offset = i;
+                bytes = 0;
+            }
+            final PiHandle handle = pendingHandles.get(i);
+            final Map.Entry<PiEntityType, P4RuntimeOuterClass.Update.Type> kind = Maps.immutableEntry(
+                    handle.entityType(), requestMsg.getUpdates(i).getType());
+            if (i == offset) {
+                batchKind = kind;
+            } else if (batchKind != null && !batchKind.equals(kind)) {
+                batchKind = null;
+            }
+            dependent |= previousHandles.contains(handle);
+            batchHandles.add(handle);
+            bytes += size;
+        }
+        batches.add(new Batch(offset, count - offset,
+                              !batches.isEmpty() && isBarrier(dependent, previousKind, batchKind)));
+        return batches;
+    }
+
+    // A batch waits for the previous ones if it updates the same entities or
+    // other kinds of updates than the batches since the last barrier.
+    private static boolean isBarrier(boolean dependent, Object previousKind, Object batchKind) {
+        return dependent || previousKind == null || !previousKind.equals(batchKind);
+    }
+
+    /**
+     * Executes the Write RPC for the given request, whose updates start at
+     * the given offset of this request.
+     *
+     * @param writeRequest P4Runtime write request
+     * @param offset       index of the first update of the request
+     * @return future completed when the response has been processed
+     */
+    private CompletableFuture<Void> write(
+            P4RuntimeOuterClass.WriteRequest writeRequest, int offset) {
+        final int count = writeRequest.getUpdatesCount();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
         final StreamObserver<P4RuntimeOuterClass.WriteResponse> observer =
                 new StreamObserver<P4RuntimeOuterClass.WriteResponse>() {
                     @Override
@@ -181,21 +290,20 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
                             log.warn("Received invalid WriteResponse message from {}: {}",
                                      client.deviceId(), TextFormat.shortDebugString(value));
                             // Leave all entity responses in pending state.
-                            future.complete(responseBuilder.buildAsIs());
                         } else {
                             log.debug("Received write response from {}...",
                                       client.deviceId());
                             // All good, all entities written successfully.
-                            future.complete(responseBuilder.setSuccessAllAndBuild());
+                            responseBuilder.setSuccess(offset, count);
                         }
+                        future.complete(null);
                     }
 
                     @Override
                     public void onError(Throwable t) {
-                        final WriteResponseImpl response = responseBuilder
-                                .setErrorsAndBuild(t);
+                        responseBuilder.setErrors(t, offset, count);
                         if (Status.fromThrowable(t).getCode() != Status.Code.UNKNOWN
-                                || !response.status(PENDING).isEmpty()) {
+                                || responseBuilder.pendingCount(offset, count) > 0) {
                             // If UNKNOWN and no entities are in PENDING state,
                             // it means we have processed the response error
                             // details and a log message will be produced for
@@ -203,7 +311,7 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
                             // SRE. Otherwise, log a generic WRITE error.
                             client.handleRpcError(t, "WRITE");
                         }
-                        future.complete(response);
+                        future.complete(null);
                     }
 
                     @Override
@@ -237,6 +345,7 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
                     .setType(p4UpdateType)
                     .build();
             requestMsg.addUpdates(updateMsg);
+            pendingHandles.add(handle);
             responseBuilder.addPendingResponse(handle, piEntity, updateType);
             if (log.isTraceEnabled()) {
                 log.trace("Adding {} update to write request for {}: {}", updateType, handle.deviceId(),
@@ -249,4 +358,30 @@ final class WriteRequestImpl implements P4RuntimeWriteClient.WriteRequest {
                     P4RuntimeWriteClient.EntityUpdateStatus.CODEC_ERROR);
         }
     }
+
+    /**
+     * Range of updates of this request sent in the same Write RPC.
+     */
+    private final class Batch {
+
+        private final int offset;
+        private final int count;
+        // True if the batch must wait for all previous batches.
+        private final boolean barrier;
+
+        private Batch(int offset, int count, boolean barrier) {
+            this.offset = offset;
+            this.count = count;
+            this.barrier = barrier;
+        }
+
+        private P4RuntimeOuterClass.WriteRequest build() {
+            return P4RuntimeOuterClass.WriteRequest.newBuilder()
+                    .setDeviceId(requestMsg.getDeviceId())
+                    .setElectionId(requestMsg.getElectionId())
+                    .setAtomicity(requestMsg.getAtomicity())
+                    .addAllUpdates(requestMsg.getUpdatesList().subList(offset, offset + count))
+                    .build();
+        }
+    }
 }
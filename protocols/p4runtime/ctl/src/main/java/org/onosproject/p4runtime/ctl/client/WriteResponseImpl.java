@@ -185,14 +185,75 @@ final class WriteResponseImpl implements P4RuntimeWriteClient.WriteResponse {
 
         WriteResponseImpl setFailAllAndBuild(Throwable throwable) {
             synchronized (this) {
-                pendingResponses.values().forEach(r -> r.setFailure(throwable));
+                setFailAll(throwable, 0, pendingResponses.size());
                 return buildAsIs();
             }
         }
 
         WriteResponseImpl setErrorsAndBuild(Throwable throwable) {
             synchronized (this) {
-                return doSetErrorsAndBuild(throwable);
+                doSetErrors(throwable, 0, pendingResponses.size());
+                return buildAsIs();
+            }
+        }
+
+        /**
+         * Sets as successful the given range of pending responses, i.e. those
+         * of the updates sent in the same Write RPC.
+         *
+         * @param offset index of the first pending response
+         * @param count  number of pending responses
+         */
+        void setSuccess(int offset, int count) {
+            synchronized (this) {
+                for (int i = offset; i < offset + count; i++) {
+                    setSuccess(i);
+                }
+            }
+        }
+
+        /**
+         * Sets the errors returned by the server for the given range of
+         * pending responses, i.e. those of the updates sent in the same Write
+         * RPC.
+         *
+         * @param throwable error returned by the server
+         * @param offset    index of the first pending response
+         * @param count     number of pending responses
+         */
+        void setErrors(Throwable throwable, int offset, int count) {
+            synchronized (this) {
+                doSetErrors(throwable, offset, count);
+            }
+        }
+
+        /**
+         * Returns the number of responses still in status PENDING in the
+         * given range.
+         *
+         * @param offset index of the first pending response
+         * @param count  number of pending responses
+         * @return number of responses in status PENDING
+         */
+        int pendingCount(int offset, int count) {
+            synchronized (this) {
+                int pending = 0;
+                for (int i = offset; i < offset + count; i++) {
+                    final EntityUpdateResponseImpl resp = pendingResponses.get(i);
+                    if (resp != null && resp.status == EntityUpdateStatus.PENDING) {
+                        pending++;
+                    }
+                }
+                return pending;
+            }
+        }
+
+        private void setFailAll(Throwable throwable, int offset, int count) {
+            for (int i = offset; i < offset + count; i++) {
+                final EntityUpdateResponseImpl resp = pendingResponses.get(i);
+                if (resp != null && resp.status == EntityUpdateStatus.PENDING) {
+                    resp.setFailure(throwable);
+                }
             }
         }
 
@@ -232,45 +293,47 @@ final class WriteResponseImpl implements P4RuntimeWriteClient.WriteResponse {
             }
         }
 
-        private WriteResponseImpl doSetErrorsAndBuild(Throwable throwable) {
+        private void doSetErrors(Throwable throwable, int offset, int count) {
             if (!(throwable instanceof StatusRuntimeException)) {
-                // Leave all entity responses in pending state.
-                return setFailAllAndBuild(throwable);
+                setFailAll(throwable, offset, count);
+                return;
             }
             final StatusRuntimeException sre = (StatusRuntimeException) throwable;
             if (sre.getStatus().getCode() != Status.Code.UNKNOWN) {
                 // Error trailers expected only if status is UNKNOWN.
-                return setFailAllAndBuild(throwable);
+                setFailAll(throwable, offset, count);
+                return;
             }
             // Extract error details.
             if (!sre.getTrailers().containsKey(STATUS_DETAILS_KEY)) {
                 log.warn("Cannot parse write error details from {}, " +
                                  "missing status trailers in StatusRuntimeException",
                          deviceId);
-                return setFailAllAndBuild(throwable);
+                setFailAll(throwable, offset, count);
+                return;
             }
             com.google.rpc.Status status = sre.getTrailers().get(STATUS_DETAILS_KEY);
             if (status == null) {
                 log.warn("Cannot parse write error details from {}, " +
                                  "found NULL status trailers in StatusRuntimeException",
                          deviceId);
-                return setFailAllAndBuild(throwable);
+                setFailAll(throwable, offset, count);
+                return;
             }
-            final boolean reconcilable = status.getDetailsList().size() == pendingResponses.size();
+            final boolean reconcilable = status.getDetailsList().size() == count;
             // We expect one error for each entity...
             if (!reconcilable) {
                 log.warn("Unable to reconcile write error details from {}, " +
                                  "sent {} updates, but server returned {} errors",
-                         deviceId, pendingResponses.size(), status.getDetailsList().size());
+                         deviceId, count, status.getDetailsList().size());
             }
             // ...in the same order as in the request.
-            int index = 0;
+            int index = offset;
             for (Any any : status.getDetailsList()) {
                 // Set response entities only if reconcilable, otherwise log.
                 unpackP4Error(index, any, reconcilable);
                 index += 1;
             }
-            return buildAsIs();
         }
 
         private void unpackP4Error(int index, Any any, boolean reconcilable) {
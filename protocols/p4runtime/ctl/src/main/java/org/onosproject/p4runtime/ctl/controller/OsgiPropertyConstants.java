@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.controller;
+
+/**
+ * Constants for default values of configurable properties.
+ */
+public final class OsgiPropertyConstants {
+
+    private OsgiPropertyConstants() {}
+
+    public static final String WRITE_MAX_IN_FLIGHT = "writeMaxInFlight";
+    public static final int WRITE_MAX_IN_FLIGHT_DEFAULT = 4;
+
+    public static final String WRITE_MAX_BATCH_UPDATES = "writeMaxBatchUpdates";
+    public static final int WRITE_MAX_BATCH_UPDATES_DEFAULT = 1000;
+
+    public static final String WRITE_MAX_BATCH_BYTES = "writeMaxBatchBytes";
+    public static final int WRITE_MAX_BATCH_BYTES_DEFAULT = 2 * 1024 * 1024;
+
+    public static final String PACKET_IN_QUEUE_SIZE = "packetInQueueSize";
+    public static final int PACKET_IN_QUEUE_SIZE_DEFAULT = 1024;
+
+    public static final String PACKET_IN_DROP_POLICY = "packetInDropPolicy";
+    public static final String PACKET_IN_DROP_POLICY_DEFAULT = "DROP_NEWEST";
+
+}
@@ -17,6 +17,9 @@
 package org.onosproject.p4runtime.ctl.controller;
 
 import io.grpc.ManagedChannel;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.grpc.ctl.AbstractGrpcClientController;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.pi.service.PiPipeconfService;
@@ -25,29 +28,168 @@ import org.onosproject.p4runtime.api.P4RuntimeController;
 import org.onosproject.p4runtime.api.P4RuntimeEvent;
 import org.onosproject.p4runtime.api.P4RuntimeEventListener;
 import org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.slf4j.Logger;
+
+import java.util.Dictionary;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.PACKET_IN_DROP_POLICY;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.PACKET_IN_DROP_POLICY_DEFAULT;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.PACKET_IN_QUEUE_SIZE;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.PACKET_IN_QUEUE_SIZE_DEFAULT;
+
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_BATCH_BYTES;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_BATCH_BYTES_DEFAULT;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_BATCH_UPDATES;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_BATCH_UPDATES_DEFAULT;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_IN_FLIGHT;
+import static org.onosproject.p4runtime.ctl.controller.OsgiPropertyConstants.WRITE_MAX_IN_FLIGHT_DEFAULT;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * P4Runtime controller implementation.
  */
-@Component(immediate = true, service = P4RuntimeController.class)
+@Component(immediate = true,
+        service = P4RuntimeController.class,
+        property = {
+                WRITE_MAX_IN_FLIGHT + ":Integer=" + WRITE_MAX_IN_FLIGHT_DEFAULT,
+                WRITE_MAX_BATCH_UPDATES + ":Integer=" + WRITE_MAX_BATCH_UPDATES_DEFAULT,
+                WRITE_MAX_BATCH_BYTES + ":Integer=" + WRITE_MAX_BATCH_BYTES_DEFAULT,
+                PACKET_IN_QUEUE_SIZE + ":Integer=" + PACKET_IN_QUEUE_SIZE_DEFAULT,
+                PACKET_IN_DROP_POLICY + "=" + PACKET_IN_DROP_POLICY_DEFAULT,
+        })
 public class P4RuntimeControllerImpl
         extends AbstractGrpcClientController
         <P4RuntimeClient, P4RuntimeEvent, P4RuntimeEventListener>
         implements P4RuntimeController {
 
+    private static final int PACKET_IN_WORKERS = 4;
+
+    private final Logger log = getLogger(getClass());
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    private ComponentConfigService componentConfigService;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private PiPipeconfService pipeconfService;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private MasterElectionIdStore masterElectionIdStore;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    private MetricsService metricsService;
+
+    /**
+     * Maximum number of Write RPCs in flight per device; 0 means unbounded.
+     */
+    private int writeMaxInFlight = WRITE_MAX_IN_FLIGHT_DEFAULT;
+
+    /**
+     * Maximum number of updates per Write RPC; 0 means no limit.
+     */
+    private int writeMaxBatchUpdates = WRITE_MAX_BATCH_UPDATES_DEFAULT;
+
+    /**
+     * Maximum size in bytes of the updates of a Write RPC; 0 means no limit.
+     */
+    private int writeMaxBatchBytes = WRITE_MAX_BATCH_BYTES_DEFAULT;
+
+    /**
+     * Maximum number of packet-ins queued per device.
+     */
+    private int packetInQueueSize = PACKET_IN_QUEUE_SIZE_DEFAULT;
+
+    /**
+     * Policy applied when the packet-in queue of a device is full:
+     * DROP_NEWEST, DROP_OLDEST or BACKPRESSURE.
+     */
+    private PacketInDropPolicy packetInDropPolicy =
+            PacketInDropPolicy.valueOf(PACKET_IN_DROP_POLICY_DEFAULT);
+
+    private ExecutorService packetInExecutor;
+
+    // Listeners to which packet-ins are delivered directly, outside of the
+    // listener registry: the registry tracks the listener being run for the
+    // event dispatcher watchdog, which supports only one thread at a time.
+    private final Set<P4RuntimeEventListener> packetInListeners = new CopyOnWriteArraySet<>();
+
     public P4RuntimeControllerImpl() {
         super(P4RuntimeEvent.class, "P4Runtime");
     }
 
+    @Activate
+    public void activate(ComponentContext context) {
+        packetInExecutor = Executors.newFixedThreadPool(
+                PACKET_IN_WORKERS, groupedThreads("onos/p4runtime", "packet-in-%d", log));
+        super.activate();
+        componentConfigService.registerProperties(getClass());
+        modified(context);
+    }
+
+    @Deactivate
+    @Override
+    public void deactivate() {
+        componentConfigService.unregisterProperties(getClass(), false);
+        super.deactivate();
+        packetInExecutor.shutdownNow();
+        packetInExecutor = null;
+    }
+
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+
+        Dictionary<?, ?> properties = context.getProperties();
+        writeMaxInFlight = Math.max(0, Tools.getIntegerProperty(
+                properties, WRITE_MAX_IN_FLIGHT, WRITE_MAX_IN_FLIGHT_DEFAULT));
+        writeMaxBatchUpdates = Math.max(0, Tools.getIntegerProperty(
+                properties, WRITE_MAX_BATCH_UPDATES, WRITE_MAX_BATCH_UPDATES_DEFAULT));
+        writeMaxBatchBytes = Math.max(0, Tools.getIntegerProperty(
+                properties, WRITE_MAX_BATCH_BYTES, WRITE_MAX_BATCH_BYTES_DEFAULT));
+        packetInQueueSize = Math.max(1, Tools.getIntegerProperty(
+                properties, PACKET_IN_QUEUE_SIZE, PACKET_IN_QUEUE_SIZE_DEFAULT));
+        final String policy = Tools.get(properties, PACKET_IN_DROP_POLICY);
+        if (policy != null) {
+            try {
+                packetInDropPolicy = PacketInDropPolicy.valueOf(policy.trim());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid {} value '{}', keeping {}",
+                         PACKET_IN_DROP_POLICY, policy, packetInDropPolicy);
+            }
+        }
+        log.info("Configured. {} = {}, {} = {}, {} = {}, {} = {}, {} = {}",
+                 WRITE_MAX_IN_FLIGHT, writeMaxInFlight,
+                 WRITE_MAX_BATCH_UPDATES, writeMaxBatchUpdates,
+                 WRITE_MAX_BATCH_BYTES, writeMaxBatchBytes,
+                 PACKET_IN_QUEUE_SIZE, packetInQueueSize,
+                 PACKET_IN_DROP_POLICY, packetInDropPolicy);
+    }
+
+    @Override
+    public void addListener(P4RuntimeEventListener listener) {
+        super.addListener(listener);
+        packetInListeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(P4RuntimeEventListener listener) {
+        super.removeListener(listener);
+        packetInListeners.remove(listener);
+    }
+
     @Override
     public void remove(DeviceId deviceId) {
         super.remove(deviceId);
@@ -62,4 +204,95 @@ public class P4RuntimeControllerImpl
         return new P4RuntimeClientImpl(deviceId, channel, this,
                                        pipeconfService, masterElectionIdStore);
     }
+
+    /**
+     * Returns the maximum number of Write RPCs that a client can have in
+     * flight towards the same device.
+     *
+     * @return maximum number of in-flight Write RPCs; 0 if unbounded
+     */
+    public int writeMaxInFlight() {
+        return writeMaxInFlight;
+    }
+
+    /**
+     * Returns the maximum number of updates that a client sends in the same
+     * Write RPC. Larger write requests are split in multiple RPCs.
+     *
+     * @return maximum number of updates per Write RPC; 0 if no limit
+     */
+    public int writeMaxBatchUpdates() {
+        return writeMaxBatchUpdates;
+    }
+
+    /**
+     * Returns the maximum serialized size of the updates that a client sends
+     * in the same Write RPC. Larger write requests are split in multiple RPCs.
+     *
+     * @return maximum size in bytes of the updates of a Write RPC; 0 if no
+     * limit
+     */
+    public int writeMaxBatchBytes() {
+        return writeMaxBatchBytes;
+    }
+
+    /**
+     * Returns the maximum number of packet-ins queued per device. The value
+     * applies to StreamChannel RPCs started after a change.
+     *
+     * @return packet-in queue size
+     */
+    public int packetInQueueSize() {
+        return packetInQueueSize;
+    }
+
+    /**
+     * Returns the policy applied when the packet-in queue of a device is
+     * full. The value applies to StreamChannel RPCs started after a change.
+     *
+     * @return packet-in drop policy
+     */
+    public PacketInDropPolicy packetInDropPolicy() {
+        return packetInDropPolicy;
+    }
+
+    /**
+     * Returns the executor used by clients to handle packet-ins.
+     *
+     * @return packet-in executor
+     */
+    public ExecutorService packetInExecutor() {
+        return packetInExecutor;
+    }
+
+    /**
+     * Returns the metrics service used by clients to export packet-in
+     * metrics.
+     *
+     * @return metrics service
+     */
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
+    /**
+     * Delivers the given packet-in event to listeners, in the calling thread.
+     * Packet-ins are not posted to the event dispatcher, so that the packet-in
+     * queue of each device is the only buffer between the device and
+     * listeners. Listeners are expected to handle packet-ins in the calling
+     * thread too.
+     *
+     * @param event packet-in event
+     */
+    public void processPacketIn(P4RuntimeEvent event) {
+        for (P4RuntimeEventListener listener : packetInListeners) {
+            try {
+                if (listener.isRelevant(event)) {
+                    listener.event(event);
+                }
+            } catch (Exception e) {
+                log.warn("Exception encountered while processing event " + event, e);
+            }
+        }
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.controller;
+
+/**
+ * Policies applied when the packet-in queue of a P4Runtime device is full.
+ */
+public enum PacketInDropPolicy {
+
+    /**
+     * The newly received packet-in is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest queued packet-in is dropped to make room for the newly
+     * received one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * No packet-in is dropped; instead, packet-ins are requested from the
+     * StreamChannel RPC only as queued ones are processed, so that the device
+     * is slowed down by gRPC flow control.
+     */
+    BACKPRESSURE
+}
@@ -43,6 +43,8 @@ public class MockP4RuntimeServer extends P4RuntimeGrpc.P4RuntimeImplBase {
     private List<WriteRequest> writeReqs;
     private List<ReadRequest> readReqs;
     private List<ReadResponse> readResps;
+    private List<Throwable> writeErrors;
+    private CompletableFuture<Void> writeRelease;
 
     /**
      * Expect N times request sent by client.
@@ -55,6 +57,8 @@ public class MockP4RuntimeServer extends P4RuntimeGrpc.P4RuntimeImplBase {
         completeLock = new CompletableFuture<>();
         readReqs = Lists.newArrayList();
         writeReqs = Lists.newArrayList();
+        writeErrors = null;
+        writeRelease = null;
         return completeLock;
     }
 
@@ -68,6 +72,26 @@ public class MockP4RuntimeServer extends P4RuntimeGrpc.P4RuntimeImplBase {
         this.readResps = Lists.newArrayList(readResps);
     }
 
+    /**
+     * Fails the next write requests with the given errors, in order. A null
+     * error means the corresponding write request succeeds.
+     *
+     * @param writeErrors errors to return
+     */
+    public void willReturnWriteErrors(Collection<Throwable> writeErrors) {
+        this.writeErrors = Lists.newArrayList(writeErrors);
+    }
+
+    /**
+     * Holds the responses to the next write requests until the given future
+     * completes.
+     *
+     * @param writeRelease future completed to send the responses
+     */
+    public void holdWriteResponses(CompletableFuture<Void> writeRelease) {
+        this.writeRelease = writeRelease;
+    }
+
     public List<WriteRequest> getWriteReqs() {
         return writeReqs;
     }
@@ -79,8 +103,21 @@ public class MockP4RuntimeServer extends P4RuntimeGrpc.P4RuntimeImplBase {
     @Override
     public void write(WriteRequest request, StreamObserver<WriteResponse> responseObserver) {
         writeReqs.add(request);
-        responseObserver.onNext(WriteResponse.getDefaultInstance());
-        responseObserver.onCompleted();
+        Throwable error = writeErrors != null && !writeErrors.isEmpty()
+                ? writeErrors.remove(0) : null;
+        Runnable respond = () -> {
+            if (error != null) {
+                responseObserver.onError(error);
+            } else {
+                responseObserver.onNext(WriteResponse.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+        };
+        if (writeRelease != null) {
+            writeRelease.thenRun(respond);
+        } else {
+            respond.run();
+        }
         complete();
     }
 
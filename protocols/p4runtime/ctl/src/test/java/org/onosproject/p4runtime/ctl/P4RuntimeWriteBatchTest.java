@@ -0,0 +1,285 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl;
+
+import com.google.common.collect.Lists;
+import com.google.protobuf.Any;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.lite.ProtoLiteUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.onlab.util.ImmutableByteSequence;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.DefaultPiPipeconf;
+import org.onosproject.net.pi.model.PiActionId;
+import org.onosproject.net.pi.model.PiActionParamId;
+import org.onosproject.net.pi.model.PiActionProfileId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiPipeconfId;
+import org.onosproject.net.pi.model.PiPipelineModel;
+import org.onosproject.net.pi.runtime.PiAction;
+import org.onosproject.net.pi.runtime.PiActionParam;
+import org.onosproject.net.pi.runtime.PiActionProfileGroup;
+import org.onosproject.net.pi.runtime.PiActionProfileGroupId;
+import org.onosproject.net.pi.runtime.PiActionProfileMember;
+import org.onosproject.net.pi.runtime.PiActionProfileMemberId;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateResponse;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateStatus;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.UpdateType;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteResponse;
+import org.onosproject.p4runtime.ctl.client.P4RuntimeClientImpl;
+import org.onosproject.p4runtime.ctl.controller.P4RuntimeControllerImpl;
+import p4.v1.P4RuntimeOuterClass;
+import p4.v1.P4RuntimeOuterClass.Update;
+import p4.v1.P4RuntimeOuterClass.WriteRequest;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.niceMock;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.pi.model.PiPipeconf.ExtensionType.P4_INFO_TEXT;
+
+/**
+ * Tests for the splitting of large P4Runtime write requests in batches.
+ */
+public class P4RuntimeWriteBatchTest {
+    private static final String PIPECONF_ID = "p4runtime-mock-pipeconf";
+    private static final String P4INFO_PATH = "/test.p4info";
+    private static final PiPipeconf PIPECONF = buildPipeconf();
+    private static final PiActionProfileId ACT_PROF_ID = PiActionProfileId.of("ecmp_selector");
+    private static final PiActionId EGRESS_PORT_ACTION_ID = PiActionId.of("set_egress_port");
+    private static final PiActionParamId PORT_PARAM_ID = PiActionParamId.of("port");
+    private static final int BASE_MEM_ID = 65535;
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("device:p4runtime:1");
+    private static final int P4_DEVICE_ID = 1;
+    private static final int MAX_BATCH_UPDATES = 2;
+    private static final String GRPC_SERVER_NAME = "P4RuntimeWriteBatchTest";
+    private static final long DEFAULT_TIMEOUT_TIME = 10;
+    private static final Metadata.Key<com.google.rpc.Status> STATUS_DETAILS_KEY =
+            Metadata.Key.of("grpc-status-details-bin",
+                            ProtoLiteUtils.metadataMarshaller(
+                                    com.google.rpc.Status.getDefaultInstance()));
+
+    private P4RuntimeClientImpl client;
+    private static MockP4RuntimeServer p4RuntimeServerImpl = new MockP4RuntimeServer();
+    private static Server grpcServer;
+    private static ManagedChannel grpcChannel;
+
+    private static PiActionProfileMember outputMember(short portNum) {
+        PiActionParam param = new PiActionParam(PORT_PARAM_ID,
+                                                ImmutableByteSequence.copyFrom(portNum));
+        PiAction piAction = PiAction.builder()
+                .withId(EGRESS_PORT_ACTION_ID)
+                .withParameter(param).build();
+
+        return PiActionProfileMember.builder()
+                .forActionProfile(ACT_PROF_ID)
+                .withAction(piAction)
+                .withId(PiActionProfileMemberId.of(BASE_MEM_ID + portNum))
+                .build();
+    }
+
+    private static List<PiActionProfileMember> outputMembers(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> outputMember((short) i))
+                .collect(Collectors.toList());
+    }
+
+    private static PiPipeconf buildPipeconf() {
+        final URL p4InfoUrl = P4RuntimeWriteBatchTest.class.getResource(P4INFO_PATH);
+        return DefaultPiPipeconf.builder()
+                .withId(new PiPipeconfId(PIPECONF_ID))
+                .withPipelineModel(niceMock(PiPipelineModel.class))
+                .addExtension(P4_INFO_TEXT, p4InfoUrl)
+                .build();
+    }
+
+    private static Throwable writeError(Status.Code... codes) {
+        com.google.rpc.Status.Builder status = com.google.rpc.Status.newBuilder()
+                .setCode(Status.Code.UNKNOWN.value());
+        Arrays.stream(codes).forEach(code -> status.addDetails(Any.pack(
+                P4RuntimeOuterClass.Error.newBuilder()
+                        .setCanonicalCode(code.value())
+                        .setMessage(code.name())
+                        .build())));
+        Metadata trailers = new Metadata();
+        trailers.put(STATUS_DETAILS_KEY, status.build());
+        return Status.UNKNOWN.asRuntimeException(trailers);
+    }
+
+    @BeforeClass
+    public static void globalSetup() throws IOException {
+        grpcServer = InProcessServerBuilder.forName(GRPC_SERVER_NAME)
+                .directExecutor()
+                .addService(p4RuntimeServerImpl)
+                .build()
+                .start();
+        grpcChannel = InProcessChannelBuilder.forName(GRPC_SERVER_NAME)
+                .directExecutor()
+                .build();
+    }
+
+    @AfterClass
+    public static void globalTearDown() {
+        grpcServer.shutdown();
+        grpcChannel.shutdown();
+    }
+
+    private static P4RuntimeClientImpl newClient(int maxInFlight) {
+        P4RuntimeControllerImpl controller = niceMock(P4RuntimeControllerImpl.class);
+        expect(controller.writeMaxInFlight()).andReturn(maxInFlight).anyTimes();
+        expect(controller.writeMaxBatchUpdates()).andReturn(MAX_BATCH_UPDATES).anyTimes();
+        replay(controller);
+        return new P4RuntimeClientImpl(
+                DEVICE_ID, grpcChannel, controller, new MockPipeconfService(),
+                new MockMasterElectionIdStore());
+    }
+
+    @Before
+    public void setup() {
+        client = newClient(1);
+    }
+
+    @After
+    public void teardown() {
+        client.shutdown();
+    }
+
+    /**
+     * Checks that a large write request is split in batches, in order.
+     */
+    @Test
+    public void testSplitWriteRequest() throws Exception {
+        List<PiActionProfileMember> members = outputMembers(5);
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(3);
+        WriteResponse response = client.write(P4_DEVICE_ID, PIPECONF)
+                .insert(members).submitSync();
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+
+        assertTrue(response.isSuccess());
+        assertEquals(5, response.all().size());
+        List<WriteRequest> requests = p4RuntimeServerImpl.getWriteReqs();
+        assertEquals(3, requests.size());
+        assertEquals(2, requests.get(0).getUpdatesCount());
+        assertEquals(2, requests.get(1).getUpdatesCount());
+        assertEquals(1, requests.get(2).getUpdatesCount());
+        int memberId = BASE_MEM_ID + 1;
+        for (WriteRequest request : requests) {
+            assertEquals(P4_DEVICE_ID, request.getDeviceId());
+            for (Update update : request.getUpdatesList()) {
+                assertEquals(memberId++, update.getEntity().getActionProfileMember().getMemberId());
+            }
+        }
+    }
+
+    /**
+     * Checks that the errors of each batch are mapped back to the entities of
+     * that batch.
+     */
+    @Test
+    public void testPartialFailure() throws Exception {
+        List<PiActionProfileMember> members = outputMembers(5);
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(3);
+        p4RuntimeServerImpl.willReturnWriteErrors(Lists.newArrayList(
+                null, writeError(Status.Code.OK, Status.Code.ALREADY_EXISTS), null));
+        WriteResponse response = client.write(P4_DEVICE_ID, PIPECONF)
+                .insert(members).submitSync();
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+
+        assertFalse(response.isSuccess());
+        assertEquals(5, response.all().size());
+        assertEquals(4, response.success().size());
+        assertEquals(1, response.failed().size());
+        EntityUpdateResponse failed = response.failed().iterator().next();
+        assertEquals(EntityUpdateStatus.ALREADY_EXIST, failed.status());
+        assertEquals(members.get(3), failed.entity());
+    }
+
+    /**
+     * Checks that updates of the same entity in different batches are sent
+     * in the same order as in the request.
+     */
+    @Test
+    public void testDependentBatches() throws Exception {
+        PiActionProfileMember member = outputMember((short) 1);
+        CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(2);
+        WriteResponse response = client.write(P4_DEVICE_ID, PIPECONF)
+                .insert(outputMember((short) 2))
+                .delete(member.handle(DEVICE_ID))
+                .entity(member, UpdateType.INSERT)
+                .submitSync();
+        complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+
+        assertTrue(response.isSuccess());
+        List<WriteRequest> requests = p4RuntimeServerImpl.getWriteReqs();
+        assertEquals(2, requests.size());
+        assertEquals(Update.Type.DELETE, requests.get(0).getUpdates(1).getType());
+        assertEquals(Update.Type.INSERT, requests.get(1).getUpdates(0).getType());
+    }
+
+    /**
+     * Checks that batches of different entity types are not written
+     * concurrently, so that a group is written after its members.
+     */
+    @Test
+    public void testEntityTypeOrder() throws Exception {
+        List<PiActionProfileMember> members = outputMembers(4);
+        PiActionProfileGroup group = PiActionProfileGroup.builder()
+                .withId(PiActionProfileGroupId.of(1))
+                .addMembers(members)
+                .withActionProfileId(ACT_PROF_ID)
+                .build();
+        P4RuntimeClientImpl concurrentClient = newClient(0);
+        try {
+            CompletableFuture<Void> complete = p4RuntimeServerImpl.expectRequests(3);
+            CompletableFuture<Void> release = new CompletableFuture<>();
+            p4RuntimeServerImpl.holdWriteResponses(release);
+            CompletableFuture<WriteResponse> response = concurrentClient.write(P4_DEVICE_ID, PIPECONF)
+                    .insert(members).insert(group).submit();
+
+            // Batches of members are written concurrently, the group waits
+            assertEquals(2, p4RuntimeServerImpl.getWriteReqs().size());
+            release.complete(null);
+            complete.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS);
+            assertTrue(response.get(DEFAULT_TIMEOUT_TIME, TimeUnit.SECONDS).isSuccess());
+            List<WriteRequest> requests = p4RuntimeServerImpl.getWriteReqs();
+            assertEquals(3, requests.size());
+            assertTrue(requests.get(2).getUpdates(0).getEntity().hasActionProfileGroup());
+        } finally {
+            concurrentClient.shutdown();
+        }
+    }
+}
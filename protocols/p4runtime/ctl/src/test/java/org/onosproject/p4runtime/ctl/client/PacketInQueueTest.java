@@ -0,0 +1,220 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.client;
+
+import com.google.common.collect.Lists;
+import com.google.protobuf.ByteString;
+import io.grpc.stub.CallStreamObserver;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import p4.v1.P4RuntimeOuterClass.PacketIn;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.onosproject.p4runtime.ctl.controller.PacketInDropPolicy.BACKPRESSURE;
+import static org.onosproject.p4runtime.ctl.controller.PacketInDropPolicy.DROP_NEWEST;
+import static org.onosproject.p4runtime.ctl.controller.PacketInDropPolicy.DROP_OLDEST;
+
+/**
+ * Tests for the packet-in queue of the P4Runtime stream client.
+ */
+public class PacketInQueueTest {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("device:p4runtime:1");
+
+    private final Queue<Runnable> tasks = Lists.newLinkedList();
+    private final List<PacketIn> handled = Lists.newArrayList();
+    private final MockStream stream = new MockStream();
+    private PacketInQueue queue;
+
+    @Before
+    public void setUp() {
+        tasks.clear();
+        handled.clear();
+        queue = new PacketInQueue(DEVICE_ID, tasks::add, null, handled::add);
+    }
+
+    /**
+     * Checks that the newest packet-ins are dropped when the queue is full,
+     * and that a message is requested for each received one.
+     */
+    @Test
+    public void testDropNewest() {
+        queue.streamStarted(stream, 2, DROP_NEWEST);
+        List<PacketIn> packetIns = packetIns(3);
+        packetIns.forEach(queue::offer);
+        queue.messageReceived();
+
+        assertThat(queue.size(), is(2));
+        assertThat(queue.received(), is(3L));
+        assertThat(queue.dropped(), is(1L));
+        assertThat(stream.requested, is(4));
+
+        runTasks();
+        assertThat(handled, is(packetIns.subList(0, 2)));
+        assertThat(queue.size(), is(0));
+        assertThat(stream.requested, is(4));
+    }
+
+    /**
+     * Checks that the oldest packet-ins are dropped when the queue is full.
+     */
+    @Test
+    public void testDropOldest() {
+        queue.streamStarted(stream, 2, DROP_OLDEST);
+        List<PacketIn> packetIns = packetIns(3);
+        packetIns.forEach(queue::offer);
+
+        assertThat(queue.dropped(), is(1L));
+        assertThat(stream.requested, is(3));
+
+        runTasks();
+        assertThat(handled, is(packetIns.subList(1, 3)));
+    }
+
+    /**
+     * Checks that, with backpressure, messages are requested only as
+     * packet-ins are handled, so that the queue is never exceeded.
+     */
+    @Test
+    public void testBackpressure() {
+        queue.streamStarted(stream, 4, BACKPRESSURE);
+        // One message is requested by gRPC itself when starting the RPC.
+        assertThat(stream.requested, is(3));
+
+        List<PacketIn> packetIns = packetIns(4);
+        packetIns.forEach(queue::offer);
+        assertThat(stream.requested, is(3));
+        // Other messages do not consume packet-in credits.
+        queue.messageReceived();
+        assertThat(stream.requested, is(4));
+
+        runTasks();
+        assertThat(handled, is(packetIns));
+        assertThat(queue.dropped(), is(0L));
+        assertThat(stream.requested, is(8));
+    }
+
+    /**
+     * Checks that a queue yields the executor after a batch of packet-ins,
+     * and that no message is requested from a closed stream.
+     */
+    @Test
+    public void testDrainBatch() {
+        queue.streamStarted(stream, 1000, DROP_NEWEST);
+        packetIns(PacketInQueue.DRAIN_BATCH + 1).forEach(queue::offer);
+        assertThat(tasks.size(), is(1));
+
+        tasks.poll().run();
+        assertThat(handled.size(), is(PacketInQueue.DRAIN_BATCH));
+        assertThat(tasks.size(), is(1));
+
+        queue.streamClosed();
+        queue.offer(packetIns(1).get(0));
+        runTasks();
+        assertThat(handled.size(), is(PacketInQueue.DRAIN_BATCH + 2));
+        assertThat(stream.requested, is(PacketInQueue.DRAIN_BATCH + 1));
+    }
+
+    /**
+     * Checks that packet-ins are discarded when the executor rejects the
+     * drain task, and that the queue is drained again once it accepts tasks.
+     */
+    @Test
+    public void testRejectedDrain() {
+        boolean[] rejecting = {true};
+        queue = new PacketInQueue(DEVICE_ID, task -> {
+            if (rejecting[0]) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(task);
+        }, null, handled::add);
+        queue.streamStarted(stream, 2, DROP_NEWEST);
+        packetIns(2).forEach(queue::offer);
+        assertThat(queue.size(), is(0));
+        assertThat(queue.dropped(), is(2L));
+
+        rejecting[0] = false;
+        packetIns(2).forEach(queue::offer);
+        runTasks();
+        assertThat(handled.size(), is(2));
+        assertThat(queue.dropped(), is(2L));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    private static List<PacketIn> packetIns(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> PacketIn.newBuilder()
+                        .setPayload(ByteString.copyFrom(new byte[]{(byte) i}))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Request stream recording the number of messages requested.
+     */
+    private static final class MockStream extends CallStreamObserver<Object> {
+
+        private int requested;
+
+        @Override
+        public void request(int count) {
+            requested += count;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(Object value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
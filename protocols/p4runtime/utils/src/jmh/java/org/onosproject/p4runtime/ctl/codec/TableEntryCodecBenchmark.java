@@ -0,0 +1,227 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.codec;
+
+import org.onlab.util.ImmutableByteSequence;
+import org.onosproject.net.pi.model.DefaultPiPipeconf;
+import org.onosproject.net.pi.model.PiActionId;
+import org.onosproject.net.pi.model.PiActionParamId;
+import org.onosproject.net.pi.model.PiMatchFieldId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiPipeconfId;
+import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.runtime.PiAction;
+import org.onosproject.net.pi.runtime.PiActionParam;
+import org.onosproject.net.pi.runtime.PiCounterCellData;
+import org.onosproject.net.pi.runtime.PiEntity;
+import org.onosproject.net.pi.runtime.PiExactFieldMatch;
+import org.onosproject.net.pi.runtime.PiLpmFieldMatch;
+import org.onosproject.net.pi.runtime.PiMatchKey;
+import org.onosproject.net.pi.runtime.PiTableEntry;
+import org.onosproject.net.pi.runtime.PiTernaryFieldMatch;
+import org.onosproject.p4runtime.model.P4InfoParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import p4.v1.P4RuntimeOuterClass;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.onlab.util.ImmutableByteSequence.copyFrom;
+import static org.onosproject.net.pi.model.PiPipeconf.ExtensionType.P4_INFO_TEXT;
+import static org.onosproject.p4runtime.ctl.codec.Codecs.CODECS;
+
+/**
+ * Measures encode and decode throughput of table entries of the fabric.p4
+ * pipeline, with the same mix of routing, bridging, filtering and ACL entries
+ * found on a leaf switch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableEntryCodecBenchmark {
+
+    private static final String P4INFO_PATH = "/p4c-out/fabric/bmv2/default/p4info.txt";
+
+    private static final PiTableId ROUTING_V4 = PiTableId.of("FabricIngress.forwarding.routing_v4");
+    private static final PiTableId BRIDGING = PiTableId.of("FabricIngress.forwarding.bridging");
+    private static final PiTableId INGRESS_PORT_VLAN = PiTableId.of("FabricIngress.filtering.ingress_port_vlan");
+    private static final PiTableId ACL = PiTableId.of("FabricIngress.acl.acl");
+
+    private static final PiActionId SET_NEXT_ID_ROUTING_V4 =
+            PiActionId.of("FabricIngress.forwarding.set_next_id_routing_v4");
+    private static final PiActionId SET_NEXT_ID_BRIDGING =
+            PiActionId.of("FabricIngress.forwarding.set_next_id_bridging");
+    private static final PiActionId PERMIT_WITH_INTERNAL_VLAN =
+            PiActionId.of("FabricIngress.filtering.permit_with_internal_vlan");
+    private static final PiActionId SET_NEXT_ID_ACL = PiActionId.of("FabricIngress.acl.set_next_id_acl");
+
+    private static final PiActionParamId NEXT_ID = PiActionParamId.of("next_id");
+    private static final PiActionParamId VLAN_ID_PARAM = PiActionParamId.of("vlan_id");
+    private static final PiActionParamId PORT_TYPE_PARAM = PiActionParamId.of("port_type");
+
+    private static final PiMatchFieldId IPV4_DST = PiMatchFieldId.of("ipv4_dst");
+    private static final PiMatchFieldId IPV4_SRC = PiMatchFieldId.of("ipv4_src");
+    private static final PiMatchFieldId VLAN_ID = PiMatchFieldId.of("vlan_id");
+    private static final PiMatchFieldId VLAN_IS_VALID = PiMatchFieldId.of("vlan_is_valid");
+    private static final PiMatchFieldId ETH_DST = PiMatchFieldId.of("eth_dst");
+    private static final PiMatchFieldId ETH_TYPE = PiMatchFieldId.of("eth_type");
+    private static final PiMatchFieldId IG_PORT = PiMatchFieldId.of("ig_port");
+    private static final PiMatchFieldId IP_PROTO = PiMatchFieldId.of("ip_proto");
+    private static final PiMatchFieldId L4_DPORT = PiMatchFieldId.of("l4_dport");
+
+    @Param({"10000"})
+    private int entries;
+
+    private PiPipeconf pipeconf;
+    private List<PiEntity> piEntities;
+    private List<P4RuntimeOuterClass.Entity> messages;
+
+    @Setup
+    public void setup() throws Exception {
+        URL p4InfoUrl = TableEntryCodecBenchmark.class.getResource(P4INFO_PATH);
+        pipeconf = DefaultPiPipeconf.builder()
+                .withId(new PiPipeconfId("fabric-benchmark"))
+                .withPipelineModel(P4InfoParser.parse(p4InfoUrl))
+                .addExtension(P4_INFO_TEXT, p4InfoUrl)
+                .build();
+        piEntities = new ArrayList<>(entries);
+        messages = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            PiTableEntry entry = entry(i);
+            piEntities.add(entry);
+            // Read replies carry the direct counters of the entries.
+            messages.add(CODECS.entity().encode(PiTableEntry.builder()
+                    .forTable(entry.table())
+                    .withMatchKey(entry.matchKey())
+                    .withAction(entry.action())
+                    .withPriority(entry.priority().orElse(0))
+                    .withCookie(entry.cookie())
+                    .withCounterCellData(new PiCounterCellData(i, i * 64L))
+                    .build(), null, pipeconf));
+        }
+    }
+
+    private static PiTableEntry entry(int i) {
+        switch (i % 8) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                return PiTableEntry.builder()
+                        .forTable(ROUTING_V4)
+                        .withMatchKey(PiMatchKey.builder()
+                                .addFieldMatch(new PiLpmFieldMatch(
+                                        IPV4_DST, copyFrom(0x0a000000 | (i << 8)), 24))
+                                .build())
+                        .withAction(nextId(SET_NEXT_ID_ROUTING_V4, i))
+                        .withCookie(i)
+                        .build();
+            case 4:
+            case 5:
+                return PiTableEntry.builder()
+                        .forTable(BRIDGING)
+                        .withMatchKey(PiMatchKey.builder()
+                                .addFieldMatch(new PiExactFieldMatch(
+                                        VLAN_ID, bits(i % 4096, 12)))
+                                .addFieldMatch(new PiTernaryFieldMatch(
+                                        ETH_DST, bits(0x001122000000L | i, 48),
+                                        bits(0xffffffffffffL, 48)))
+                                .build())
+                        .withAction(nextId(SET_NEXT_ID_BRIDGING, i))
+                        .withPriority(10)
+                        .withCookie(i)
+                        .build();
+            case 6:
+                return PiTableEntry.builder()
+                        .forTable(INGRESS_PORT_VLAN)
+                        .withMatchKey(PiMatchKey.builder()
+                                .addFieldMatch(new PiExactFieldMatch(IG_PORT, bits(i % 512, 9)))
+                                .addFieldMatch(new PiExactFieldMatch(VLAN_IS_VALID, bits(0, 1)))
+                                .build())
+                        .withAction(PiAction.builder()
+                                .withId(PERMIT_WITH_INTERNAL_VLAN)
+                                .withParameter(new PiActionParam(VLAN_ID_PARAM, bits(i % 4096, 12)))
+                                .withParameter(new PiActionParam(PORT_TYPE_PARAM, bits(1, 2)))
+                                .build())
+                        .withPriority(10)
+                        .withCookie(i)
+                        .build();
+            default:
+                return PiTableEntry.builder()
+                        .forTable(ACL)
+                        .withMatchKey(PiMatchKey.builder()
+                                .addFieldMatch(new PiTernaryFieldMatch(
+                                        ETH_TYPE, bits(0x0800, 16), bits(0xffff, 16)))
+                                .addFieldMatch(new PiTernaryFieldMatch(
+                                        IPV4_SRC, copyFrom(0x0a000000 | i), copyFrom(0xffffffff)))
+                                .addFieldMatch(new PiTernaryFieldMatch(
+                                        IP_PROTO, bits(17, 8), bits(0xff, 8)))
+                                .addFieldMatch(new PiTernaryFieldMatch(
+                                        L4_DPORT, bits(i % 65536, 16), bits(0xffff, 16)))
+                                .build())
+                        .withAction(nextId(SET_NEXT_ID_ACL, i))
+                        .withPriority(100)
+                        .withCookie(i)
+                        .build();
+        }
+    }
+
+    private static PiAction nextId(PiActionId actionId, int nextId) {
+        return PiAction.builder()
+                .withId(actionId)
+                .withParameter(new PiActionParam(NEXT_ID, copyFrom(nextId)))
+                .build();
+    }
+
+    private static ImmutableByteSequence bits(long value, int bitWidth) {
+        try {
+            return copyFrom(value).fit(bitWidth);
+        } catch (ImmutableByteSequence.ByteSequenceTrimException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) throws CodecException {
+        for (PiEntity piEntity : piEntities) {
+            blackhole.consume(CODECS.entity().encode(piEntity, null, pipeconf));
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws CodecException {
+        for (P4RuntimeOuterClass.Entity message : messages) {
+            blackhole.consume(CODECS.entity().decode(message, null, pipeconf));
+        }
+    }
+}
@@ -16,21 +16,17 @@
 
 package org.onosproject.p4runtime.ctl.codec;
 
-import com.google.protobuf.ByteString;
 import org.onlab.util.ImmutableByteSequence;
-import org.onosproject.net.pi.model.PiActionId;
 import org.onosproject.net.pi.model.PiActionParamId;
 import org.onosproject.net.pi.model.PiPipeconf;
 import org.onosproject.net.pi.runtime.PiAction;
 import org.onosproject.net.pi.runtime.PiActionParam;
+import org.onosproject.p4runtime.ctl.codec.CodecPlan.ValuePlan;
 import org.onosproject.p4runtime.ctl.utils.P4InfoBrowser;
-import p4.config.v1.P4InfoOuterClass;
 import p4.v1.P4RuntimeOuterClass;
 
-import static java.lang.String.format;
-import static org.onlab.util.ImmutableByteSequence.copyAndFit;
-import static org.onlab.util.ImmutableByteSequence.copyFrom;
-import static org.onosproject.p4runtime.ctl.codec.Utils.assertSize;
+import static org.onosproject.p4runtime.ctl.codec.Utils.decodeValue;
+import static org.onosproject.p4runtime.ctl.codec.Utils.encodeValue;
 
 /**
  * Codec for P4Runtime Action.
@@ -42,25 +38,34 @@ public final class ActionCodec
     protected P4RuntimeOuterClass.Action encode(
             PiAction piAction, Object ignored, PiPipeconf pipeconf, P4InfoBrowser browser)
             throws CodecException, P4InfoBrowser.NotFoundException {
-        final int actionId = browser.actions()
-                .getByName(piAction.id().toString()).getPreamble().getId();
         final P4RuntimeOuterClass.Action.Builder actionMsgBuilder =
-                P4RuntimeOuterClass.Action.newBuilder().setActionId(actionId);
+                P4RuntimeOuterClass.Action.newBuilder();
+        encode(piAction, CodecPlan.of(pipeconf, browser), actionMsgBuilder);
+        return actionMsgBuilder.build();
+    }
+
+    /**
+     * Encodes the given PI action into the given protobuf builder, according
+     * to the given codec plan.
+     *
+     * @param piAction         PI action
+     * @param plan             codec plan
+     * @param actionMsgBuilder action protobuf builder
+     * @throws CodecException                  if the action cannot be encoded
+     * @throws P4InfoBrowser.NotFoundException if the action or one of its
+     *                                         params cannot be found
+     */
+    void encode(PiAction piAction, CodecPlan plan,
+                P4RuntimeOuterClass.Action.Builder actionMsgBuilder)
+            throws CodecException, P4InfoBrowser.NotFoundException {
+        final CodecPlan.ActionPlan action = plan.action(piAction.id());
+        actionMsgBuilder.setActionId(action.id);
         for (PiActionParam p : piAction.parameters()) {
-            final P4InfoOuterClass.Action.Param paramInfo = browser.actionParams(actionId)
-                    .getByName(p.id().toString());
-            final ByteString paramValue = ByteString.copyFrom(p.value().asReadOnlyBuffer());
-            if (!browser.isTypeString(paramInfo.getTypeName())) {
-                // Check size only if the param type is not a sdn_string
-                assertSize(format("param '%s' of action '%s'", p.id(), piAction.id()),
-                           paramValue, paramInfo.getBitwidth());
-            }
-            actionMsgBuilder.addParams(P4RuntimeOuterClass.Action.Param.newBuilder()
-                                               .setParamId(paramInfo.getId())
-                                               .setValue(paramValue)
-                                               .build());
+            final ValuePlan<PiActionParamId> param = action.param(p.id());
+            actionMsgBuilder.addParamsBuilder()
+                    .setParamId(param.id)
+                    .setValue(encodeValue("", p.value(), param));
         }
-        return actionMsgBuilder.build();
     }
 
     @Override
@@ -68,28 +73,33 @@ public final class ActionCodec
             P4RuntimeOuterClass.Action message, Object ignored,
             PiPipeconf pipeconf, P4InfoBrowser browser)
             throws P4InfoBrowser.NotFoundException, CodecException {
-        final P4InfoBrowser.EntityBrowser<P4InfoOuterClass.Action.Param> paramInfo =
-                browser.actionParams(message.getActionId());
-        final String actionName = browser.actions()
-                .getById(message.getActionId())
-                .getPreamble().getName();
+        return decode(message, CodecPlan.of(pipeconf, browser));
+    }
+
+    /**
+     * Decodes the given action protobuf message, according to the given codec
+     * plan.
+     *
+     * @param message action protobuf message
+     * @param plan    codec plan
+     * @return PI action
+     * @throws CodecException                  if the action cannot be decoded
+     * @throws P4InfoBrowser.NotFoundException if the action or one of its
+     *                                         params cannot be found
+     */
+    PiAction decode(P4RuntimeOuterClass.Action message, CodecPlan plan)
+            throws CodecException, P4InfoBrowser.NotFoundException {
+        final CodecPlan.ActionPlan action = plan.action(message.getActionId());
         final PiAction.Builder builder = PiAction.builder()
-                .withId(PiActionId.of(actionName));
+                .withId(action.piId);
         for (P4RuntimeOuterClass.Action.Param p : message.getParamsList()) {
-            final P4InfoOuterClass.Action.Param actionParam = paramInfo.getById(p.getParamId());
-            final ImmutableByteSequence value;
-            if (browser.isTypeString(actionParam.getTypeName())) {
-                value = copyFrom(new String(p.getValue().toByteArray()));
-            } else {
-                try {
-                    value = copyAndFit(p.getValue().asReadOnlyByteBuffer(),
-                                       actionParam.getBitwidth());
-                } catch (ImmutableByteSequence.ByteSequenceTrimException e) {
-                    throw new CodecException(e.getMessage());
-                }
+            final ValuePlan<PiActionParamId> param = action.param(p.getParamId());
+            try {
+                builder.withParameter(new PiActionParam(
+                        param.piId, decodeValue(p.getValue(), param)));
+            } catch (ImmutableByteSequence.ByteSequenceTrimException e) {
+                throw new CodecException(e.getMessage());
             }
-            builder.withParameter(new PiActionParam(
-                    PiActionParamId.of(actionParam.getName()), value));
         }
         return builder.build();
     }
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.p4runtime.ctl.codec;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import org.onosproject.net.pi.model.PiActionId;
+import org.onosproject.net.pi.model.PiActionParamId;
+import org.onosproject.net.pi.model.PiMatchFieldId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.p4runtime.ctl.utils.P4InfoBrowser;
+import org.onosproject.p4runtime.ctl.utils.PipeconfHelper;
+import p4.config.v1.P4InfoOuterClass;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Precompiled plan to encode and decode table entries and actions of a given
+ * pipeconf. The plan caches the P4Info IDs, PI IDs, bit widths and entity
+ * descriptions of tables, match fields, actions and action params, so that
+ * codecs do not need to browse the P4Info for each entity.
+ */
+final class CodecPlan {
+
+    private static final int PLAN_EXPIRE_TIME_IN_MIN = 10;
+
+    private static final Cache<Long, CodecPlan> PLANS = CacheBuilder.newBuilder()
+            .expireAfterAccess(PLAN_EXPIRE_TIME_IN_MIN, TimeUnit.MINUTES)
+            .build();
+
+    private final Map<PiTableId, TablePlan> tablesByPiId;
+    private final Map<Integer, TablePlan> tablesById;
+    private final Map<PiActionId, ActionPlan> actionsByPiId;
+    private final Map<Integer, ActionPlan> actionsById;
+    // Used to report entities not found in the P4Info.
+    private final P4InfoBrowser browser;
+
+    private CodecPlan(P4InfoOuterClass.P4Info p4Info, P4InfoBrowser browser) {
+        this.browser = browser;
+        final ImmutableMap.Builder<PiTableId, TablePlan> tablesByPiIdBuilder = ImmutableMap.builder();
+        final ImmutableMap.Builder<Integer, TablePlan> tablesByIdBuilder = ImmutableMap.builder();
+        for (P4InfoOuterClass.Table table : p4Info.getTablesList()) {
+            final TablePlan plan = new TablePlan(table, browser);
+            tablesByPiIdBuilder.put(plan.piId, plan);
+            tablesByIdBuilder.put(plan.id, plan);
+        }
+        final ImmutableMap.Builder<PiActionId, ActionPlan> actionsByPiIdBuilder = ImmutableMap.builder();
+        final ImmutableMap.Builder<Integer, ActionPlan> actionsByIdBuilder = ImmutableMap.builder();
+        for (P4InfoOuterClass.Action action : p4Info.getActionsList()) {
+            final ActionPlan plan = new ActionPlan(action, browser);
+            actionsByPiIdBuilder.put(plan.piId, plan);
+            actionsByIdBuilder.put(plan.id, plan);
+        }
+        this.tablesByPiId = tablesByPiIdBuilder.build();
+        this.tablesById = tablesByIdBuilder.build();
+        this.actionsByPiId = actionsByPiIdBuilder.build();
+        this.actionsById = actionsByIdBuilder.build();
+    }
+
+    /**
+     * Returns the plan for the given pipeconf, building it if needed.
+     *
+     * @param pipeconf pipeconf
+     * @param browser  P4Info browser of the pipeconf
+     * @return codec plan
+     * @throws CodecException if the P4Info of the pipeconf cannot be obtained
+     */
+    static CodecPlan of(PiPipeconf pipeconf, P4InfoBrowser browser)
+            throws CodecException {
+        final CodecPlan plan = PLANS.getIfPresent(pipeconf.fingerprint());
+        if (plan != null) {
+            return plan;
+        }
+        try {
+            return PLANS.get(pipeconf.fingerprint(), () -> {
+                final P4InfoOuterClass.P4Info p4Info = PipeconfHelper.getP4Info(pipeconf);
+                if (p4Info == null) {
+                    throw new CodecException(format(
+                            "Unable to get P4Info for pipeconf %s", pipeconf.id()));
+                }
+                return new CodecPlan(p4Info, browser);
+            });
+        } catch (ExecutionException e) {
+            throw new CodecException(e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Returns the plan of the table with the given PI ID.
+     *
+     * @param tableId PI table ID
+     * @return table plan
+     * @throws P4InfoBrowser.NotFoundException if the table cannot be found
+     */
+    TablePlan table(PiTableId tableId)
+            throws P4InfoBrowser.NotFoundException {
+        final TablePlan plan = tablesByPiId.get(tableId);
+        if (plan == null) {
+            browser.tables().getByName(tableId.id());
+            throw new P4InfoBrowser.NotFoundException("table", tableId.id(), "");
+        }
+        return plan;
+    }
+
+    /**
+     * Returns the plan of the table with the given P4Info ID.
+     *
+     * @param tableId P4Info table ID
+     * @return table plan
+     * @throws P4InfoBrowser.NotFoundException if the table cannot be found
+     */
+    TablePlan table(int tableId)
+            throws P4InfoBrowser.NotFoundException {
+        final TablePlan plan = tablesById.get(tableId);
+        if (plan == null) {
+            browser.tables().getById(tableId);
+            throw new P4InfoBrowser.NotFoundException("table", tableId);
+        }
+        return plan;
+    }
+
+    /**
+     * Returns the plan of the action with the given PI ID.
+     *
+     * @param actionId PI action ID
+     * @return action plan
+     * @throws P4InfoBrowser.NotFoundException if the action cannot be found
+     */
+    ActionPlan action(PiActionId actionId)
+            throws P4InfoBrowser.NotFoundException {
+        final ActionPlan plan = actionsByPiId.get(actionId);
+        if (plan == null) {
+            browser.actions().getByName(actionId.id());
+            throw new P4InfoBrowser.NotFoundException("action", actionId.id(), "");
+        }
+        return plan;
+    }
+
+    /**
+     * Returns the plan of the action with the given P4Info ID.
+     *
+     * @param actionId P4Info action ID
+     * @return action plan
+     * @throws P4InfoBrowser.NotFoundException if the action cannot be found
+     */
+    ActionPlan action(int actionId)
+            throws P4InfoBrowser.NotFoundException {
+        final ActionPlan plan = actionsById.get(actionId);
+        if (plan == null) {
+            browser.actions().getById(actionId);
+            throw new P4InfoBrowser.NotFoundException("action", actionId);
+        }
+        return plan;
+    }
+
+    /**
+     * Plan of a P4Info table and its match fields.
+     */
+    static final class TablePlan {
+
+        final int id;
+        final PiTableId piId;
+        final P4InfoOuterClass.Preamble preamble;
+        private final Map<PiMatchFieldId, ValuePlan<PiMatchFieldId>> fieldsByPiId;
+        private final Map<Integer, ValuePlan<PiMatchFieldId>> fieldsById;
+        private final P4InfoBrowser browser;
+
+        private TablePlan(P4InfoOuterClass.Table table, P4InfoBrowser browser) {
+            this.preamble = table.getPreamble();
+            this.id = preamble.getId();
+            this.piId = PiTableId.of(preamble.getName());
+            this.browser = browser;
+            final ImmutableMap.Builder<PiMatchFieldId, ValuePlan<PiMatchFieldId>> byPiId =
+                    ImmutableMap.builder();
+            final ImmutableMap.Builder<Integer, ValuePlan<PiMatchFieldId>> byId =
+                    ImmutableMap.builder();
+            for (P4InfoOuterClass.MatchField field : table.getMatchFieldsList()) {
+                final ValuePlan<PiMatchFieldId> plan = new ValuePlan<>(
+                        field.getId(), PiMatchFieldId.of(field.getName()),
+                        field.getBitwidth(), browser.isTypeString(field.getTypeName()),
+                        format("field match '%s' of table '%s'",
+                               field.getName(), preamble.getName()));
+                byPiId.put(plan.piId, plan);
+                byId.put(plan.id, plan);
+            }
+            this.fieldsByPiId = byPiId.build();
+            this.fieldsById = byId.build();
+        }
+
+        /**
+         * Returns the plan of the match field with the given PI ID.
+         *
+         * @param fieldId PI match field ID
+         * @return match field plan
+         * @throws P4InfoBrowser.NotFoundException if the field cannot be found
+         */
+        ValuePlan<PiMatchFieldId> field(PiMatchFieldId fieldId)
+                throws P4InfoBrowser.NotFoundException {
+            final ValuePlan<PiMatchFieldId> plan = fieldsByPiId.get(fieldId);
+            if (plan == null) {
+                browser.matchFields(id).getByName(fieldId.id());
+                throw new P4InfoBrowser.NotFoundException("match field", fieldId.id(), "");
+            }
+            return plan;
+        }
+
+        /**
+         * Returns the plan of the match field with the given P4Info ID.
+         *
+         * @param fieldId P4Info match field ID
+         * @return match field plan
+         * @throws P4InfoBrowser.NotFoundException if the field cannot be found
+         */
+        ValuePlan<PiMatchFieldId> field(int fieldId)
+                throws P4InfoBrowser.NotFoundException {
+            final ValuePlan<PiMatchFieldId> plan = fieldsById.get(fieldId);
+            if (plan == null) {
+                browser.matchFields(id).getById(fieldId);
+                throw new P4InfoBrowser.NotFoundException("match field", fieldId);
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * Plan of a P4Info action and its params.
+     */
+    static final class ActionPlan {
+
+        final int id;
+        final PiActionId piId;
+        private final Map<PiActionParamId, ValuePlan<PiActionParamId>> paramsByPiId;
+        private final Map<Integer, ValuePlan<PiActionParamId>> paramsById;
+        private final P4InfoBrowser browser;
+
+        private ActionPlan(P4InfoOuterClass.Action action, P4InfoBrowser browser) {
+            final String name = action.getPreamble().getName();
+            this.id = action.getPreamble().getId();
+            this.piId = PiActionId.of(name);
+            this.browser = browser;
+            final ImmutableMap.Builder<PiActionParamId, ValuePlan<PiActionParamId>> byPiId =
+                    ImmutableMap.builder();
+            final ImmutableMap.Builder<Integer, ValuePlan<PiActionParamId>> byId =
+                    ImmutableMap.builder();
+            for (P4InfoOuterClass.Action.Param param : action.getParamsList()) {
+                final ValuePlan<PiActionParamId> plan = new ValuePlan<>(
+                        param.getId(), PiActionParamId.of(param.getName()),
+                        param.getBitwidth(), browser.isTypeString(param.getTypeName()),
+                        format("param '%s' of action '%s'", param.getName(), name));
+                byPiId.put(plan.piId, plan);
+                byId.put(plan.id, plan);
+            }
+            this.paramsByPiId = byPiId.build();
+            this.paramsById = byId.build();
+        }
+
+        /**
+         * Returns the plan of the param with the given PI ID.
+         *
+         * @param paramId PI action param ID
+         * @return action param plan
+         * @throws P4InfoBrowser.NotFoundException if the param cannot be found
+         */
+        ValuePlan<PiActionParamId> param(PiActionParamId paramId)
+                throws P4InfoBrowser.NotFoundException {
+            final ValuePlan<PiActionParamId> plan = paramsByPiId.get(paramId);
+            if (plan == null) {
+                browser.actionParams(id).getByName(paramId.id());
+                throw new P4InfoBrowser.NotFoundException("action param", paramId.id(), "");
+            }
+            return plan;
+        }
+
+        /**
+         * Returns the plan of the param with the given P4Info ID.
+         *
+         * @param paramId P4Info action param ID
+         * @return action param plan
+         * @throws P4InfoBrowser.NotFoundException if the param cannot be found
+         */
+        ValuePlan<PiActionParamId> param(int paramId)
+                throws P4InfoBrowser.NotFoundException {
+            final ValuePlan<PiActionParamId> plan = paramsById.get(paramId);
+            if (plan == null) {
+                browser.actionParams(id).getById(paramId);
+                throw new P4InfoBrowser.NotFoundException("action param", paramId);
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * Plan of a P4Info match field or action param, i.e. of a value with a
+     * given bit width.
+     *
+     * @param <I> PI ID type
+     */
+    static final class ValuePlan<I> {
+
+        final int id;
+        final I piId;
+        final int bitWidth;
+        final int byteWidth;
+        final boolean sdnString;
+        final String description;
+
+        private ValuePlan(int id, I piId, int bitWidth, boolean sdnString,
+                          String description) {
+            this.id = id;
+            this.piId = piId;
+            this.bitWidth = bitWidth;
+            this.byteWidth = (bitWidth + 7) / 8;
+            this.sdnString = sdnString;
+            this.description = description;
+        }
+    }
+}
@@ -26,15 +26,16 @@ import org.onosproject.net.pi.runtime.PiLpmFieldMatch;
 import org.onosproject.net.pi.runtime.PiOptionalFieldMatch;
 import org.onosproject.net.pi.runtime.PiRangeFieldMatch;
 import org.onosproject.net.pi.runtime.PiTernaryFieldMatch;
+import org.onosproject.p4runtime.ctl.codec.CodecPlan.ValuePlan;
 import org.onosproject.p4runtime.ctl.utils.P4InfoBrowser;
 import p4.config.v1.P4InfoOuterClass;
 import p4.v1.P4RuntimeOuterClass;
 
 import static java.lang.String.format;
 import static org.onlab.util.ImmutableByteSequence.copyAndFit;
-import static org.onlab.util.ImmutableByteSequence.copyFrom;
 import static org.onosproject.p4runtime.ctl.codec.Utils.assertPrefixLen;
-import static org.onosproject.p4runtime.ctl.codec.Utils.assertSize;
+import static org.onosproject.p4runtime.ctl.codec.Utils.decodeValue;
+import static org.onosproject.p4runtime.ctl.codec.Utils.encodeValue;
 import static org.onosproject.p4runtime.ctl.codec.Utils.sdnStringUnsupported;
 
 /**
@@ -55,92 +56,69 @@ public final class FieldMatchCodec
             PiFieldMatch piFieldMatch, P4InfoOuterClass.Preamble tablePreamble,
             PiPipeconf pipeconf, P4InfoBrowser browser)
             throws CodecException, P4InfoBrowser.NotFoundException {
+        final ValuePlan<PiMatchFieldId> field = CodecPlan.of(pipeconf, browser)
+                .table(tablePreamble.getId()).field(piFieldMatch.fieldId());
+        final P4RuntimeOuterClass.FieldMatch.Builder messageBuilder =
+                P4RuntimeOuterClass.FieldMatch.newBuilder();
+        encode(piFieldMatch, field, messageBuilder);
+        return messageBuilder.build();
+    }
 
-        P4RuntimeOuterClass.FieldMatch.Builder messageBuilder = P4RuntimeOuterClass
-                .FieldMatch.newBuilder();
-
+    /**
+     * Encodes the given PI field match into the given protobuf builder,
+     * according to the given match field plan.
+     *
+     * @param piFieldMatch   PI field match
+     * @param field          match field plan
+     * @param messageBuilder field match protobuf builder
+     * @throws CodecException if the field match cannot be encoded
+     */
+    void encode(PiFieldMatch piFieldMatch, ValuePlan<PiMatchFieldId> field,
+                P4RuntimeOuterClass.FieldMatch.Builder messageBuilder)
+            throws CodecException {
         // FIXME: check how field names for stacked headers are constructed in P4Runtime.
-        String fieldName = piFieldMatch.fieldId().id();
-        P4InfoOuterClass.MatchField matchFieldInfo = browser.matchFields(
-                tablePreamble.getId()).getByName(fieldName);
-        String entityName = format("field match '%s' of table '%s'",
-                                   matchFieldInfo.getName(), tablePreamble.getName());
-        int fieldId = matchFieldInfo.getId();
-        int fieldBitwidth = matchFieldInfo.getBitwidth();
-        boolean isSdnString = browser.isTypeString(matchFieldInfo.getTypeName());
-
-        messageBuilder.setFieldId(fieldId);
+        messageBuilder.setFieldId(field.id);
 
         switch (piFieldMatch.type()) {
             case EXACT:
                 PiExactFieldMatch fieldMatch = (PiExactFieldMatch) piFieldMatch;
-                ByteString exactValue = ByteString.copyFrom(fieldMatch.value().asReadOnlyBuffer());
-                if (!isSdnString) {
-                    assertSize(VALUE_OF_PREFIX + entityName, exactValue, fieldBitwidth);
-                }
-                return messageBuilder.setExact(
-                        P4RuntimeOuterClass.FieldMatch.Exact
-                                .newBuilder()
-                                .setValue(exactValue)
-                                .build())
-                        .build();
+                messageBuilder.getExactBuilder()
+                        .setValue(encodeValue(VALUE_OF_PREFIX, fieldMatch.value(), field));
+                return;
             case TERNARY:
                 PiTernaryFieldMatch ternaryMatch = (PiTernaryFieldMatch) piFieldMatch;
-                ByteString ternaryValue = ByteString.copyFrom(ternaryMatch.value().asReadOnlyBuffer());
-                ByteString ternaryMask = ByteString.copyFrom(ternaryMatch.mask().asReadOnlyBuffer());
-                if (isSdnString) {
-                    sdnStringUnsupported(entityName, piFieldMatch.type());
+                if (field.sdnString) {
+                    sdnStringUnsupported(field.description, piFieldMatch.type());
                 }
-                assertSize(VALUE_OF_PREFIX + entityName, ternaryValue, fieldBitwidth);
-                assertSize(MASK_OF_PREFIX + entityName, ternaryMask, fieldBitwidth);
-                return messageBuilder.setTernary(
-                        P4RuntimeOuterClass.FieldMatch.Ternary
-                                .newBuilder()
-                                .setValue(ternaryValue)
-                                .setMask(ternaryMask)
-                                .build())
-                        .build();
+                messageBuilder.getTernaryBuilder()
+                        .setValue(encodeValue(VALUE_OF_PREFIX, ternaryMatch.value(), field))
+                        .setMask(encodeValue(MASK_OF_PREFIX, ternaryMatch.mask(), field));
+                return;
             case LPM:
                 PiLpmFieldMatch lpmMatch = (PiLpmFieldMatch) piFieldMatch;
-                ByteString lpmValue = ByteString.copyFrom(lpmMatch.value().asReadOnlyBuffer());
-                int lpmPrefixLen = lpmMatch.prefixLength();
-                if (isSdnString) {
-                    sdnStringUnsupported(entityName, piFieldMatch.type());
+                if (field.sdnString) {
+                    sdnStringUnsupported(field.description, piFieldMatch.type());
                 }
-                assertSize(VALUE_OF_PREFIX + entityName, lpmValue, fieldBitwidth);
-                assertPrefixLen(entityName, lpmPrefixLen, fieldBitwidth);
-                return messageBuilder.setLpm(
-                        P4RuntimeOuterClass.FieldMatch.LPM.newBuilder()
-                                .setValue(lpmValue)
-                                .setPrefixLen(lpmPrefixLen)
-                                .build())
-                        .build();
+                final ByteString lpmValue = encodeValue(VALUE_OF_PREFIX, lpmMatch.value(), field);
+                assertPrefixLen(field.description, lpmMatch.prefixLength(), field.bitWidth);
+                messageBuilder.getLpmBuilder()
+                        .setValue(lpmValue)
+                        .setPrefixLen(lpmMatch.prefixLength());
+                return;
             case RANGE:
                 PiRangeFieldMatch rangeMatch = (PiRangeFieldMatch) piFieldMatch;
-                ByteString rangeHighValue = ByteString.copyFrom(rangeMatch.highValue().asReadOnlyBuffer());
-                ByteString rangeLowValue = ByteString.copyFrom(rangeMatch.lowValue().asReadOnlyBuffer());
-                if (isSdnString) {
-                    sdnStringUnsupported(entityName, piFieldMatch.type());
+                if (field.sdnString) {
+                    sdnStringUnsupported(field.description, piFieldMatch.type());
                 }
-                assertSize(HIGH_RANGE_VALUE_OF_PREFIX + entityName, rangeHighValue, fieldBitwidth);
-                assertSize(LOW_RANGE_VALUE_OF_PREFIX + entityName, rangeLowValue, fieldBitwidth);
-                return messageBuilder.setRange(
-                        P4RuntimeOuterClass.FieldMatch.Range.newBuilder()
-                                .setHigh(rangeHighValue)
-                                .setLow(rangeLowValue)
-                                .build())
-                        .build();
+                messageBuilder.getRangeBuilder()
+                        .setHigh(encodeValue(HIGH_RANGE_VALUE_OF_PREFIX, rangeMatch.highValue(), field))
+                        .setLow(encodeValue(LOW_RANGE_VALUE_OF_PREFIX, rangeMatch.lowValue(), field));
+                return;
             case OPTIONAL:
                 PiOptionalFieldMatch optionalMatch = (PiOptionalFieldMatch) piFieldMatch;
-                ByteString optionalValue = ByteString.copyFrom(optionalMatch.value().asReadOnlyBuffer());
-                if (!isSdnString) {
-                    assertSize(VALUE_OF_PREFIX + entityName, optionalValue, fieldBitwidth);
-                }
-                return messageBuilder.setOptional(
-                        P4RuntimeOuterClass.FieldMatch.Optional.newBuilder()
-                                .setValue(optionalValue)
-                                .build())
-                        .build();
+                messageBuilder.getOptionalBuilder()
+                        .setValue(encodeValue(VALUE_OF_PREFIX, optionalMatch.value(), field));
+                return;
             default:
                 throw new CodecException(format(
                         "Building of match type %s not implemented", piFieldMatch.type()));
@@ -152,64 +130,56 @@ public final class FieldMatchCodec
             P4RuntimeOuterClass.FieldMatch message, P4InfoOuterClass.Preamble tablePreamble,
             PiPipeconf pipeconf, P4InfoBrowser browser)
             throws CodecException, P4InfoBrowser.NotFoundException {
+        return decode(message, CodecPlan.of(pipeconf, browser)
+                .table(tablePreamble.getId()).field(message.getFieldId()));
+    }
 
-        final P4InfoOuterClass.MatchField matchField =
-                browser.matchFields(tablePreamble.getId())
-                        .getById(message.getFieldId());
-        final int fieldBitwidth = matchField.getBitwidth();
-        final PiMatchFieldId headerFieldId = PiMatchFieldId.of(matchField.getName());
-        final boolean isSdnString = browser.isTypeString(matchField.getTypeName());
-
+    /**
+     * Decodes the given field match protobuf message, according to the given
+     * match field plan.
+     *
+     * @param message field match protobuf message
+     * @param field   match field plan
+     * @return PI field match
+     * @throws CodecException if the field match cannot be decoded
+     */
+    PiFieldMatch decode(P4RuntimeOuterClass.FieldMatch message,
+                        ValuePlan<PiMatchFieldId> field)
+            throws CodecException {
         final P4RuntimeOuterClass.FieldMatch.FieldMatchTypeCase typeCase = message.getFieldMatchTypeCase();
         try {
             switch (typeCase) {
                 case EXACT:
-                    P4RuntimeOuterClass.FieldMatch.Exact exactFieldMatch = message.getExact();
-                    final ImmutableByteSequence exactValue;
-                    if (isSdnString) {
-                        exactValue = copyFrom(new String(exactFieldMatch.getValue().toByteArray()));
-                    } else {
-                        exactValue = copyAndFit(
-                                exactFieldMatch.getValue().asReadOnlyByteBuffer(),
-                                fieldBitwidth);
-                    }
-                    return new PiExactFieldMatch(headerFieldId, exactValue);
+                    return new PiExactFieldMatch(
+                            field.piId, decodeValue(message.getExact().getValue(), field));
                 case TERNARY:
                     P4RuntimeOuterClass.FieldMatch.Ternary ternaryFieldMatch = message.getTernary();
                     ImmutableByteSequence ternaryValue = copyAndFit(
                             ternaryFieldMatch.getValue().asReadOnlyByteBuffer(),
-                            fieldBitwidth);
+                            field.bitWidth);
                     ImmutableByteSequence ternaryMask = copyAndFit(
                             ternaryFieldMatch.getMask().asReadOnlyByteBuffer(),
-                            fieldBitwidth);
-                    return new PiTernaryFieldMatch(headerFieldId, ternaryValue, ternaryMask);
+                            field.bitWidth);
+                    return new PiTernaryFieldMatch(field.piId, ternaryValue, ternaryMask);
                 case LPM:
                     P4RuntimeOuterClass.FieldMatch.LPM lpmFieldMatch = message.getLpm();
                     ImmutableByteSequence lpmValue = copyAndFit(
                             lpmFieldMatch.getValue().asReadOnlyByteBuffer(),
-                            fieldBitwidth);
+                            field.bitWidth);
                     int lpmPrefixLen = lpmFieldMatch.getPrefixLen();
-                    return new PiLpmFieldMatch(headerFieldId, lpmValue, lpmPrefixLen);
+                    return new PiLpmFieldMatch(field.piId, lpmValue, lpmPrefixLen);
                 case RANGE:
                     P4RuntimeOuterClass.FieldMatch.Range rangeFieldMatch = message.getRange();
                     ImmutableByteSequence rangeHighValue = copyAndFit(
                             rangeFieldMatch.getHigh().asReadOnlyByteBuffer(),
-                            fieldBitwidth);
+                            field.bitWidth);
                     ImmutableByteSequence rangeLowValue = copyAndFit(
                             rangeFieldMatch.getLow().asReadOnlyByteBuffer(),
-                            fieldBitwidth);
-                    return new PiRangeFieldMatch(headerFieldId, rangeLowValue, rangeHighValue);
+                            field.bitWidth);
+                    return new PiRangeFieldMatch(field.piId, rangeLowValue, rangeHighValue);
                 case OPTIONAL:
-                    P4RuntimeOuterClass.FieldMatch.Optional optionalFieldMatch = message.getOptional();
-                    final ImmutableByteSequence optionalValue;
-                    if (isSdnString) {
-                        optionalValue = copyFrom(new String(optionalFieldMatch.getValue().toByteArray()));
-                    } else {
-                        optionalValue = copyAndFit(
-                                optionalFieldMatch.getValue().asReadOnlyByteBuffer(),
-                                fieldBitwidth);
-                    }
-                    return new PiOptionalFieldMatch(headerFieldId, optionalValue);
+                    return new PiOptionalFieldMatch(
+                            field.piId, decodeValue(message.getOptional().getValue(), field));
                 default:
                     throw new CodecException(format(
                             "Decoding of field match type '%s' not implemented", typeCase.name()));
@@ -23,12 +23,12 @@ import org.onosproject.net.pi.runtime.PiActionProfileGroupId;
 import org.onosproject.net.pi.runtime.PiActionProfileMemberId;
 import org.onosproject.net.pi.runtime.PiActionSet;
 import org.onosproject.net.pi.runtime.PiCounterCellData;
+import org.onosproject.net.pi.runtime.PiFieldMatch;
 import org.onosproject.net.pi.runtime.PiMatchKey;
 import org.onosproject.net.pi.runtime.PiTableAction;
 import org.onosproject.net.pi.runtime.PiTableEntry;
 import org.onosproject.net.pi.runtime.PiTableEntryHandle;
 import org.onosproject.p4runtime.ctl.utils.P4InfoBrowser;
-import p4.config.v1.P4InfoOuterClass;
 import p4.v1.P4RuntimeOuterClass;
 
 import java.util.OptionalInt;
@@ -49,9 +49,10 @@ public final class TableEntryCodec
             PiTableEntry piTableEntry, Object ignored, PiPipeconf pipeconf,
             P4InfoBrowser browser)
             throws CodecException, P4InfoBrowser.NotFoundException {
+        final CodecPlan plan = CodecPlan.of(pipeconf, browser);
         final P4RuntimeOuterClass.TableEntry.Builder tableEntryMsgBuilder =
                 keyMsgBuilder(piTableEntry.table(), piTableEntry.matchKey(),
-                              piTableEntry.priority(), pipeconf, browser);
+                              piTableEntry.priority(), plan);
         // Controller metadata (cookie)
         tableEntryMsgBuilder.setControllerMetadata(piTableEntry.cookie());
         // Timeout.
@@ -62,8 +63,8 @@ public final class TableEntryCodec
         }
         // Table action.
         if (piTableEntry.action() != null) {
-            tableEntryMsgBuilder.setAction(
-                    encodePiTableAction(piTableEntry.action(), pipeconf));
+            encodePiTableAction(piTableEntry.action(), pipeconf, plan,
+                                tableEntryMsgBuilder.getActionBuilder());
         }
         // Counter.
         if (piTableEntry.counter() != null) {
@@ -77,7 +78,7 @@ public final class TableEntryCodec
             PiTableEntryHandle handle, Object metadata, PiPipeconf pipeconf,
             P4InfoBrowser browser) throws CodecException, P4InfoBrowser.NotFoundException {
         return keyMsgBuilder(handle.tableId(), handle.matchKey(),
-                             handle.priority(), pipeconf, browser).build();
+                             handle.priority(), CodecPlan.of(pipeconf, browser)).build();
     }
 
     @Override
@@ -85,28 +86,27 @@ public final class TableEntryCodec
             PiTableEntry piEntity, Object metadata, PiPipeconf pipeconf,
             P4InfoBrowser browser) throws CodecException, P4InfoBrowser.NotFoundException {
         return keyMsgBuilder(piEntity.table(), piEntity.matchKey(),
-                             piEntity.priority(), pipeconf, browser).build();
+                             piEntity.priority(), CodecPlan.of(pipeconf, browser)).build();
     }
 
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
     private P4RuntimeOuterClass.TableEntry.Builder keyMsgBuilder(
             PiTableId tableId, PiMatchKey matchKey, OptionalInt priority,
-            PiPipeconf pipeconf, P4InfoBrowser browser)
+            CodecPlan plan)
             throws P4InfoBrowser.NotFoundException, CodecException {
         final P4RuntimeOuterClass.TableEntry.Builder tableEntryMsgBuilder =
                 P4RuntimeOuterClass.TableEntry.newBuilder();
-        final P4InfoOuterClass.Preamble tablePreamble = browser.tables()
-                .getByName(tableId.id()).getPreamble();
+        final CodecPlan.TablePlan table = plan.table(tableId);
         // Table id.
-        tableEntryMsgBuilder.setTableId(tablePreamble.getId());
+        tableEntryMsgBuilder.setTableId(table.id);
         // Field matches.
         if (matchKey.equals(PiMatchKey.EMPTY)) {
             tableEntryMsgBuilder.setIsDefaultAction(true);
         } else {
-            tableEntryMsgBuilder.addAllMatch(
-                    CODECS.fieldMatch().encodeAll(
-                            matchKey.fieldMatches(),
-                            tablePreamble, pipeconf));
+            for (PiFieldMatch fieldMatch : matchKey.fieldMatches()) {
+                CODECS.fieldMatch().encode(fieldMatch, table.field(fieldMatch.fieldId()),
+                                           tableEntryMsgBuilder.addMatchBuilder());
+            }
         }
         // Priority.
         priority.ifPresent(tableEntryMsgBuilder::setPriority);
@@ -120,11 +120,11 @@ public final class TableEntryCodec
             throws CodecException, P4InfoBrowser.NotFoundException {
         PiTableEntry.Builder piTableEntryBuilder = PiTableEntry.builder();
 
-        P4InfoOuterClass.Preamble tablePreamble = browser.tables()
-                .getById(message.getTableId()).getPreamble();
+        final CodecPlan plan = CodecPlan.of(pipeconf, browser);
+        final CodecPlan.TablePlan table = plan.table(message.getTableId());
 
         // Table id.
-        piTableEntryBuilder.forTable(PiTableId.of(tablePreamble.getName()));
+        piTableEntryBuilder.forTable(table.piId);
 
         // Priority.
         if (message.getPriority() > 0) {
@@ -137,7 +137,7 @@ public final class TableEntryCodec
         // Table action.
         if (message.hasAction()) {
             piTableEntryBuilder.withAction(decodeTableActionMsg(
-                    message.getAction(), pipeconf));
+                    message.getAction(), pipeconf, plan));
         }
 
         // Timeout.
@@ -145,12 +145,12 @@ public final class TableEntryCodec
         //  the timeout value is lost after encoding?
 
         // Match key for field matches.
-        piTableEntryBuilder.withMatchKey(
-                PiMatchKey.builder()
-                        .addFieldMatches(CODECS.fieldMatch().decodeAll(
-                                message.getMatchList(),
-                                tablePreamble, pipeconf))
-                        .build());
+        final PiMatchKey.Builder matchKeyBuilder = PiMatchKey.builder();
+        for (P4RuntimeOuterClass.FieldMatch fieldMatch : message.getMatchList()) {
+            matchKeyBuilder.addFieldMatch(CODECS.fieldMatch().decode(
+                    fieldMatch, table.field(fieldMatch.getFieldId())));
+        }
+        piTableEntryBuilder.withMatchKey(matchKeyBuilder.build());
 
         // Counter.
         if (message.hasCounterData()) {
@@ -160,17 +160,15 @@ public final class TableEntryCodec
         return piTableEntryBuilder.build();
     }
 
-    private P4RuntimeOuterClass.TableAction encodePiTableAction(
-            PiTableAction piTableAction, PiPipeconf pipeconf)
-            throws CodecException {
+    private void encodePiTableAction(
+            PiTableAction piTableAction, PiPipeconf pipeconf, CodecPlan plan,
+            P4RuntimeOuterClass.TableAction.Builder tableActionMsgBuilder)
+            throws CodecException, P4InfoBrowser.NotFoundException {
         checkNotNull(piTableAction, "Cannot encode null PiTableAction");
-        final P4RuntimeOuterClass.TableAction.Builder tableActionMsgBuilder =
-                P4RuntimeOuterClass.TableAction.newBuilder();
         switch (piTableAction.type()) {
             case ACTION:
-                P4RuntimeOuterClass.Action theAction = CODECS.action()
-                        .encode((PiAction) piTableAction, null, pipeconf);
-                tableActionMsgBuilder.setAction(theAction);
+                CODECS.action().encode((PiAction) piTableAction, plan,
+                                       tableActionMsgBuilder.getActionBuilder());
                 break;
             case ACTION_PROFILE_GROUP_ID:
                 tableActionMsgBuilder.setActionProfileGroupId(
@@ -191,18 +189,17 @@ public final class TableEntryCodec
                         format("Building of table action type %s not implemented",
                                piTableAction.type()));
         }
-        return tableActionMsgBuilder.build();
     }
 
     private PiTableAction decodeTableActionMsg(
-            P4RuntimeOuterClass.TableAction tableActionMsg, PiPipeconf pipeconf)
-            throws CodecException {
+            P4RuntimeOuterClass.TableAction tableActionMsg, PiPipeconf pipeconf,
+            CodecPlan plan)
+            throws CodecException, P4InfoBrowser.NotFoundException {
         P4RuntimeOuterClass.TableAction.TypeCase typeCase = tableActionMsg.getTypeCase();
         switch (typeCase) {
             case ACTION:
                 P4RuntimeOuterClass.Action actionMsg = tableActionMsg.getAction();
-                return CODECS.action().decode(
-                        actionMsg, null, pipeconf);
+                return CODECS.action().decode(actionMsg, plan);
             case ACTION_PROFILE_GROUP_ID:
                 return PiActionProfileGroupId.of(
                         tableActionMsg.getActionProfileGroupId());
@@ -17,9 +17,13 @@
 package org.onosproject.p4runtime.ctl.codec;
 
 import com.google.protobuf.ByteString;
+import org.onlab.util.ImmutableByteSequence;
 import org.onosproject.net.pi.model.PiMatchType;
+import org.onosproject.p4runtime.ctl.codec.CodecPlan.ValuePlan;
 
 import static java.lang.String.format;
+import static org.onlab.util.ImmutableByteSequence.copyAndFit;
+import static org.onlab.util.ImmutableByteSequence.copyFrom;
 
 /**
  * Codec utilities.
@@ -30,17 +34,6 @@ final class Utils {
         // Hide default construction
     }
 
-    static void assertSize(String entityDescr, ByteString value, int bitWidth)
-            throws CodecException {
-
-        int byteWidth = (int) Math.ceil((float) bitWidth / 8);
-        if (value.size() != byteWidth) {
-            throw new CodecException(format(
-                    "Wrong size for %s, expected %d bytes, but found %d",
-                    entityDescr, byteWidth, value.size()));
-        }
-    }
-
     static void assertPrefixLen(String entityDescr, int prefixLength, int bitWidth)
             throws CodecException {
 
@@ -57,4 +50,44 @@ final class Utils {
                 "%s is expected to be a sdn_string, but it is unsupported for %s match type",
                 entityDescr, matchType.name()));
     }
+
+    /**
+     * Returns the protobuf byte string of the given value, after checking its
+     * size against the given match field or action param plan, unless the
+     * latter is a sdn_string.
+     *
+     * @param prefix prefix of the entity description in error messages
+     * @param value  value
+     * @param plan   match field or action param plan
+     * @return byte string
+     * @throws CodecException if the value has the wrong size
+     */
+    static ByteString encodeValue(String prefix, ImmutableByteSequence value, ValuePlan<?> plan)
+            throws CodecException {
+        if (!plan.sdnString && value.size() != plan.byteWidth) {
+            throw new CodecException(format(
+                    "Wrong size for %s%s, expected %d bytes, but found %d",
+                    prefix, plan.description, plan.byteWidth, value.size()));
+        }
+        return ByteString.copyFrom(value.asReadOnlyBuffer());
+    }
+
+    /**
+     * Returns the value of the given protobuf byte string, fitted to the bit
+     * width of the given match field or action param plan, or as a string if
+     * the latter is a sdn_string.
+     *
+     * @param value byte string
+     * @param plan  match field or action param plan
+     * @return value
+     * @throws ImmutableByteSequence.ByteSequenceTrimException if the value
+     *                                                         cannot be fitted
+     */
+    static ImmutableByteSequence decodeValue(ByteString value, ValuePlan<?> plan)
+            throws ImmutableByteSequence.ByteSequenceTrimException {
+        if (plan.sdnString) {
+            return copyFrom(value.toStringUtf8());
+        }
+        return copyAndFit(value.asReadOnlyByteBuffer(), plan.bitWidth);
+    }
 }
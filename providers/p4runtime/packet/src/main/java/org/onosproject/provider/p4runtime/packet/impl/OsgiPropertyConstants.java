@@ -23,6 +23,8 @@ public final class OsgiPropertyConstants {
 
     private OsgiPropertyConstants() {}
 
+    // Deprecated and ignored: packet-ins are handled in the thread that
+    // delivers them. Kept so that existing configurations are still accepted.
     public static final String P4RUNTIME_PACKET_PROVIDER_WORKERS = "workers";
 
     public static final int P4RUNTIME_PACKET_PROVIDER_WORKERS_DEFAULT = 4;
@@ -17,7 +17,6 @@
 package org.onosproject.provider.p4runtime.packet.impl;
 
 import org.onlab.packet.EthType;
-import org.onlab.util.PredictableExecutor;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.Device;
@@ -52,11 +51,9 @@ import org.slf4j.Logger;
 
 import java.nio.ByteBuffer;
 import java.util.Dictionary;
-import java.util.concurrent.ExecutorService;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static org.onlab.util.Tools.get;
-import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.flow.DefaultTrafficTreatment.emptyTreatment;
 import static org.onosproject.provider.p4runtime.packet.impl.OsgiPropertyConstants.P4RUNTIME_PACKET_PROVIDER_WORKERS;
 import static org.onosproject.provider.p4runtime.packet.impl.OsgiPropertyConstants.P4RUNTIME_PACKET_PROVIDER_WORKERS_DEFAULT;
@@ -92,10 +89,8 @@ public class P4RuntimePacketProvider extends AbstractProvider implements PacketP
 
     private InternalPacketListener packetListener = new InternalPacketListener();
 
-    /** Number of P4Runtime packet provider workers. */
+    /** Deprecated and ignored, packet-ins are handled by the threads that deliver them. */
     private int workers = P4RUNTIME_PACKET_PROVIDER_WORKERS_DEFAULT;
-    // Predictable executor to stitch the packet processing always to the same thread
-    private PredictableExecutor packetWorkers;
 
     /**
      * Creates a new P4Runtime packet provider.
@@ -119,7 +114,6 @@ public class P4RuntimePacketProvider extends AbstractProvider implements PacketP
         controller.removeListener(packetListener);
         providerRegistry.unregister(this);
         providerService = null;
-        stopWorkersIfNeeded();
         log.info("Stopped");
     }
 
@@ -127,22 +121,11 @@ public class P4RuntimePacketProvider extends AbstractProvider implements PacketP
     protected void modified(ComponentContext context) {
         if (context != null) {
             Dictionary<?, ?> properties = context.getProperties();
-            int newWorkers;
-            try {
-                String s = get(properties, P4RUNTIME_PACKET_PROVIDER_WORKERS);
-                newWorkers = isNullOrEmpty(s) ? workers : Integer.parseInt(s.trim());
-            } catch (NumberFormatException | ClassCastException e) {
-                newWorkers = workers;
-            }
-
-            // Stop previous executor and start a new one when there are changes in the config
-            // OR during the start up of the service
-            if (newWorkers != workers || packetWorkers == null) {
-                workers = newWorkers;
-                stopWorkersIfNeeded();
-                packetWorkers = new PredictableExecutor(workers, groupedThreads("onos/p4rt",
-                        "packet-worker-%d", log));
-                log.info("Settings: p4RuntimePacketProviderWorkers={}", workers);
+            String s = get(properties, P4RUNTIME_PACKET_PROVIDER_WORKERS);
+            if (!isNullOrEmpty(s) && !s.trim().equals(String.valueOf(workers))) {
+                log.warn("Property {} is deprecated and ignored, packet-ins are " +
+                                 "handled by the P4Runtime packet-in queue of each device",
+                         P4RUNTIME_PACKET_PROVIDER_WORKERS);
             }
         }
     }
@@ -161,14 +144,6 @@ public class P4RuntimePacketProvider extends AbstractProvider implements PacketP
         }
     }
 
-    private void stopWorkersIfNeeded() {
-        if (packetWorkers != null) {
-            ExecutorService oldWorkerExecutor = packetWorkers;
-            oldWorkerExecutor.shutdown();
-            packetWorkers = null;
-        }
-    }
-
     private EthType.EtherType getEtherType(ByteBuffer data) {
         final short shortEthType = data.getShort(12);
         data.rewind();
@@ -267,9 +242,11 @@ public class P4RuntimePacketProvider extends AbstractProvider implements PacketP
 
         @Override
         public void event(P4RuntimeEvent event) {
-            // Offload to another executor to prevent the ejection of the listener - it uses
-            // the device id to stitch the packets coming from a device always to the same worker
-            packetWorkers.execute(() -> handleP4RuntimeEvent(event), event.subject().deviceId().hashCode());
+            // Packet-ins are delivered by the packet-in queue of the device,
+            // one at a time and in order. Handling them in the same thread
+            // keeps that order, and lets the bounded queue of the device
+            // throttle it.
+            handleP4RuntimeEvent(event);
         }
     }
 }
@@ -0,0 +1,50 @@
+"""
+ Copyright 2022-present Open Networking Foundation
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+"""
+
+load("//tools/build/bazel:generate_workspace.bzl", "JMH")
+
+def jmh_benchmarks(
+        name,
+        srcs = None,
+        deps = [],
+        jvm_flags = [],
+        visibility = ["//visibility:private"]):
+    """
+        Creates a runnable binary of the JMH micro-benchmarks of a module, found by
+        default under src/jmh/java. The benchmarks are not part of the module bundle.
+
+        Args:
+            name: name of the benchmarks binary
+            srcs: benchmark sources
+            deps: dependencies of the benchmarks, typically the module under test
+                and its own dependencies
+            jvm_flags: flags of the JVM running the benchmarks
+            visibility: visibility of the binary
+
+        Run the benchmarks with "bazel run <target> -- <JMH options>".
+    """
+    if srcs == None:
+        srcs = native.glob(["src/jmh/java/**/*.java"])
+
+    native.java_binary(
+        name = name,
+        srcs = srcs,
+        main_class = "org.openjdk.jmh.Main",
+        plugins = ["//tools/build/bazel:jmh_annotation_processor"],
+        deps = deps + JMH,
+        jvm_flags = jvm_flags,
+        visibility = visibility,
+    )
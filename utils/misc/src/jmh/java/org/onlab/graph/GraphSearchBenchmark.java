@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Compares the object-based graph searches with their compact counterparts
+ * on leaf-spine fabrics, where many equal-cost paths exist between leaves,
+ * and on sparse random meshes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphSearchBenchmark {
+
+    @Param({"fabric", "mesh"})
+    private String shape;
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private final EdgeWeigher<BenchmarkVertex, BenchmarkEdge> weigher = new DefaultEdgeWeigher<>();
+
+    private final DijkstraGraphSearch<BenchmarkVertex, BenchmarkEdge> dijkstra =
+            new DijkstraGraphSearch<>();
+    private final CompactDijkstraGraphSearch<BenchmarkVertex, BenchmarkEdge> compactDijkstra =
+            new CompactDijkstraGraphSearch<>();
+    private final BreadthFirstSearch<BenchmarkVertex, BenchmarkEdge> bfs =
+            new BreadthFirstSearch<>();
+    private final CompactBreadthFirstSearch<BenchmarkVertex, BenchmarkEdge> compactBfs =
+            new CompactBreadthFirstSearch<>();
+    private final BellmanFordGraphSearch<BenchmarkVertex, BenchmarkEdge> bellmanFord =
+            new BellmanFordGraphSearch<>();
+    private final CompactBellmanFordGraphSearch<BenchmarkVertex, BenchmarkEdge> compactBellmanFord =
+            new CompactBellmanFordGraphSearch<>();
+    private final SuurballeGraphSearch<BenchmarkVertex, BenchmarkEdge> suurballe =
+            new SuurballeGraphSearch<>();
+    private final SuurballeGraphSearch<BenchmarkVertex, BenchmarkEdge> compactSuurballe =
+            new SuurballeGraphSearch<>(compactDijkstra);
+
+    private Graph<BenchmarkVertex, BenchmarkEdge> graph;
+    private CompactGraph<BenchmarkVertex, BenchmarkEdge> compactGraph;
+    private BenchmarkVertex src;
+    private BenchmarkVertex dst;
+
+    @Setup
+    public void setUp() {
+        List<BenchmarkVertex> vertexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            vertexes.add(new BenchmarkVertex(i));
+        }
+        List<BenchmarkEdge> edges = "fabric".equals(shape) ? fabric(vertexes) : mesh(vertexes);
+        graph = new AdjacencyListsGraph<>(ImmutableSet.copyOf(vertexes), ImmutableSet.copyOf(edges));
+        compactGraph = CompactGraph.of(graph);
+        src = vertexes.get(0);
+        dst = vertexes.get(size - 1);
+    }
+
+    // One spine for every ten leaves, with every leaf connected to every spine
+    private static List<BenchmarkEdge> fabric(List<BenchmarkVertex> vertexes) {
+        int spines = Math.max(2, vertexes.size() / 10);
+        List<BenchmarkEdge> edges = new ArrayList<>();
+        for (int leaf = spines; leaf < vertexes.size(); leaf++) {
+            for (int spine = 0; spine < spines; spine++) {
+                link(edges, vertexes.get(leaf), vertexes.get(spine));
+            }
+        }
+        return edges;
+    }
+
+    // Ring with random chords, averaging four links per vertex
+    private static List<BenchmarkEdge> mesh(List<BenchmarkVertex> vertexes) {
+        Random random = new Random(vertexes.size());
+        List<BenchmarkEdge> edges = new ArrayList<>();
+        for (int i = 0; i < vertexes.size(); i++) {
+            link(edges, vertexes.get(i), vertexes.get((i + 1) % vertexes.size()));
+            link(edges, vertexes.get(i), vertexes.get(random.nextInt(vertexes.size())));
+        }
+        return edges;
+    }
+
+    private static void link(List<BenchmarkEdge> edges, BenchmarkVertex one, BenchmarkVertex two) {
+        if (!one.equals(two)) {
+            edges.add(new BenchmarkEdge(one, two));
+            edges.add(new BenchmarkEdge(two, one));
+        }
+    }
+
+    @Benchmark
+    public Object compaction() {
+        return CompactGraph.of(graph);
+    }
+
+    @Benchmark
+    public Object dijkstra() {
+        return dijkstra.search(graph, src, dst, weigher, ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public Object compactDijkstra() {
+        return compactDijkstra.search(compactGraph, src, dst, weigher, ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public Object dijkstraTree() {
+        return dijkstra.searchTree(graph, src, weigher);
+    }
+
+    @Benchmark
+    public Object compactDijkstraTree() {
+        return compactDijkstra.searchTree(compactGraph, src, weigher);
+    }
+
+    @Benchmark
+    public Object bfs() {
+        return bfs.search(graph, src, dst, weigher, ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public Object compactBfs() {
+        return compactBfs.search(compactGraph, src, dst, weigher, ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public Object bellmanFord() {
+        return bellmanFord.search(graph, src, dst, weigher, ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public Object compactBellmanFord() {
+        return compactBellmanFord.search(compactGraph, src, dst, weigher, ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public Object suurballe() {
+        return suurballe.search(graph, src, dst, weigher, 1).paths();
+    }
+
+    @Benchmark
+    public Object compactSuurballe() {
+        return compactSuurballe.search(graph, src, dst, weigher, 1).paths();
+    }
+
+    private static final class BenchmarkVertex implements Vertex {
+        private final int id;
+
+        private BenchmarkVertex(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof BenchmarkVertex && ((BenchmarkVertex) obj).id == id;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(id);
+        }
+    }
+
+    private static final class BenchmarkEdge extends AbstractEdge<BenchmarkVertex> {
+        private BenchmarkEdge(BenchmarkVertex src, BenchmarkVertex dst) {
+            super(src, dst);
+        }
+    }
+}
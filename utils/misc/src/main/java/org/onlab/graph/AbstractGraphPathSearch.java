@@ -206,33 +206,56 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
             for (V v : destinations) {
                 // Ignore the source, if it is among the destinations.
                 if (!v.equals(src)) {
-                    buildAllPaths(this, src, v, maxPaths);
+                    buildAllPaths(parents, costs.get(v), src, v, maxPaths, paths);
                 }
             }
         }
 
     }
 
+    /**
+     * Builds the set of all paths between the source of a previous search
+     * and the given destination, using the parent edges and vertex costs of
+     * that search.
+     *
+     * @param result   result of a search from the source to all vertexes
+     * @param dst      destination vertex
+     * @param maxPaths limit on the number of paths built;
+     *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return set of paths; empty if the destination is not reachable
+     */
+    public Set<Path<V, E>> buildPaths(Result<V, E> result, V dst, int maxPaths) {
+        Set<Path<V, E>> paths = new HashSet<>();
+        if (!dst.equals(result.src())) {
+            buildAllPaths(result.parents(), result.costs().get(dst),
+                          result.src(), dst, maxPaths, paths);
+        }
+        return paths;
+    }
+
     /**
      * Builds a set of all paths between the source and destination using the
      * graph search result by applying breadth-first search through the parent
      * edges and vertex costs.
      *
-     * @param result   graph search result
+     * @param parents  parent edges of the graph search result
+     * @param cost     cost to reach the destination
      * @param src      source vertex
      * @param dst      destination vertex
      * @param maxPaths limit on the number of paths built;
      *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @param paths    set receiving the paths built
      */
-    private void buildAllPaths(DefaultResult result, V src, V dst, int maxPaths) {
+    private void buildAllPaths(Map<V, Set<E>> parents, Weight cost, V src, V dst,
+                               int maxPaths, Set<Path<V, E>> paths) {
         DefaultMutablePath<V, E> basePath = new DefaultMutablePath<>();
-        basePath.setCost(result.cost(dst));
+        basePath.setCost(cost);
 
         Set<DefaultMutablePath<V, E>> pendingPaths = new HashSet<>();
         pendingPaths.add(basePath);
 
         while (!pendingPaths.isEmpty() &&
-                (maxPaths == ALL_PATHS || result.paths.size() < maxPaths)) {
+                (maxPaths == ALL_PATHS || paths.size() < maxPaths)) {
             Set<DefaultMutablePath<V, E>> frontier = new HashSet<>();
 
             for (DefaultMutablePath<V, E> path : pendingPaths) {
@@ -243,15 +266,17 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
                 // If the first vertex is our expected source, we have reached
                 // the beginning, so add the this path to the result paths.
                 if (firstVertex.equals(src)) {
-                    path.setCost(result.cost(dst));
-                    result.paths.add(new DefaultPath<>(path.edges(), path.cost()));
+                    if (maxPaths == ALL_PATHS || paths.size() < maxPaths) {
+                        path.setCost(cost);
+                        paths.add(new DefaultPath<>(path.edges(), path.cost()));
+                    }
 
                 } else {
                     // If we have not reached the beginning, i.e. the source,
                     // fetch the set of edges leading to the first vertex of
                     // this pending path; if there are none, abandon processing
                     // this path for good.
-                    Set<E> firstVertexParents = result.parents.get(firstVertex);
+                    Set<E> firstVertexParents = parents.get(firstVertex);
                     if (firstVertexParents == null || firstVertexParents.isEmpty()) {
                         break;
                     }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+/**
+ * Bellman-Ford graph search algorithm for locating shortest-paths in
+ * directed graphs that may contain negative cycles, running on a
+ * {@link CompactGraph}.
+ */
+public class CompactBellmanFordGraphSearch<V extends Vertex, E extends Edge<V>>
+        extends CompactGraphPathSearch<V, E> {
+
+    /**
+     * Creates a compact Bellman-Ford search.
+     */
+    public CompactBellmanFordGraphSearch() {
+        super(new BellmanFordGraphSearch<>());
+    }
+
+    @Override
+    protected void search(CompactResult<V, E> result) {
+        CompactGraph<V, E> graph = result.graph;
+        int edgeCount = graph.edgeCount();
+
+        // All edges are relaxed in every round, so weigh them only once.
+        double[] edgeCosts = new double[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            edgeCosts[edge] = result.edgeCost(edge);
+        }
+
+        // The source vertex has cost 0, of course; all other vertexes have
+        // no cost yet. Iterate over all vertexes minus one, relaxing all
+        // edges, unless a round did not lower any cost.
+        int max = graph.vertexCount() - 1;
+        boolean relaxed = true;
+        for (int i = 0; i < max && relaxed; i++) {
+            relaxed = false;
+            for (int edge = 0; edge < edgeCount; edge++) {
+                int source = graph.sources[edge];
+                if (result.hasCost(source)) {
+                    relaxed |= result.relaxEdge(edge, result.costs[source], edgeCosts[edge], false);
+                }
+            }
+        }
+
+        // Remove any vertexes reached by traversing edges with negative
+        // weights.
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int source = graph.sources[edge];
+            if (result.hasCost(source) && result.relaxEdge(edge, result.costs[source], edgeCosts[edge], false)) {
+                result.removeVertex(graph.destinations[edge]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+/**
+ * Implementation of the BFS algorithm running on a {@link CompactGraph}.
+ */
+public class CompactBreadthFirstSearch<V extends Vertex, E extends Edge<V>>
+        extends CompactGraphPathSearch<V, E> {
+
+    /**
+     * Creates a compact breadth-first search.
+     */
+    public CompactBreadthFirstSearch() {
+        super(new BreadthFirstSearch<>());
+    }
+
+    @Override
+    protected void search(CompactResult<V, E> result) {
+        CompactGraph<V, E> graph = result.graph;
+
+        // Prepare the first frontier.
+        int[] frontier = new int[graph.vertexCount()];
+        int[] next = new int[graph.vertexCount()];
+        frontier[0] = result.srcIndex;
+        int frontierSize = 1;
+
+        boolean reachedEnd = false;
+        while (!reachedEnd && frontierSize > 0) {
+            // Prepare the next frontier.
+            int nextSize = 0;
+
+            // Visit all vertexes in the current frontier.
+            for (int f = 0; f < frontierSize && !reachedEnd; f++) {
+                int vertex = frontier[f];
+                double cost = result.costs[vertex];
+
+                // Visit all egress edges of the current frontier vertex.
+                for (int i = graph.outOffsets[vertex]; i < graph.outOffsets[vertex + 1]; i++) {
+                    int edge = graph.outEdges[i];
+                    int nextVertex = graph.destinations[edge];
+                    if (!result.hasCost(nextVertex)) {
+                        // If this vertex has not been visited yet, update it.
+                        result.updateVertex(nextVertex, edge, cost + result.edgeCost(edge), true);
+                        // If we have reached our intended destination, bail.
+                        if (nextVertex == result.dstIndex) {
+                            reachedEnd = true;
+                            break;
+                        }
+                        next[nextSize++] = nextVertex;
+                    }
+                }
+            }
+
+            // Promote the next frontier.
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
+    }
+
+}
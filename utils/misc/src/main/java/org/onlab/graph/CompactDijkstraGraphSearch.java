@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+/**
+ * Dijkstra shortest-path graph search algorithm capable of finding not just
+ * one, but all shortest paths between the source and destinations, running on
+ * a {@link CompactGraph} with an indexed min priority queue.
+ */
+public class CompactDijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
+        extends CompactGraphPathSearch<V, E> {
+
+    private final DijkstraGraphSearch<V, E> dijkstra;
+
+    /**
+     * Creates a compact Dijkstra search.
+     */
+    public CompactDijkstraGraphSearch() {
+        this(new DijkstraGraphSearch<>());
+    }
+
+    private CompactDijkstraGraphSearch(DijkstraGraphSearch<V, E> dijkstra) {
+        super(dijkstra);
+        this.dijkstra = dijkstra;
+    }
+
+    /**
+     * Searches the graph for the shortest paths from the given source to all
+     * reachable vertexes, without building the paths themselves. Paths to any
+     * destination can later be built from the returned search result using
+     * {@link #buildPaths(Result, Vertex, int)}.
+     *
+     * @param graph   graph to be searched
+     * @param src     source vertex
+     * @param weigher optional edge-weigher; if null, {@link DefaultEdgeWeigher}
+     *                is used (assigns equal weights to all edges)
+     * @return search result carrying the costs and all parent edges of the
+     * reachable vertexes
+     */
+    public Result<V, E> searchTree(Graph<V, E> graph, V src, EdgeWeigher<V, E> weigher) {
+        checkArguments(graph, src, null);
+        EdgeWeigher<V, E> actualWeigher = weigher != null ? weigher : new DefaultEdgeWeigher<>();
+        CompactResult<V, E> result = newResult(graph, src, null, actualWeigher, ALL_PATHS);
+        if (result == null) {
+            return dijkstra.searchTree(graph, src, actualWeigher);
+        }
+        search(result);
+        return result;
+    }
+
+    @Override
+    protected void search(CompactResult<V, E> result) {
+        CompactGraph<V, E> graph = result.graph;
+
+        // Progressively find each nearest vertex until we reach the desired
+        // destination, if one was given, or until we reach all possible
+        // destinations. Only vertexes reached so far are on the queue.
+        IntHeap minQueue = new IntHeap(result.costs);
+        minQueue.add(result.srcIndex);
+        while (!minQueue.isEmpty()) {
+            int nearest = minQueue.poll();
+            if (nearest == result.dstIndex) {
+                break;
+            }
+
+            // Relax all its egress edges, re-prioritizing the vertexes
+            // whose cost got lower.
+            double cost = result.costs[nearest];
+            for (int i = graph.outOffsets[nearest]; i < graph.outOffsets[nearest + 1]; i++) {
+                int edge = graph.outEdges[i];
+                if (result.relaxEdge(edge, cost, result.edgeCost(edge), true)) {
+                    minQueue.decrease(graph.destinations[edge]);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable graph with int-indexed vertexes and edges, whose adjacency is
+ * kept in compressed sparse row arrays.
+ * <p>
+ * The compact graph searches run directly on these arrays, using primitive
+ * edge costs, so that no hash lookups or weight objects are needed while
+ * traversing the graph.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public final class CompactGraph<V extends Vertex, E extends Edge<V>>
+        implements Graph<V, E> {
+
+    private final Set<V> vertexSet;
+    private final Set<E> edgeSet;
+
+    private final Object[] vertexes;
+    private final Object[] edges;
+    private final Map<V, Integer> indexes;
+
+    // Edge end-points, by edge index
+    final int[] sources;
+    final int[] destinations;
+
+    // Egress and ingress edges of vertex v are found in outEdges and inEdges
+    // respectively, between the v and v + 1 offsets
+    final int[] outOffsets;
+    final int[] outEdges;
+    final int[] inOffsets;
+    final int[] inEdges;
+
+    private CompactGraph(Graph<V, E> graph) {
+        // Make sure that all edge end-points are indexed as vertexes
+        ImmutableSet.Builder<V> actualVertexes = ImmutableSet.builder();
+        actualVertexes.addAll(graph.getVertexes());
+        graph.getEdges().forEach(edge -> actualVertexes.add(edge.src()).add(edge.dst()));
+        this.vertexSet = actualVertexes.build();
+        this.edgeSet = ImmutableSet.copyOf(graph.getEdges());
+        this.vertexes = vertexSet.toArray();
+        this.edges = edgeSet.toArray();
+
+        this.indexes = new HashMap<>(vertexes.length * 2);
+        for (int i = 0; i < vertexes.length; i++) {
+            indexes.put(vertex(i), i);
+        }
+
+        this.sources = new int[edges.length];
+        this.destinations = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            sources[i] = index(edge(i).src());
+            destinations[i] = index(edge(i).dst());
+        }
+
+        this.outOffsets = new int[vertexes.length + 1];
+        this.outEdges = new int[edges.length];
+        fill(sources, outOffsets, outEdges);
+        this.inOffsets = new int[vertexes.length + 1];
+        this.inEdges = new int[edges.length];
+        fill(destinations, inOffsets, inEdges);
+    }
+
+    // Counting-sorts the edges by the given end-point into the row arrays.
+    private static void fill(int[] endpoints, int[] offsets, int[] rows) {
+        for (int endpoint : endpoints) {
+            offsets[endpoint + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] next = offsets.clone();
+        for (int edge = 0; edge < endpoints.length; edge++) {
+            rows[next[endpoints[edge]]++] = edge;
+        }
+    }
+
+    /**
+     * Returns a compact graph with the same vertexes and edges as the given
+     * graph; the graph itself if already compact.
+     *
+     * @param graph graph to compact
+     * @param <V>   vertex type
+     * @param <E>   edge type
+     * @return compact graph
+     */
+    public static <V extends Vertex, E extends Edge<V>> CompactGraph<V, E> of(Graph<V, E> graph) {
+        checkNotNull(graph, "Graph cannot be null");
+        if (graph instanceof CompactGraph) {
+            return (CompactGraph<V, E>) graph;
+        }
+        return new CompactGraph<>(graph);
+    }
+
+    /**
+     * Returns the number of vertexes of this graph.
+     *
+     * @return vertex count
+     */
+    public int vertexCount() {
+        return vertexes.length;
+    }
+
+    /**
+     * Returns the number of edges of this graph.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the index of the given vertex.
+     *
+     * @param vertex vertex
+     * @return vertex index; -1 if the vertex is not part of this graph
+     */
+    public int index(V vertex) {
+        Integer index = indexes.get(vertex);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the vertex with the given index.
+     *
+     * @param index vertex index
+     * @return vertex
+     */
+    @SuppressWarnings("unchecked")
+    public V vertex(int index) {
+        return (V) vertexes[index];
+    }
+
+    /**
+     * Returns the edge with the given index.
+     *
+     * @param index edge index
+     * @return edge
+     */
+    @SuppressWarnings("unchecked")
+    public E edge(int index) {
+        return (E) edges[index];
+    }
+
+    @Override
+    public Set<V> getVertexes() {
+        return vertexSet;
+    }
+
+    @Override
+    public Set<E> getEdges() {
+        return edgeSet;
+    }
+
+    @Override
+    public Set<E> getEdgesFrom(V src) {
+        return edges(index(src), outOffsets, outEdges);
+    }
+
+    @Override
+    public Set<E> getEdgesTo(V dst) {
+        return edges(index(dst), inOffsets, inEdges);
+    }
+
+    private Set<E> edges(int vertex, int[] offsets, int[] rows) {
+        if (vertex < 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<E> builder = ImmutableSet.builder();
+        for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+            builder.add(edge(rows[i]));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(vertexSet, edgeSet);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof CompactGraph) {
+            CompactGraph<?, ?> that = (CompactGraph<?, ?>) obj;
+            return this.getClass() == that.getClass() &&
+                    Objects.equals(this.vertexSet, that.vertexSet) &&
+                    Objects.equals(this.edgeSet, that.edgeSet);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("vertexes", vertexSet)
+                .add("edges", edgeSet)
+                .toString();
+    }
+}
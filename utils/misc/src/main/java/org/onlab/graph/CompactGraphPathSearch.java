@@ -0,0 +1,378 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.math.DoubleMath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Basis for graph path search algorithms running on a {@link CompactGraph}
+ * with primitive edge costs.
+ * <p>
+ * Graphs which are not compact are compacted before each search, so callers
+ * issuing many searches over the same graph should compact it beforehand.
+ * Edge weighers whose initial weight is not a {@link ScalarWeight} cannot be
+ * expressed as primitive costs; searches using those are delegated to the
+ * equivalent object-based search algorithm. Edges are only weighed as the
+ * search traverses them.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public abstract class CompactGraphPathSearch<V extends Vertex, E extends Edge<V>>
+        extends AbstractGraphPathSearch<V, E> {
+
+    private final GraphPathSearch<V, E> fallback;
+
+    /**
+     * Creates a compact search delegating searches with non-scalar weights to
+     * the given search.
+     *
+     * @param fallback equivalent object-based search
+     */
+    protected CompactGraphPathSearch(GraphPathSearch<V, E> fallback) {
+        this.fallback = checkNotNull(fallback);
+    }
+
+    @Override
+    protected Result<V, E> internalSearch(Graph<V, E> graph, V src, V dst,
+                                          EdgeWeigher<V, E> weigher, int maxPaths) {
+        CompactResult<V, E> result = newResult(graph, src, dst, weigher, maxPaths);
+        if (result == null) {
+            return fallback.search(graph, src, dst, weigher, maxPaths);
+        }
+        search(result);
+        return result;
+    }
+
+    /**
+     * Searches the compact graph of the given result, recording the costs
+     * and parent edges of the vertexes reached.
+     *
+     * @param result search result to fill
+     */
+    protected abstract void search(CompactResult<V, E> result);
+
+    /**
+     * Creates the result of a search over the compacted graph.
+     *
+     * @param graph    graph to search
+     * @param src      source vertex
+     * @param dst      optional destination vertex
+     * @param weigher  edge weigher
+     * @param maxPaths limit on the number of paths; {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return search result; null if the initial weight is not scalar
+     */
+    protected CompactResult<V, E> newResult(Graph<V, E> graph, V src, V dst,
+                                            EdgeWeigher<V, E> weigher, int maxPaths) {
+        Weight initialWeight = weigher.getInitialWeight();
+        if (!(initialWeight instanceof ScalarWeight)) {
+            return null;
+        }
+        CompactGraph<V, E> compactGraph = CompactGraph.of(graph);
+        return new CompactResult<>(compactGraph, weigher, compactGraph.index(src),
+                                   dst != null ? compactGraph.index(dst) : -1,
+                                   ((ScalarWeight) initialWeight).value(), maxPaths);
+    }
+
+    @Override
+    public Set<Path<V, E>> buildPaths(Result<V, E> result, V dst, int maxPaths) {
+        if (result instanceof CompactResult) {
+            CompactResult<V, E> compactResult = (CompactResult<V, E>) result;
+            Set<Path<V, E>> paths = new HashSet<>();
+            int index = compactResult.graph.index(dst);
+            if (index >= 0) {
+                compactResult.buildPaths(index, maxPaths, paths);
+            }
+            return paths;
+        }
+        return super.buildPaths(result, dst, maxPaths);
+    }
+
+    /**
+     * Compares two costs in the same way as {@link ScalarWeight} does.
+     *
+     * @param cost  first cost
+     * @param other second cost
+     * @return negative, zero or positive if the first cost is respectively
+     * lower, the same, or greater than the second one
+     */
+    static int compare(double cost, double other) {
+        if (DoubleMath.fuzzyEquals(cost, other, ScalarWeight.samenessThreshold())) {
+            return 0;
+        }
+        return Double.compare(cost, other);
+    }
+
+    /**
+     * Search result keeping the costs and parent edges of the vertexes in
+     * arrays indexed by vertex. Paths, costs and parents are only turned into
+     * objects when first requested.
+     *
+     * @param <V> vertex type
+     * @param <E> edge type
+     */
+    protected static final class CompactResult<V extends Vertex, E extends Edge<V>>
+            implements Result<V, E> {
+
+        final CompactGraph<V, E> graph;
+        private final EdgeWeigher<V, E> weigher;
+        final int srcIndex;
+        final int dstIndex;
+        final int maxPaths;
+
+        // Cost of each vertex; NaN until reached
+        final double[] costs;
+
+        // Parent edges of each vertex, as linked lists of entries
+        private final int[] parentHeads;
+        private final int[] parentCounts;
+        private int[] parentEdges;
+        private int[] parentNexts;
+        private int parentEntries;
+        // Whether each edge is a parent edge of its destination vertex
+        private final boolean[] parentEdgeFlags;
+
+        private Set<Path<V, E>> paths;
+        private Map<V, Weight> costMap;
+        private Map<V, Set<E>> parentMap;
+
+        private CompactResult(CompactGraph<V, E> graph, EdgeWeigher<V, E> weigher,
+                              int srcIndex, int dstIndex, double initialCost, int maxPaths) {
+            this.graph = graph;
+            this.weigher = weigher;
+            this.srcIndex = srcIndex;
+            this.dstIndex = dstIndex;
+            this.maxPaths = maxPaths;
+            this.costs = new double[graph.vertexCount()];
+            Arrays.fill(costs, Double.NaN);
+            costs[srcIndex] = initialCost;
+            this.parentHeads = new int[graph.vertexCount()];
+            Arrays.fill(parentHeads, -1);
+            this.parentCounts = new int[graph.vertexCount()];
+            this.parentEdges = new int[Math.max(16, graph.vertexCount())];
+            this.parentNexts = new int[parentEdges.length];
+            this.parentEdgeFlags = new boolean[graph.edgeCount()];
+        }
+
+        @Override
+        public V src() {
+            return graph.vertex(srcIndex);
+        }
+
+        @Override
+        public V dst() {
+            return dstIndex >= 0 ? graph.vertex(dstIndex) : null;
+        }
+
+        /**
+         * Returns the cost of the given edge, as weighed by the search weigher.
+         * Non-viable edges cost positive infinity.
+         *
+         * @param edge edge index
+         * @return edge cost
+         * @throws IllegalArgumentException if the edge weight is not scalar
+         */
+        double edgeCost(int edge) {
+            Weight weight = weigher.weight(graph.edge(edge));
+            checkArgument(weight instanceof ScalarWeight,
+                          "Edge weight %s is not a scalar weight", weight);
+            return weight.isViable() ? ((ScalarWeight) weight).value() : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Indicates whether the given vertex has a cost yet.
+         *
+         * @param vertex vertex index
+         * @return true if the vertex has been reached
+         */
+        boolean hasCost(int vertex) {
+            return !Double.isNaN(costs[vertex]);
+        }
+
+        /**
+         * Updates the cost of the vertex reached through the given edge,
+         * recording the edge as one of its parents.
+         *
+         * @param vertex  vertex index
+         * @param edge    index of the edge through which the vertex is reached
+         * @param cost    cost to reach the vertex from the source
+         * @param replace true to clear the parent edges accrued so far; false
+         *                to add the edge to them as they yield the same cost
+         */
+        void updateVertex(int vertex, int edge, double cost, boolean replace) {
+            costs[vertex] = cost;
+            if (replace) {
+                removeVertex(vertex);
+            }
+            if (parentEdgeFlags[edge] || (maxPaths != ALL_PATHS && parentCounts[vertex] >= maxPaths)) {
+                return;
+            }
+            if (parentEntries == parentEdges.length) {
+                parentEdges = Arrays.copyOf(parentEdges, parentEntries * 2);
+                parentNexts = Arrays.copyOf(parentNexts, parentEntries * 2);
+            }
+            parentEdges[parentEntries] = edge;
+            parentNexts[parentEntries] = parentHeads[vertex];
+            parentHeads[vertex] = parentEntries++;
+            parentCounts[vertex]++;
+            parentEdgeFlags[edge] = true;
+        }
+
+        /**
+         * Removes the parent edges of the given vertex.
+         *
+         * @param vertex vertex index
+         */
+        void removeVertex(int vertex) {
+            for (int entry = parentHeads[vertex]; entry >= 0; entry = parentNexts[entry]) {
+                parentEdgeFlags[parentEdges[entry]] = false;
+            }
+            parentHeads[vertex] = -1;
+            parentCounts[vertex] = 0;
+        }
+
+        /**
+         * If possible, relaxes the given edge using the supplied cost of its
+         * source vertex.
+         *
+         * @param edge            index of the edge to relax
+         * @param cost            cost to reach the edge source vertex
+         * @param hopCost         cost of the edge itself
+         * @param forbidNegatives true if edges with negative costs are not to
+         *                        be traversed
+         * @return true if the edge lowered the cost of its destination vertex
+         */
+        boolean relaxEdge(int edge, double cost, double hopCost, boolean forbidNegatives) {
+            if (hopCost == Double.POSITIVE_INFINITY || (forbidNegatives && hopCost < 0)) {
+                return false;
+            }
+            int vertex = graph.destinations[edge];
+            double newCost = cost + hopCost;
+            int compareResult = hasCost(vertex) ? compare(newCost, costs[vertex]) : -1;
+            if (compareResult <= 0) {
+                updateVertex(vertex, edge, newCost, compareResult < 0);
+            }
+            return compareResult < 0;
+        }
+
+        @Override
+        public synchronized Set<Path<V, E>> paths() {
+            if (paths == null) {
+                Set<Path<V, E>> builtPaths = new HashSet<>();
+                if (dstIndex >= 0) {
+                    buildPaths(dstIndex, maxPaths, builtPaths);
+                } else {
+                    for (int vertex = 0; vertex < costs.length; vertex++) {
+                        buildPaths(vertex, maxPaths, builtPaths);
+                    }
+                }
+                paths = builtPaths;
+            }
+            return paths;
+        }
+
+        @Override
+        public synchronized Map<V, Set<E>> parents() {
+            if (parentMap == null) {
+                ImmutableMap.Builder<V, Set<E>> builder = ImmutableMap.builder();
+                for (int vertex = 0; vertex < parentHeads.length; vertex++) {
+                    if (parentHeads[vertex] >= 0) {
+                        ImmutableSet.Builder<E> edges = ImmutableSet.builder();
+                        for (int entry = parentHeads[vertex]; entry >= 0; entry = parentNexts[entry]) {
+                            edges.add(graph.edge(parentEdges[entry]));
+                        }
+                        builder.put(graph.vertex(vertex), edges.build());
+                    }
+                }
+                parentMap = builder.build();
+            }
+            return parentMap;
+        }
+
+        @Override
+        public synchronized Map<V, Weight> costs() {
+            if (costMap == null) {
+                ImmutableMap.Builder<V, Weight> builder = ImmutableMap.builder();
+                for (int vertex = 0; vertex < costs.length; vertex++) {
+                    if (hasCost(vertex)) {
+                        builder.put(graph.vertex(vertex), new ScalarWeight(costs[vertex]));
+                    }
+                }
+                costMap = builder.build();
+            }
+            return costMap;
+        }
+
+        /**
+         * Builds the paths between the source and the given vertex by walking
+         * the parent edges back from the vertex.
+         *
+         * @param vertex   destination vertex index
+         * @param maxPaths limit on the number of paths in the set;
+         *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+         * @param paths    set receiving the paths built
+         */
+        void buildPaths(int vertex, int maxPaths, Set<Path<V, E>> paths) {
+            if (vertex == srcIndex || !hasCost(vertex)) {
+                return;
+            }
+            boolean[] onPath = new boolean[costs.length];
+            onPath[vertex] = true;
+            walk(vertex, new int[costs.length], 0, onPath,
+                 new ScalarWeight(costs[vertex]), maxPaths, paths);
+        }
+
+        // Walks the parent edges back from the given vertex to the source,
+        // excluding any looping paths.
+        private void walk(int vertex, int[] trail, int length, boolean[] onPath,
+                          Weight cost, int maxPaths, Set<Path<V, E>> paths) {
+            if (vertex == srcIndex) {
+                List<E> edges = new ArrayList<>(length);
+                for (int i = length - 1; i >= 0; i--) {
+                    edges.add(graph.edge(trail[i]));
+                }
+                paths.add(new DefaultPath<>(edges, cost));
+                return;
+            }
+            for (int entry = parentHeads[vertex]; entry >= 0; entry = parentNexts[entry]) {
+                if (maxPaths != ALL_PATHS && paths.size() >= maxPaths) {
+                    return;
+                }
+                int edge = parentEdges[entry];
+                int parent = graph.sources[edge];
+                if (!onPath[parent]) {
+                    onPath[parent] = true;
+                    trail[length] = edge;
+                    walk(parent, trail, length + 1, onPath, cost, maxPaths, paths);
+                    onPath[parent] = false;
+                }
+            }
+        }
+    }
+}
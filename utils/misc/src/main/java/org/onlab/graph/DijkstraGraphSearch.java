@@ -29,6 +29,32 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
     @Override
     protected Result<V, E> internalSearch(Graph<V, E> graph, V src, V dst,
                                EdgeWeigher<V, E> weigher, int maxPaths) {
+        return search(graph, src, dst, weigher, maxPaths, true);
+    }
+
+    /**
+     * Searches the graph for the shortest paths from the given source to all
+     * reachable vertexes, without building the paths themselves. Paths to any
+     * destination can later be built from the returned search result using
+     * {@link #buildPaths(Result, Vertex, int)}.
+     *
+     * @param graph   graph to be searched
+     * @param src     source vertex
+     * @param weigher optional edge-weigher; if null, {@link DefaultEdgeWeigher}
+     *                is used (assigns equal weights to all edges)
+     * @return search result carrying the costs and all parent edges of the
+     * reachable vertexes
+     */
+    public Result<V, E> searchTree(Graph<V, E> graph, V src, EdgeWeigher<V, E> weigher) {
+        checkArguments(graph, src, null);
+        return search(graph, src, null,
+                      weigher != null ? weigher : new DefaultEdgeWeigher<>(),
+                      ALL_PATHS, false);
+    }
+
+    private Result<V, E> search(Graph<V, E> graph, V src, V dst,
+                                EdgeWeigher<V, E> weigher, int maxPaths,
+                                boolean buildPaths) {
 
         // Use the default result to remember cumulative costs and parent
         // edges to each each respective vertex.
@@ -38,7 +64,9 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
         result.updateVertex(src, null, weigher.getInitialWeight(), false);
 
         if (graph.getEdges().isEmpty()) {
-            result.buildPaths();
+            if (buildPaths) {
+                result.buildPaths();
+            }
             return result;
         }
 
@@ -69,7 +97,9 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
         }
 
         // Now construct a set of paths from the results.
-        result.buildPaths();
+        if (buildPaths) {
+            result.buildPaths();
+        }
         return result;
     }
 
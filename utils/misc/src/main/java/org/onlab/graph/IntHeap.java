@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Binary min-heap of int items in the range [0, capacity), ordered by their
+ * keys in an externally owned array of doubles.
+ * <p>
+ * Unlike {@link Heap}, which restores the heap property across all items in
+ * linear time, the position of every item is tracked so that an item whose
+ * key decreased can be sifted up in logarithmic time through
+ * {@link #decrease(int)}.
+ * </p>
+ * <p>
+ * This class is not thread-safe and care must be taken to prevent concurrent
+ * modifications.
+ * </p>
+ */
+public final class IntHeap {
+
+    private final double[] keys;
+    private final int[] items;
+    private final int[] positions;
+    private int size;
+
+    /**
+     * Creates an empty heap of items ordered by the specified keys. The keys
+     * array is not copied; the key of an item must only be changed through
+     * {@link #decrease(int)} while the item is on the heap.
+     *
+     * @param keys keys of the items, by item
+     */
+    public IntHeap(double[] keys) {
+        this.keys = checkNotNull(keys, "Keys cannot be null");
+        this.items = new int[keys.length];
+        this.positions = new int[keys.length];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Returns the number of items on the heap.
+     *
+     * @return item count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indicates whether the heap is empty.
+     *
+     * @return true if the heap holds no items
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Indicates whether the given item is on the heap.
+     *
+     * @param item item
+     * @return true if the item is on the heap
+     */
+    public boolean contains(int item) {
+        return positions[item] >= 0;
+    }
+
+    /**
+     * Adds the given item to the heap.
+     *
+     * @param item item not on the heap yet
+     */
+    public void add(int item) {
+        checkArgument(!contains(item), "Item %s is already on the heap", item);
+        items[size] = item;
+        positions[item] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Restores the heap order after the key of the given item decreased;
+     * adds the item if not on the heap yet.
+     *
+     * @param item item whose key decreased
+     */
+    public void decrease(int item) {
+        if (contains(item)) {
+            siftUp(positions[item]);
+        } else {
+            add(item);
+        }
+    }
+
+    /**
+     * Removes and returns the item with the lowest key.
+     *
+     * @return item with the lowest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int first = items[0];
+        positions[first] = -1;
+        if (--size > 0) {
+            items[0] = items[size];
+            positions[items[0]] = 0;
+            siftDown(0);
+        }
+        return first;
+    }
+
+    private void siftUp(int position) {
+        int item = items[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[items[parent]] <= keys[item]) {
+                break;
+            }
+            move(items[parent], position);
+            position = parent;
+        }
+        move(item, position);
+    }
+
+    private void siftDown(int position) {
+        int item = items[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && keys[items[right]] < keys[items[child]]) {
+                child = right;
+            }
+            if (keys[item] <= keys[items[child]]) {
+                break;
+            }
+            move(items[child], position);
+            position = child;
+        }
+        move(item, position);
+    }
+
+    private void move(int item, int position) {
+        items[position] = item;
+        positions[item] = position;
+    }
+}
@@ -33,6 +33,35 @@ import java.util.stream.Collectors;
  */
 public class SuurballeGraphSearch<V extends Vertex, E extends Edge<V>> extends DijkstraGraphSearch<V, E> {
 
+    private final GraphPathSearch<V, E> shortestPathSearch;
+
+    /**
+     * Creates a Suurballe search finding shortest paths with the Dijkstra
+     * algorithm.
+     */
+    public SuurballeGraphSearch() {
+        this.shortestPathSearch = null;
+    }
+
+    /**
+     * Creates a Suurballe search finding shortest paths with the given search,
+     * e.g. {@link CompactDijkstraGraphSearch}.
+     *
+     * @param shortestPathSearch search capable of finding all shortest paths
+     *                           between two vertexes
+     */
+    public SuurballeGraphSearch(GraphPathSearch<V, E> shortestPathSearch) {
+        this.shortestPathSearch = shortestPathSearch;
+    }
+
+    // Finds all shortest paths between the given vertexes.
+    private Result<V, E> shortestPaths(Graph<V, E> graph, V src, V dst, EdgeWeigher<V, E> weigher) {
+        if (shortestPathSearch == null) {
+            return super.internalSearch(graph, src, dst, weigher, ALL_PATHS);
+        }
+        return shortestPathSearch.search(graph, src, dst, weigher, ALL_PATHS);
+    }
+
     @Override
     protected Result<V, E> internalSearch(Graph<V, E> graph, V src, V dst,
                                EdgeWeigher<V, E> weigher, int maxPaths) {
@@ -48,10 +77,8 @@ public class SuurballeGraphSearch<V extends Vertex, E extends Edge<V>> extends D
         // the issue needs to be addressed through refactoring.
 
         EdgeWeigher weightf = weigher;
-        DefaultResult firstDijkstraS = (DefaultResult) super.internalSearch(
-                graph, src, dst, weigher, ALL_PATHS);
-        DefaultResult firstDijkstra = (DefaultResult) super.internalSearch(
-                graph, src, null, weigher, ALL_PATHS);
+        Result<V, E> firstDijkstraS = shortestPaths(graph, src, dst, weigher);
+        Result<V, E> firstDijkstra = shortestPaths(graph, src, null, weigher);
 
         //choose an arbitrary shortest path to run Suurballe on
         Path<V, E> shortPath = null;
@@ -71,8 +98,8 @@ public class SuurballeGraphSearch<V extends Vertex, E extends Edge<V>> extends D
                             weightf.getInitialWeight() :
                             (weightf.weight(edge).isNegative() ?
                                     new ScalarWeight(-1.0) :
-                                    weightf.weight(edge).merge(firstDijkstra.cost(edge.src()))
-                                            .subtract(firstDijkstra.cost(edge.dst())));
+                                    weightf.weight(edge).merge(firstDijkstra.costs().get(edge.src()))
+                                            .subtract(firstDijkstra.costs().get(edge.dst())));
                 }
 
                 @Override
@@ -89,8 +116,8 @@ public class SuurballeGraphSearch<V extends Vertex, E extends Edge<V>> extends D
             EdgeWeigher<V, E> modified2 = new EdgeWeigher<V, E>() {
                 @Override
                 public Weight weight(E edge) {
-                    return weightf.weight(edge).merge(firstDijkstra.cost(edge.src()))
-                            .subtract(firstDijkstra.cost(edge.dst()));
+                    return weightf.weight(edge).merge(firstDijkstra.costs().get(edge.src()))
+                            .subtract(firstDijkstra.costs().get(edge.dst()));
                 }
 
                 @Override
@@ -117,8 +144,9 @@ public class SuurballeGraphSearch<V extends Vertex, E extends Edge<V>> extends D
             }
 
             //rerun dijkstra on the temporary graph to get a second path
-            Result<V, E> secondDijkstra = new DijkstraGraphSearch<V, E>()
-                    .search(gt, src, dst, modified, ALL_PATHS);
+            Result<V, E> secondDijkstra = shortestPathSearch != null ?
+                    shortestPathSearch.search(gt, src, dst, modified, ALL_PATHS) :
+                    new DijkstraGraphSearch<V, E>().search(gt, src, dst, modified, ALL_PATHS);
 
             Path<V, E> residualShortPath = null;
             if (secondDijkstra.paths().isEmpty()) {
@@ -147,13 +175,11 @@ public class SuurballeGraphSearch<V extends Vertex, E extends Edge<V>> extends D
                     }
                 }
                 //Actually build the final result
-                DefaultResult lastSearch = (DefaultResult)
-                        super.internalSearch(roundTrip, src, dst, weigher, ALL_PATHS);
+                Result<V, E> lastSearch = shortestPaths(roundTrip, src, dst, weigher);
                 Path<V, E> primary = lastSearch.paths().iterator().next();
                 primary.edges().forEach(roundTrip::removeEdge);
 
-                Set<Path<V, E>> backups = super.internalSearch(roundTrip, src, dst,
-                        weigher, ALL_PATHS).paths();
+                Set<Path<V, E>> backups = shortestPaths(roundTrip, src, dst, weigher).paths();
 
                 // Find first backup path that does not share any nodes with the primary
                 for (Path<V, E> backup : backups) {
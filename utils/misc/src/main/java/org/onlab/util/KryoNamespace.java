@@ -33,8 +33,6 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 import org.slf4j.Logger;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -42,6 +40,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -72,6 +75,17 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     private static final String NO_NAME = "(no name)";
 
+    // Outputs whose buffer grew beyond this size are not returned to the pools
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4 * Runtime.getRuntime().availableProcessors();
+
+    private static final BufferPool<Output> OUTPUTS =
+            new BufferPool<>(() -> new Output(DEFAULT_BUFFER_SIZE, -1));
+    private static final BufferPool<ByteBufferOutput> DIRECT_OUTPUTS =
+            new BufferPool<>(() -> new ByteBufferOutput(DEFAULT_BUFFER_SIZE, -1));
+    private static final BufferPool<Input> INPUTS =
+            new BufferPool<>(() -> new Input(DEFAULT_BUFFER_SIZE));
+
     private static final Logger log = getLogger(KryoNamespace.class);
 
     private final KryoPool pool = new KryoPool.Builder(this)
@@ -299,19 +313,25 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     /**
      * Serializes given object to byte array using Kryo instance in pool.
+     * <p>
+     * The object is written to a pooled output buffer and only the serialized
+     * bytes are copied to the returned array.
      *
      * @param obj Object to serialize
-     * @param bufferSize maximum size of serialized bytes
+     * @param bufferSize initial size of the output buffer
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bufferSize);
-        Output out = new Output(outputStream);
-        return pool.run(kryo -> {
+        Output out = bufferSize == DEFAULT_BUFFER_SIZE ?
+                OUTPUTS.borrow() : new Output(bufferSize, -1);
+        Kryo kryo = borrow();
+        try {
             kryo.writeClassAndObject(out, obj);
-            out.flush();
-            return outputStream.toByteArray();
-        });
+            return out.toBytes();
+        } finally {
+            release(kryo);
+            releaseOutput(out);
+        }
     }
 
     /**
@@ -331,6 +351,37 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
         }
     }
 
+    /**
+     * Serializes given object to a pooled direct byte buffer using Kryo
+     * instance in pool, and applies the given function to the serialized bytes.
+     * <p>
+     * The buffer lent to the function holds the serialized bytes between its
+     * position and limit, and is reused as soon as the function returns: the
+     * function must neither retain the buffer nor hand it to another thread.
+     * This avoids allocating a byte array for every serialized object when the
+     * bytes are consumed in place, for instance to hash them. APIs taking
+     * byte array payloads, such as cluster messaging, still go through
+     * {@link #serialize(Object)}.
+     *
+     * @param obj Object to serialize
+     * @param function function consuming the serialized bytes
+     * @param <T> function result type
+     * @return function result
+     */
+    public <T> T serialize(final Object obj, final Function<ByteBuffer, T> function) {
+        ByteBufferOutput out = DIRECT_OUTPUTS.borrow();
+        Kryo kryo = borrow();
+        try {
+            kryo.writeClassAndObject(out, obj);
+            ByteBuffer bytes = out.getByteBuffer().duplicate();
+            bytes.flip();
+            return function.apply(bytes);
+        } finally {
+            release(kryo);
+            releaseOutput(out);
+        }
+    }
+
     /**
      * Serializes given object to OutputStream using Kryo instance in pool.
      *
@@ -349,13 +400,17 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @param bufferSize size of the buffer in front of the stream
      */
     public void serialize(final Object obj, final OutputStream stream, final int bufferSize) {
-        ByteBufferOutput out = new ByteBufferOutput(stream, bufferSize);
+        Output out = bufferSize == DEFAULT_BUFFER_SIZE ?
+                OUTPUTS.borrow() : new Output(bufferSize, -1);
+        out.setOutputStream(stream);
         Kryo kryo = borrow();
         try {
             kryo.writeClassAndObject(out, obj);
             out.flush();
         } finally {
             release(kryo);
+            out.setOutputStream(null);
+            releaseOutput(out);
         }
     }
 
@@ -367,7 +422,21 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return deserialized Object
      */
     public <T> T deserialize(final byte[] bytes) {
-        Input in = new Input(new ByteArrayInputStream(bytes));
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Deserializes given slice of a byte array to Object using Kryo instance
+     * in pool. The bytes are read in place, without being copied.
+     *
+     * @param bytes array holding the serialized bytes
+     * @param offset offset of the serialized bytes in the array
+     * @param length number of serialized bytes
+     * @param <T> deserialized Object type
+     * @return deserialized Object
+     */
+    public <T> T deserialize(final byte[] bytes, final int offset, final int length) {
+        Input in = new Input(bytes, offset, length);
         Kryo kryo = borrow();
         try {
             @SuppressWarnings("unchecked")
@@ -380,6 +449,7 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     /**
      * Deserializes given byte buffer to Object using Kryo instance in pool.
+     * The bytes are read in place, without being copied.
      *
      * @param buffer input with serialized bytes
      * @param <T> deserialized Object type
@@ -417,7 +487,8 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @param bufferSize size of the buffer in front of the stream
      */
     public <T> T deserialize(final InputStream stream, final int bufferSize) {
-        ByteBufferInput in = new ByteBufferInput(stream, bufferSize);
+        Input in = bufferSize == DEFAULT_BUFFER_SIZE ? INPUTS.borrow() : new Input(bufferSize);
+        in.setInputStream(stream);
         Kryo kryo = borrow();
         try {
             @SuppressWarnings("unchecked")
@@ -425,6 +496,24 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
             return obj;
         } finally {
             release(kryo);
+            in.setInputStream(null);
+            if (in.getBuffer().length == DEFAULT_BUFFER_SIZE) {
+                INPUTS.release(in);
+            }
+        }
+    }
+
+    // Returns a pooled output, unless it grew too large to be kept around.
+    private static void releaseOutput(Output out) {
+        if (out instanceof ByteBufferOutput) {
+            ByteBufferOutput directOut = (ByteBufferOutput) out;
+            if (directOut.getByteBuffer().capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                directOut.clear();
+                DIRECT_OUTPUTS.release(directOut);
+            }
+        } else if (out.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            out.clear();
+            OUTPUTS.release(out);
         }
     }
 
@@ -551,6 +640,39 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
                     .toString();
     }
 
+    /**
+     * Bounded pool of Kryo inputs and outputs, shared by all namespaces as
+     * their buffers do not depend on the registered classes.
+     *
+     * @param <T> pooled input or output type
+     */
+    private static final class BufferPool<T> {
+        private final Queue<T> buffers = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Supplier<T> factory;
+
+        BufferPool(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        T borrow() {
+            T buffer = buffers.poll();
+            if (buffer == null) {
+                return factory.get();
+            }
+            size.decrementAndGet();
+            return buffer;
+        }
+
+        void release(T buffer) {
+            if (size.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+                buffers.offer(buffer);
+            } else {
+                size.decrementAndGet();
+            }
+        }
+    }
+
     static final class RegistrationBlock {
         private final int begin;
         private final ImmutableList<Pair<Class<?>[], Serializer<?>>> types;
@@ -97,4 +97,30 @@ public class BreadthFirstSearchTest extends AbstractGraphPathSearchTest {
         }
     }
 
+    // Validates that the search finds paths of the same costs as the
+    // reference search, between all vertexes of the graph; and also the
+    // very same paths unless any path of the same cost may be chosen.
+    protected void executeEquivalentSearch(GraphPathSearch<TestVertex, TestEdge> reference,
+                                           GraphPathSearch<TestVertex, TestEdge> search,
+                                           Graph<TestVertex, TestEdge> graph,
+                                           EdgeWeigher<TestVertex, TestEdge> weigher,
+                                           boolean samePaths) {
+        for (TestVertex src : graph.getVertexes()) {
+            assertEquals("incorrect costs",
+                         reference.search(graph, src, null, weigher, ALL_PATHS).costs(),
+                         search.search(graph, src, null, weigher, ALL_PATHS).costs());
+            for (TestVertex dst : graph.getVertexes()) {
+                Set<Path<TestVertex, TestEdge>> expected =
+                        reference.search(graph, src, dst, weigher, ALL_PATHS).paths();
+                Set<Path<TestVertex, TestEdge>> paths =
+                        search.search(graph, src, dst, weigher, ALL_PATHS).paths();
+                if (samePaths) {
+                    assertEquals("incorrect paths", expected, paths);
+                } else {
+                    assertEquals("incorrect paths count", expected.size(), paths.size());
+                }
+            }
+        }
+    }
+
 }
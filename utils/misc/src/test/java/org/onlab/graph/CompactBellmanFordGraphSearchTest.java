@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableSet.of;
+
+/**
+ * Test of the compact Bellman-Ford algorithm.
+ */
+public class CompactBellmanFordGraphSearchTest extends BellmanFordGraphSearchTest {
+
+    @Override
+    protected AbstractGraphPathSearch<TestVertex, TestEdge> graphSearch() {
+        return new CompactBellmanFordGraphSearch<>();
+    }
+
+    @Test
+    public void scalarWeights() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        executeEquivalentSearch(new BellmanFordGraphSearch<>(), graphSearch(), graph, scalarWeigher, true);
+    }
+
+    @Test
+    public void scalarWeightsWithNegatives() {
+        graph = new AdjacencyListsGraph<>(of(A, B, C, D, E),
+                of(new TestEdge(A, B, W1),
+                        new TestEdge(B, C, W1),
+                        new TestEdge(C, D, W1),
+                        new TestEdge(D, E, W1),
+                        new TestEdge(A, B, new TestDoubleWeight(-4)),
+                        new TestEdge(A, C, new TestDoubleWeight(-3)),
+                        new TestEdge(A, D, NW1),
+                        new TestEdge(D, C, NW1)));
+        executeEquivalentSearch(new BellmanFordGraphSearch<>(), graphSearch(), graph, scalarWeigher, true);
+    }
+
+    @Test
+    public void scalarWeightsWithNegativeCycles() {
+        Set<TestVertex> vertexes = new HashSet<>(vertexes());
+        vertexes.add(Z);
+        Set<TestEdge> edges = new HashSet<>(edges());
+        edges.add(new TestEdge(G, Z, new TestDoubleWeight(1.0)));
+        edges.add(new TestEdge(Z, G, new TestDoubleWeight(-2.0)));
+        graph = new AdjacencyListsGraph<>(vertexes, edges);
+        executeEquivalentSearch(new BellmanFordGraphSearch<>(), graphSearch(), graph, scalarWeigher, true);
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+/**
+ * Test of the compact BFS algorithm.
+ */
+public class CompactBreadthFirstSearchTest extends BreadthFirstSearchTest {
+
+    @Override
+    protected AbstractGraphPathSearch<TestVertex, TestEdge> graphSearch() {
+        return new CompactBreadthFirstSearch<>();
+    }
+
+    @Test
+    public void scalarWeights() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        executeEquivalentSearch(new BreadthFirstSearch<>(), graphSearch(), graph, null, false);
+    }
+
+}
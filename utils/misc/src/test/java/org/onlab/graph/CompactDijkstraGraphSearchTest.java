@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableSet.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Test of the compact Dijkstra algorithm.
+ */
+public class CompactDijkstraGraphSearchTest extends DijkstraGraphSearchTest {
+
+    @Override
+    protected AbstractGraphPathSearch<TestVertex, TestEdge> graphSearch() {
+        return new CompactDijkstraGraphSearch<>();
+    }
+
+    @Test
+    public void scalarWeights() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        executeEquivalentSearch(new DijkstraGraphSearch<>(), graphSearch(), graph, scalarWeigher, true);
+        executeEquivalentSearch(new DijkstraGraphSearch<>(), graphSearch(), graph, null, true);
+    }
+
+    @Test
+    public void scalarWeightsWithNonViableEdges() {
+        Set<TestEdge> edges = new HashSet<>(edges());
+        edges.add(new TestEdge(A, H, TestDoubleWeight.NON_VIABLE_WEIGHT));
+        edges.add(new TestEdge(C, G, new TestDoubleWeight(-1)));
+        graph = new AdjacencyListsGraph<>(vertexes(), edges);
+        executeEquivalentSearch(new DijkstraGraphSearch<>(), graphSearch(), graph, scalarWeigher, true);
+    }
+
+    @Test
+    public void compactShortestPathTree() {
+        graph = CompactGraph.of(new AdjacencyListsGraph<>(of(A, B, C, D, E),
+                of(new TestEdge(A, B, W1),
+                        new TestEdge(A, C, W1),
+                        new TestEdge(B, D, W1),
+                        new TestEdge(C, D, W1),
+                        new TestEdge(D, E, W2),
+                        new TestEdge(A, E, W5))));
+        CompactDijkstraGraphSearch<TestVertex, TestEdge> search = new CompactDijkstraGraphSearch<>();
+        GraphPathSearch.Result<TestVertex, TestEdge> tree = search.searchTree(graph, A, scalarWeigher);
+        assertTrue("compact result expected", tree instanceof CompactGraphPathSearch.CompactResult);
+        assertEquals("incorrect cost", new ScalarWeight(4.0), tree.costs().get(E));
+        assertEquals("incorrect parents", of(new TestEdge(B, D, W1), new TestEdge(C, D, W1)),
+                     tree.parents().get(D));
+
+        // Paths built off the tree match those of a direct search
+        for (TestVertex dst : of(B, D, E)) {
+            assertEquals("incorrect paths", search.search(graph, A, dst, scalarWeigher, ALL_PATHS).paths(),
+                         search.buildPaths(tree, dst, ALL_PATHS));
+        }
+        assertEquals("incorrect paths count", 1, search.buildPaths(tree, D, 1).size());
+        assertEquals("no paths expected", 0, search.buildPaths(tree, A, ALL_PATHS).size());
+
+        // Compact results only build their paths when requested
+        assertEquals("incorrect paths", search.search(graph, A, null, scalarWeigher, ALL_PATHS).paths(),
+                     tree.paths());
+
+        // Non-scalar weights fall back to the regular search
+        tree = search.searchTree(graph, A, weigher);
+        assertEquals("incorrect cost", new TestDoubleWeight(4.0), tree.costs().get(E));
+        assertEquals("incorrect paths count", 2, search.buildPaths(tree, E, ALL_PATHS).size());
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.testing.EqualsTester;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests of the compact graph implementation.
+ */
+public class CompactGraphTest {
+
+    private static final TestVertex A = new TestVertex("A");
+    private static final TestVertex B = new TestVertex("B");
+    private static final TestVertex C = new TestVertex("C");
+    private static final TestVertex D = new TestVertex("D");
+    private static final TestVertex E = new TestVertex("E");
+    private static final TestVertex F = new TestVertex("F");
+    private static final TestVertex G = new TestVertex("G");
+
+    private final Set<TestEdge> edges =
+            ImmutableSet.of(new TestEdge(A, B),
+                            new TestEdge(B, C),
+                            new TestEdge(C, D),
+                            new TestEdge(D, A),
+                            new TestEdge(B, D));
+
+    @Test
+    public void equality() {
+        Set<TestVertex> vertexes = ImmutableSet.of(A, B, C, D, E, F);
+        Set<TestVertex> vertexes2 = ImmutableSet.of(A, B, C, D, E, F, G);
+
+        CompactGraph<TestVertex, TestEdge> graph =
+                CompactGraph.of(new AdjacencyListsGraph<>(vertexes, edges));
+        CompactGraph<TestVertex, TestEdge> same =
+                CompactGraph.of(new AdjacencyListsGraph<>(vertexes, edges));
+        CompactGraph<TestVertex, TestEdge> different =
+                CompactGraph.of(new AdjacencyListsGraph<>(vertexes2, edges));
+
+        new EqualsTester()
+                .addEqualityGroup(graph, same)
+                .addEqualityGroup(different)
+                .testEquals();
+        assertSame("graph should not be compacted again", graph, CompactGraph.of(graph));
+    }
+
+    @Test
+    public void basics() {
+        Set<TestVertex> vertexes = ImmutableSet.of(A, B, C, D, E, F);
+        CompactGraph<TestVertex, TestEdge> graph =
+                CompactGraph.of(new AdjacencyListsGraph<>(vertexes, edges));
+        assertEquals("incorrect vertex count", 6, graph.vertexCount());
+        assertEquals("incorrect edge count", 5, graph.edgeCount());
+        assertEquals("incorrect vertexes", vertexes, graph.getVertexes());
+        assertEquals("incorrect edges", edges, graph.getEdges());
+
+        assertEquals("incorrect egress edge count", 1, graph.getEdgesFrom(A).size());
+        assertEquals("incorrect ingress edge count", 1, graph.getEdgesTo(A).size());
+        assertEquals("incorrect ingress edge count", 1, graph.getEdgesTo(C).size());
+        assertEquals("incorrect egress edge count", 2, graph.getEdgesFrom(B).size());
+        assertEquals("incorrect ingress edge count", 2, graph.getEdgesTo(D).size());
+        assertEquals("incorrect egress edge count", 0, graph.getEdgesFrom(E).size());
+        assertEquals("incorrect egress edge count", 0, graph.getEdgesFrom(G).size());
+
+        for (int i = 0; i < graph.vertexCount(); i++) {
+            assertEquals("incorrect vertex index", i, graph.index(graph.vertex(i)));
+        }
+        assertEquals("unexpected vertex index", -1, graph.index(G));
+        for (int i = 0; i < graph.edgeCount(); i++) {
+            TestEdge edge = graph.edge(i);
+            assertEquals("incorrect source", edge.src(), graph.vertex(graph.sources[i]));
+            assertEquals("incorrect destination", edge.dst(), graph.vertex(graph.destinations[i]));
+        }
+    }
+
+    @Test
+    public void edgeEndpointsAreVertexes() {
+        CompactGraph<TestVertex, TestEdge> graph =
+                CompactGraph.of(new AdjacencyListsGraph<>(ImmutableSet.of(A, B), edges));
+        assertEquals("incorrect vertex count", 4, graph.vertexCount());
+        assertEquals("incorrect ingress edge count", 2, graph.getEdgesTo(D).size());
+    }
+
+}
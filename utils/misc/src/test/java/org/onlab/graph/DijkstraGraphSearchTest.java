@@ -26,6 +26,7 @@ import java.util.Set;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.assertEquals;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
 
 /**
  * Test of the Dijkstra algorithm.
@@ -121,6 +122,30 @@ public class DijkstraGraphSearchTest extends BreadthFirstSearchTest {
         executeSearch(graphSearch(), graph, D, A, weigher, 0, null);
     }
 
+    @Test
+    public void shortestPathTree() {
+        graph = new AdjacencyListsGraph<>(of(A, B, C, D, E),
+                of(new TestEdge(A, B, W1),
+                        new TestEdge(A, C, W1),
+                        new TestEdge(B, D, W1),
+                        new TestEdge(C, D, W1),
+                        new TestEdge(D, E, W2),
+                        new TestEdge(A, E, W5)));
+        DijkstraGraphSearch<TestVertex, TestEdge> search = new DijkstraGraphSearch<>();
+        GraphPathSearch.Result<TestVertex, TestEdge> tree = search.searchTree(graph, A, weigher);
+        assertEquals("no paths expected", 0, tree.paths().size());
+        assertEquals("incorrect cost", new TestDoubleWeight(4.0), tree.costs().get(E));
+
+        // Paths built off the tree match those of a direct search
+        for (TestVertex dst : of(B, D, E)) {
+            assertEquals("incorrect paths", search.search(graph, A, dst, weigher, ALL_PATHS).paths(),
+                         search.buildPaths(tree, dst, ALL_PATHS));
+        }
+        assertEquals("incorrect paths count", 1, search.buildPaths(tree, D, 1).size());
+        assertEquals("no paths expected", 0, search.buildPaths(tree, A, ALL_PATHS).size());
+        assertEquals("no paths expected", 0,
+                     search.buildPaths(search.searchTree(graph, E, weigher), A, ALL_PATHS).size());
+    }
 
     @Test
     public void manualDoubleWeights() {
@@ -85,6 +85,28 @@ public class GraphTest {
                 }
             };
 
+    /**
+     * EdgeWeigher which yields scalar weights of the same value as the test
+     * weights of the edges.
+     */
+    protected final EdgeWeigher<TestVertex, TestEdge> scalarWeigher =
+            new EdgeWeigher<TestVertex, TestEdge>() {
+                @Override
+                public Weight weight(TestEdge edge) {
+                    return new ScalarWeight(((TestDoubleWeight) edge.weight()).value());
+                }
+
+                @Override
+                public Weight getInitialWeight() {
+                    return DefaultEdgeWeigher.DEFAULT_INITIAL_WEIGHT;
+                }
+
+                @Override
+                public Weight getNonViableWeight() {
+                    return ScalarWeight.NON_VIABLE_WEIGHT;
+                }
+            };
+
     protected void printPaths(Set<Path<TestVertex, TestEdge>> paths) {
         for (Path p : paths) {
             System.out.println(p);
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of the indexed int heap.
+ */
+public class IntHeapTest {
+
+    @Test
+    public void basics() {
+        double[] keys = {3.0, 1.0, 2.0, 5.0};
+        IntHeap heap = new IntHeap(keys);
+        assertTrue("should be empty", heap.isEmpty());
+        heap.add(0);
+        heap.add(1);
+        heap.add(2);
+        assertEquals("incorrect size", 3, heap.size());
+        assertTrue("should contain item", heap.contains(2));
+        assertFalse("should not contain item", heap.contains(3));
+
+        keys[0] = 0.5;
+        heap.decrease(0);
+        keys[3] = 1.5;
+        heap.decrease(3);
+        assertEquals("incorrect item", 0, heap.poll());
+        assertEquals("incorrect item", 1, heap.poll());
+        assertEquals("incorrect item", 3, heap.poll());
+        assertEquals("incorrect item", 2, heap.poll());
+        assertTrue("should be empty", heap.isEmpty());
+        assertFalse("should not contain item", heap.contains(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateItem() {
+        IntHeap heap = new IntHeap(new double[2]);
+        heap.add(1);
+        heap.add(1);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void emptyPoll() {
+        new IntHeap(new double[2]).poll();
+    }
+
+    @Test
+    public void randomKeys() {
+        Random random = new Random(42);
+        double[] keys = new double[1000];
+        IntHeap heap = new IntHeap(keys);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextDouble() * 100;
+            heap.add(i);
+        }
+        for (int i = 0; i < keys.length; i += 3) {
+            keys[i] -= random.nextDouble() * 100;
+            heap.decrease(i);
+        }
+        List<Double> polled = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            polled.add(keys[heap.poll()]);
+        }
+        assertEquals("incorrect size", keys.length, polled.size());
+        for (int i = 1; i < polled.size(); i++) {
+            assertTrue("keys out of order", polled.get(i - 1) <= polled.get(i));
+        }
+    }
+
+}
@@ -85,6 +85,27 @@ public class SuurballeGraphSearchTest extends BreadthFirstSearchTest {
         assertEquals("incorrect disjoint paths per path", 2, dpp.size());
     }
 
+    @Test
+    public void compactShortestPathSearch() {
+        Graph<TestVertex, TestEdge> graph = new AdjacencyListsGraph<>(of(A, B, C, D, E),
+                                                                      of(new TestEdge(A, B, W1),
+                                                                         new TestEdge(B, E, W1),
+                                                                         new TestEdge(A, C, W1),
+                                                                         new TestEdge(C, E, W1),
+                                                                         new TestEdge(A, D, W1),
+                                                                         new TestEdge(D, E, W1),
+                                                                         new TestEdge(A, E, W2)));
+        GraphPathSearch<TestVertex, TestEdge> search =
+                new SuurballeGraphSearch<>(new CompactDijkstraGraphSearch<>());
+        Set<Path<TestVertex, TestEdge>> paths =
+                search.search(graph, A, E, scalarWeigher, GraphPathSearch.ALL_PATHS).paths();
+        assertEquals("incorrect paths", graphSearch().search(graph, A, E, scalarWeigher,
+                                                             GraphPathSearch.ALL_PATHS).paths(), paths);
+        assertEquals("incorrect paths count", 3, paths.size());
+        DisjointPathPair<TestVertex, TestEdge> dpp = (DisjointPathPair<TestVertex, TestEdge>) paths.iterator().next();
+        assertEquals("incorrect disjoint paths per path", 2, dpp.size());
+    }
+
     @Test
     public void differingPrimaryAndBackupPathLengths() {
         Graph<TestVertex, TestEdge> graph = new AdjacencyListsGraph<>(of(A, B, C, D, E),
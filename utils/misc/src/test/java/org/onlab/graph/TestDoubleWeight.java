@@ -47,6 +47,14 @@ public class TestDoubleWeight implements Weight {
         this.value = value;
     }
 
+    /**
+     * Returns the double value of the weight.
+     * @return double value
+     */
+    public double value() {
+        return value;
+    }
+
     @Override
     public Weight merge(Weight otherWeight) {
         return new TestDoubleWeight(value + ((TestDoubleWeight) otherWeight).value);